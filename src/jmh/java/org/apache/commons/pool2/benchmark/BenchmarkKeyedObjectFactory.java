@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.benchmark;
+
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+/**
+ * A keyed factory whose life-cycle methods do no work, so that benchmarks
+ * measure the cost of the pool rather than the cost of the pooled objects.
+ */
+public class BenchmarkKeyedObjectFactory
+        extends BaseKeyedPooledObjectFactory<Integer, Object> {
+
+    @Override
+    public Object create(final Integer key) {
+        return new Object();
+    }
+
+    @Override
+    public PooledObject<Object> wrap(final Object value) {
+        return new DefaultPooledObject<Object>(value);
+    }
+}
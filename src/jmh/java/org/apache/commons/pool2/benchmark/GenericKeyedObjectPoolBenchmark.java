@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.KeyedObjectPool;
+import org.apache.commons.pool2.PoolUtils;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures borrowing an object from a {@link GenericKeyedObjectPool} and
+ * returning it immediately, both directly and through the wrappers provided
+ * by {@link PoolUtils}. Each thread cycles through the keys.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenericKeyedObjectPoolBenchmark {
+
+    @Param({"GenericKeyedObjectPool", "synchronizedPool", "erodingPool"})
+    public String implementation;
+
+    @Param({"true", "false"})
+    public boolean lifo;
+
+    @Param({"false", "true"})
+    public boolean fairness;
+
+    @Param({"false", "true"})
+    public boolean testOnBorrow;
+
+    @Param({"1", "16"})
+    public int keys;
+
+    private KeyedObjectPool<Integer, Object> pool;
+    private Integer[] keyArray;
+
+    @Setup
+    public void setUp() throws Exception {
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setLifo(lifo);
+        config.setFairness(fairness);
+        config.setTestOnBorrow(testOnBorrow);
+        config.setMaxTotal(-1);
+        config.setJmxEnabled(false);
+        final GenericKeyedObjectPool<Integer, Object> genericPool =
+                new GenericKeyedObjectPool<Integer, Object>(
+                        new BenchmarkKeyedObjectFactory(), config);
+        if ("GenericKeyedObjectPool".equals(implementation)) {
+            pool = genericPool;
+        } else if ("synchronizedPool".equals(implementation)) {
+            pool = PoolUtils.synchronizedPool(genericPool);
+        } else if ("erodingPool".equals(implementation)) {
+            pool = PoolUtils.erodingPool(genericPool);
+        } else {
+            throw new IllegalArgumentException(
+                    "Unknown implementation: " + implementation);
+        }
+        keyArray = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            keyArray[i] = Integer.valueOf(i);
+            PoolUtils.prefill(pool, keyArray[i],
+                    GenericKeyedObjectPoolConfig.DEFAULT_MAX_TOTAL_PER_KEY);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    /**
+     * The position of a benchmark thread in the cycle of keys.
+     */
+    @State(Scope.Thread)
+    public static class KeyCursor {
+        int next;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object borrowReturn(final KeyCursor cursor) throws Exception {
+        return borrowAndReturn(cursor);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object borrowReturnContended(final KeyCursor cursor) throws Exception {
+        return borrowAndReturn(cursor);
+    }
+
+    private Object borrowAndReturn(final KeyCursor cursor) throws Exception {
+        final Integer key = keyArray[cursor.next];
+        cursor.next = (cursor.next + 1) % keyArray.length;
+        final Object obj = pool.borrowObject(key);
+        pool.returnObject(key, obj);
+        return obj;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.PoolUtils;
+import org.apache.commons.pool2.impl.AbandonedConfig;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures borrowing an object from a {@link GenericObjectPool} and returning
+ * it immediately, for the configuration options that affect the cost of the
+ * borrow and return paths.
+ * <p>
+ * Each configuration is measured by a single thread and by one thread per
+ * processor. Throughput mode reports operations per second and sample time
+ * mode reports latency percentiles. Run with <code>-prof gc</code>, as the
+ * <code>benchmark</code> profile does, to report the allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenericObjectPoolBenchmark {
+
+    @Param({"true", "false"})
+    public boolean lifo;
+
+    @Param({"false", "true"})
+    public boolean fairness;
+
+    @Param({"false", "true"})
+    public boolean testOnBorrow;
+
+    @Param({"false", "true"})
+    public boolean abandoned;
+
+    @Param({"8"})
+    public int maxTotal;
+
+    private GenericObjectPool<Object> pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setLifo(lifo);
+        config.setFairness(fairness);
+        config.setTestOnBorrow(testOnBorrow);
+        config.setMaxTotal(maxTotal);
+        config.setMaxIdle(maxTotal);
+        config.setJmxEnabled(false);
+        if (abandoned) {
+            final AbandonedConfig abandonedConfig = new AbandonedConfig();
+            abandonedConfig.setRemoveAbandonedOnBorrow(true);
+            abandonedConfig.setRemoveAbandonedTimeout(Integer.MAX_VALUE);
+            abandonedConfig.setLogAbandoned(true);
+            pool = new GenericObjectPool<Object>(new BenchmarkObjectFactory(),
+                    config, abandonedConfig);
+        } else {
+            pool = new GenericObjectPool<Object>(new BenchmarkObjectFactory(),
+                    config);
+        }
+        // Measure the steady state rather than object creation
+        PoolUtils.prefill(pool, maxTotal);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object borrowReturn() throws Exception {
+        return borrowAndReturn();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object borrowReturnContended() throws Exception {
+        return borrowAndReturn();
+    }
+
+    private Object borrowAndReturn() throws Exception {
+        final Object obj = pool.borrowObject();
+        pool.returnObject(obj);
+        return obj;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how {@link GenericKeyedObjectPool} scales with the number of keys.
+ * <p>
+ * The pool is filled with one idle object per key, up to
+ * <code>maxTotal</code>, and the retained heap per key is printed once the
+ * pool has been filled. Borrowing threads pick keys from a Zipf distribution
+ * with the given skew, so a skew of zero spreads borrows evenly and larger
+ * skews concentrate them, and the lock contention, on a few hot keys. When
+ * <code>maxTotal</code> is less than the number of keys, borrowing a key
+ * with no idle objects has to clear the oldest idle objects of other keys
+ * first.
+ * <ul>
+ *  <li>{@code borrowReturn} and {@code borrowReturnContended} measure
+ *   throughput and, in sample time mode, borrow latency percentiles.</li>
+ *  <li>{@code borrowInvalidate} destroys every object it borrows, so each
+ *   call deregisters its key and the next call for the key registers it
+ *   again.</li>
+ *  <li>{@code evict} measures a single eviction run.</li>
+ *  <li>{@code clearOldest} measures one call on a full pool.</li>
+ * </ul>
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class KeyCardinalityBenchmark {
+
+    /**
+     * The pool under test, shared by all the benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class PoolState {
+
+        @Param({"10", "1000", "100000", "1000000"})
+        public int keys;
+
+        @Param({"0", "0.99"})
+        public double skew;
+
+        @Param({"-1", "1000"})
+        public int maxTotal;
+
+        GenericKeyedObjectPool<Integer, Object> pool;
+        Integer[] keyArray;
+        ZipfSampler sampler;
+
+        private final AtomicLong seeds = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            keyArray = new Integer[keys];
+            for (int i = 0; i < keys; i++) {
+                keyArray[i] = Integer.valueOf(i);
+            }
+            sampler = new ZipfSampler(keys, skew);
+
+            final GenericKeyedObjectPoolConfig config =
+                    new GenericKeyedObjectPoolConfig();
+            config.setMaxTotal(maxTotal);
+            config.setJmxEnabled(false);
+            final long before = usedHeap();
+            pool = new GenericKeyedObjectPool<Integer, Object>(
+                    new BenchmarkKeyedObjectFactory(), config);
+            final int filled = fill();
+            final long after = usedHeap();
+            System.out.println("Retained heap per key: " +
+                    (after - before) / filled + " bytes (" + filled + " keys)");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.close();
+        }
+
+        /**
+         * Add an idle object for each key that has none, up to maxTotal
+         * objects in total.
+         *
+         * @return the number of keys with an idle object
+         *
+         * @throws Exception if an object cannot be created
+         */
+        int fill() throws Exception {
+            final int limit = maxTotal < 0 ? keys : Math.min(keys, maxTotal);
+            for (int i = 0; i < limit; i++) {
+                if (pool.getNumIdle(keyArray[i]) == 0) {
+                    pool.addObject(keyArray[i]);
+                }
+            }
+            return limit;
+        }
+
+        long nextSeed() {
+            return seeds.incrementAndGet();
+        }
+
+        private static long usedHeap() {
+            final Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+
+    /**
+     * A fixed sequence of keys for each benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class KeySequence {
+
+        private static final int LENGTH = 1 << 16;
+
+        private int[] sequence;
+        private int next;
+
+        @Setup(Level.Trial)
+        public void setUp(final PoolState state) {
+            sequence = state.sampler.sequence(LENGTH, state.nextSeed());
+        }
+
+        Integer next(final PoolState state) {
+            final Integer key = state.keyArray[sequence[next]];
+            next = (next + 1) & (LENGTH - 1);
+            return key;
+        }
+    }
+
+    /**
+     * Restores the idle objects removed by {@code clearOldest} before each
+     * measurement.
+     */
+    @State(Scope.Benchmark)
+    public static class Refill {
+
+        @Setup(Level.Invocation)
+        public void refill(final PoolState state) throws Exception {
+            state.fill();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object borrowReturn(final PoolState state, final KeySequence keys)
+            throws Exception {
+        return borrowAndReturn(state, keys);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object borrowReturnContended(final PoolState state,
+            final KeySequence keys) throws Exception {
+        return borrowAndReturn(state, keys);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object borrowInvalidate(final PoolState state, final KeySequence keys)
+            throws Exception {
+        final Integer key = keys.next(state);
+        final Object obj = state.pool.borrowObject(key);
+        state.pool.invalidateObject(key, obj);
+        return obj;
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.AverageTime)
+    public void evict(final PoolState state) throws Exception {
+        state.pool.evict();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Measurement(iterations = 20)
+    public void clearOldest(final PoolState state, final Refill refill) {
+        state.pool.clearOldest();
+    }
+
+    private static Object borrowAndReturn(final PoolState state,
+            final KeySequence keys) throws Exception {
+        final Integer key = keys.next(state);
+        final Object obj = state.pool.borrowObject(key);
+        state.pool.returnObject(key, obj);
+        return obj;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.ObjectPool;
+import org.apache.commons.pool2.PoolUtils;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.commons.pool2.impl.SoftReferenceObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares borrowing an object and returning it immediately across the
+ * {@link ObjectPool} implementations and the wrappers provided by
+ * {@link PoolUtils}, each with its default configuration.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ObjectPoolBenchmark {
+
+    @Param({"GenericObjectPool", "SoftReferenceObjectPool", "synchronizedPool",
+            "erodingPool", "synchronizedPooledFactory"})
+    public String implementation;
+
+    private ObjectPool<Object> pool;
+
+    @Setup
+    public void setUp() throws Exception {
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setJmxEnabled(false);
+        if ("GenericObjectPool".equals(implementation)) {
+            pool = new GenericObjectPool<Object>(new BenchmarkObjectFactory(), config);
+        } else if ("SoftReferenceObjectPool".equals(implementation)) {
+            pool = new SoftReferenceObjectPool<Object>(new BenchmarkObjectFactory());
+        } else if ("synchronizedPool".equals(implementation)) {
+            pool = PoolUtils.synchronizedPool(new GenericObjectPool<Object>(
+                    new BenchmarkObjectFactory(), config));
+        } else if ("erodingPool".equals(implementation)) {
+            pool = PoolUtils.erodingPool(new GenericObjectPool<Object>(
+                    new BenchmarkObjectFactory(), config));
+        } else if ("synchronizedPooledFactory".equals(implementation)) {
+            pool = new GenericObjectPool<Object>(
+                    PoolUtils.synchronizedPooledFactory(new BenchmarkObjectFactory()),
+                    config);
+        } else {
+            throw new IllegalArgumentException(
+                    "Unknown implementation: " + implementation);
+        }
+        PoolUtils.prefill(pool, GenericObjectPoolConfig.DEFAULT_MAX_TOTAL);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object borrowReturn() throws Exception {
+        return borrowAndReturn();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object borrowReturnContended() throws Exception {
+        return borrowAndReturn();
+    }
+
+    private Object borrowAndReturn() throws Exception {
+        final Object obj = pool.borrowObject();
+        pool.returnObject(obj);
+        return obj;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Samples integers in the range <code>[0, n)</code> from a Zipf distribution
+ * in which the probability of <code>i</code> is proportional to
+ * <code>1 / (i + 1)^skew</code>. A skew of zero gives a uniform distribution.
+ * <p>
+ * The cumulative distribution is held in memory, so construction is O(n) and
+ * each sample is a binary search.
+ */
+class ZipfSampler {
+
+    private final double[] cdf;
+
+    /**
+     * Create a sampler.
+     *
+     * @param n    The number of values
+     * @param skew The exponent of the distribution, zero or greater
+     */
+    ZipfSampler(final int n, final double skew) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    /**
+     * @param random The source of randomness
+     * @return the next value
+     */
+    int sample(final Random random) {
+        final int i = Arrays.binarySearch(cdf, random.nextDouble());
+        if (i >= 0) {
+            return i;
+        }
+        // Rounding may leave the last entry fractionally below 1
+        return Math.min(-i - 1, cdf.length - 1);
+    }
+
+    /**
+     * Draw a fixed sequence of values so that benchmark loops do not pay
+     * for sampling.
+     *
+     * @param count The number of values
+     * @param seed  The seed for the source of randomness
+     *
+     * @return the values
+     */
+    int[] sequence(final int count, final long seed) {
+        final Random random = new Random(seed);
+        final int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = sample(random);
+        }
+        return values;
+    }
+}
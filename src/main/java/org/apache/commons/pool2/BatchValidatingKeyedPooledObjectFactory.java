@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2;
+
+import java.util.Collection;
+
+/**
+ * A {@link KeyedPooledObjectFactory} that can validate several instances for
+ * the same key at once, for example by sending a single pipelined request
+ * over every connection rather than waiting for each connection in turn.
+ * <p>
+ * Pools that test idle objects in bulk, such as the evictor of
+ * {@link org.apache.commons.pool2.impl.GenericKeyedObjectPool
+ * GenericKeyedObjectPool} when <code>testWhileIdle</code> is set, call
+ * {@link #validateObjects(Object, Collection)} once for each key instead of
+ * calling {@link #validateObject(Object, PooledObject)} for each instance.
+ * Instances that are validated individually, such as on borrow or return,
+ * continue to use {@link #validateObject(Object, PooledObject)}.
+ *
+ * @param <K> The type of keys managed by this factory.
+ * @param <V> Type of element managed by this factory.
+ *
+ * @see KeyedPooledObjectFactory
+ * @see BatchValidatingPooledObjectFactory
+ *
+ * @since 2.4.3
+ */
+public interface BatchValidatingKeyedPooledObjectFactory<K,V>
+        extends KeyedPooledObjectFactory<K,V> {
+
+    /**
+     * Ensures that each of the given instances is safe to be returned by the
+     * pool. Every instance has been {@link #activateObject activated}.
+     *
+     * @param key the key used when selecting the instances
+     * @param objects the {@code PooledObject}s wrapping the instances to be
+     *                validated
+     *
+     * @return the {@code PooledObject}s, from <code>objects</code>, wrapping
+     *         instances that are not valid and should be dropped from the
+     *         pool. An empty collection means every instance is valid.
+     */
+    Collection<PooledObject<V>> validateObjects(K key, Collection<PooledObject<V>> objects);
+}
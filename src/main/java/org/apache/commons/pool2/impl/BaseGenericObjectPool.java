@@ -22,9 +22,23 @@ import java.io.Writer;
 import java.lang.management.ManagementFactory;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.TimerTask;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.InstanceAlreadyExistsException;
@@ -36,6 +50,7 @@ import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 
 import org.apache.commons.pool2.BaseObject;
+import org.apache.commons.pool2.PoolUtils;
 import org.apache.commons.pool2.PooledObject;
 import org.apache.commons.pool2.SwallowedExceptionListener;
 
@@ -58,6 +73,15 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
      */
     public static final int MEAN_TIMING_STATS_CACHE_SIZE = 100;
 
+    /**
+     * The number of events that may be waiting for a
+     * {@link PoolEventListener} before further events are dropped, unless
+     * specified when the listener is set.
+     *
+     * @since 2.4.3
+     */
+    public static final int DEFAULT_POOL_EVENT_CAPACITY = 4096;
+
     // 配置属性
     private volatile int maxTotal =
             GenericKeyedObjectPoolConfig.DEFAULT_MAX_TOTAL;
@@ -67,6 +91,9 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
             BaseObjectPoolConfig.DEFAULT_MAX_WAIT_MILLIS;
     private volatile boolean lifo = BaseObjectPoolConfig.DEFAULT_LIFO;
     private final boolean fairness;
+    private final TimingWheel<PooledObject<T>> idleExpiryWheel;
+    private final int destroyThreads;
+    private final int destroyQueueCapacity;
     private volatile boolean testOnCreate =
             BaseObjectPoolConfig.DEFAULT_TEST_ON_CREATE;
     private volatile boolean testOnBorrow =
@@ -84,6 +111,20 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     private volatile long softMinEvictableIdleTimeMillis =
             BaseObjectPoolConfig.DEFAULT_SOFT_MIN_EVICTABLE_IDLE_TIME_MILLIS;
     private volatile EvictionPolicy<T> evictionPolicy;
+    private volatile int evictionTestThreads =
+            BaseObjectPoolConfig.DEFAULT_EVICTION_TEST_THREADS;
+    private volatile long evictionRunBudgetMillis =
+            BaseObjectPoolConfig.DEFAULT_EVICTION_RUN_BUDGET_MILLIS;
+    private volatile long maxLifetimeMillis =
+            BaseObjectPoolConfig.DEFAULT_MAX_LIFETIME_MILLIS;
+    private volatile long maxLifetimeJitterMillis =
+            BaseObjectPoolConfig.DEFAULT_MAX_LIFETIME_JITTER_MILLIS;
+    private volatile int maxUsesPerObject =
+            BaseObjectPoolConfig.DEFAULT_MAX_USES_PER_OBJECT;
+    private volatile long validationIntervalMillis =
+            BaseObjectPoolConfig.DEFAULT_VALIDATION_INTERVAL_MILLIS;
+    private volatile long validationTimeoutMillis =
+            BaseObjectPoolConfig.DEFAULT_VALIDATION_TIMEOUT_MILLIS;
 
 
     // Internal (primarily state) attributes
@@ -92,6 +133,13 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     final Object evictionLock = new Object();
     private Evictor evictor = null; // @GuardedBy("evictionLock")
     EvictionIterator evictionIterator = null; // @GuardedBy("evictionLock")
+    private ThreadPoolExecutor evictionTestExecutor = null; // @GuardedBy("evictionLock")
+    private final Object replacementLock = new Object();
+    private ThreadPoolExecutor replacementExecutor = null; // @GuardedBy("replacementLock")
+    private final Object destroyLock = new Object();
+    private ThreadPoolExecutor destroyExecutor = null; // @GuardedBy("destroyLock")
+    private final Object validationLock = new Object();
+    private ThreadPoolExecutor validationExecutor = null; // @GuardedBy("validationLock")
     /*
      * Class loader for evictor thread to use since, in a JavaEE or similar
      * environment, the context class loader for the evictor thread may not have
@@ -113,8 +161,18 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
     private final StatsStore activeTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
     private final StatsStore idleTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
     private final StatsStore waitTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
+    private final StatsStore validationTimes = new StatsStore(MEAN_TIMING_STATS_CACHE_SIZE);
+    private final AtomicLong validationTimeoutCount = new AtomicLong(0);
     private final AtomicLong maxBorrowWaitTimeMillis = new AtomicLong(0L);
+    private final BorrowOutcomeCounters borrowOutcomes =
+            new BorrowOutcomeCounters(BorrowOutcomeCounters.DEFAULT_STRIPES);
+    private volatile long lastEvictionRunDurationMillis = 0;
+    private volatile int lastEvictionRunTestedCount = 0;
+    private volatile int lastEvictionRunIdleCount = 0;
     private volatile SwallowedExceptionListener swallowedExceptionListener = null;
+    private volatile PoolTraceRecorder traceRecorder = null;
+    private volatile PoolEventDispatcher eventDispatcher = null;
+    private final Object eventDispatcherLock = new Object();
 
 
     /**
@@ -146,6 +204,16 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         }
 
         fairness = config.getFairness();
+
+        final long idleExpiryTickMillis = config.getIdleExpiryTickMillis();
+        if (idleExpiryTickMillis > 0) {
+            idleExpiryWheel = new TimingWheel<PooledObject<T>>(
+                    idleExpiryTickMillis, System.currentTimeMillis());
+        } else {
+            idleExpiryWheel = null;
+        }
+        destroyThreads = config.getDestroyThreads();
+        destroyQueueCapacity = Math.max(1, config.getDestroyQueueCapacity());
     }
 
 
@@ -315,6 +383,356 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         this.numTestsPerEvictionRun = numTestsPerEvictionRun;
     }
 
+    /**
+     * Returns the number of threads used to test idle objects during an
+     * eviction run when {@link #getTestWhileIdle() testWhileIdle} is enabled.
+     * If zero or negative (the default), the evictor activates, validates and
+     * passivates each object under test itself, one after another. If
+     * positive, the evictor first selects up to
+     * {@link #getNumTestsPerEvictionRun() numTestsPerEvictionRun} objects and
+     * then tests them concurrently on up to this many threads, waiting for
+     * all the tests to complete before the run ends. Objects remain in the
+     * eviction test state while they are being tested so they are not handed
+     * out to borrowing threads.
+     * <p>
+     * With parallel testing, an exception thrown by the factory's
+     * <code>validateObject</code> method is swallowed and the object is
+     * destroyed rather than the exception ending the eviction run.
+     * <p>
+     * This is ignored if the factory can validate several objects at once,
+     * in which case the objects selected for the run are validated with a
+     * single call to the factory.
+     *
+     * @return the number of threads used to test idle objects
+     *
+     * @see #setEvictionTestThreads(int)
+     * @see org.apache.commons.pool2.BatchValidatingPooledObjectFactory
+     * @see org.apache.commons.pool2.BatchValidatingKeyedPooledObjectFactory
+     *
+     * @since 2.4.3
+     */
+    public final int getEvictionTestThreads() {
+        return evictionTestThreads;
+    }
+
+    /**
+     * Sets the number of threads used to test idle objects during an eviction
+     * run when {@link #getTestWhileIdle() testWhileIdle} is enabled. Zero or a
+     * negative value means objects are tested one after another by the
+     * evictor.
+     *
+     * @param evictionTestThreads the number of threads used to test idle
+     *                            objects
+     *
+     * @see #getEvictionTestThreads()
+     *
+     * @since 2.4.3
+     */
+    public final void setEvictionTestThreads(final int evictionTestThreads) {
+        this.evictionTestThreads = evictionTestThreads;
+    }
+
+    /**
+     * Returns the maximum time an object may exist, measured from its
+     * creation, before it is destroyed. An object that has exceeded its
+     * lifetime is destroyed instead of being handed out when it would have
+     * been borrowed, instead of being made idle when it is returned, and by
+     * the idle object evictor when it examines the object, whether or not
+     * the object has been idle long enough to be evicted. A value of zero or
+     * less means objects are never destroyed because of their age.
+     * <p>
+     * The lifetime of each object is reduced by a pseudo-random amount of up
+     * to {@link #getMaxLifetimeJitterMillis() maxLifetimeJitterMillis}, which
+     * is fixed for the object, so objects created at the same time do not all
+     * expire at once.
+     *
+     * @return the maximum lifetime of an object in milliseconds
+     *
+     * @see #setMaxLifetimeMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public final long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    /**
+     * Sets the maximum time an object may exist, measured from its creation,
+     * before it is destroyed. Zero or a negative value means objects are never
+     * destroyed because of their age.
+     *
+     * @param maxLifetimeMillis the maximum lifetime of an object in
+     *                          milliseconds
+     *
+     * @see #getMaxLifetimeMillis()
+     *
+     * @since 2.4.3
+     */
+    public final void setMaxLifetimeMillis(final long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+    }
+
+    /**
+     * Returns the largest amount by which the lifetime of an object may be
+     * shorter than {@link #getMaxLifetimeMillis() maxLifetimeMillis}.
+     *
+     * @return the maximum jitter in milliseconds
+     *
+     * @see #setMaxLifetimeJitterMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public final long getMaxLifetimeJitterMillis() {
+        return maxLifetimeJitterMillis;
+    }
+
+    /**
+     * Sets the largest amount by which the lifetime of an object may be
+     * shorter than {@link #getMaxLifetimeMillis() maxLifetimeMillis}. Zero or
+     * a negative value gives every object the same lifetime.
+     *
+     * @param maxLifetimeJitterMillis the maximum jitter in milliseconds
+     *
+     * @see #getMaxLifetimeJitterMillis()
+     *
+     * @since 2.4.3
+     */
+    public final void setMaxLifetimeJitterMillis(final long maxLifetimeJitterMillis) {
+        this.maxLifetimeJitterMillis = maxLifetimeJitterMillis;
+    }
+
+    /**
+     * Returns the maximum number of times an object may be borrowed. When an
+     * object that has been borrowed this many times is returned it is
+     * destroyed rather than made idle, and a replacement is created in the
+     * background so that the returning thread does not wait for the factory.
+     * A value of zero or less means there is no limit.
+     * <p>
+     * The limit only applies to objects wrapped in {@link DefaultPooledObject}
+     * or a subclass of it, since {@link PooledObject} does not expose a borrow
+     * count. Objects from factories that use other {@link PooledObject}
+     * implementations are never recycled because of this limit.
+     *
+     * @return the maximum number of borrows of an object
+     *
+     * @see #setMaxUsesPerObject(int)
+     *
+     * @since 2.4.3
+     */
+    public final int getMaxUsesPerObject() {
+        return maxUsesPerObject;
+    }
+
+    /**
+     * Sets the maximum number of times an object may be borrowed before it is
+     * destroyed on return. Zero or a negative value means there is no limit.
+     * <p>
+     * Only objects wrapped in {@link DefaultPooledObject} or a subclass of it
+     * are recycled; see {@link #getMaxUsesPerObject()}.
+     *
+     * @param maxUsesPerObject the maximum number of borrows of an object
+     *
+     * @see #getMaxUsesPerObject()
+     *
+     * @since 2.4.3
+     */
+    public final void setMaxUsesPerObject(final int maxUsesPerObject) {
+        this.maxUsesPerObject = maxUsesPerObject;
+    }
+
+    /**
+     * Returns the minimum time between validations of an object on borrow. If
+     * positive and {@link #getTestOnBorrow() testOnBorrow} is set, an object
+     * is only validated when it is borrowed if this much time has passed
+     * since it was last successfully validated, whether on borrow, on return
+     * or by the evictor. If zero or negative (the default), every borrow
+     * validates the object.
+     * <p>
+     * Only objects that record when they were validated, which includes those
+     * wrapped in {@link DefaultPooledObject}, can skip validation.
+     *
+     * @return the validation interval in milliseconds
+     *
+     * @see #setValidationIntervalMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public final long getValidationIntervalMillis() {
+        return validationIntervalMillis;
+    }
+
+    /**
+     * Sets the minimum time between validations of an object on borrow. Zero
+     * or a negative value means every borrow validates the object when
+     * {@link #getTestOnBorrow() testOnBorrow} is set.
+     *
+     * @param validationIntervalMillis the validation interval in milliseconds
+     *
+     * @see #getValidationIntervalMillis()
+     *
+     * @since 2.4.3
+     */
+    public final void setValidationIntervalMillis(final long validationIntervalMillis) {
+        this.validationIntervalMillis = validationIntervalMillis;
+    }
+
+    /**
+     * Returns the maximum time that the pool will wait for the factory's
+     * {@code validateObject} method to complete. If positive, validation on
+     * borrow, on return and by the evictor is performed by a helper thread
+     * and an object whose validation does not complete within this time is
+     * treated as having failed validation and is destroyed. The helper thread
+     * is interrupted but the hung validation may continue to use the object
+     * while it is being destroyed. If zero or negative (the default),
+     * validation is performed by the calling thread and is not limited.
+     *
+     * @return the validation timeout in milliseconds
+     *
+     * @see #setValidationTimeoutMillis(long)
+     * @see #getValidationTimeoutCount()
+     *
+     * @since 2.4.3
+     */
+    public final long getValidationTimeoutMillis() {
+        return validationTimeoutMillis;
+    }
+
+    /**
+     * Sets the maximum time that the pool will wait for the factory's
+     * {@code validateObject} method to complete. Zero or a negative value
+     * means validation is not limited.
+     *
+     * @param validationTimeoutMillis the validation timeout in milliseconds
+     *
+     * @see #getValidationTimeoutMillis()
+     *
+     * @since 2.4.3
+     */
+    public final void setValidationTimeoutMillis(final long validationTimeoutMillis) {
+        this.validationTimeoutMillis = validationTimeoutMillis;
+    }
+
+    /**
+     * Returns the number of threads used to destroy objects that are discarded
+     * while being borrowed or returned. If positive, such objects are removed
+     * from the pool immediately and handed to these threads to be destroyed,
+     * so the borrowing or returning thread does not wait for the factory's
+     * {@code destroyObject} method. The objects continue to count towards the
+     * pool's capacity until they have been destroyed. If the queue of objects
+     * waiting to be destroyed is full, the calling thread destroys the object
+     * itself. Closing the pool waits for queued objects to be destroyed.
+     * <p>
+     * If zero or negative (the default), objects are destroyed by the calling
+     * thread. Objects destroyed by the evictor, by {@code invalidateObject}
+     * and by {@code clear} are always destroyed by the calling thread.
+     * <p>
+     * This is set when the pool is created and cannot be changed.
+     *
+     * @return the number of destroy threads
+     *
+     * @see BaseObjectPoolConfig#setDestroyThreads(int)
+     *
+     * @since 2.4.3
+     */
+    public final int getDestroyThreads() {
+        return destroyThreads;
+    }
+
+    /**
+     * Returns the maximum number of objects that may be waiting for a
+     * {@link #getDestroyThreads() destroy thread}. This is set when the pool
+     * is created and cannot be changed.
+     *
+     * @return the capacity of the destroy queue
+     *
+     * @see BaseObjectPoolConfig#setDestroyQueueCapacity(int)
+     *
+     * @since 2.4.3
+     */
+    public final int getDestroyQueueCapacity() {
+        return destroyQueueCapacity;
+    }
+
+    /**
+     * Returns the tick length of the timing wheel used to expire idle objects,
+     * or -1 if the pool has no timing wheel. This is set when the pool is
+     * created and cannot be changed.
+     * <p>
+     * With a timing wheel, each object that becomes idle is scheduled to be
+     * offered to the {@link #getEvictionPolicy() eviction policy} once it has
+     * been idle for {@link #getMinEvictableIdleTimeMillis()
+     * minEvictableIdleTimeMillis} (or
+     * {@link #getSoftMinEvictableIdleTimeMillis()
+     * softMinEvictableIdleTimeMillis} if that is shorter) and borrowing the
+     * object cancels the schedule. Each run of the idle object evictor then
+     * examines only the objects whose time has come, rather than relying on
+     * the {@link #getNumTestsPerEvictionRun() numTestsPerEvictionRun} objects
+     * it examines in sequence to reach them. An object the policy does not
+     * evict is scheduled again. Objects are therefore examined within one tick
+     * plus {@link #getTimeBetweenEvictionRunsMillis()
+     * timeBetweenEvictionRunsMillis} of their expiry. Objects that are already
+     * idle when the idle times are changed keep their existing schedule.
+     * <p>
+     * The objects examined in sequence are still examined as before, so
+     * setting {@code numTestsPerEvictionRun} to zero leaves eviction entirely
+     * to the timing wheel unless {@link #getTestWhileIdle() testWhileIdle} is
+     * needed.
+     *
+     * @return the tick length in milliseconds or -1
+     *
+     * @see BaseObjectPoolConfig#setIdleExpiryTickMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public final long getIdleExpiryTickMillis() {
+        final TimingWheel<PooledObject<T>> wheel = idleExpiryWheel;
+        return wheel == null ? -1 : wheel.getTickMillis();
+    }
+
+    /**
+     * Returns the maximum amount of time an eviction run may spend examining
+     * idle objects. If positive, an eviction run examines idle objects until
+     * this time has elapsed or it has examined every object that was idle
+     * when the run started, whichever comes first, and
+     * {@link #getNumTestsPerEvictionRun() numTestsPerEvictionRun} is ignored.
+     * The next run continues from the object after the last one examined. If
+     * zero or negative (the default), the number of objects examined is
+     * determined by {@code numTestsPerEvictionRun}.
+     * <p>
+     * The budget is checked before each object is examined, so a run may
+     * exceed it by the time taken to examine one object. When
+     * {@link #getEvictionTestThreads() evictionTestThreads} is positive the
+     * budget limits the time spent selecting objects and the run then waits
+     * for the selected objects to be tested.
+     *
+     * @return the time budget, in milliseconds, of an eviction run
+     *
+     * @see #setEvictionRunBudgetMillis(long)
+     * @see #getLastEvictionRunDurationMillis()
+     * @see #getLastEvictionRunCoverage()
+     *
+     * @since 2.4.3
+     */
+    public final long getEvictionRunBudgetMillis() {
+        return evictionRunBudgetMillis;
+    }
+
+    /**
+     * Sets the maximum amount of time an eviction run may spend examining idle
+     * objects. Zero or a negative value means the number of objects examined
+     * is determined by {@link #getNumTestsPerEvictionRun()}.
+     *
+     * @param evictionRunBudgetMillis the time budget, in milliseconds, of an
+     *                                eviction run
+     *
+     * @see #getEvictionRunBudgetMillis()
+     *
+     * @since 2.4.3
+     */
+    public final void setEvictionRunBudgetMillis(final long evictionRunBudgetMillis) {
+        this.evictionRunBudgetMillis = evictionRunBudgetMillis;
+    }
+
     /**
      * 在逐出者线程把空闲对象逐出池之前，空闲对象在池中存活的最小时间
      * @return 在逐出者线程把空闲对象逐出池之前，空闲对象在池中存活的最小时间
@@ -462,6 +880,83 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         }
     }
 
+    /**
+     * Runs the given idle object tests concurrently on the eviction test
+     * executor and waits for all of them to complete. The caller must hold
+     * {@link #evictionLock}.
+     *
+     * @param tests The tests to run. Each returns {@code true} if the object
+     *              it tested is valid.
+     *
+     * @return The result of each test, in the same order as the tests. A test
+     *         that threw an exception is reported, via
+     *         {@link #swallowException(Exception)}, and treated as failed.
+     */
+    final boolean[] runEvictionTests(final List<Callable<Boolean>> tests) {
+        final int threads = getEvictionTestThreads();
+        ThreadPoolExecutor executor = evictionTestExecutor;
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(threads, threads,
+                    60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new PoolThreadFactory("commons-pool-eviction-test-"));
+            executor.allowCoreThreadTimeOut(true);
+            evictionTestExecutor = executor;
+        } else if (executor.getMaximumPoolSize() < threads) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else if (executor.getMaximumPoolSize() > threads) {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+
+        final List<Future<Boolean>> futures =
+                new ArrayList<Future<Boolean>>(tests.size());
+        for (final Callable<Boolean> test : tests) {
+            futures.add(executor.submit(test));
+        }
+
+        // Every test must complete before the objects are released so wait
+        // for all of them, even if this thread is interrupted
+        final boolean[] results = new boolean[futures.size()];
+        boolean interrupted = false;
+        for (int i = 0; i < results.length; i++) {
+            final Future<Boolean> future = futures.get(i);
+            while (true) {
+                try {
+                    results[i] = future.get().booleanValue();
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    PoolUtils.checkRethrow(cause);
+                    if (cause instanceof Exception) {
+                        swallowException((Exception) cause);
+                    } else {
+                        swallowException(new Exception(cause));
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+
+    /**
+     * Stops the threads used to test idle objects, if any.
+     */
+    final void shutdownEvictionTestExecutor() {
+        synchronized (evictionLock) {
+            if (evictionTestExecutor != null) {
+                evictionTestExecutor.shutdown();
+                evictionTestExecutor = null;
+            }
+        }
+    }
+
     /**
      * Tries to ensure that the configured minimum number of idle instances are
      * available in the pool.
@@ -580,6 +1075,30 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         return waitTimes.getMean();
     }
 
+    /**
+     * The mean time taken by the factory's {@code validateObject} method based
+     * on the last {@link #MEAN_TIMING_STATS_CACHE_SIZE} validations. A
+     * validation that timed out counts as taking the time the pool waited
+     * for it.
+     * @return mean time in milliseconds of recent validations
+     *
+     * @since 2.4.3
+     */
+    public final long getMeanValidationTimeMillis() {
+        return validationTimes.getMean();
+    }
+
+    /**
+     * The number of validations that did not complete within
+     * {@link #getValidationTimeoutMillis() validationTimeoutMillis}.
+     * @return the validation timeout count
+     *
+     * @since 2.4.3
+     */
+    public final long getValidationTimeoutCount() {
+        return validationTimeoutCount.get();
+    }
+
     /**
      * The maximum time a thread has waited to borrow objects from the pool.
      * @return maximum wait time in milliseconds since the pool was created
@@ -588,6 +1107,129 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         return maxBorrowWaitTimeMillis.get();
     }
 
+    /**
+     * The number of objects borrowed from the pool that were idle in the pool
+     * when requested, so the borrower neither created an object nor waited.
+     * Dividing by {@link #getBorrowedCount()} gives the idle hit ratio.
+     * @return the number of borrows served from the idle objects
+     * @since 2.4.3
+     */
+    public final long getBorrowedFromIdleCount() {
+        return borrowOutcomes.getCount(BorrowOutcome.IDLE);
+    }
+
+    /**
+     * The total time taken by the borrows counted by
+     * {@link #getBorrowedFromIdleCount()}, including activation and
+     * validation.
+     * @return the time in nanoseconds
+     * @since 2.4.3
+     */
+    public final long getBorrowedFromIdleTimeNanos() {
+        return borrowOutcomes.getTimeNanos(BorrowOutcome.IDLE);
+    }
+
+    /**
+     * The number of objects borrowed from the pool that were created for the
+     * borrower because no idle object was available.
+     * @return the number of borrows that created an object
+     * @since 2.4.3
+     */
+    public final long getBorrowedWithCreateCount() {
+        return borrowOutcomes.getCount(BorrowOutcome.CREATE);
+    }
+
+    /**
+     * The total time taken by the borrows counted by
+     * {@link #getBorrowedWithCreateCount()}, including the time taken to
+     * create the objects.
+     * @return the time in nanoseconds
+     * @since 2.4.3
+     */
+    public final long getBorrowedWithCreateTimeNanos() {
+        return borrowOutcomes.getTimeNanos(BorrowOutcome.CREATE);
+    }
+
+    /**
+     * The number of objects borrowed from the pool after the borrower had to
+     * wait because the pool was exhausted.
+     * @return the number of borrows that waited
+     * @since 2.4.3
+     */
+    public final long getBorrowedAfterWaitCount() {
+        return borrowOutcomes.getCount(BorrowOutcome.WAIT);
+    }
+
+    /**
+     * The total time taken by the borrows counted by
+     * {@link #getBorrowedAfterWaitCount()}, including the time spent waiting.
+     * @return the time in nanoseconds
+     * @since 2.4.3
+     */
+    public final long getBorrowedAfterWaitTimeNanos() {
+        return borrowOutcomes.getTimeNanos(BorrowOutcome.WAIT);
+    }
+
+    /**
+     * The number of attempts to borrow an object that failed because the pool
+     * was exhausted, either after waiting for the maximum wait time or
+     * immediately if {@link #getBlockWhenExhausted() blockWhenExhausted} is
+     * false.
+     * @return the number of failed borrows
+     * @since 2.4.3
+     */
+    public final long getFailedBorrowCount() {
+        return borrowOutcomes.getCount(BorrowOutcome.TIMEOUT) +
+                borrowOutcomes.getCount(BorrowOutcome.EXHAUSTED);
+    }
+
+    /**
+     * The total time taken by the attempts counted by
+     * {@link #getFailedBorrowCount()}.
+     * @return the time in nanoseconds
+     * @since 2.4.3
+     */
+    public final long getFailedBorrowTimeNanos() {
+        return borrowOutcomes.getTimeNanos(BorrowOutcome.TIMEOUT) +
+                borrowOutcomes.getTimeNanos(BorrowOutcome.EXHAUSTED);
+    }
+
+    /**
+     * The time taken by the most recent eviction run that found idle objects
+     * to examine.
+     * @return duration in milliseconds of the last eviction run
+     * @since 2.4.3
+     */
+    public final long getLastEvictionRunDurationMillis() {
+        return lastEvictionRunDurationMillis;
+    }
+
+    /**
+     * The number of idle objects examined by the most recent eviction run that
+     * found idle objects to examine.
+     * @return number of objects examined by the last eviction run
+     * @since 2.4.3
+     */
+    public final int getLastEvictionRunTestedCount() {
+        return lastEvictionRunTestedCount;
+    }
+
+    /**
+     * The fraction of the objects that were idle at the start of the most
+     * recent eviction run that found idle objects to examine that the run
+     * examined.
+     * @return a value between 0 and 1 (unless objects became idle during the
+     * run) or 0 if no eviction run has examined any objects
+     * @since 2.4.3
+     */
+    public final double getLastEvictionRunCoverage() {
+        final int idle = lastEvictionRunIdleCount;
+        if (idle == 0) {
+            return 0;
+        }
+        return lastEvictionRunTestedCount / (double) idle;
+    }
+
     /**
      * The number of instances currently idle in this pool.
      * @return count of instances available for checkout from the pool
@@ -616,6 +1258,165 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         this.swallowedExceptionListener = swallowedExceptionListener;
     }
 
+    /**
+     * The recorder (if any) to which the borrow, return, create, destroy and
+     * wait events of this pool are written.
+     *
+     * @return The recorder or <code>null</code> if events are not recorded
+     *
+     * @since 2.4.3
+     */
+    public final PoolTraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    /**
+     * The recorder (if any) to which the borrow, return, create, destroy and
+     * wait events of this pool are written. The recorder is not closed when
+     * the pool is closed.
+     *
+     * @param traceRecorder The recorder or <code>null</code> to stop
+     *                      recording events
+     *
+     * @since 2.4.3
+     */
+    public final void setTraceRecorder(final PoolTraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
+    /**
+     * The listener (if any) to which the events of this pool are delivered.
+     *
+     * @return The listener or <code>null</code> if events are not published
+     *
+     * @since 2.4.3
+     */
+    public final PoolEventListener getPoolEventListener() {
+        final PoolEventDispatcher dispatcher = eventDispatcher;
+        return dispatcher == null ? null : dispatcher.getListener();
+    }
+
+    /**
+     * Sets the listener (if any) to which the events of this pool are
+     * delivered, allowing up to {@link #DEFAULT_POOL_EVENT_CAPACITY} events to
+     * wait for the listener.
+     *
+     * @param listener The listener or <code>null</code> to stop publishing
+     *                 events
+     *
+     * @see #setPoolEventListener(PoolEventListener, int)
+     *
+     * @since 2.4.3
+     */
+    public final void setPoolEventListener(final PoolEventListener listener) {
+        setPoolEventListener(listener, DEFAULT_POOL_EVENT_CAPACITY);
+    }
+
+    /**
+     * Sets the listener (if any) to which the events of this pool are
+     * delivered. Events are delivered on a dedicated daemon thread that is
+     * started when the listener is set and stops, after delivering any events
+     * already published, when the listener is replaced or the pool is closed.
+     *
+     * @param listener The listener or <code>null</code> to stop publishing
+     *                 events
+     * @param capacity The number of events that may be waiting for the
+     *                 listener before further events are dropped, which is
+     *                 rounded up to a power of two
+     *
+     * @since 2.4.3
+     */
+    public final void setPoolEventListener(final PoolEventListener listener,
+            final int capacity) {
+        synchronized (eventDispatcherLock) {
+            final PoolEventDispatcher previous = eventDispatcher;
+            eventDispatcher = listener == null || isClosed() ? null :
+                new PoolEventDispatcher(this, listener, capacity);
+            if (previous != null) {
+                previous.stop();
+            }
+        }
+    }
+
+    /**
+     * The number of events that were dropped because the listener set by
+     * {@link #setPoolEventListener(PoolEventListener, int)} did not keep up.
+     * The count restarts when the listener is set.
+     *
+     * @return The number of dropped events
+     *
+     * @since 2.4.3
+     */
+    public final long getDroppedPoolEventCount() {
+        final PoolEventDispatcher dispatcher = eventDispatcher;
+        return dispatcher == null ? 0 : dispatcher.getDroppedCount();
+    }
+
+    /**
+     * Publishes an event if a {@link PoolEventListener} has been set.
+     *
+     * @param type The type of event
+     * @param key The key of the object or <code>null</code> for an unkeyed pool
+     * @param p The object or <code>null</code> if the event does not relate to
+     *          an object
+     * @param startTime The value returned by {@link #eventStartTime()} when
+     *                  the operation started, or zero if the event has no
+     *                  duration
+     * @param reason Why the object was destroyed, for destroy events
+     */
+    final void publishEvent(final PoolEventType type, final Object key,
+            final PooledObject<T> p, final long startTime, final DestroyReason reason) {
+        final PoolEventDispatcher dispatcher = eventDispatcher;
+        if (dispatcher != null) {
+            dispatcher.publish(type, key, p == null ? null : p.getObject(),
+                    startTime == 0 ? 0 : System.nanoTime() - startTime, reason);
+        }
+    }
+
+    /**
+     * Stops delivering events to the {@link PoolEventListener}, if any, once
+     * the events already published have been delivered.
+     */
+    final void stopEventDispatcher() {
+        synchronized (eventDispatcherLock) {
+            if (eventDispatcher != null) {
+                eventDispatcher.stop();
+                eventDispatcher = null;
+            }
+        }
+    }
+
+    /**
+     * Obtains the start time of an operation that may be traced or published
+     * to a {@link PoolEventListener}.
+     *
+     * @return the current value of {@link System#nanoTime()} if events are
+     *         being recorded or published, otherwise zero
+     */
+    final long eventStartTime() {
+        return traceRecorder == null && eventDispatcher == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Records an event if a {@link PoolTraceRecorder} has been set.
+     *
+     * @param type The type of event
+     * @param key The key of the object or <code>null</code> for an unkeyed pool
+     * @param p The object or <code>null</code> if the event does not relate to
+     *          an object
+     * @param startTime The value returned by {@link #eventStartTime()} when
+     *                  the operation started, or zero if the event has no
+     *                  duration
+     */
+    final void traceEvent(final byte type, final Object key, final PooledObject<T> p,
+            final long startTime) {
+        final PoolTraceRecorder recorder = traceRecorder;
+        if (recorder != null) {
+            recorder.record(type, key, p,
+                    startTime == 0 ? 0 : System.nanoTime() - startTime);
+        }
+    }
+
     /**
      * Swallows an exception and notifies the configured listener for swallowed
      * exceptions queue.
@@ -660,6 +1461,20 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         } while (!maxBorrowWaitTimeMillis.compareAndSet(currentMax, waitTime));
     }
 
+    /**
+     * Updates the borrow outcome statistics after an attempt to borrow an
+     * object ends, whether or not an object was borrowed.
+     * @param outcome how the attempt ended
+     * @param startTime the value of {@link System#nanoTime()} when the attempt
+     * started
+     * @return the time in nanoseconds that the attempt took
+     */
+    final long updateStatsBorrowOutcome(final BorrowOutcome outcome, final long startTime) {
+        final long time = System.nanoTime() - startTime;
+        borrowOutcomes.record(outcome, time);
+        return time;
+    }
+
     /**
      * Updates statistics after an object is returned to the pool.
      * @param activeTime the amount of time (in milliseconds) that the returning
@@ -670,6 +1485,398 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         activeTimes.add(activeTime);
     }
 
+    /**
+     * Updates statistics after an object has been validated.
+     * @param startTime the time (in milliseconds) at which validation started
+     */
+    final void updateStatsValidation(final long startTime) {
+        validationTimes.add(System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Runs a validation on a helper thread and waits at most
+     * {@link #getValidationTimeoutMillis() validationTimeoutMillis} for it to
+     * complete.
+     * @param <V> the type of the result of the validation
+     * @param validation the validation
+     * @param failed the result that indicates the validation failed
+     * @return the result of the validation, or {@code failed} if it timed out
+     *         or this thread was interrupted while waiting for it
+     */
+    final <V> V validateWithTimeout(final Callable<V> validation, final V failed) {
+        final ThreadPoolExecutor executor;
+        synchronized (validationLock) {
+            if (validationExecutor == null) {
+                // Unbounded so that hung validations never delay others
+                validationExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+                        60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                        new PoolThreadFactory("commons-pool-validation-"));
+            }
+            executor = validationExecutor;
+        }
+        final Future<V> future;
+        try {
+            future = executor.submit(validation);
+        } catch (final RejectedExecutionException e) {
+            // The pool is being closed
+            return failed;
+        }
+        try {
+            return future.get(getValidationTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (final TimeoutException e) {
+            future.cancel(true);
+            validationTimeoutCount.incrementAndGet();
+            return failed;
+        } catch (final InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return failed;
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Stops the validation threads, if any. Validations that are still
+     * running are interrupted.
+     */
+    final void shutdownValidationExecutor() {
+        synchronized (validationLock) {
+            if (validationExecutor != null) {
+                validationExecutor.shutdownNow();
+                validationExecutor = null;
+            }
+        }
+    }
+
+    /**
+     * Determines the lifetime of an object, which is
+     * {@link #getMaxLifetimeMillis() maxLifetimeMillis} less a jitter derived
+     * from the identity of the object.
+     * @param p the object
+     * @return the lifetime of the object in milliseconds, or -1 if there is no
+     *         limit
+     */
+    final long getLifetimeMillis(final PooledObject<T> p) {
+        final long maxLifetime = getMaxLifetimeMillis();
+        if (maxLifetime <= 0) {
+            return -1;
+        }
+        final long jitter = Math.min(getMaxLifetimeJitterMillis(), maxLifetime - 1);
+        if (jitter <= 0) {
+            return maxLifetime;
+        }
+        // Identity hash codes are not well distributed in their low bits
+        int h = System.identityHashCode(p) * 0x9E3779B9;
+        h ^= h >>> 16;
+        return maxLifetime - (h & Integer.MAX_VALUE) % (jitter + 1);
+    }
+
+    /**
+     * Determines whether an object has exceeded its
+     * {@link #getMaxLifetimeMillis() lifetime}.
+     * @param p the object
+     * @return {@code true} if the object should be destroyed because of its
+     *         age
+     */
+    final boolean isPastMaxLifetime(final PooledObject<T> p) {
+        final long lifetime = getLifetimeMillis(p);
+        return lifetime > 0 &&
+                System.currentTimeMillis() - p.getCreateTime() >= lifetime;
+    }
+
+    /**
+     * Determines whether objects discarded while being borrowed or returned
+     * are destroyed by the {@link #getDestroyThreads() destroy threads}.
+     * @return {@code true} if destroy threads are configured
+     */
+    final boolean isAsyncDestroy() {
+        return destroyThreads > 0;
+    }
+
+    /**
+     * Runs a task that destroys an object, which has already been removed
+     * from the pool, on a destroy thread. If there is no room in the queue, or
+     * the pool has been closed, the task is run by the calling thread.
+     * @param task the task, which must not throw exceptions
+     */
+    final void executeDestroy(final Runnable task) {
+        ThreadPoolExecutor executor;
+        synchronized (destroyLock) {
+            if (destroyExecutor == null && !isClosed()) {
+                destroyExecutor = new ThreadPoolExecutor(destroyThreads,
+                        destroyThreads, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<Runnable>(destroyQueueCapacity),
+                        new PoolThreadFactory("commons-pool-destroy-"));
+                destroyExecutor.allowCoreThreadTimeOut(true);
+            }
+            executor = destroyExecutor;
+        }
+        if (executor != null) {
+            try {
+                executor.execute(task);
+                return;
+            } catch (final RejectedExecutionException e) {
+                // Queue full or shut down
+            }
+        }
+        task.run();
+    }
+
+    /**
+     * Stops the destroy threads, if any, once every queued object has been
+     * destroyed. Must be called after the pool has been marked as closed.
+     */
+    final void shutdownDestroyExecutor() {
+        final ThreadPoolExecutor executor;
+        synchronized (destroyLock) {
+            executor = destroyExecutor;
+            destroyExecutor = null;
+        }
+        if (executor != null) {
+            shutdownAndWait(executor);
+        }
+    }
+
+    /**
+     * Shuts down an executor and waits, even if this thread is interrupted,
+     * for the tasks already submitted to it to complete.
+     * @param executor the executor
+     */
+    static void shutdownAndWait(final ThreadPoolExecutor executor) {
+        executor.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Determines whether an object being borrowed needs to be validated given
+     * when it was last validated.
+     * @param p the object
+     * @return {@code false} if the object was validated within the last
+     *         {@link #getValidationIntervalMillis() validationIntervalMillis}
+     */
+    final boolean isValidationDue(final PooledObject<T> p) {
+        final long interval = getValidationIntervalMillis();
+        if (interval <= 0 || !(p instanceof DefaultPooledObject)) {
+            return true;
+        }
+        final long lastValidated = ((DefaultPooledObject<T>) p).getLastValidatedTime();
+        return System.currentTimeMillis() - lastValidated >= interval;
+    }
+
+    /**
+     * Records that an object has just been successfully validated.
+     * @param p the object
+     */
+    final void markValidated(final PooledObject<T> p) {
+        if (p instanceof DefaultPooledObject) {
+            ((DefaultPooledObject<T>) p).markValidated();
+        }
+    }
+
+    /**
+     * Determines whether an object has been borrowed
+     * {@link #getMaxUsesPerObject() maxUsesPerObject} times.
+     * @param p the object
+     * @return {@code true} if the object should be destroyed rather than used
+     *         again
+     */
+    final boolean isPastMaxUses(final PooledObject<T> p) {
+        final int maxUses = getMaxUsesPerObject();
+        // PooledObject has no borrow count so only DefaultPooledObject is recycled
+        return maxUses > 0 && p instanceof DefaultPooledObject &&
+                ((DefaultPooledObject<T>) p).getBorrowedCount() >= maxUses;
+    }
+
+    /**
+     * Runs a task that creates a replacement for a destroyed object on a
+     * background thread. The task is discarded if the pool is closed, or if
+     * the replacements already pending would fill the idle objects up to
+     * <code>maxIdle</code>, so that the queue of pending replacements cannot
+     * grow beyond the number of objects that could still be made idle when
+     * the factory is slower than objects are recycled.
+     * @param task the task
+     * @param pending the count of pending replacements for the idle objects
+     *                the task adds to
+     * @param maxIdle the maximum number of idle objects, negative for no
+     *                limit
+     * @param numIdle the current number of idle objects
+     */
+    final void createReplacementAsync(final Runnable task,
+            final AtomicInteger pending, final int maxIdle, final int numIdle) {
+        final int needed = maxIdle < 0 ? Integer.MAX_VALUE : maxIdle - numIdle;
+        int current;
+        do {
+            current = pending.get();
+            if (current >= needed) {
+                return;
+            }
+        } while (!pending.compareAndSet(current, current + 1));
+        synchronized (replacementLock) {
+            if (isClosed()) {
+                pending.decrementAndGet();
+                return;
+            }
+            if (replacementExecutor == null) {
+                replacementExecutor = new ThreadPoolExecutor(1, 1,
+                        60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                        new PoolThreadFactory("commons-pool-replacement-"));
+                replacementExecutor.allowCoreThreadTimeOut(true);
+            }
+            replacementExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.run();
+                    } finally {
+                        pending.decrementAndGet();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops the thread used to create replacement objects, if any. Pending
+     * replacements are still created, and then destroyed as the pool is
+     * closed.
+     */
+    final void shutdownReplacementExecutor() {
+        synchronized (replacementLock) {
+            if (replacementExecutor != null) {
+                replacementExecutor.shutdown();
+                replacementExecutor = null;
+            }
+        }
+    }
+
+    /**
+     * Schedules an object that is about to become idle to be offered to the
+     * eviction policy once its idle time has passed, or to be destroyed once
+     * its {@link #getMaxLifetimeMillis() lifetime} has passed if that is
+     * sooner. This is a no-op if the pool has no timing wheel or neither an
+     * idle time nor a lifetime is configured.
+     * @param p the object
+     * @param key the key of the object in a keyed pool, otherwise
+     *            {@code null}
+     */
+    final void scheduleIdleExpiry(final PooledObject<T> p, final Object key) {
+        final TimingWheel<PooledObject<T>> wheel = idleExpiryWheel;
+        if (wheel == null) {
+            return;
+        }
+        final long minEvictable = getMinEvictableIdleTimeMillis();
+        final long softMinEvictable = getSoftMinEvictableIdleTimeMillis();
+        final long idleTime;
+        if (minEvictable > 0 &&
+                (softMinEvictable <= 0 || minEvictable <= softMinEvictable)) {
+            idleTime = minEvictable;
+        } else if (softMinEvictable > 0) {
+            idleTime = softMinEvictable;
+        } else {
+            idleTime = -1;
+        }
+        long deadline = Long.MAX_VALUE;
+        if (idleTime > 0) {
+            // The eviction policy requires the idle time to have been exceeded
+            deadline = p.getLastReturnTime() + idleTime + 1;
+            final long now = System.currentTimeMillis();
+            if (deadline <= now) {
+                // Examined already and not evicted
+                deadline = now + idleTime;
+            }
+        }
+        final long lifetime = getLifetimeMillis(p);
+        if (lifetime > 0) {
+            deadline = Math.min(deadline, p.getCreateTime() + lifetime);
+        }
+        if (deadline == Long.MAX_VALUE) {
+            return;
+        }
+        wheel.schedule(p, key, deadline);
+    }
+
+    /**
+     * Cancels any scheduled expiry of an object that is being borrowed.
+     * @param p the object
+     */
+    final void cancelIdleExpiry(final PooledObject<T> p) {
+        final TimingWheel<PooledObject<T>> wheel = idleExpiryWheel;
+        if (wheel != null) {
+            wheel.cancel(p);
+        }
+    }
+
+    /**
+     * Cancels any scheduled expiry of an object that is being destroyed and
+     * releases the state held to schedule it.
+     * @param p the object
+     */
+    final void removeIdleExpiry(final PooledObject<T> p) {
+        final TimingWheel<PooledObject<T>> wheel = idleExpiryWheel;
+        if (wheel != null) {
+            wheel.remove(p);
+        }
+    }
+
+    /**
+     * Removes and returns the objects whose scheduled expiry has passed. The
+     * {@link TimingWheel.Entry#getAttachment() attachment} of each entry is the
+     * key passed to {@link #scheduleIdleExpiry(PooledObject, Object)}.
+     * @return the expired entries, empty if the pool has no timing wheel
+     */
+    final List<TimingWheel.Entry<PooledObject<T>>> pollExpiredIdleObjects() {
+        final TimingWheel<PooledObject<T>> wheel = idleExpiryWheel;
+        if (wheel == null) {
+            return Collections.emptyList();
+        }
+        return wheel.advance(System.currentTimeMillis());
+    }
+
+    /**
+     * Determines whether an eviction run that started at the given time has
+     * used up its {@link #getEvictionRunBudgetMillis() budget}.
+     * @param runStartMillis the time the eviction run started
+     * @return {@code true} if a budget is set and has been used
+     */
+    final boolean isEvictionRunBudgetExhausted(final long runStartMillis) {
+        final long budget = getEvictionRunBudgetMillis();
+        return budget > 0 &&
+                System.currentTimeMillis() - runStartMillis >= budget;
+    }
+
+    /**
+     * Updates statistics after an eviction run has examined idle objects.
+     * @param runStartMillis the time the eviction run started
+     * @param tested the number of objects examined
+     * @param idle the number of objects idle when the run started
+     */
+    final void updateStatsEvictionRun(final long runStartMillis, final int tested,
+            final int idle) {
+        lastEvictionRunDurationMillis = System.currentTimeMillis() - runStartMillis;
+        lastEvictionRunTestedCount = tested;
+        lastEvictionRunIdleCount = idle;
+    }
+
     /**
      * Unregisters this pool's MBean.
      */
@@ -797,6 +2004,8 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
                 }
 
                 // Evict from the pool
+                final Object evictionRunEvent = PoolEvents.beginEvictionRun();
+                final long destroyedBefore = destroyedByEvictorCount.get();
                 try {
                     evict();
                 } catch(final Exception e) {
@@ -806,6 +2015,9 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
                     // in case error is recoverable
                     oome.printStackTrace(System.err);
                 }
+                PoolEvents.endEvictionRun(evictionRunEvent, BaseGenericObjectPool.this,
+                        lastEvictionRunTestedCount,
+                        destroyedByEvictorCount.get() - destroyedBefore, getNumIdle());
                 // Re-create idle instances.
                 try {
                     ensureMinIdle();
@@ -1005,6 +2217,12 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(lifo);
         builder.append(", fairness=");
         builder.append(fairness);
+        builder.append(", idleExpiryWheel=");
+        builder.append(idleExpiryWheel);
+        builder.append(", destroyThreads=");
+        builder.append(destroyThreads);
+        builder.append(", destroyQueueCapacity=");
+        builder.append(destroyQueueCapacity);
         builder.append(", testOnCreate=");
         builder.append(testOnCreate);
         builder.append(", testOnBorrow=");
@@ -1023,6 +2241,20 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(softMinEvictableIdleTimeMillis);
         builder.append(", evictionPolicy=");
         builder.append(evictionPolicy);
+        builder.append(", evictionTestThreads=");
+        builder.append(evictionTestThreads);
+        builder.append(", evictionRunBudgetMillis=");
+        builder.append(evictionRunBudgetMillis);
+        builder.append(", maxLifetimeMillis=");
+        builder.append(maxLifetimeMillis);
+        builder.append(", maxLifetimeJitterMillis=");
+        builder.append(maxLifetimeJitterMillis);
+        builder.append(", maxUsesPerObject=");
+        builder.append(maxUsesPerObject);
+        builder.append(", validationIntervalMillis=");
+        builder.append(validationIntervalMillis);
+        builder.append(", validationTimeoutMillis=");
+        builder.append(validationTimeoutMillis);
         builder.append(", closeLock=");
         builder.append(closeLock);
         builder.append(", closed=");
@@ -1059,6 +2291,14 @@ public abstract class BaseGenericObjectPool<T> extends BaseObject {
         builder.append(waitTimes);
         builder.append(", maxBorrowWaitTimeMillis=");
         builder.append(maxBorrowWaitTimeMillis);
+        builder.append(", borrowOutcomes=");
+        builder.append(borrowOutcomes);
+        builder.append(", lastEvictionRunDurationMillis=");
+        builder.append(lastEvictionRunDurationMillis);
+        builder.append(", lastEvictionRunTestedCount=");
+        builder.append(lastEvictionRunTestedCount);
+        builder.append(", lastEvictionRunIdleCount=");
+        builder.append(lastEvictionRunIdleCount);
         builder.append(", swallowedExceptionListener=");
         builder.append(swallowedExceptionListener);
     }
@@ -86,6 +86,86 @@ public abstract class BaseObjectPoolConfig extends BaseObject implements Cloneab
      */
     public static final long DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS = -1L;
 
+    /**
+     * The default value for the {@code evictionTestThreads} configuration
+     * attribute.
+     * @see GenericObjectPool#getEvictionTestThreads()
+     * @see GenericKeyedObjectPool#getEvictionTestThreads()
+     */
+    public static final int DEFAULT_EVICTION_TEST_THREADS = 0;
+
+    /**
+     * The default value for the {@code evictionRunBudgetMillis} configuration
+     * attribute.
+     * @see GenericObjectPool#getEvictionRunBudgetMillis()
+     * @see GenericKeyedObjectPool#getEvictionRunBudgetMillis()
+     */
+    public static final long DEFAULT_EVICTION_RUN_BUDGET_MILLIS = -1L;
+
+    /**
+     * The default value for the {@code idleExpiryTickMillis} configuration
+     * attribute.
+     * @see GenericObjectPool#getIdleExpiryTickMillis()
+     * @see GenericKeyedObjectPool#getIdleExpiryTickMillis()
+     */
+    public static final long DEFAULT_IDLE_EXPIRY_TICK_MILLIS = -1L;
+
+    /**
+     * The default value for the {@code maxLifetimeMillis} configuration
+     * attribute.
+     * @see GenericObjectPool#getMaxLifetimeMillis()
+     * @see GenericKeyedObjectPool#getMaxLifetimeMillis()
+     */
+    public static final long DEFAULT_MAX_LIFETIME_MILLIS = -1L;
+
+    /**
+     * The default value for the {@code maxLifetimeJitterMillis} configuration
+     * attribute.
+     * @see GenericObjectPool#getMaxLifetimeJitterMillis()
+     * @see GenericKeyedObjectPool#getMaxLifetimeJitterMillis()
+     */
+    public static final long DEFAULT_MAX_LIFETIME_JITTER_MILLIS = 0L;
+
+    /**
+     * The default value for the {@code maxUsesPerObject} configuration
+     * attribute.
+     * @see GenericObjectPool#getMaxUsesPerObject()
+     * @see GenericKeyedObjectPool#getMaxUsesPerObject()
+     */
+    public static final int DEFAULT_MAX_USES_PER_OBJECT = -1;
+
+    /**
+     * The default value for the {@code destroyThreads} configuration
+     * attribute.
+     * @see GenericObjectPool#getDestroyThreads()
+     * @see GenericKeyedObjectPool#getDestroyThreads()
+     */
+    public static final int DEFAULT_DESTROY_THREADS = 0;
+
+    /**
+     * The default value for the {@code destroyQueueCapacity} configuration
+     * attribute.
+     * @see GenericObjectPool#getDestroyQueueCapacity()
+     * @see GenericKeyedObjectPool#getDestroyQueueCapacity()
+     */
+    public static final int DEFAULT_DESTROY_QUEUE_CAPACITY = 1024;
+
+    /**
+     * The default value for the {@code validationIntervalMillis} configuration
+     * attribute.
+     * @see GenericObjectPool#getValidationIntervalMillis()
+     * @see GenericKeyedObjectPool#getValidationIntervalMillis()
+     */
+    public static final long DEFAULT_VALIDATION_INTERVAL_MILLIS = -1L;
+
+    /**
+     * The default value for the {@code validationTimeoutMillis} configuration
+     * attribute.
+     * @see GenericObjectPool#getValidationTimeoutMillis()
+     * @see GenericKeyedObjectPool#getValidationTimeoutMillis()
+     */
+    public static final long DEFAULT_VALIDATION_TIMEOUT_MILLIS = -1L;
+
     /**
      *当前池中对象用尽，borrowObject()是否阻塞等待
      */
@@ -148,6 +228,26 @@ public abstract class BaseObjectPoolConfig extends BaseObject implements Cloneab
     private long timeBetweenEvictionRunsMillis =
         DEFAULT_TIME_BETWEEN_EVICTION_RUNS_MILLIS;
 
+    private int evictionTestThreads = DEFAULT_EVICTION_TEST_THREADS;
+
+    private long evictionRunBudgetMillis = DEFAULT_EVICTION_RUN_BUDGET_MILLIS;
+
+    private long idleExpiryTickMillis = DEFAULT_IDLE_EXPIRY_TICK_MILLIS;
+
+    private long maxLifetimeMillis = DEFAULT_MAX_LIFETIME_MILLIS;
+
+    private long maxLifetimeJitterMillis = DEFAULT_MAX_LIFETIME_JITTER_MILLIS;
+
+    private int maxUsesPerObject = DEFAULT_MAX_USES_PER_OBJECT;
+
+    private int destroyThreads = DEFAULT_DESTROY_THREADS;
+
+    private int destroyQueueCapacity = DEFAULT_DESTROY_QUEUE_CAPACITY;
+
+    private long validationIntervalMillis = DEFAULT_VALIDATION_INTERVAL_MILLIS;
+
+    private long validationTimeoutMillis = DEFAULT_VALIDATION_TIMEOUT_MILLIS;
+
     private boolean blockWhenExhausted = DEFAULT_BLOCK_WHEN_EXHAUSTED;
 
     private boolean jmxEnabled = DEFAULT_JMX_ENABLE;
@@ -257,6 +357,329 @@ public abstract class BaseObjectPoolConfig extends BaseObject implements Cloneab
         this.evictionPolicyClassName = evictionPolicyClassName;
     }
 
+    /**
+     * Get the value for the {@code evictionTestThreads} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code evictionTestThreads} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getEvictionTestThreads()
+     * @see GenericKeyedObjectPool#getEvictionTestThreads()
+     *
+     * @since 2.4.3
+     */
+    public int getEvictionTestThreads() {
+        return evictionTestThreads;
+    }
+
+    /**
+     * Set the value for the {@code evictionTestThreads} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param evictionTestThreads The new setting of
+     *        {@code evictionTestThreads} for this configuration instance
+     *
+     * @see GenericObjectPool#setEvictionTestThreads(int)
+     * @see GenericKeyedObjectPool#setEvictionTestThreads(int)
+     *
+     * @since 2.4.3
+     */
+    public void setEvictionTestThreads(final int evictionTestThreads) {
+        this.evictionTestThreads = evictionTestThreads;
+    }
+
+    /**
+     * Get the value for the {@code evictionRunBudgetMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code evictionRunBudgetMillis} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getEvictionRunBudgetMillis()
+     * @see GenericKeyedObjectPool#getEvictionRunBudgetMillis()
+     *
+     * @since 2.4.3
+     */
+    public long getEvictionRunBudgetMillis() {
+        return evictionRunBudgetMillis;
+    }
+
+    /**
+     * Set the value for the {@code evictionRunBudgetMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param evictionRunBudgetMillis The new setting of
+     *        {@code evictionRunBudgetMillis} for this configuration instance
+     *
+     * @see GenericObjectPool#setEvictionRunBudgetMillis(long)
+     * @see GenericKeyedObjectPool#setEvictionRunBudgetMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public void setEvictionRunBudgetMillis(final long evictionRunBudgetMillis) {
+        this.evictionRunBudgetMillis = evictionRunBudgetMillis;
+    }
+
+    /**
+     * Get the value for the {@code idleExpiryTickMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code idleExpiryTickMillis} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getIdleExpiryTickMillis()
+     * @see GenericKeyedObjectPool#getIdleExpiryTickMillis()
+     *
+     * @since 2.4.3
+     */
+    public long getIdleExpiryTickMillis() {
+        return idleExpiryTickMillis;
+    }
+
+    /**
+     * Set the value for the {@code idleExpiryTickMillis} configuration
+     * attribute for pools created with this configuration instance. The
+     * setting only takes effect when a pool is created.
+     *
+     * @param idleExpiryTickMillis The new setting of
+     *        {@code idleExpiryTickMillis} for this configuration instance
+     *
+     * @see GenericObjectPool#getIdleExpiryTickMillis()
+     * @see GenericKeyedObjectPool#getIdleExpiryTickMillis()
+     *
+     * @since 2.4.3
+     */
+    public void setIdleExpiryTickMillis(final long idleExpiryTickMillis) {
+        this.idleExpiryTickMillis = idleExpiryTickMillis;
+    }
+
+    /**
+     * Get the value for the {@code maxLifetimeMillis} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxLifetimeMillis} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getMaxLifetimeMillis()
+     * @see GenericKeyedObjectPool#getMaxLifetimeMillis()
+     *
+     * @since 2.4.3
+     */
+    public long getMaxLifetimeMillis() {
+        return maxLifetimeMillis;
+    }
+
+    /**
+     * Set the value for the {@code maxLifetimeMillis} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param maxLifetimeMillis The new setting of {@code maxLifetimeMillis}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#setMaxLifetimeMillis(long)
+     * @see GenericKeyedObjectPool#setMaxLifetimeMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public void setMaxLifetimeMillis(final long maxLifetimeMillis) {
+        this.maxLifetimeMillis = maxLifetimeMillis;
+    }
+
+    /**
+     * Get the value for the {@code maxLifetimeJitterMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxLifetimeJitterMillis} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getMaxLifetimeJitterMillis()
+     * @see GenericKeyedObjectPool#getMaxLifetimeJitterMillis()
+     *
+     * @since 2.4.3
+     */
+    public long getMaxLifetimeJitterMillis() {
+        return maxLifetimeJitterMillis;
+    }
+
+    /**
+     * Set the value for the {@code maxLifetimeJitterMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param maxLifetimeJitterMillis The new setting of
+     *        {@code maxLifetimeJitterMillis} for this configuration instance
+     *
+     * @see GenericObjectPool#setMaxLifetimeJitterMillis(long)
+     * @see GenericKeyedObjectPool#setMaxLifetimeJitterMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public void setMaxLifetimeJitterMillis(final long maxLifetimeJitterMillis) {
+        this.maxLifetimeJitterMillis = maxLifetimeJitterMillis;
+    }
+
+    /**
+     * Get the value for the {@code maxUsesPerObject} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code maxUsesPerObject} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getMaxUsesPerObject()
+     * @see GenericKeyedObjectPool#getMaxUsesPerObject()
+     *
+     * @since 2.4.3
+     */
+    public int getMaxUsesPerObject() {
+        return maxUsesPerObject;
+    }
+
+    /**
+     * Set the value for the {@code maxUsesPerObject} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param maxUsesPerObject The new setting of {@code maxUsesPerObject}
+     *        for this configuration instance
+     *
+     * @see GenericObjectPool#setMaxUsesPerObject(int)
+     * @see GenericKeyedObjectPool#setMaxUsesPerObject(int)
+     *
+     * @since 2.4.3
+     */
+    public void setMaxUsesPerObject(final int maxUsesPerObject) {
+        this.maxUsesPerObject = maxUsesPerObject;
+    }
+
+    /**
+     * Get the value for the {@code destroyThreads} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code destroyThreads} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getDestroyThreads()
+     * @see GenericKeyedObjectPool#getDestroyThreads()
+     *
+     * @since 2.4.3
+     */
+    public int getDestroyThreads() {
+        return destroyThreads;
+    }
+
+    /**
+     * Set the value for the {@code destroyThreads} configuration attribute
+     * for pools created with this configuration instance. The setting only
+     * takes effect when a pool is created.
+     *
+     * @param destroyThreads The new setting of {@code destroyThreads} for
+     *        this configuration instance
+     *
+     * @see GenericObjectPool#getDestroyThreads()
+     * @see GenericKeyedObjectPool#getDestroyThreads()
+     *
+     * @since 2.4.3
+     */
+    public void setDestroyThreads(final int destroyThreads) {
+        this.destroyThreads = destroyThreads;
+    }
+
+    /**
+     * Get the value for the {@code destroyQueueCapacity} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code destroyQueueCapacity} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getDestroyQueueCapacity()
+     * @see GenericKeyedObjectPool#getDestroyQueueCapacity()
+     *
+     * @since 2.4.3
+     */
+    public int getDestroyQueueCapacity() {
+        return destroyQueueCapacity;
+    }
+
+    /**
+     * Set the value for the {@code destroyQueueCapacity} configuration
+     * attribute for pools created with this configuration instance. The
+     * setting only takes effect when a pool is created.
+     *
+     * @param destroyQueueCapacity The new setting of
+     *        {@code destroyQueueCapacity} for this configuration instance
+     *
+     * @see GenericObjectPool#getDestroyQueueCapacity()
+     * @see GenericKeyedObjectPool#getDestroyQueueCapacity()
+     *
+     * @since 2.4.3
+     */
+    public void setDestroyQueueCapacity(final int destroyQueueCapacity) {
+        this.destroyQueueCapacity = destroyQueueCapacity;
+    }
+
+    /**
+     * Get the value for the {@code validationIntervalMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code validationIntervalMillis} for
+     *          this configuration instance
+     *
+     * @see GenericObjectPool#getValidationIntervalMillis()
+     * @see GenericKeyedObjectPool#getValidationIntervalMillis()
+     *
+     * @since 2.4.3
+     */
+    public long getValidationIntervalMillis() {
+        return validationIntervalMillis;
+    }
+
+    /**
+     * Set the value for the {@code validationIntervalMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param validationIntervalMillis The new setting of
+     *        {@code validationIntervalMillis} for this configuration instance
+     *
+     * @see GenericObjectPool#setValidationIntervalMillis(long)
+     * @see GenericKeyedObjectPool#setValidationIntervalMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public void setValidationIntervalMillis(final long validationIntervalMillis) {
+        this.validationIntervalMillis = validationIntervalMillis;
+    }
+
+    /**
+     * Get the value for the {@code validationTimeoutMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code validationTimeoutMillis} for
+     *          this configuration instance
+     *
+     * @see GenericObjectPool#getValidationTimeoutMillis()
+     * @see GenericKeyedObjectPool#getValidationTimeoutMillis()
+     *
+     * @since 2.4.3
+     */
+    public long getValidationTimeoutMillis() {
+        return validationTimeoutMillis;
+    }
+
+    /**
+     * Set the value for the {@code validationTimeoutMillis} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param validationTimeoutMillis The new setting of
+     *        {@code validationTimeoutMillis} for this configuration instance
+     *
+     * @see GenericObjectPool#setValidationTimeoutMillis(long)
+     * @see GenericKeyedObjectPool#setValidationTimeoutMillis(long)
+     *
+     * @since 2.4.3
+     */
+    public void setValidationTimeoutMillis(final long validationTimeoutMillis) {
+        this.validationTimeoutMillis = validationTimeoutMillis;
+    }
+
     public boolean getBlockWhenExhausted() {
         return blockWhenExhausted;
     }
@@ -315,6 +738,26 @@ public abstract class BaseObjectPoolConfig extends BaseObject implements Cloneab
         builder.append(testWhileIdle);
         builder.append(", timeBetweenEvictionRunsMillis=");
         builder.append(timeBetweenEvictionRunsMillis);
+        builder.append(", evictionTestThreads=");
+        builder.append(evictionTestThreads);
+        builder.append(", evictionRunBudgetMillis=");
+        builder.append(evictionRunBudgetMillis);
+        builder.append(", idleExpiryTickMillis=");
+        builder.append(idleExpiryTickMillis);
+        builder.append(", maxLifetimeMillis=");
+        builder.append(maxLifetimeMillis);
+        builder.append(", maxLifetimeJitterMillis=");
+        builder.append(maxLifetimeJitterMillis);
+        builder.append(", maxUsesPerObject=");
+        builder.append(maxUsesPerObject);
+        builder.append(", destroyThreads=");
+        builder.append(destroyThreads);
+        builder.append(", destroyQueueCapacity=");
+        builder.append(destroyQueueCapacity);
+        builder.append(", validationIntervalMillis=");
+        builder.append(validationIntervalMillis);
+        builder.append(", validationTimeoutMillis=");
+        builder.append(validationTimeoutMillis);
         builder.append(", blockWhenExhausted=");
         builder.append(blockWhenExhausted);
         builder.append(", jmxEnabled=");
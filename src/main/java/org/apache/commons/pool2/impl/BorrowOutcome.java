@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * The ways in which an attempt to borrow an object from a pool can end.
+ *
+ * @since 2.4.3
+ */
+enum BorrowOutcome {
+    /**
+     * An idle object was borrowed without waiting.
+     */
+    IDLE,
+
+    /**
+     * A new object was created for the borrower.
+     */
+    CREATE,
+
+    /**
+     * The borrower waited for an object to be returned or created.
+     */
+    WAIT,
+
+    /**
+     * The borrower waited for the maximum wait time without obtaining an
+     * object.
+     */
+    TIMEOUT,
+
+    /**
+     * The pool was exhausted and the borrower did not wait.
+     */
+    EXHAUSTED
+}
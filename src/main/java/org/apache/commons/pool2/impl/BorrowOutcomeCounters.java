@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts the attempts to borrow an object that ended with each
+ * {@link BorrowOutcome} and the total time those attempts took.
+ * <p>
+ * The counters are striped to reduce contention: each thread updates the
+ * stripe selected by its id and the getters sum every stripe. Stripes are
+ * separated by at least a cache line so that threads updating different
+ * stripes do not contend for the same line. The getters are therefore not an
+ * atomic snapshot of all the outcomes, which is acceptable for monitoring.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @since 2.4.3
+ */
+class BorrowOutcomeCounters {
+
+    private static final BorrowOutcome[] OUTCOMES = BorrowOutcome.values();
+
+    // A count and a time for each outcome followed by a cache line of padding
+    private static final int STRIPE_LENGTH = OUTCOMES.length * 2 + 8;
+
+    private static final int MAX_STRIPES = 64;
+
+    /**
+     * The number of stripes used for the counters of a whole pool.
+     */
+    static final int DEFAULT_STRIPES = StripedCounter.DEFAULT_STRIPES;
+
+    private final AtomicLongArray values;
+    private final int mask;
+
+    /**
+     * Create a set of counters.
+     *
+     * @param stripes The minimum number of stripes, which is rounded up to a
+     *                power of two
+     */
+    BorrowOutcomeCounters(final int stripes) {
+        if (stripes <= 0 || stripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("Invalid stripes: " + stripes);
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        values = new AtomicLongArray(size * STRIPE_LENGTH);
+        mask = size - 1;
+    }
+
+    /**
+     * Record an attempt to borrow an object.
+     *
+     * @param outcome   How the attempt ended
+     * @param timeNanos The time the attempt took
+     */
+    void record(final BorrowOutcome outcome, final long timeNanos) {
+        final int stripe = (int) Thread.currentThread().getId() & mask;
+        final int index = stripe * STRIPE_LENGTH + outcome.ordinal() * 2;
+        values.incrementAndGet(index);
+        values.addAndGet(index + 1, timeNanos);
+    }
+
+    /**
+     * @param outcome The outcome
+     *
+     * @return the number of attempts to borrow an object that ended with the
+     *         given outcome
+     */
+    long getCount(final BorrowOutcome outcome) {
+        return sum(outcome.ordinal() * 2);
+    }
+
+    /**
+     * @param outcome The outcome
+     *
+     * @return the total time in nanoseconds taken by attempts to borrow an
+     *         object that ended with the given outcome
+     */
+    long getTimeNanos(final BorrowOutcome outcome) {
+        return sum(outcome.ordinal() * 2 + 1);
+    }
+
+    /**
+     * @return the number of attempts that ended with each outcome, keyed by
+     *         the name of the outcome
+     */
+    Map<String, Long> getCounts() {
+        final Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (final BorrowOutcome outcome : OUTCOMES) {
+            result.put(outcome.name(), Long.valueOf(getCount(outcome)));
+        }
+        return result;
+    }
+
+    /**
+     * @return the total time in nanoseconds taken by the attempts that ended
+     *         with each outcome, keyed by the name of the outcome
+     */
+    Map<String, Long> getTimesNanos() {
+        final Map<String, Long> result = new LinkedHashMap<String, Long>();
+        for (final BorrowOutcome outcome : OUTCOMES) {
+            result.put(outcome.name(), Long.valueOf(getTimeNanos(outcome)));
+        }
+        return result;
+    }
+
+    private long sum(final int offset) {
+        long total = 0;
+        for (int i = offset; i < values.length(); i += STRIPE_LENGTH) {
+            total += values.get(i);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("BorrowOutcomeCounters [counts=");
+        builder.append(getCounts());
+        builder.append(", timesNanos=");
+        builder.append(getTimesNanos());
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -49,6 +49,7 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
     private volatile Exception borrowedBy = null;
     private volatile Exception usedBy = null;
     private volatile long borrowedCount = 0;
+    private volatile long lastValidatedTime = 0;
 
     /**
      * Create a new instance that wraps the provided object so that the pool can
@@ -110,6 +111,23 @@ public class DefaultPooledObject<T> implements PooledObject<T> {
         return borrowedCount;
     }
 
+    /**
+     * Get the last time this object was successfully validated by the pool.
+     * @return The time, or zero if the object has not been validated
+     * @since 2.4.3
+     */
+    public long getLastValidatedTime() {
+        return lastValidatedTime;
+    }
+
+    /**
+     * Record that this object has just been successfully validated.
+     * @since 2.4.3
+     */
+    public void markValidated() {
+        lastValidatedTime = System.currentTimeMillis();
+    }
+
     /**
      * Return an estimate of the last time this object was used.  If the class
      * of the pooled object implements {@link TrackedUse}, what is returned is
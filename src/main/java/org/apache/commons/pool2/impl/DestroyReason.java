@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * The reasons for which a pool destroys an object.
+ *
+ * @since 2.4.3
+ */
+public enum DestroyReason {
+    /**
+     * Removed by the evictor or by idle object expiry.
+     */
+    EVICTED,
+
+    /**
+     * Failed validation on borrow, on return or while idle.
+     */
+    VALIDATION_FAILED,
+
+    /**
+     * Failed activation on borrow.
+     */
+    ACTIVATION_FAILED,
+
+    /**
+     * Failed passivation on return.
+     */
+    PASSIVATION_FAILED,
+
+    /**
+     * Exceeded the maximum lifetime.
+     */
+    MAX_LIFETIME,
+
+    /**
+     * Reached the maximum number of uses.
+     */
+    MAX_USES,
+
+    /**
+     * Returned when the maximum number of idle objects were already idle.
+     */
+    MAX_IDLE,
+
+    /**
+     * Invalidated by the borrower.
+     */
+    INVALIDATED,
+
+    /**
+     * Removed as abandoned.
+     */
+    ABANDONED,
+
+    /**
+     * Removed by a call to clear the pool.
+     */
+    CLEARED,
+
+    /**
+     * Removed to make room for objects of another key.
+     */
+    CAPACITY,
+
+    /**
+     * Returned after the pool was closed.
+     */
+    CLOSED
+}
@@ -17,14 +17,20 @@
 package org.apache.commons.pool2.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -33,6 +39,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import org.apache.commons.pool2.BatchValidatingKeyedPooledObjectFactory;
 import org.apache.commons.pool2.KeyedObjectPool;
 import org.apache.commons.pool2.KeyedPooledObjectFactory;
 import org.apache.commons.pool2.PoolUtils;
@@ -108,6 +115,13 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         }
         this.factory = factory;
         this.fairness = config.getFairness();
+        this.minEvictableEmptyKeyIdleTimeMillis =
+                config.getMinEvictableEmptyKeyIdleTimeMillis();
+        if (minEvictableEmptyKeyIdleTimeMillis >= 0) {
+            emptyKeys = new IdleKeyQueue<K,ObjectDeque<T>>();
+        } else {
+            emptyKeys = null;
+        }
 
         setConfig(config);
 
@@ -229,6 +243,225 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         return minIdlePerKey;
     }
 
+    /**
+     * Returns the limit on the number of object instances allocated by the pool
+     * (checked out or idle) for the given key, taking into account any
+     * override provided by the {@link #getPerKeyConfigResolver() per key
+     * configuration resolver}.
+     *
+     * @param key The key to obtain the limit for
+     *
+     * @return the limit on the number of active instances for the key
+     *
+     * @see #getMaxTotalPerKey()
+     */
+    public int getMaxTotalPerKey(final K key) {
+        return getMaxTotalPerKey(getPerKeyConfig(key));
+    }
+
+    /**
+     * Returns the cap on the number of "idle" instances for the given key,
+     * taking into account any override provided by the
+     * {@link #getPerKeyConfigResolver() per key configuration resolver}.
+     *
+     * @param key The key to obtain the limit for
+     *
+     * @return the maximum number of "idle" instances that can be held for the
+     *         key or a negative value if there is no limit
+     *
+     * @see #getMaxIdlePerKey()
+     */
+    public int getMaxIdlePerKey(final K key) {
+        return getMaxIdlePerKey(getPerKeyConfig(key));
+    }
+
+    /**
+     * Returns the target for the minimum number of idle objects to maintain
+     * for the given key, taking into account any override provided by the
+     * {@link #getPerKeyConfigResolver() per key configuration resolver}.
+     *
+     * @param key The key to obtain the target for
+     *
+     * @return minimum number of idle instances for the key
+     *
+     * @see #getMinIdlePerKey()
+     */
+    public int getMinIdlePerKey(final K key) {
+        return getMinIdlePerKey(getPerKeyConfig(key));
+    }
+
+    /**
+     * Returns the resolver used to obtain per key overrides of
+     * {@code maxTotalPerKey}, {@code maxIdlePerKey} and
+     * {@code minIdlePerKey}.
+     *
+     * @return the resolver or <code>null</code> if every key uses the pool-wide
+     *         settings
+     *
+     * @see #setPerKeyConfigResolver(PerKeyConfigResolver)
+     */
+    public PerKeyConfigResolver<? super K> getPerKeyConfigResolver() {
+        return perKeyConfigResolver;
+    }
+
+    /**
+     * Sets the resolver used to obtain per key overrides of
+     * {@code maxTotalPerKey}, {@code maxIdlePerKey} and
+     * {@code minIdlePerKey}. The resolver is consulted once when the sub-pool
+     * for a key is created and the result is cached with the sub-pool. Setting
+     * a new resolver re-resolves the limits of all existing keys.
+     *
+     * @param perKeyConfigResolver The new resolver or <code>null</code> to use
+     *                             the pool-wide settings for every key
+     */
+    public void setPerKeyConfigResolver(
+            final PerKeyConfigResolver<? super K> perKeyConfigResolver) {
+        this.perKeyConfigResolver = perKeyConfigResolver;
+        for (Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
+            entry.getValue().setPerKeyConfig(resolvePerKeyConfig(entry.getKey()));
+        }
+    }
+
+    /**
+     * Returns the minimum amount of time a key with no objects must go without
+     * being borrowed before it is eligible for removal by the idle object
+     * evictor (if any - see {@link #setTimeBetweenEvictionRunsMillis(long)}).
+     * <p>
+     * If negative (the default), keys are instead tracked by counting the
+     * threads using each key and a key is removed as soon as the last object
+     * for it is destroyed and no thread is using it. This keeps the set of keys
+     * small but every operation has to update the shared count for its key.
+     * <p>
+     * If zero or positive, the per-operation counting is not performed, so
+     * that threads borrowing and returning objects under the same key do not
+     * contend on a shared counter. Keys are instead retired by the evictor once
+     * they have no objects, no threads are waiting on them and they have not
+     * been borrowed from for at least this many milliseconds. Keys are never
+     * removed if the evictor is not running.
+     * <p>
+     * This attribute is set when the pool is created and cannot be changed.
+     *
+     * @return the minimum idle time, in milliseconds, before an empty key may
+     *         be removed or a negative value if keys are reference counted
+     *
+     * @see GenericKeyedObjectPoolConfig#setMinEvictableEmptyKeyIdleTimeMillis(long)
+     *
+     * @since 2.4.3
+     */
+    @Override
+    public long getMinEvictableEmptyKeyIdleTimeMillis() {
+        return minEvictableEmptyKeyIdleTimeMillis;
+    }
+
+    /**
+     * Returns the minimum amount of time a key may go without being borrowed
+     * from before the idle object evictor (if any - see
+     * {@link #setTimeBetweenEvictionRunsMillis(long)}) destroys all of the
+     * idle objects for the key and removes the key from the pool. Keys with
+     * objects currently borrowed or with threads waiting to borrow an object
+     * are never removed. A negative value (the default) disables the removal
+     * of idle keys.
+     * <p>
+     * Removing such keys in full, rather than testing their idle objects one
+     * at a time, means the evictor does not keep spending its
+     * {@link #getNumTestsPerEvictionRun() tests per run} on keys that are no
+     * longer used. It also overrides {@link #getMinIdlePerKey()} for those
+     * keys.
+     *
+     * @return the minimum time, in milliseconds, a key may go unused before
+     *         it is removed
+     *
+     * @see #setMinEvictableKeyIdleTimeMillis(long)
+     *
+     * @since 2.4.3
+     */
+    @Override
+    public long getMinEvictableKeyIdleTimeMillis() {
+        return minEvictableKeyIdleTimeMillis;
+    }
+
+    /**
+     * Sets the minimum amount of time a key may go without being borrowed
+     * from before the idle object evictor (if any - see
+     * {@link #setTimeBetweenEvictionRunsMillis(long)}) destroys all of the
+     * idle objects for the key and removes the key from the pool. A negative
+     * value disables the removal of idle keys.
+     * <p>
+     * Enabling the removal of idle keys examines every current key once.
+     * After that each eviction run only examines the keys that may have been
+     * idle for long enough.
+     *
+     * @param minEvictableKeyIdleTimeMillis the minimum time, in milliseconds,
+     *                                      a key may go unused before it is
+     *                                      removed
+     *
+     * @see #getMinEvictableKeyIdleTimeMillis()
+     *
+     * @since 2.4.3
+     */
+    public void setMinEvictableKeyIdleTimeMillis(
+            final long minEvictableKeyIdleTimeMillis) {
+        this.minEvictableKeyIdleTimeMillis = minEvictableKeyIdleTimeMillis;
+        if (minEvictableKeyIdleTimeMillis < 0) {
+            idleKeys.clear();
+        } else {
+            // Keys created from now on are added when they are created
+            for (Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
+                idleKeys.add(entry.getKey(), entry.getValue(),
+                        entry.getValue().getLastBorrowTime());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of keys reported by {@link #getHottestKeys()} and by
+     * {@link #getMostContendedKeys()}. Zero, the default, means that per key
+     * statistics are not being collected.
+     *
+     * @return the number of hottest and of most contended keys tracked
+     *
+     * @see #setHotKeyCapacity(int)
+     *
+     * @since 2.4.3
+     */
+    @Override
+    public int getHotKeyCapacity() {
+        final KeyStatistics<K> statistics = keyStatistics;
+        return statistics == null ? 0 : statistics.getCapacity();
+    }
+
+    /**
+     * Sets the number of keys reported by {@link #getHottestKeys()} and by
+     * {@link #getMostContendedKeys()}. The estimated borrow counts, wait times
+     * and create counts for each key are held in a fixed amount of memory
+     * however many keys the pool sees. Changing the capacity discards the
+     * statistics collected so far. A value of zero or less stops the
+     * collection of per key statistics.
+     * <p>
+     * Collecting the statistics is not free. Every borrow atomically updates
+     * four counters that every thread borrowing under the same key shares, so
+     * threads borrowing under a hot key contend for the same cache lines. It
+     * also checks whether the key is already among the hottest keys, which
+     * calls {@link Object#equals(Object)} on up to
+     * <code>hotKeyCapacity</code> keys. Borrows that wait also update the
+     * most contended keys in the same way. This is why the statistics are
+     * disabled by default.
+     *
+     * @param hotKeyCapacity the number of hottest and of most contended keys
+     *                       to track
+     *
+     * @see #getHotKeyCapacity()
+     *
+     * @since 2.4.3
+     */
+    public void setHotKeyCapacity(final int hotKeyCapacity) {
+        if (hotKeyCapacity <= 0) {
+            keyStatistics = null;
+        } else if (hotKeyCapacity != getHotKeyCapacity()) {
+            keyStatistics = new KeyStatistics<K>(hotKeyCapacity);
+        }
+    }
+
     /**
      * Sets the configuration.
      *
@@ -255,6 +488,19 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         setTimeBetweenEvictionRunsMillis(
                 conf.getTimeBetweenEvictionRunsMillis());
         setEvictionPolicyClassName(conf.getEvictionPolicyClassName());
+        setEvictionTestThreads(conf.getEvictionTestThreads());
+        setEvictionRunBudgetMillis(conf.getEvictionRunBudgetMillis());
+        setMaxLifetimeMillis(conf.getMaxLifetimeMillis());
+        setMaxLifetimeJitterMillis(conf.getMaxLifetimeJitterMillis());
+        setMaxUsesPerObject(conf.getMaxUsesPerObject());
+        setValidationIntervalMillis(conf.getValidationIntervalMillis());
+        setValidationTimeoutMillis(conf.getValidationTimeoutMillis());
+        setMinEvictableKeyIdleTimeMillis(conf.getMinEvictableKeyIdleTimeMillis());
+        setHotKeyCapacity(conf.getHotKeyCapacity());
+        @SuppressWarnings("unchecked") // Key type is the user's responsibility
+        final PerKeyConfigResolver<? super K> resolver =
+                (PerKeyConfigResolver<? super K>) conf.getPerKeyConfigResolver();
+        setPerKeyConfigResolver(resolver);
     }
 
     /**
@@ -336,102 +582,198 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      */
     public T borrowObject(final K key, final long borrowMaxWaitMillis) throws Exception {
         assertOpen();
+        final ObjectDeque<T> objectDeque = register(key);
+        try {
+            return borrowObject(key, objectDeque, borrowMaxWaitMillis);
+        } finally {
+            deregister(key);
+        }
+    }
 
+    /**
+     * Borrows an object from a sub-pool that has already been looked up. See
+     * {@link #borrowObject(Object, long)}.
+     *
+     * @param key pool key
+     * @param registeredDeque The sub-pool for the key, either registered by
+     *                        the caller or obtained from
+     *                        {@link #getSubPool(Object)}
+     * @param borrowMaxWaitMillis The time to wait in milliseconds for an object
+     *                            to become available
+     *
+     * @return object instance from the keyed pool
+     *
+     * @throws Exception if a keyed object instance cannot be returned
+     */
+    T borrowObject(final K key, final ObjectDeque<T> registeredDeque,
+            final long borrowMaxWaitMillis) throws Exception {
         PooledObject<T> p = null;
 
         // Get local copy of current config so it is consistent for entire
         // method execution
         final boolean blockWhenExhausted = getBlockWhenExhausted();
 
-        boolean create;
+        boolean create = false;
+        boolean waited = false;
         final long waitTime = System.currentTimeMillis();
-        final ObjectDeque<T> objectDeque = register(key);
-
-        try {
-            while (p == null) {
-                create = false;
-                p = objectDeque.getIdleObjects().pollFirst();
-                if (p == null) {
-                    p = create(key);
-                    if (p != null) {
-                        create = true;
-                    }
+        final long borrowStartTime = System.nanoTime();
+        final Object borrowEvent = PoolEvents.beginBorrow();
+        ObjectDeque<T> objectDeque = registeredDeque;
+        objectDeque.setLastBorrowTime(waitTime);
+
+        while (p == null) {
+            create = false;
+            p = objectDeque.getIdleObjects().pollFirst();
+            if (p == null) {
+                p = create(key, objectDeque);
+                if (p != null) {
+                    create = true;
+                } else if (objectDeque.isRetired()) {
+                    // The evictor removed the key after it was looked up.
+                    // Start again with the sub-pool that now replaces it.
+                    objectDeque = register(key);
+                    objectDeque.setLastBorrowTime(waitTime);
+                    continue;
                 }
-                if (blockWhenExhausted) {
-                    if (p == null) {
+            }
+            if (blockWhenExhausted) {
+                if (p == null) {
+                    waited = true;
+                    final long waitStartTime = eventStartTime();
+                    publishEvent(PoolEventType.WAIT_STARTED, key, null, 0, null);
+                    try {
                         if (borrowMaxWaitMillis < 0) {
                             p = objectDeque.getIdleObjects().takeFirst();
                         } else {
                             p = objectDeque.getIdleObjects().pollFirst(
                                     borrowMaxWaitMillis, TimeUnit.MILLISECONDS);
                         }
+                    } finally {
+                        publishEvent(PoolEventType.WAIT_ENDED, key, p, waitStartTime,
+                                null);
                     }
-                    if (p == null) {
-                        throw new NoSuchElementException(
-                                "Timeout waiting for idle object");
-                    }
-                } else {
-                    if (p == null) {
-                        throw new NoSuchElementException("Pool exhausted");
+                    if (p == null && objectDeque.isRetired()) {
+                        // The evictor removed the key while this thread
+                        // was about to wait for it
+                        objectDeque = register(key);
+                        objectDeque.setLastBorrowTime(waitTime);
+                        continue;
                     }
                 }
-                if (!p.allocate()) {
+                if (p == null) {
+                    traceEvent(PoolTraceRecorder.WAIT, key, null, borrowStartTime);
+                    endBorrow(borrowEvent, key, objectDeque, BorrowOutcome.TIMEOUT,
+                            borrowStartTime);
+                    throw new NoSuchElementException(
+                            "Timeout waiting for idle object");
+                }
+            } else {
+                if (p == null) {
+                    traceEvent(PoolTraceRecorder.WAIT, key, null, borrowStartTime);
+                    endBorrow(borrowEvent, key, objectDeque, BorrowOutcome.EXHAUSTED,
+                            borrowStartTime);
+                    throw new NoSuchElementException("Pool exhausted");
+                }
+            }
+            if (!p.allocate()) {
+                p = null;
+            } else {
+                cancelIdleExpiry(p);
+                if (!create && isPastMaxLifetime(p)) {
+                    try {
+                        destroyDiscarded(key, p, DestroyReason.MAX_LIFETIME);
+                    } catch (final Exception e) {
+                        swallowException(e);
+                    }
                     p = null;
                 }
+            }
 
-                if (p != null) {
+            if (p != null) {
+                try {
+                    factory.activateObject(key, p);
+                } catch (final Exception e) {
                     try {
-                        factory.activateObject(key, p);
-                    } catch (final Exception e) {
+                        destroyDiscarded(key, p, DestroyReason.ACTIVATION_FAILED);
+                    } catch (final Exception e1) {
+                        // Ignore - activation failure is more important
+                    }
+                    p = null;
+                    if (create) {
+                        final NoSuchElementException nsee = new NoSuchElementException(
+                                "Unable to activate object");
+                        nsee.initCause(e);
+                        throw nsee;
+                    }
+                }
+                if (p != null && (getTestOnBorrow() && isValidationDue(p) ||
+                        create && getTestOnCreate())) {
+                    boolean validate = false;
+                    Throwable validationThrowable = null;
+                    try {
+                        validate = validate(key, p);
+                        if (validate) {
+                            markValidated(p);
+                        }
+                    } catch (final Throwable t) {
+                        PoolUtils.checkRethrow(t);
+                        validationThrowable = t;
+                    }
+                    if (!validate) {
                         try {
-                            destroy(key, p, true);
-                        } catch (final Exception e1) {
-                            // Ignore - activation failure is more important
+                            destroyDiscarded(key, p, DestroyReason.VALIDATION_FAILED);
+                            destroyedByBorrowValidationCount.incrementAndGet();
+                        } catch (final Exception e) {
+                            // Ignore - validation failure is more important
                         }
                         p = null;
                         if (create) {
                             final NoSuchElementException nsee = new NoSuchElementException(
-                                    "Unable to activate object");
-                            nsee.initCause(e);
+                                    "Unable to validate object");
+                            nsee.initCause(validationThrowable);
                             throw nsee;
                         }
                     }
-                    if (p != null && (getTestOnBorrow() || create && getTestOnCreate())) {
-                        boolean validate = false;
-                        Throwable validationThrowable = null;
-                        try {
-                            validate = factory.validateObject(key, p);
-                        } catch (final Throwable t) {
-                            PoolUtils.checkRethrow(t);
-                            validationThrowable = t;
-                        }
-                        if (!validate) {
-                            try {
-                                destroy(key, p, true);
-                                destroyedByBorrowValidationCount.incrementAndGet();
-                            } catch (final Exception e) {
-                                // Ignore - validation failure is more important
-                            }
-                            p = null;
-                            if (create) {
-                                final NoSuchElementException nsee = new NoSuchElementException(
-                                        "Unable to validate object");
-                                nsee.initCause(validationThrowable);
-                                throw nsee;
-                            }
-                        }
-                    }
                 }
             }
-        } finally {
-            deregister(key);
         }
 
         updateStatsBorrow(p, System.currentTimeMillis() - waitTime);
+        traceEvent(PoolTraceRecorder.BORROW, key, p, borrowStartTime);
+        publishEvent(PoolEventType.BORROWED, key, p, borrowStartTime, null);
+        endBorrow(borrowEvent, key, objectDeque, create ? BorrowOutcome.CREATE :
+                (waited ? BorrowOutcome.WAIT : BorrowOutcome.IDLE), borrowStartTime);
 
         return p.getObject();
     }
 
+    /**
+     * Records how an attempt to borrow an object ended.
+     *
+     * @param borrowEvent The event returned by
+     *                    {@link PoolEvents#beginBorrow()}
+     * @param key         The key
+     * @param objectDeque The sub-pool for the key
+     * @param outcome     How the attempt ended
+     * @param startTime   The value of {@link System#nanoTime()} when the
+     *                    attempt started
+     */
+    private void endBorrow(final Object borrowEvent, final K key,
+            final ObjectDeque<T> objectDeque, final BorrowOutcome outcome,
+            final long startTime) {
+        final long time = updateStatsBorrowOutcome(outcome, startTime);
+        objectDeque.getBorrowOutcomes().record(outcome, time);
+        final KeyStatistics<K> statistics = keyStatistics;
+        if (statistics != null) {
+            if (outcome == BorrowOutcome.TIMEOUT) {
+                statistics.recordWait(key, time);
+            } else if (outcome != BorrowOutcome.EXHAUSTED) {
+                statistics.recordBorrow(key, outcome == BorrowOutcome.WAIT ? time : 0);
+            }
+        }
+        PoolEvents.endBorrow(borrowEvent, this, key, outcome);
+    }
+
 
     /**
      * Returns an object to a keyed sub-pool.
@@ -457,9 +799,18 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      */
     @Override
     public void returnObject(final K key, final T obj) {
+        returnObject(key, poolMap.get(key), obj);
+    }
 
-        final ObjectDeque<T> objectDeque = poolMap.get(key);
-
+    /**
+     * Returns an object to a sub-pool that has already been looked up. See
+     * {@link #returnObject(Object, Object)}.
+     *
+     * @param key pool key
+     * @param objectDeque The sub-pool for the key
+     * @param obj instance to return to the keyed pool
+     */
+    void returnObject(final K key, final ObjectDeque<T> objectDeque, final T obj) {
         final PooledObject<T> p = objectDeque.getAllObjects().get(new IdentityWrapper<T>(obj));
 
         if (p == null) {
@@ -477,12 +828,49 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         }
 
         final long activeTime = p.getActiveTimeMillis();
+        traceEvent(PoolTraceRecorder.RETURN, key, p, 0);
+        publishEvent(PoolEventType.RETURNED, key, p, 0, null);
 
         try {
+            if (isPastMaxLifetime(p)) {
+                try {
+                    destroyDiscarded(key, p, DestroyReason.MAX_LIFETIME);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+                if (objectDeque.idleObjects.hasTakeWaiters()) {
+                    try {
+                        addObject(key);
+                    } catch (final Exception e) {
+                        swallowException(e);
+                    }
+                }
+                return;
+            }
+
+            if (isPastMaxUses(p)) {
+                try {
+                    destroyDiscarded(key, p, DestroyReason.MAX_USES);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+                createReplacementAsync(new Runnable() {
+                    @Override
+                    public void run() {
+                        addReplacement(key);
+                    }
+                }, objectDeque.pendingReplacements,
+                        getMaxIdlePerKey(objectDeque.getPerKeyConfig()),
+                        objectDeque.getIdleObjects().size());
+                return;
+            }
+
             if (getTestOnReturn()) {
-                if (!factory.validateObject(key, p)) {
+                if (validate(key, p)) {
+                    markValidated(p);
+                } else {
                     try {
-                        destroy(key, p, true);
+                        destroyDiscarded(key, p, DestroyReason.VALIDATION_FAILED);
                     } catch (final Exception e) {
                         swallowException(e);
                     }
@@ -502,7 +890,7 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             } catch (final Exception e1) {
                 swallowException(e1);
                 try {
-                    destroy(key, p, true);
+                    destroyDiscarded(key, p, DestroyReason.PASSIVATION_FAILED);
                 } catch (final Exception e) {
                     swallowException(e);
                 }
@@ -521,17 +909,19 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
                         "Object has already been returned to this pool");
             }
 
-            final int maxIdle = getMaxIdlePerKey();
+            final int maxIdle = getMaxIdlePerKey(objectDeque.getPerKeyConfig());
             final LinkedBlockingDeque<PooledObject<T>> idleObjects =
                 objectDeque.getIdleObjects();
 
             if (isClosed() || maxIdle > -1 && maxIdle <= idleObjects.size()) {
                 try {
-                    destroy(key, p, true);
+                    destroyDiscarded(key, p,
+                            isClosed() ? DestroyReason.CLOSED : DestroyReason.MAX_IDLE);
                 } catch (final Exception e) {
                     swallowException(e);
                 }
             } else {
+                scheduleIdleExpiry(p, key);
                 if (getLifo()) {
                     idleObjects.addFirst(p);
                 } else {
@@ -569,9 +959,21 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      */
     @Override
     public void invalidateObject(final K key, final T obj) throws Exception {
+        invalidateObject(key, poolMap.get(key), obj);
+    }
 
-        final ObjectDeque<T> objectDeque = poolMap.get(key);
-
+    /**
+     * Invalidates an object in a sub-pool that has already been looked up.
+     * See {@link #invalidateObject(Object, Object)}.
+     *
+     * @param key pool key
+     * @param objectDeque The sub-pool for the key
+     * @param obj instance to invalidate
+     *
+     * @throws Exception if an exception occurs destroying the object
+     */
+    void invalidateObject(final K key, final ObjectDeque<T> objectDeque, final T obj)
+            throws Exception {
         final PooledObject<T> p = objectDeque.getAllObjects().get(new IdentityWrapper<T>(obj));
         if (p == null) {
             throw new IllegalStateException(
@@ -579,7 +981,7 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         }
         synchronized (p) {
             if (p.getState() != PooledObjectState.INVALID) {
-                destroy(key, p, true);
+                destroy(key, p, true, DestroyReason.INVALIDATED);
             }
         }
         if (objectDeque.idleObjects.hasTakeWaiters()) {
@@ -637,7 +1039,7 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
 
             while (p != null) {
                 try {
-                    destroy(key, p, true);
+                    destroy(key, p, true, DestroyReason.CLEARED);
                 } catch (final Exception e) {
                     swallowException(e);
                 }
@@ -651,20 +1053,13 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
 
     @Override
     public int getNumActive() {
-        return numTotal.get() - getNumIdle();
+        return numTotal.get() - numPendingDestroy.get() - getNumIdle();
     }
 
 
     @Override
     public int getNumIdle() {
-        final Iterator<ObjectDeque<T>> iter = poolMap.values().iterator();
-        int result = 0;
-
-        while (iter.hasNext()) {
-            result += iter.next().getIdleObjects().size();
-        }
-
-        return result;
+        return (int) numIdle.get();
     }
 
 
@@ -709,10 +1104,17 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             // Stop the evictor before the pool is closed since evict() calls
             // assertOpen()
             startEvictor(-1L);
+            shutdownEvictionTestExecutor();
 
             closed = true;
+            // No further replacements are queued once the pool is closed
+            shutdownReplacementExecutor();
             // This clear removes any idle objects
             clear();
+            // Wait for objects discarded before the pool closed
+            shutdownDestroyExecutor();
+            shutdownValidationExecutor();
+            stopEventDispatcher();
 
             jmxUnregister();
 
@@ -770,7 +1172,7 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             // Assume the destruction succeeds
             boolean destroyed = true;
             try {
-                destroyed = destroy(key, p, false);
+                destroyed = destroy(key, p, false, DestroyReason.CAPACITY);
             } catch (final Exception e) {
                 swallowException(e);
             }
@@ -794,8 +1196,6 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      * borrowed, returned or destroyed by other threads while it is executing.
      */
     private void reuseCapacity() {
-        final int maxTotalPerKeySave = getMaxTotalPerKey();
-
         // Find the most loaded pool that could take a new instance
         int maxQueueLength = 0;
         LinkedBlockingDeque<PooledObject<T>> mostLoaded = null;
@@ -806,6 +1206,8 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             if (deque != null) {
                 final LinkedBlockingDeque<PooledObject<T>> pool = deque.getIdleObjects();
                 final int queueLength = pool.getTakeQueueLength();
+                final int maxTotalPerKeySave =
+                        getMaxTotalPerKey(deque.getPerKeyConfig());
                 if (getNumActive(k) < maxTotalPerKeySave && queueLength > maxQueueLength) {
                     maxQueueLength = queueLength;
                     mostLoaded = pool;
@@ -816,9 +1218,9 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
 
         // Attempt to add an instance to the most loaded pool
         if (mostLoaded != null) {
-            register(loadedKey);
+            final ObjectDeque<T> objectDeque = register(loadedKey);
             try {
-                final PooledObject<T> p = create(loadedKey);
+                final PooledObject<T> p = create(loadedKey, objectDeque);
                 if (p != null) {
                     addIdleObject(loadedKey, p);
                 }
@@ -838,8 +1240,9 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      *         {@code false}
      */
     private boolean hasBorrowWaiters() {
-        for (Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
-            final ObjectDeque<T> deque = entry.getValue();
+        // Iterate over the values rather than the entries since the entry
+        // iterator allocates an entry for every key
+        for (final ObjectDeque<T> deque : poolMap.values()) {
             if (deque != null) {
                 final LinkedBlockingDeque<PooledObject<T>> pool =
                     deque.getIdleObjects();
@@ -863,7 +1266,21 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
     public void evict() throws Exception {
         assertOpen();
 
-        if (getNumIdle() == 0) {
+        if (minEvictableEmptyKeyIdleTimeMillis >= 0) {
+            retireEmptyKeys();
+        }
+
+        final long minEvictableKeyIdleTimeMillis = getMinEvictableKeyIdleTimeMillis();
+        if (minEvictableKeyIdleTimeMillis >= 0) {
+            synchronized (evictionLock) {
+                evictIdleKeys(minEvictableKeyIdleTimeMillis);
+            }
+        }
+
+        evictExpired();
+
+        final int idleAtStart = getNumIdle();
+        if (idleAtStart == 0) {
             return;
         }
 
@@ -871,29 +1288,45 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         final EvictionPolicy<T> evictionPolicy = getEvictionPolicy();
 
         synchronized (evictionLock) {
+            final long minEvictableIdleTimeMillis = getMinEvictableIdleTimeMillis();
+            final long softMinEvictableIdleTimeMillis =
+                    getSoftMinEvictableIdleTimeMillis();
             final EvictionConfig evictionConfig = new EvictionConfig(
-                    getMinEvictableIdleTimeMillis(),
-                    getSoftMinEvictableIdleTimeMillis(),
+                    minEvictableIdleTimeMillis,
+                    softMinEvictableIdleTimeMillis,
                     getMinIdlePerKey());
 
             final boolean testWhileIdle = getTestWhileIdle();
+            final boolean batchValidation = testWhileIdle &&
+                    factory instanceof BatchValidatingKeyedPooledObjectFactory;
+            // Objects to be tested concurrently or as a batch once all the
+            // objects for this run have been selected
+            final List<IdleObjectTest> toTest = testWhileIdle &&
+                    (batchValidation || getEvictionTestThreads() > 0) ?
+                            new ArrayList<IdleObjectTest>() : null;
+            final long runStartMillis = System.currentTimeMillis();
+            int tested = 0;
 
             for (int i = 0, m = getNumTests(); i < m; i++) {
+                if (isEvictionRunBudgetExhausted(runStartMillis)) {
+                    // Continue from here on the next run
+                    break;
+                }
                 if(evictionIterator == null || !evictionIterator.hasNext()) {
-                    if (evictionKeyIterator == null ||
-                            !evictionKeyIterator.hasNext()) {
-                        final List<K> keyCopy = new ArrayList<K>();
-                        final Lock readLock = keyLock.readLock();
-                        readLock.lock();
-                        try {
-                            keyCopy.addAll(poolKeyList);
-                        } finally {
-                            readLock.unlock();
-                        }
-                        evictionKeyIterator = keyCopy.iterator();
+                    // Keys keep their position in the index while they are
+                    // present so the cursor stays valid between runs and no
+                    // copy of the keys is required. Wrap around once the end
+                    // has been reached.
+                    final int limit = poolKeyIndex.getLimit();
+                    if (evictionKeyCursor >= limit) {
+                        evictionKeyCursor = 0;
                     }
-                    while (evictionKeyIterator.hasNext()) {
-                        evictionKey = evictionKeyIterator.next();
+                    while (evictionKeyCursor < limit) {
+                        final K key = poolKeyIndex.get(evictionKeyCursor++);
+                        if (key == null) {
+                            continue;
+                        }
+                        evictionKey = key;
                         final ObjectDeque<T> objectDeque = poolMap.get(evictionKey);
                         if (objectDeque == null) {
                             continue;
@@ -909,7 +1342,7 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
                 }
                 if (evictionIterator == null) {
                     // Pools exhausted
-                    return;
+                    break;
                 }
                 final Deque<PooledObject<T>> idleObjects;
                 try {
@@ -929,14 +1362,27 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
                     i--;
                     continue;
                 }
+                tested++;
 
                 // User provided eviction policy could throw all sorts of
                 // crazy exceptions. Protect against such an exception
                 // killing the eviction thread.
                 boolean evict;
                 try {
-                    evict = evictionPolicy.evict(evictionConfig, underTest,
-                            poolMap.get(evictionKey).getIdleObjects().size());
+                    final ObjectDeque<T> objectDeque = poolMap.get(evictionKey);
+                    final PerKeyConfig perKeyConfig = objectDeque.getPerKeyConfig();
+                    final EvictionConfig keyEvictionConfig;
+                    if (perKeyConfig == null) {
+                        keyEvictionConfig = evictionConfig;
+                    } else {
+                        keyEvictionConfig = new EvictionConfig(
+                                minEvictableIdleTimeMillis,
+                                softMinEvictableIdleTimeMillis,
+                                getMinIdlePerKey(perKeyConfig));
+                    }
+                    evict = isPastMaxLifetime(underTest) ||
+                            evictionPolicy.evict(keyEvictionConfig, underTest,
+                                    objectDeque.getIdleObjects().size());
                 } catch (final Throwable t) {
                     // Slightly convoluted as SwallowedExceptionListener
                     // uses Exception rather than Throwable
@@ -947,31 +1393,20 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
                 }
 
                 if (evict) {
-                    destroy(evictionKey, underTest, true);
+                    publishEvent(PoolEventType.EVICTED, evictionKey, underTest, 0, null);
+                    destroy(evictionKey, underTest, true, DestroyReason.EVICTED);
                     destroyedByEvictorCount.incrementAndGet();
+                } else if (toTest != null) {
+                    // Leave in the eviction test state until tested
+                    toTest.add(new IdleObjectTest(evictionKey, underTest, idleObjects));
                 } else {
                     if (testWhileIdle) {
-                        boolean active = false;
-                        try {
-                            factory.activateObject(evictionKey, underTest);
-                            active = true;
-                        } catch (final Exception e) {
-                            destroy(evictionKey, underTest, true);
+                        if (!testIdleObject(evictionKey, underTest)) {
+                            publishEvent(PoolEventType.EVICTED, evictionKey, underTest, 0, null);
+                            destroy(evictionKey, underTest, true,
+                                    DestroyReason.VALIDATION_FAILED);
                             destroyedByEvictorCount.incrementAndGet();
                         }
-                        if (active) {
-                            if (!factory.validateObject(evictionKey, underTest)) {
-                                destroy(evictionKey, underTest, true);
-                                destroyedByEvictorCount.incrementAndGet();
-                            } else {
-                                try {
-                                    factory.passivateObject(evictionKey, underTest);
-                                } catch (final Exception e) {
-                                    destroy(evictionKey, underTest, true);
-                                    destroyedByEvictorCount.incrementAndGet();
-                                }
-                            }
-                        }
                     }
                     if (!underTest.endEvictionTest(idleObjects)) {
                         // TODO - May need to add code here once additional
@@ -979,44 +1414,338 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
                     }
                 }
             }
+
+            if (toTest != null && toTest.size() > 0) {
+                final boolean[] valid;
+                if (batchValidation) {
+                    valid = testIdleObjects(toTest);
+                } else {
+                    valid = runEvictionTests(new ArrayList<Callable<Boolean>>(toTest));
+                }
+                for (int i = 0; i < valid.length; i++) {
+                    final IdleObjectTest test = toTest.get(i);
+                    if (!valid[i]) {
+                        publishEvent(PoolEventType.EVICTED, test.key, test.pooledObject, 0, null);
+                        destroy(test.key, test.pooledObject, true,
+                                DestroyReason.VALIDATION_FAILED);
+                        destroyedByEvictorCount.incrementAndGet();
+                    }
+                    // The result only matters once additional states are used
+                    test.pooledObject.endEvictionTest(test.idleObjects);
+                }
+            }
+            updateStatsEvictionRun(runStartMillis, tested, idleAtStart);
         }
     }
 
     /**
-     * Create a new pooled object.
-     *
-     * @param key Key associated with new pooled object
+     * Offer the idle objects whose scheduled expiry has passed to the eviction
+     * policy.
      *
-     * @return The new, wrapped pooled object
+     * @throws Exception If an object cannot be destroyed
      *
-     * @throws Exception If the objection creation fails
+     * @see #getIdleExpiryTickMillis()
      */
-    private PooledObject<T> create(final K key) throws Exception {
-        int maxTotalPerKeySave = getMaxTotalPerKey(); // Per key
-        if (maxTotalPerKeySave < 0) {
-            maxTotalPerKeySave = Integer.MAX_VALUE;
+    private void evictExpired() throws Exception {
+        final List<TimingWheel.Entry<PooledObject<T>>> expired =
+                pollExpiredIdleObjects();
+        if (expired.isEmpty()) {
+            return;
         }
-        final int maxTotal = getMaxTotal();   // All keys
-
-        final ObjectDeque<T> objectDeque = poolMap.get(key);
-
-        // Check against the overall limit
-        boolean loop = true;
+        final EvictionPolicy<T> evictionPolicy = getEvictionPolicy();
 
-        while (loop) {
-            final int newNumTotal = numTotal.incrementAndGet();
-            if (maxTotal > -1 && newNumTotal > maxTotal) {
-                numTotal.decrementAndGet();
-                if (getNumIdle() == 0) {
-                    return null;
+        synchronized (evictionLock) {
+            final long minEvictableIdleTimeMillis = getMinEvictableIdleTimeMillis();
+            final long softMinEvictableIdleTimeMillis =
+                    getSoftMinEvictableIdleTimeMillis();
+
+            for (final TimingWheel.Entry<PooledObject<T>> entry : expired) {
+                @SuppressWarnings("unchecked")
+                final K key = (K) entry.getAttachment();
+                final PooledObject<T> underTest = entry.getElement();
+                final ObjectDeque<T> objectDeque = poolMap.get(key);
+                if (objectDeque == null) {
+                    // Key removed so the object has been destroyed
+                    continue;
+                }
+                if (!underTest.startEvictionTest()) {
+                    // Borrowed in another thread, which cancelled the expiry
+                    continue;
                 }
-                clearOldest();
-            } else {
-                loop = false;
-            }
-        }
 
-        // Flag that indicates if create should:
+                final LinkedBlockingDeque<PooledObject<T>> idleObjects =
+                        objectDeque.getIdleObjects();
+                boolean evict;
+                try {
+                    final EvictionConfig evictionConfig = new EvictionConfig(
+                            minEvictableIdleTimeMillis,
+                            softMinEvictableIdleTimeMillis,
+                            getMinIdlePerKey(objectDeque.getPerKeyConfig()));
+                    evict = isPastMaxLifetime(underTest) ||
+                            evictionPolicy.evict(evictionConfig, underTest,
+                                    idleObjects.size());
+                } catch (final Throwable t) {
+                    PoolUtils.checkRethrow(t);
+                    swallowException(new Exception(t));
+                    evict = false;
+                }
+
+                if (evict) {
+                    publishEvent(PoolEventType.EVICTED, key, underTest, 0, null);
+                    destroy(key, underTest, true, DestroyReason.EVICTED);
+                    destroyedByEvictorCount.incrementAndGet();
+                } else {
+                    scheduleIdleExpiry(underTest, key);
+                    // The result only matters once additional states are used
+                    underTest.endEvictionTest(idleObjects);
+                }
+            }
+        }
+    }
+
+    /**
+     * Validate an object using the factory, waiting at most
+     * {@link #getValidationTimeoutMillis() validationTimeoutMillis} if a
+     * validation timeout is configured.
+     *
+     * @param key The key of the object
+     * @param p   The object to validate
+     *
+     * @return {@code true} if the object is valid, {@code false} if it is
+     *         not or if its validation timed out
+     */
+    private boolean validate(final K key, final PooledObject<T> p) {
+        final long startTime = System.currentTimeMillis();
+        final Object validationEvent = PoolEvents.beginValidation();
+        boolean valid = false;
+        try {
+            if (getValidationTimeoutMillis() > 0) {
+                valid = validateWithTimeout(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return Boolean.valueOf(factory.validateObject(key, p));
+                    }
+                }, Boolean.FALSE).booleanValue();
+            } else {
+                valid = factory.validateObject(key, p);
+            }
+            return valid;
+        } finally {
+            updateStatsValidation(startTime);
+            PoolEvents.endValidation(validationEvent, this, key, valid);
+            if (!valid) {
+                publishEvent(PoolEventType.VALIDATION_FAILED, key, p, 0, null);
+            }
+        }
+    }
+
+    /**
+     * Activate, validate and passivate idle objects that are under eviction
+     * test, validating the objects for each key with a single call to the
+     * factory's
+     * {@link BatchValidatingKeyedPooledObjectFactory#validateObjects(Object, Collection)
+     * validateObjects} method.
+     *
+     * @param tests The objects to test
+     *
+     * @return The result of each test, in the same order as the tests.
+     *         {@code true} if the object passed all the steps and may be
+     *         returned to the idle objects, {@code false} if it should be
+     *         destroyed
+     */
+    private boolean[] testIdleObjects(final List<IdleObjectTest> tests) {
+        final Map<K, List<Integer>> indexesByKey =
+                new LinkedHashMap<K, List<Integer>>();
+        for (int i = 0; i < tests.size(); i++) {
+            final K key = tests.get(i).key;
+            List<Integer> indexes = indexesByKey.get(key);
+            if (indexes == null) {
+                indexes = new ArrayList<Integer>();
+                indexesByKey.put(key, indexes);
+            }
+            indexes.add(Integer.valueOf(i));
+        }
+
+        final boolean[] valid = new boolean[tests.size()];
+        for (final Entry<K, List<Integer>> entry : indexesByKey.entrySet()) {
+            final List<Integer> indexes = entry.getValue();
+            final List<PooledObject<T>> objects =
+                    new ArrayList<PooledObject<T>>(indexes.size());
+            for (final Integer index : indexes) {
+                objects.add(tests.get(index.intValue()).pooledObject);
+            }
+            final boolean[] keyValid = testIdleObjects(entry.getKey(), objects);
+            for (int i = 0; i < keyValid.length; i++) {
+                valid[indexes.get(i).intValue()] = keyValid[i];
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Activate, validate and passivate idle objects for a single key that are
+     * under eviction test, validating all of them with a single call to the
+     * factory.
+     *
+     * @param key     The key of the objects
+     * @param objects The objects to test
+     *
+     * @return The result of each test, in the same order as the objects
+     */
+    private boolean[] testIdleObjects(final K key,
+            final List<PooledObject<T>> objects) {
+        final boolean[] valid = new boolean[objects.size()];
+        final List<PooledObject<T>> activated =
+                new ArrayList<PooledObject<T>>(objects.size());
+        for (int i = 0; i < valid.length; i++) {
+            final PooledObject<T> p = objects.get(i);
+            try {
+                factory.activateObject(key, p);
+                valid[i] = true;
+                activated.add(p);
+            } catch (final Exception e) {
+                // Destroyed by the caller
+            }
+        }
+        if (activated.isEmpty()) {
+            return valid;
+        }
+
+        final Set<PooledObject<T>> invalid = Collections.newSetFromMap(
+                new IdentityHashMap<PooledObject<T>, Boolean>());
+        final long startTime = System.currentTimeMillis();
+        final Object validationEvent = PoolEvents.beginBatchValidation();
+        try {
+            final BatchValidatingKeyedPooledObjectFactory<K,T> batchFactory =
+                    (BatchValidatingKeyedPooledObjectFactory<K,T>) factory;
+            final Collection<PooledObject<T>> batch =
+                    Collections.unmodifiableList(activated);
+            if (getValidationTimeoutMillis() > 0) {
+                invalid.addAll(validateWithTimeout(
+                        new Callable<Collection<PooledObject<T>>>() {
+                            @Override
+                            public Collection<PooledObject<T>> call() {
+                                return batchFactory.validateObjects(key, batch);
+                            }
+                        }, batch));
+            } else {
+                invalid.addAll(batchFactory.validateObjects(key, batch));
+            }
+        } catch (final RuntimeException e) {
+            swallowException(e);
+            invalid.addAll(activated);
+        } finally {
+            updateStatsValidation(startTime);
+            if (validationEvent != null) {
+                int failed = 0;
+                for (final PooledObject<T> p : activated) {
+                    if (invalid.contains(p)) {
+                        failed++;
+                    }
+                }
+                PoolEvents.endBatchValidation(validationEvent, this, key,
+                        activated.size(), failed);
+            }
+        }
+
+        for (int i = 0; i < valid.length; i++) {
+            if (!valid[i]) {
+                continue;
+            }
+            final PooledObject<T> p = objects.get(i);
+            if (invalid.contains(p)) {
+                valid[i] = false;
+                publishEvent(PoolEventType.VALIDATION_FAILED, key, p, 0, null);
+                continue;
+            }
+            markValidated(p);
+            try {
+                factory.passivateObject(key, p);
+            } catch (final Exception e) {
+                valid[i] = false;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Activate, validate and passivate an idle object that is under eviction
+     * test.
+     *
+     * @param key The key associated with the object
+     * @param p   The object to test
+     *
+     * @return {@code true} if the object passed all the steps and may be
+     *         returned to the idle objects, {@code false} if it should be
+     *         destroyed
+     *
+     * @throws Exception If the factory's validateObject method throws an
+     *                   exception
+     */
+    private boolean testIdleObject(final K key, final PooledObject<T> p)
+            throws Exception {
+        try {
+            factory.activateObject(key, p);
+        } catch (final Exception e) {
+            return false;
+        }
+        if (!validate(key, p)) {
+            return false;
+        }
+        markValidated(p);
+        try {
+            factory.passivateObject(key, p);
+        } catch (final Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Create a new pooled object.
+     *
+     * @param key Key associated with new pooled object
+     * @param objectDeque The sub-pool, obtained from {@link #register(Object)},
+     *                    that the new object will belong to
+     *
+     * @return The new, wrapped pooled object or <code>null</code> if no object
+     *         could be created either because of the configured limits or
+     *         because the sub-pool has been retired
+     *
+     * @throws Exception If the objection creation fails
+     */
+    private PooledObject<T> create(final K key, final ObjectDeque<T> objectDeque)
+            throws Exception {
+        int maxTotalPerKeySave = getMaxTotalPerKey(objectDeque.getPerKeyConfig()); // Per key
+        if (maxTotalPerKeySave < 0) {
+            maxTotalPerKeySave = Integer.MAX_VALUE;
+        }
+        final int maxTotal = getMaxTotal();   // All keys
+
+        if (objectDeque.isRetired()) {
+            // The key has been removed from the pool. Return before the
+            // overall limit is checked so the caller always sees the flag and
+            // registers the key again rather than waiting on this sub-pool.
+            return null;
+        }
+
+        // Check against the overall limit
+        boolean loop = true;
+
+        while (loop) {
+            final int newNumTotal = numTotal.incrementAndGet();
+            if (maxTotal > -1 && newNumTotal > maxTotal) {
+                numTotal.decrementAndGet();
+                if (getNumIdle() == 0) {
+                    return null;
+                }
+                clearOldest();
+            } else {
+                loop = false;
+            }
+        }
+
+        // Flag that indicates if create should:
         // - TRUE:  call the factory to create an object
         // - FALSE: return null
         // - null:  loop and re-test the condition that determines whether to
@@ -1024,6 +1753,12 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         Boolean create = null;
         while (create == null) {
             synchronized (objectDeque.makeObjectCountLock) {
+                if (objectDeque.retired) {
+                    // The key has been removed from the pool. The caller
+                    // needs to register the key again.
+                    create = Boolean.FALSE;
+                    break;
+                }
                 final long newCreateCount = objectDeque.getCreateCount().incrementAndGet();
                 // Check against the per key limit
                 if (newCreateCount > maxTotalPerKeySave) {
@@ -1056,6 +1791,8 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             return null;
         }
 
+        final long eventStartTime = eventStartTime();
+        final Object createEvent = PoolEvents.beginCreate();
         PooledObject<T> p = null;
         try {
             p = factory.makeObject(key);
@@ -1071,7 +1808,14 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         }
 
         createdCount.incrementAndGet();
+        final KeyStatistics<K> statistics = keyStatistics;
+        if (statistics != null) {
+            statistics.recordCreate(key);
+        }
         objectDeque.getAllObjects().put(new IdentityWrapper<T>(p.getObject()), p);
+        traceEvent(PoolTraceRecorder.CREATE, key, p, eventStartTime);
+        publishEvent(PoolEventType.CREATED, key, p, eventStartTime, null);
+        PoolEvents.endCreate(createEvent, this, key);
         return p;
     }
 
@@ -1082,11 +1826,12 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      * @param toDestroy The wrapped object to be destroyed
      * @param always Should the object be destroyed even if it is not currently
      *               in the set of idle objects for the given key
+     * @param reason Why the object is being destroyed
      * @return {@code true} if the object was destroyed, otherwise {@code false}
      * @throws Exception If the object destruction failed
      */
-    private boolean destroy(final K key, final PooledObject<T> toDestroy, final boolean always)
-            throws Exception {
+    private boolean destroy(final K key, final PooledObject<T> toDestroy, final boolean always,
+            final DestroyReason reason) throws Exception {
 
         final ObjectDeque<T> objectDeque = register(key);
 
@@ -1094,21 +1839,97 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             final boolean isIdle = objectDeque.getIdleObjects().remove(toDestroy);
 
             if (isIdle || always) {
-                objectDeque.getAllObjects().remove(new IdentityWrapper<T>(toDestroy.getObject()));
-                toDestroy.invalidate();
+                detach(objectDeque, toDestroy);
+                destroyDetached(key, objectDeque, toDestroy, reason);
+                return true;
+            }
+            return false;
+        } finally {
+            deregister(key);
+        }
+    }
 
+    /**
+     * Destroy a wrapped, pooled object that has been discarded while it was
+     * being borrowed or returned. If {@link #getDestroyThreads()
+     * destroyThreads} is positive the object is removed from the pool and
+     * destroyed by a destroy thread, which then creates an object for any
+     * waiting borrower now that capacity is available. Otherwise the object is
+     * destroyed by the calling thread.
+     *
+     * @param key The key associated with the object to destroy.
+     * @param toDestroy The wrapped object to be destroyed
+     * @param reason Why the object is being destroyed
+     * @throws Exception If the object is destroyed by the calling thread and
+     *                   the factory fails to destroy it cleanly
+     */
+    private void destroyDiscarded(final K key, final PooledObject<T> toDestroy,
+            final DestroyReason reason) throws Exception {
+        if (!isAsyncDestroy()) {
+            destroy(key, toDestroy, true, reason);
+            return;
+        }
+        // Registered until the object has been destroyed so that the sub-pool
+        // it counts against remains in place
+        final ObjectDeque<T> objectDeque = register(key);
+        objectDeque.getIdleObjects().remove(toDestroy);
+        detach(objectDeque, toDestroy);
+        numPendingDestroy.incrementAndGet();
+        executeDestroy(new Runnable() {
+            @Override
+            public void run() {
                 try {
-                    factory.destroyObject(key, toDestroy);
+                    destroyDetached(key, objectDeque, toDestroy, reason);
+                } catch (final Exception e) {
+                    swallowException(e);
                 } finally {
-                    objectDeque.getCreateCount().decrementAndGet();
-                    destroyedCount.incrementAndGet();
-                    numTotal.decrementAndGet();
+                    numPendingDestroy.decrementAndGet();
+                    deregister(key);
+                }
+                if (hasBorrowWaiters()) {
+                    reuseCapacity();
                 }
-                return true;
             }
-            return false;
+        });
+    }
+
+    /**
+     * Remove a wrapped, pooled object, which is not idle, from its sub-pool. It
+     * continues to count towards the limits of the pool until it has been
+     * passed to
+     * {@link #destroyDetached(Object, ObjectDeque, PooledObject, DestroyReason)}.
+     *
+     * @param objectDeque The sub-pool of the object
+     * @param toDestroy The wrapped object to remove
+     */
+    private void detach(final ObjectDeque<T> objectDeque, final PooledObject<T> toDestroy) {
+        objectDeque.getAllObjects().remove(new IdentityWrapper<T>(toDestroy.getObject()));
+        toDestroy.invalidate();
+        removeIdleExpiry(toDestroy);
+    }
+
+    /**
+     * Destroy a wrapped, pooled object that has been removed from its sub-pool
+     * and release the capacity it used.
+     *
+     * @param key The key associated with the object
+     * @param objectDeque The sub-pool the object was removed from
+     * @param toDestroy The wrapped object to destroy
+     * @param reason Why the object is being destroyed
+     * @throws Exception If the object destruction failed
+     */
+    private void destroyDetached(final K key, final ObjectDeque<T> objectDeque,
+            final PooledObject<T> toDestroy, final DestroyReason reason) throws Exception {
+        final Object destroyEvent = PoolEvents.beginDestroy();
+        try {
+            factory.destroyObject(key, toDestroy);
         } finally {
-            deregister(key);
+            objectDeque.getCreateCount().decrementAndGet();
+            destroyedCount.incrementAndGet();
+            numTotal.decrementAndGet();
+            traceEvent(PoolTraceRecorder.DESTROY, key, toDestroy, 0);
+            publishEvent(PoolEventType.DESTROYED, key, toDestroy, 0, reason);
+            PoolEvents.endDestroy(destroyEvent, this, key, reason);
         }
     }
 
@@ -1125,6 +1946,14 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      *         return null.
      */
     private ObjectDeque<T> register(final K k) {
+        if (minEvictableEmptyKeyIdleTimeMillis >= 0) {
+            // Keys are not reference counted so the common case of an existing
+            // key needs neither a lock nor a shared counter update
+            final ObjectDeque<T> objectDeque = poolMap.get(k);
+            if (objectDeque != null) {
+                return objectDeque;
+            }
+        }
         Lock lock = keyLock.readLock();
         ObjectDeque<T> objectDeque = null;
         try {
@@ -1133,22 +1962,26 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             if (objectDeque == null) {
                 // Upgrade to write lock
                 lock.unlock();
+                // Resolve outside of the lock as the resolver is user code
+                final PerKeyConfig perKeyConfig = resolvePerKeyConfig(k);
                 lock = keyLock.writeLock();
                 lock.lock();
                 objectDeque = poolMap.get(k);
                 if (objectDeque == null) {
                     objectDeque = new ObjectDeque<T>(fairness);
-                    objectDeque.getNumInterested().incrementAndGet();
+                    objectDeque.setPerKeyConfig(perKeyConfig);
+                    incrementNumInterested(objectDeque);
                     // NOTE: Keys must always be added to both poolMap and
-                    //       poolKeyList at the same time while protected by
+                    //       poolKeyIndex at the same time while protected by
                     //       keyLock.writeLock()
                     poolMap.put(k, objectDeque);
-                    poolKeyList.add(k);
+                    objectDeque.keyIndexSlot = poolKeyIndex.add(k);
+                    trackIdleKey(k, objectDeque);
                 } else {
-                    objectDeque.getNumInterested().incrementAndGet();
+                    incrementNumInterested(objectDeque);
                 }
             } else {
-                objectDeque.getNumInterested().incrementAndGet();
+                incrementNumInterested(objectDeque);
             }
         } finally {
             lock.unlock();
@@ -1156,6 +1989,25 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         return objectDeque;
     }
 
+    /**
+     * Obtain the sub-pool for a key, creating it if necessary, without
+     * registering the use of the key. Only valid if keys are not reference
+     * counted, see {@link #getMinEvictableEmptyKeyIdleTimeMillis()}. The
+     * sub-pool may be kept by the caller and used for later operations until
+     * it is {@link ObjectDeque#isRetired() retired}.
+     *
+     * @param k The key
+     *
+     * @return The objects currently associated with the given key
+     */
+    ObjectDeque<T> getSubPool(final K k) {
+        if (minEvictableEmptyKeyIdleTimeMillis < 0) {
+            throw new IllegalStateException(
+                    "Sub-pools may only be cached if keys are not reference counted");
+        }
+        return register(k);
+    }
+
     /**
      * De-register the use of a key by an object.
      * <p>
@@ -1164,6 +2016,11 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      * @param k The key to de-register
      */
     private void deregister(final K k) {
+        if (minEvictableEmptyKeyIdleTimeMillis >= 0) {
+            // Keys are retired by the evictor
+            return;
+        }
+
         ObjectDeque<T> objectDeque;
 
         objectDeque = poolMap.get(k);
@@ -1173,13 +2030,16 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             final Lock writeLock = keyLock.writeLock();
             writeLock.lock();
             try {
+                // Check the key still maps to this sub-pool as another thread
+                // may already have removed it
                 if (objectDeque.getCreateCount().get() == 0 &&
-                        objectDeque.getNumInterested().get() == 0) {
+                        objectDeque.getNumInterested().get() == 0 &&
+                        poolMap.get(k) == objectDeque) {
                     // NOTE: Keys must always be removed from both poolMap and
-                    //       poolKeyList at the same time while protected by
+                    //       poolKeyIndex at the same time while protected by
                     //       keyLock.writeLock()
                     poolMap.remove(k);
-                    poolKeyList.remove(k);
+                    poolKeyIndex.remove(objectDeque.keyIndexSlot);
                 }
             } finally {
                 writeLock.unlock();
@@ -1187,10 +2047,231 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         }
     }
 
+    /**
+     * Increment the count of threads interested in a key if keys are reference
+     * counted.
+     *
+     * @param objectDeque The sub-pool for the key
+     */
+    private void incrementNumInterested(final ObjectDeque<T> objectDeque) {
+        if (minEvictableEmptyKeyIdleTimeMillis < 0) {
+            objectDeque.getNumInterested().incrementAndGet();
+        }
+    }
+
+    /**
+     * Remove the keys that have no objects, no threads waiting for an object
+     * and that have not been borrowed from for at least
+     * {@link #getMinEvictableEmptyKeyIdleTimeMillis()}. Only used when keys
+     * are not reference counted.
+     */
+    private void retireEmptyKeys() {
+        final long now = System.currentTimeMillis();
+        List<IdleKeyQueue.Entry<K,ObjectDeque<T>>> stillPresent = null;
+        IdleKeyQueue.Entry<K,ObjectDeque<T>> entry =
+                emptyKeys.poll(now - minEvictableEmptyKeyIdleTimeMillis);
+        while (entry != null) {
+            final K key = entry.getKey();
+            final ObjectDeque<T> objectDeque = entry.getValue();
+            if (poolMap.get(key) == objectDeque) {
+                retireKey(key, objectDeque, now, minEvictableEmptyKeyIdleTimeMillis);
+                if (!objectDeque.isRetired()) {
+                    if (stillPresent == null) {
+                        stillPresent = new ArrayList<IdleKeyQueue.Entry<K,ObjectDeque<T>>>();
+                    }
+                    stillPresent.add(entry);
+                }
+            }
+            entry = emptyKeys.poll(now - minEvictableEmptyKeyIdleTimeMillis);
+        }
+        requeueIdleKeys(emptyKeys, stillPresent, now);
+    }
+
+    /**
+     * Add a new key to the queues used to find the keys that may be removed
+     * once they have been idle for long enough.
+     *
+     * @param key         The key
+     * @param objectDeque The sub-pool for the key
+     */
+    private void trackIdleKey(final K key, final ObjectDeque<T> objectDeque) {
+        if (emptyKeys != null) {
+            emptyKeys.add(key, objectDeque, objectDeque.getLastBorrowTime());
+        }
+        if (minEvictableKeyIdleTimeMillis >= 0) {
+            idleKeys.add(key, objectDeque, objectDeque.getLastBorrowTime());
+        }
+    }
+
+    /**
+     * Add back keys that were examined and not removed. A key that has been
+     * borrowed from since it was queued is queued from its last borrow time.
+     * Otherwise it was idle but in use and is next examined once it has been
+     * idle for long enough after this eviction run.
+     *
+     * @param queue   The queue the keys were polled from
+     * @param entries The keys to add back or <code>null</code> if there are
+     *                none
+     * @param now     The time the keys were examined
+     */
+    private void requeueIdleKeys(final IdleKeyQueue<K,ObjectDeque<T>> queue,
+            final List<IdleKeyQueue.Entry<K,ObjectDeque<T>>> entries,
+            final long now) {
+        if (entries == null) {
+            return;
+        }
+        for (final IdleKeyQueue.Entry<K,ObjectDeque<T>> entry : entries) {
+            final ObjectDeque<T> objectDeque = entry.getValue();
+            final long lastBorrowTime = objectDeque.getLastBorrowTime();
+            queue.add(entry.getKey(), objectDeque,
+                    lastBorrowTime > entry.getTime() ? lastBorrowTime : now);
+        }
+    }
+
+    /**
+     * Remove the given key from the pool if it has no objects, no threads
+     * waiting for an object and has not been borrowed from for at least the
+     * given time. Only used when keys are not reference counted.
+     *
+     * @param key         The key to remove
+     * @param objectDeque The sub-pool for the key
+     * @param now         The current time
+     * @param idleTimeMillis The minimum time since the last borrow
+     */
+    private void retireKey(final K key, final ObjectDeque<T> objectDeque,
+            final long now, final long idleTimeMillis) {
+        if (!isRetirable(objectDeque, now, idleTimeMillis)) {
+            return;
+        }
+        final Lock writeLock = keyLock.writeLock();
+        writeLock.lock();
+        try {
+            // create() checks the retired flag while holding
+            // makeObjectCountLock so no new object can be added to the
+            // sub-pool once the checks below have passed
+            synchronized (objectDeque.makeObjectCountLock) {
+                if (isRetirable(objectDeque, now, idleTimeMillis)) {
+                    objectDeque.retired = true;
+                    // NOTE: Keys must always be removed from both poolMap and
+                    //       poolKeyIndex at the same time while protected by
+                    //       keyLock.writeLock()
+                    poolMap.remove(key);
+                    poolKeyIndex.remove(objectDeque.keyIndexSlot);
+                    // A borrower may have checked the flag just before it was
+                    // set and be about to wait. Closing the deque wakes it, or
+                    // stops it waiting, so that it registers the key again.
+                    objectDeque.getIdleObjects().close();
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean isRetirable(final ObjectDeque<T> objectDeque, final long now,
+            final long idleTimeMillis) {
+        return !objectDeque.isRetired() &&
+                objectDeque.getCreateCount().get() == 0 &&
+                objectDeque.makeObjectCount == 0 &&
+                !objectDeque.getIdleObjects().hasTakeWaiters() &&
+                now - objectDeque.getLastBorrowTime() >= idleTimeMillis;
+    }
+
+    /**
+     * Destroy the idle objects of, and remove, every key that has not been
+     * borrowed from for at least the given time and that has no objects in
+     * use and no threads waiting for an object.
+     * <p>
+     * Only the keys queued in {@link #idleKeys} from a time at least the given
+     * time ago are examined, so the cost of this method is dominated by the
+     * keys that are removed. The objects of the remaining keys are left to the
+     * normal eviction tests.
+     * <p>
+     * The checks that a key is not in use are not atomic with respect to a
+     * concurrent borrow from the key. The last borrow time is checked again
+     * before each object is destroyed which narrows the window, but a
+     * borrower may still find the sub-pool empty and create a new object.
+     * This is the same outcome as the borrower arriving just after the key
+     * was removed, and no object that has been borrowed is ever destroyed as
+     * only objects taken from the idle objects are.
+     *
+     * @param minEvictableKeyIdleTimeMillis The minimum time since the last
+     *                                      borrow
+     */
+    private void evictIdleKeys(final long minEvictableKeyIdleTimeMillis) {
+        final long now = System.currentTimeMillis();
+        List<IdleKeyQueue.Entry<K,ObjectDeque<T>>> stillPresent = null;
+        IdleKeyQueue.Entry<K,ObjectDeque<T>> entry =
+                idleKeys.poll(now - minEvictableKeyIdleTimeMillis);
+        while (entry != null) {
+            final K key = entry.getKey();
+            final ObjectDeque<T> objectDeque = entry.getValue();
+            if (poolMap.get(key) == objectDeque &&
+                    !evictIdleKey(key, objectDeque, now, minEvictableKeyIdleTimeMillis)) {
+                if (stillPresent == null) {
+                    stillPresent = new ArrayList<IdleKeyQueue.Entry<K,ObjectDeque<T>>>();
+                }
+                stillPresent.add(entry);
+            }
+            entry = idleKeys.poll(now - minEvictableKeyIdleTimeMillis);
+        }
+        requeueIdleKeys(idleKeys, stillPresent, now);
+    }
+
+    /**
+     * Destroy the idle objects of, and remove, a key if it has not been
+     * borrowed from for at least the given time and has no objects in use and
+     * no threads waiting for an object.
+     *
+     * @param key         The key
+     * @param objectDeque The sub-pool for the key
+     * @param now         The current time
+     * @param minEvictableKeyIdleTimeMillis The minimum time since the last
+     *                                      borrow
+     *
+     * @return <code>true</code> if the key is no longer in the pool
+     */
+    private boolean evictIdleKey(final K key, final ObjectDeque<T> objectDeque,
+            final long now, final long minEvictableKeyIdleTimeMillis) {
+        final long lastBorrowTime = objectDeque.getLastBorrowTime();
+        if (now - lastBorrowTime < minEvictableKeyIdleTimeMillis) {
+            return false;
+        }
+        final LinkedBlockingDeque<PooledObject<T>> idleObjects =
+                objectDeque.getIdleObjects();
+        if (idleObjects.hasTakeWaiters() ||
+                objectDeque.getAllObjects().size() > idleObjects.size()) {
+            // Key is in use
+            return false;
+        }
+        PooledObject<T> p = idleObjects.poll();
+        while (p != null) {
+            if (objectDeque.getLastBorrowTime() != lastBorrowTime) {
+                // A borrow has started. Leave the remaining objects for it.
+                idleObjects.addFirst(p);
+                return false;
+            }
+            try {
+                publishEvent(PoolEventType.EVICTED, key, p, 0, null);
+                destroy(key, p, true, DestroyReason.EVICTED);
+                destroyedByEvictorCount.incrementAndGet();
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            p = idleObjects.poll();
+        }
+        // With reference counted keys destroying the last object removed
+        // the key
+        if (minEvictableEmptyKeyIdleTimeMillis >= 0) {
+            retireKey(key, objectDeque, now, minEvictableKeyIdleTimeMillis);
+        }
+        return poolMap.get(key) != objectDeque;
+    }
+
     @Override
     void ensureMinIdle() throws Exception {
         final int minIdlePerKeySave = getMinIdlePerKey();
-        if (minIdlePerKeySave < 1) {
+        if (minIdlePerKeySave < 1 && getPerKeyConfigResolver() == null) {
             return;
         }
 
@@ -1219,9 +2300,9 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         // as a loop limit and a second time inside the loop
         // to stop when another thread already returned the
         // needed objects
-        final int deficit = calculateDeficit(objectDeque);
+        final int deficit = calculateDeficit(key, objectDeque);
 
-        for (int i = 0; i < deficit && calculateDeficit(objectDeque) > 0; i++) {
+        for (int i = 0; i < deficit && calculateDeficit(key, objectDeque) > 0; i++) {
             addObject(key);
         }
     }
@@ -1240,15 +2321,55 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
     @Override
     public void addObject(final K key) throws Exception {
         assertOpen();
-        register(key);
+        ObjectDeque<T> objectDeque = register(key);
         try {
-            final PooledObject<T> p = create(key);
+            PooledObject<T> p = create(key, objectDeque);
+            while (p == null && objectDeque.isRetired()) {
+                objectDeque = register(key);
+                p = create(key, objectDeque);
+            }
             addIdleObject(key, p);
         } finally {
             deregister(key);
         }
     }
 
+    /**
+     * Create an idle object for the given key to replace one that was
+     * destroyed because it reached {@link #getMaxUsesPerObject()
+     * maxUsesPerObject}, unless that would exceed the maximum number of idle
+     * objects for the key. Runs on the replacement thread so exceptions are
+     * swallowed.
+     *
+     * @param key The key of the destroyed object
+     */
+    private void addReplacement(final K key) {
+        if (isClosed()) {
+            return;
+        }
+        ObjectDeque<T> objectDeque = register(key);
+        try {
+            final int maxIdle = getMaxIdlePerKey(objectDeque.getPerKeyConfig());
+            if (maxIdle > -1 && maxIdle <= objectDeque.getIdleObjects().size()) {
+                return;
+            }
+            PooledObject<T> p = create(key, objectDeque);
+            while (p == null && objectDeque.isRetired()) {
+                objectDeque = register(key);
+                p = create(key, objectDeque);
+            }
+            addIdleObject(key, p);
+            if (isClosed()) {
+                // Pool closed while the object was being added
+                clear(key);
+            }
+        } catch (final Exception e) {
+            swallowException(e);
+        } finally {
+            deregister(key);
+        }
+    }
+
     /**
      * Add an object to the set of idle objects for a given key.
      *
@@ -1263,6 +2384,7 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             factory.passivateObject(key, p);
             final LinkedBlockingDeque<PooledObject<T>> idleObjects =
                     poolMap.get(key).getIdleObjects();
+            scheduleIdleExpiry(p, key);
             if (getLifo()) {
                 idleObjects.addFirst(p);
             } else {
@@ -1280,7 +2402,7 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      * @throws Exception If the associated factory throws an exception
      */
     public void preparePool(final K key) throws Exception {
-        final int minIdlePerKeySave = getMinIdlePerKey();
+        final int minIdlePerKeySave = getMinIdlePerKey(key);
         if (minIdlePerKeySave < 1) {
             return;
         }
@@ -1295,6 +2417,10 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      */
     private int getNumTests() {
         final int totalIdle = getNumIdle();
+        if (getEvictionRunBudgetMillis() > 0) {
+            // At most one pass over the idle objects, limited by the budget
+            return totalIdle;
+        }
         final int numTests = getNumTestsPerEvictionRun();
         if (numTests >= 0) {
             return Math.min(numTests, totalIdle);
@@ -1307,25 +2433,28 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      * maintain the minimum number of idle objects while not exceeded the limits
      * on the maximum number of objects either per key or totally.
      *
+     * @param key           The key associated with the objects
      * @param objectDeque   The set of objects to check
      *
      * @return The number of new objects to create
      */
-    private int calculateDeficit(final ObjectDeque<T> objectDeque) {
+    private int calculateDeficit(final K key, final ObjectDeque<T> objectDeque) {
 
         if (objectDeque == null) {
-            return getMinIdlePerKey();
+            return getMinIdlePerKey(resolvePerKeyConfig(key));
         }
 
         // Used more than once so keep a local copy so the value is consistent
+        final PerKeyConfig perKeyConfig = objectDeque.getPerKeyConfig();
         final int maxTotal = getMaxTotal();
-        final int maxTotalPerKeySave = getMaxTotalPerKey();
+        final int maxTotalPerKeySave = getMaxTotalPerKey(perKeyConfig);
 
         int objectDefecit = 0;
 
         // Calculate no of objects needed to be created, in order to have
         // the number of pooled objects < maxTotalPerKey();
-        objectDefecit = getMinIdlePerKey() - objectDeque.getIdleObjects().size();
+        objectDefecit = getMinIdlePerKey(perKeyConfig) -
+                objectDeque.getIdleObjects().size();
         if (maxTotalPerKeySave > 0) {
             final int growLimit = Math.max(0,
                     maxTotalPerKeySave - objectDeque.getIdleObjects().size());
@@ -1342,6 +2471,62 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
     }
 
 
+    /**
+     * Obtain the per key configuration for the given key, using the value
+     * cached with the sub-pool if the key is currently in use.
+     *
+     * @param key The key
+     *
+     * @return The per key configuration or <code>null</code> if the pool-wide
+     *         settings apply
+     */
+    private PerKeyConfig getPerKeyConfig(final K key) {
+        final ObjectDeque<T> objectDeque = poolMap.get(key);
+        if (objectDeque != null) {
+            return objectDeque.getPerKeyConfig();
+        }
+        return resolvePerKeyConfig(key);
+    }
+
+    /**
+     * Consult the configured resolver, if any, for the limits to apply to the
+     * given key.
+     *
+     * @param key The key
+     *
+     * @return The per key configuration or <code>null</code> if the pool-wide
+     *         settings apply
+     */
+    private PerKeyConfig resolvePerKeyConfig(final K key) {
+        final PerKeyConfigResolver<? super K> resolver = perKeyConfigResolver;
+        if (resolver == null) {
+            return null;
+        }
+        return resolver.resolve(key);
+    }
+
+    private int getMaxTotalPerKey(final PerKeyConfig perKeyConfig) {
+        if (perKeyConfig == null) {
+            return getMaxTotalPerKey();
+        }
+        return perKeyConfig.getMaxTotalPerKey();
+    }
+
+    private int getMaxIdlePerKey(final PerKeyConfig perKeyConfig) {
+        if (perKeyConfig == null) {
+            return getMaxIdlePerKey();
+        }
+        return perKeyConfig.getMaxIdlePerKey();
+    }
+
+    private int getMinIdlePerKey(final PerKeyConfig perKeyConfig) {
+        if (perKeyConfig == null) {
+            return getMinIdlePerKey();
+        }
+        return perKeyConfig.getMinIdlePerKey();
+    }
+
+
     //--- JMX support ----------------------------------------------------------
 
     @Override
@@ -1415,6 +2600,148 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         return result;
     }
 
+    /**
+     * Obtain, for each key, the number of attempts to borrow an object that
+     * ended with each outcome: <code>IDLE</code> (an idle object was
+     * borrowed), <code>CREATE</code> (an object was created for the
+     * borrower), <code>WAIT</code> (the borrower waited for an object),
+     * <code>TIMEOUT</code> (the borrower waited without obtaining an object)
+     * and <code>EXHAUSTED</code> (the pool was exhausted and the borrower did
+     * not wait). The counts for a key are discarded when the key is removed
+     * from the pool.
+     *
+     * @return The number of borrows with each outcome for each key
+     *
+     * @since 2.4.3
+     */
+    @Override
+    public Map<String,Map<String,Long>> getBorrowOutcomeCountsPerKey() {
+        final Map<String,Map<String,Long>> result = new HashMap<String,Map<String,Long>>();
+
+        for (Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
+            final ObjectDeque<T> deque = entry.getValue();
+            if (deque != null) {
+                result.put(entry.getKey().toString(), deque.getBorrowOutcomes().getCounts());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Obtain, for each key, the total time in nanoseconds taken by the
+     * attempts to borrow an object that ended with each of the outcomes
+     * described by {@link #getBorrowOutcomeCountsPerKey()}.
+     *
+     * @return The time taken by borrows with each outcome for each key
+     *
+     * @since 2.4.3
+     */
+    @Override
+    public Map<String,Map<String,Long>> getBorrowOutcomeTimeNanosPerKey() {
+        final Map<String,Map<String,Long>> result = new HashMap<String,Map<String,Long>>();
+
+        for (Map.Entry<K, ObjectDeque<T>> entry : poolMap.entrySet()) {
+            final ObjectDeque<T> deque = entry.getValue();
+            if (deque != null) {
+                result.put(entry.getKey().toString(), deque.getBorrowOutcomes().getTimesNanos());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Obtain the keys with the most borrows, as estimated by the per key
+     * statistics, and their estimated borrow counts, highest first. At most
+     * {@link #getHotKeyCapacity()} keys are reported. Only these keys are
+     * converted to strings, so this is suitable for frequent monitoring of
+     * pools with very many keys.
+     *
+     * @return The estimated number of borrows for each of the hottest keys
+     *
+     * @since 2.4.3
+     */
+    @Override
+    public Map<String,Long> getHottestKeys() {
+        final KeyStatistics<K> statistics = keyStatistics;
+        if (statistics == null) {
+            return Collections.emptyMap();
+        }
+        return statistics.getHottestKeys();
+    }
+
+    /**
+     * Obtain the keys for which borrowers have spent the most time waiting
+     * for an object, as estimated by the per key statistics, and the
+     * estimated total wait time in nanoseconds, highest first. At most
+     * {@link #getHotKeyCapacity()} keys are reported.
+     *
+     * @return The estimated wait time for each of the most contended keys
+     *
+     * @since 2.4.3
+     */
+    @Override
+    public Map<String,Long> getMostContendedKeys() {
+        final KeyStatistics<K> statistics = keyStatistics;
+        if (statistics == null) {
+            return Collections.emptyMap();
+        }
+        return statistics.getMostContendedKeys();
+    }
+
+    /**
+     * Estimates the number of objects borrowed for the given key. The
+     * estimate is never less than the true count while per key statistics are
+     * collected and may include some borrows of other keys.
+     *
+     * @param key The key
+     *
+     * @return The estimated borrow count or zero if per key statistics are not
+     *         being collected
+     *
+     * @see #setHotKeyCapacity(int)
+     *
+     * @since 2.4.3
+     */
+    public long getEstimatedBorrowCount(final K key) {
+        final KeyStatistics<K> statistics = keyStatistics;
+        return statistics == null ? 0 : statistics.getBorrowCount(key);
+    }
+
+    /**
+     * Estimates the time in nanoseconds borrowers have spent waiting for
+     * objects for the given key, including borrows that timed out.
+     *
+     * @param key The key
+     *
+     * @return The estimated wait time or zero if per key statistics are not
+     *         being collected
+     *
+     * @see #getEstimatedBorrowCount(Object)
+     *
+     * @since 2.4.3
+     */
+    public long getEstimatedWaitTimeNanos(final K key) {
+        final KeyStatistics<K> statistics = keyStatistics;
+        return statistics == null ? 0 : statistics.getWaitTimeNanos(key);
+    }
+
+    /**
+     * Estimates the number of objects created for the given key.
+     *
+     * @param key The key
+     *
+     * @return The estimated create count or zero if per key statistics are
+     *         not being collected
+     *
+     * @see #getEstimatedBorrowCount(Object)
+     *
+     * @since 2.4.3
+     */
+    public long getEstimatedCreateCount(final K key) {
+        final KeyStatistics<K> statistics = keyStatistics;
+        return statistics == null ? 0 : statistics.getCreateCount(key);
+    }
+
     /**
      * Provides information on all the objects in the pool, both idle (waiting
      * to be borrowed) and active (currently borrowed).
@@ -1449,10 +2776,33 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
 
     //--- inner classes ----------------------------------------------
 
+    /**
+     * An idle object selected by the evictor to be tested on the eviction
+     * test executor.
+     */
+    private class IdleObjectTest implements Callable<Boolean> {
+
+        private final K key;
+        private final PooledObject<T> pooledObject;
+        private final Deque<PooledObject<T>> idleObjects;
+
+        IdleObjectTest(final K key, final PooledObject<T> pooledObject,
+                final Deque<PooledObject<T>> idleObjects) {
+            this.key = key;
+            this.pooledObject = pooledObject;
+            this.idleObjects = idleObjects;
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+            return Boolean.valueOf(testIdleObject(key, pooledObject));
+        }
+    }
+
     /**
      * Maintains information on the per key queue for a given key.
      */
-    private class ObjectDeque<S> {
+    class ObjectDeque<S> {
 
         private final LinkedBlockingDeque<PooledObject<S>> idleObjects;
 
@@ -1465,6 +2815,12 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         private long makeObjectCount = 0;
         private final Object makeObjectCountLock = new Object();
 
+        /*
+         * Replacements for objects recycled by maxUsesPerObject that have not
+         * yet been created.
+         */
+        private final AtomicInteger pendingReplacements = new AtomicInteger(0);
+
         /*
          * The map is keyed on pooled instances, wrapped to ensure that
          * they work properly as keys.
@@ -1480,13 +2836,43 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
          */
         private final AtomicLong numInterested = new AtomicLong(0);
 
+        /*
+         * Limits for this key obtained from the per key configuration
+         * resolver, or null if the pool-wide limits apply.
+         */
+        private volatile PerKeyConfig perKeyConfig = null;
+
+        /*
+         * The time this key was last borrowed from, or the time the key was
+         * added if it has never been borrowed from.
+         */
+        private volatile long lastBorrowTime = System.currentTimeMillis();
+
+        /*
+         * How borrows from this key ended. A single stripe is used since the
+         * pool-wide counters are striped and a pool may have many keys.
+         */
+        private final BorrowOutcomeCounters borrowOutcomes = new BorrowOutcomeCounters(1);
+
+        /*
+         * Set by the evictor when the key is removed from the pool. Only used
+         * when keys are not reference counted.
+         */
+        private volatile boolean retired = false; // @GuardedBy("makeObjectCountLock") for write access
+
+        /*
+         * The position of the key in the pool's key index.
+         */
+        private int keyIndexSlot; // @GuardedBy("keyLock")
+
         /**
          * Create a new ObjecDeque with the given fairness policy.
          * @param fairness true means client threads waiting to borrow / return instances
          * will be served as if waiting in a FIFO queue.
          */
         public ObjectDeque(final boolean fairness) {
-            idleObjects = new LinkedBlockingDeque<PooledObject<S>>(fairness);
+            idleObjects = new LinkedBlockingDeque<PooledObject<S>>(
+                    Integer.MAX_VALUE, fairness, numIdle);
         }
 
         /**
@@ -1526,6 +2912,66 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             return allObjects;
         }
 
+        /**
+         * Obtain the cached per key configuration for the current key.
+         *
+         * @return The per key configuration or <code>null</code> if the
+         *         pool-wide settings apply
+         */
+        public PerKeyConfig getPerKeyConfig() {
+            return perKeyConfig;
+        }
+
+        /**
+         * Set the cached per key configuration for the current key.
+         *
+         * @param perKeyConfig The per key configuration or <code>null</code>
+         *                     if the pool-wide settings apply
+         */
+        public void setPerKeyConfig(final PerKeyConfig perKeyConfig) {
+            this.perKeyConfig = perKeyConfig;
+        }
+
+        /**
+         * Obtain the time this key was last borrowed from.
+         *
+         * @return The last borrow time in milliseconds since the epoch
+         */
+        public long getLastBorrowTime() {
+            return lastBorrowTime;
+        }
+
+        /**
+         * Obtain the counters of how borrows from this key ended.
+         *
+         * @return The borrow outcome counters
+         */
+        public BorrowOutcomeCounters getBorrowOutcomes() {
+            return borrowOutcomes;
+        }
+
+        /**
+         * Record a borrow from this key. The shared field is only written if
+         * the time has changed to avoid needless cache line invalidation when
+         * many threads borrow under the same key.
+         *
+         * @param now The current time in milliseconds since the epoch
+         */
+        public void setLastBorrowTime(final long now) {
+            if (lastBorrowTime != now) {
+                lastBorrowTime = now;
+            }
+        }
+
+        /**
+         * Has this key been removed from the pool by the evictor?
+         *
+         * @return {@code true} if the key has been retired
+         */
+        public boolean isRetired() {
+            return retired;
+        }
+
         @Override
         public String toString() {
             final StringBuilder builder = new StringBuilder();
@@ -1537,6 +2983,12 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
             builder.append(allObjects);
             builder.append(", numInterested=");
             builder.append(numInterested);
+            builder.append(", perKeyConfig=");
+            builder.append(perKeyConfig);
+            builder.append(", lastBorrowTime=");
+            builder.append(lastBorrowTime);
+            builder.append(", retired=");
+            builder.append(retired);
             builder.append("]");
             return builder.toString();
         }
@@ -1550,26 +3002,40 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         GenericKeyedObjectPoolConfig.DEFAULT_MIN_IDLE_PER_KEY;
     private volatile int maxTotalPerKey =
         GenericKeyedObjectPoolConfig.DEFAULT_MAX_TOTAL_PER_KEY;
+    private volatile PerKeyConfigResolver<? super K> perKeyConfigResolver = null;
     private final KeyedPooledObjectFactory<K,T> factory;
     private final boolean fairness;
+    private final long minEvictableEmptyKeyIdleTimeMillis;
+    private volatile long minEvictableKeyIdleTimeMillis =
+            GenericKeyedObjectPoolConfig.DEFAULT_MIN_EVICTABLE_KEY_IDLE_TIME_MILLIS;
+    private volatile KeyStatistics<K> keyStatistics = null;
 
 
     //--- internal attributes --------------------------------------------------
 
     /*
-     * My hash of sub-pools (ObjectQueue). The list of keys <b>must</b> be kept
-     * in step with {@link #poolKeyList} using {@link #keyLock} to ensure any
+     * My hash of sub-pools (ObjectQueue). The index of keys <b>must</b> be kept
+     * in step with {@link #poolKeyIndex} using {@link #keyLock} to ensure any
      * changes to the list of current keys is made in a thread-safe manner.
      */
     private final Map<K,ObjectDeque<T>> poolMap =
             new ConcurrentHashMap<K,ObjectDeque<T>>(); // @GuardedBy("keyLock") for write access (and some read access)
     /*
-     * List of pool keys - used to control eviction order. The list of keys
+     * Index of pool keys - used to control eviction order. The index of keys
      * <b>must</b> be kept in step with {@link #poolMap} using {@link #keyLock}
      * to ensure any changes to the list of current keys is made in a
-     * thread-safe manner.
+     * thread-safe manner. The evictor reads it without locking.
      */
-    private final List<K> poolKeyList = new ArrayList<K>(); // @GuardedBy("keyLock")
+    private final KeyIndex<K> poolKeyIndex = new KeyIndex<K>(); // @GuardedBy("keyLock") for write access
+    /*
+     * The keys ordered by the time from which they have been idle, so that
+     * the evictor only examines the keys that may be removed. emptyKeys is
+     * null when keys are reference counted and idleKeys only holds keys while
+     * minEvictableKeyIdleTimeMillis is not negative.
+     */
+    private final IdleKeyQueue<K,ObjectDeque<T>> emptyKeys;
+    private final IdleKeyQueue<K,ObjectDeque<T>> idleKeys =
+            new IdleKeyQueue<K,ObjectDeque<T>>();
     private final ReadWriteLock keyLock = new ReentrantReadWriteLock(true);
     /*
      * The combined count of the currently active objects for all keys and those
@@ -1578,7 +3044,17 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
      * created at any one time.
      */
     private final AtomicInteger numTotal = new AtomicInteger(0);
-    private Iterator<K> evictionKeyIterator = null; // @GuardedBy("evictionLock")
+    /*
+     * Objects discarded while being borrowed or returned that are waiting for
+     * a destroy thread. They are included in numTotal until destroyed.
+     */
+    private final AtomicInteger numPendingDestroy = new AtomicInteger(0);
+    /*
+     * The number of idle objects under all keys, updated by the idle object
+     * deques so that it can be read without visiting every key.
+     */
+    private final StripedCounter numIdle = new StripedCounter();
+    private int evictionKeyCursor = 0; // @GuardedBy("evictionLock")
     private K evictionKey = null; // @GuardedBy("evictionLock")
 
     // JMX specific attributes
@@ -1594,20 +3070,30 @@ public class GenericKeyedObjectPool<K,T> extends BaseGenericObjectPool<T>
         builder.append(minIdlePerKey);
         builder.append(", maxTotalPerKey=");
         builder.append(maxTotalPerKey);
+        builder.append(", perKeyConfigResolver=");
+        builder.append(perKeyConfigResolver);
         builder.append(", factory=");
         builder.append(factory);
         builder.append(", fairness=");
         builder.append(fairness);
+        builder.append(", minEvictableEmptyKeyIdleTimeMillis=");
+        builder.append(minEvictableEmptyKeyIdleTimeMillis);
+        builder.append(", minEvictableKeyIdleTimeMillis=");
+        builder.append(minEvictableKeyIdleTimeMillis);
+        builder.append(", keyStatistics=");
+        builder.append(keyStatistics);
         builder.append(", poolMap=");
         builder.append(poolMap);
-        builder.append(", poolKeyList=");
-        builder.append(poolKeyList);
+        builder.append(", poolKeyIndex=");
+        builder.append(poolKeyIndex);
         builder.append(", keyLock=");
         builder.append(keyLock);
         builder.append(", numTotal=");
         builder.append(numTotal);
-        builder.append(", evictionKeyIterator=");
-        builder.append(evictionKeyIterator);
+        builder.append(", numIdle=");
+        builder.append(numIdle);
+        builder.append(", evictionKeyCursor=");
+        builder.append(evictionKeyCursor);
         builder.append(", evictionKey=");
         builder.append(evictionKey);
     }
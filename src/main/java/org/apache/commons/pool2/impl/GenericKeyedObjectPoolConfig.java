@@ -54,6 +54,27 @@ public class GenericKeyedObjectPoolConfig extends BaseObjectPoolConfig {
      */
     public static final int DEFAULT_MAX_IDLE_PER_KEY = 8;
 
+    /**
+     * The default value for the {@code minEvictableEmptyKeyIdleTimeMillis}
+     * configuration attribute.
+     * @see GenericKeyedObjectPool#getMinEvictableEmptyKeyIdleTimeMillis()
+     */
+    public static final long DEFAULT_MIN_EVICTABLE_EMPTY_KEY_IDLE_TIME_MILLIS = -1L;
+
+    /**
+     * The default value for the {@code minEvictableKeyIdleTimeMillis}
+     * configuration attribute.
+     * @see GenericKeyedObjectPool#getMinEvictableKeyIdleTimeMillis()
+     */
+    public static final long DEFAULT_MIN_EVICTABLE_KEY_IDLE_TIME_MILLIS = -1L;
+
+    /**
+     * The default value for the {@code hotKeyCapacity} configuration
+     * attribute.
+     * @see GenericKeyedObjectPool#getHotKeyCapacity()
+     */
+    public static final int DEFAULT_HOT_KEY_CAPACITY = 0;
+
 
     private int minIdlePerKey = DEFAULT_MIN_IDLE_PER_KEY;
 
@@ -63,6 +84,16 @@ public class GenericKeyedObjectPoolConfig extends BaseObjectPoolConfig {
 
     private int maxTotal = DEFAULT_MAX_TOTAL;
 
+    private PerKeyConfigResolver<?> perKeyConfigResolver = null;
+
+    private long minEvictableEmptyKeyIdleTimeMillis =
+            DEFAULT_MIN_EVICTABLE_EMPTY_KEY_IDLE_TIME_MILLIS;
+
+    private long minEvictableKeyIdleTimeMillis =
+            DEFAULT_MIN_EVICTABLE_KEY_IDLE_TIME_MILLIS;
+
+    private int hotKeyCapacity = DEFAULT_HOT_KEY_CAPACITY;
+
     /**
      * Create a new configuration with default settings.
      */
@@ -173,6 +204,121 @@ public class GenericKeyedObjectPoolConfig extends BaseObjectPoolConfig {
         this.maxIdlePerKey = maxIdlePerKey;
     }
 
+    /**
+     * Get the value for the {@code perKeyConfigResolver} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code perKeyConfigResolver} for this
+     *          configuration instance
+     *
+     * @see GenericKeyedObjectPool#getPerKeyConfigResolver()
+     */
+    public PerKeyConfigResolver<?> getPerKeyConfigResolver() {
+        return perKeyConfigResolver;
+    }
+
+    /**
+     * Set the value for the {@code perKeyConfigResolver} configuration
+     * attribute for pools created with this configuration instance. The
+     * resolver must accept the key type of the pools it is used with.
+     *
+     * @param perKeyConfigResolver The new setting of
+     *        {@code perKeyConfigResolver} for this configuration instance
+     *
+     * @see GenericKeyedObjectPool#setPerKeyConfigResolver(PerKeyConfigResolver)
+     */
+    public void setPerKeyConfigResolver(
+            final PerKeyConfigResolver<?> perKeyConfigResolver) {
+        this.perKeyConfigResolver = perKeyConfigResolver;
+    }
+
+    /**
+     * Get the value for the {@code minEvictableEmptyKeyIdleTimeMillis}
+     * configuration attribute for pools created with this configuration
+     * instance.
+     *
+     * @return  The current setting of {@code minEvictableEmptyKeyIdleTimeMillis}
+     *          for this configuration instance
+     *
+     * @see GenericKeyedObjectPool#getMinEvictableEmptyKeyIdleTimeMillis()
+     */
+    public long getMinEvictableEmptyKeyIdleTimeMillis() {
+        return minEvictableEmptyKeyIdleTimeMillis;
+    }
+
+    /**
+     * Set the value for the {@code minEvictableEmptyKeyIdleTimeMillis}
+     * configuration attribute for pools created with this configuration
+     * instance.
+     *
+     * @param minEvictableEmptyKeyIdleTimeMillis The new setting of
+     *        {@code minEvictableEmptyKeyIdleTimeMillis} for this configuration
+     *        instance
+     *
+     * @see GenericKeyedObjectPool#getMinEvictableEmptyKeyIdleTimeMillis()
+     */
+    public void setMinEvictableEmptyKeyIdleTimeMillis(
+            final long minEvictableEmptyKeyIdleTimeMillis) {
+        this.minEvictableEmptyKeyIdleTimeMillis =
+                minEvictableEmptyKeyIdleTimeMillis;
+    }
+
+    /**
+     * Get the value for the {@code minEvictableKeyIdleTimeMillis}
+     * configuration attribute for pools created with this configuration
+     * instance.
+     *
+     * @return  The current setting of {@code minEvictableKeyIdleTimeMillis}
+     *          for this configuration instance
+     *
+     * @see GenericKeyedObjectPool#getMinEvictableKeyIdleTimeMillis()
+     */
+    public long getMinEvictableKeyIdleTimeMillis() {
+        return minEvictableKeyIdleTimeMillis;
+    }
+
+    /**
+     * Set the value for the {@code minEvictableKeyIdleTimeMillis}
+     * configuration attribute for pools created with this configuration
+     * instance.
+     *
+     * @param minEvictableKeyIdleTimeMillis The new setting of
+     *        {@code minEvictableKeyIdleTimeMillis} for this configuration
+     *        instance
+     *
+     * @see GenericKeyedObjectPool#setMinEvictableKeyIdleTimeMillis(long)
+     */
+    public void setMinEvictableKeyIdleTimeMillis(
+            final long minEvictableKeyIdleTimeMillis) {
+        this.minEvictableKeyIdleTimeMillis = minEvictableKeyIdleTimeMillis;
+    }
+
+    /**
+     * Get the value for the {@code hotKeyCapacity} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code hotKeyCapacity} for this
+     *          configuration instance
+     *
+     * @see GenericKeyedObjectPool#getHotKeyCapacity()
+     */
+    public int getHotKeyCapacity() {
+        return hotKeyCapacity;
+    }
+
+    /**
+     * Set the value for the {@code hotKeyCapacity} configuration attribute
+     * for pools created with this configuration instance.
+     *
+     * @param hotKeyCapacity The new setting of {@code hotKeyCapacity}
+     *        for this configuration instance
+     *
+     * @see GenericKeyedObjectPool#setHotKeyCapacity(int)
+     */
+    public void setHotKeyCapacity(final int hotKeyCapacity) {
+        this.hotKeyCapacity = hotKeyCapacity;
+    }
+
     @Override
     public GenericKeyedObjectPoolConfig clone() {
         try {
@@ -193,5 +339,13 @@ public class GenericKeyedObjectPoolConfig extends BaseObjectPoolConfig {
         builder.append(maxTotalPerKey);
         builder.append(", maxTotal=");
         builder.append(maxTotal);
+        builder.append(", perKeyConfigResolver=");
+        builder.append(perKeyConfigResolver);
+        builder.append(", minEvictableEmptyKeyIdleTimeMillis=");
+        builder.append(minEvictableEmptyKeyIdleTimeMillis);
+        builder.append(", minEvictableKeyIdleTimeMillis=");
+        builder.append(minEvictableKeyIdleTimeMillis);
+        builder.append(", hotKeyCapacity=");
+        builder.append(hotKeyCapacity);
     }
 }
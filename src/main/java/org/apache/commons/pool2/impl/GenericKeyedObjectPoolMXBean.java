@@ -77,6 +77,24 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      * @return See {@link GenericKeyedObjectPool#getMinEvictableIdleTimeMillis()}
      */
     long getMinEvictableIdleTimeMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getMinEvictableEmptyKeyIdleTimeMillis()}
+     * @return See {@link GenericKeyedObjectPool#getMinEvictableEmptyKeyIdleTimeMillis()}
+     * @since 2.4.3
+     */
+    long getMinEvictableEmptyKeyIdleTimeMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getMinEvictableKeyIdleTimeMillis()}
+     * @return See {@link GenericKeyedObjectPool#getMinEvictableKeyIdleTimeMillis()}
+     * @since 2.4.3
+     */
+    long getMinEvictableKeyIdleTimeMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getHotKeyCapacity()}
+     * @return See {@link GenericKeyedObjectPool#getHotKeyCapacity()}
+     * @since 2.4.3
+     */
+    int getHotKeyCapacity();
     /**
      * See {@link GenericKeyedObjectPool#getMinIdlePerKey()}
      * @return See {@link GenericKeyedObjectPool#getMinIdlePerKey()}
@@ -97,6 +115,84 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      * @return See {@link GenericKeyedObjectPool#getNumTestsPerEvictionRun()}
      */
     int getNumTestsPerEvictionRun();
+    /**
+     * See {@link GenericKeyedObjectPool#getEvictionTestThreads()}
+     * @return See {@link GenericKeyedObjectPool#getEvictionTestThreads()}
+     * @since 2.4.3
+     */
+    int getEvictionTestThreads();
+    /**
+     * See {@link GenericKeyedObjectPool#getEvictionRunBudgetMillis()}
+     * @return See {@link GenericKeyedObjectPool#getEvictionRunBudgetMillis()}
+     * @since 2.4.3
+     */
+    long getEvictionRunBudgetMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getLastEvictionRunDurationMillis()}
+     * @return See {@link GenericKeyedObjectPool#getLastEvictionRunDurationMillis()}
+     * @since 2.4.3
+     */
+    long getLastEvictionRunDurationMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getLastEvictionRunTestedCount()}
+     * @return See {@link GenericKeyedObjectPool#getLastEvictionRunTestedCount()}
+     * @since 2.4.3
+     */
+    int getLastEvictionRunTestedCount();
+    /**
+     * See {@link GenericKeyedObjectPool#getLastEvictionRunCoverage()}
+     * @return See {@link GenericKeyedObjectPool#getLastEvictionRunCoverage()}
+     * @since 2.4.3
+     */
+    double getLastEvictionRunCoverage();
+    /**
+     * See {@link GenericKeyedObjectPool#getIdleExpiryTickMillis()}
+     * @return See {@link GenericKeyedObjectPool#getIdleExpiryTickMillis()}
+     * @since 2.4.3
+     */
+    long getIdleExpiryTickMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getMaxLifetimeMillis()}
+     * @return See {@link GenericKeyedObjectPool#getMaxLifetimeMillis()}
+     * @since 2.4.3
+     */
+    long getMaxLifetimeMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getMaxLifetimeJitterMillis()}
+     * @return See {@link GenericKeyedObjectPool#getMaxLifetimeJitterMillis()}
+     * @since 2.4.3
+     */
+    long getMaxLifetimeJitterMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getMaxUsesPerObject()}
+     * @return See {@link GenericKeyedObjectPool#getMaxUsesPerObject()}
+     * @since 2.4.3
+     */
+    int getMaxUsesPerObject();
+    /**
+     * See {@link GenericKeyedObjectPool#getDestroyThreads()}
+     * @return See {@link GenericKeyedObjectPool#getDestroyThreads()}
+     * @since 2.4.3
+     */
+    int getDestroyThreads();
+    /**
+     * See {@link GenericKeyedObjectPool#getDestroyQueueCapacity()}
+     * @return See {@link GenericKeyedObjectPool#getDestroyQueueCapacity()}
+     * @since 2.4.3
+     */
+    int getDestroyQueueCapacity();
+    /**
+     * See {@link GenericKeyedObjectPool#getValidationIntervalMillis()}
+     * @return See {@link GenericKeyedObjectPool#getValidationIntervalMillis()}
+     * @since 2.4.3
+     */
+    long getValidationIntervalMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getValidationTimeoutMillis()}
+     * @return See {@link GenericKeyedObjectPool#getValidationTimeoutMillis()}
+     * @since 2.4.3
+     */
+    long getValidationTimeoutMillis();
     /**
      * See {@link GenericKeyedObjectPool#getTestOnCreate()}
      * @return See {@link GenericKeyedObjectPool#getTestOnCreate()}
@@ -184,6 +280,90 @@ public interface GenericKeyedObjectPoolMXBean<K> {
      * @return See {@link GenericKeyedObjectPool#getMaxBorrowWaitTimeMillis()}
      */
     long getMaxBorrowWaitTimeMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getMeanValidationTimeMillis()}
+     * @return See {@link GenericKeyedObjectPool#getMeanValidationTimeMillis()}
+     * @since 2.4.3
+     */
+    long getMeanValidationTimeMillis();
+    /**
+     * See {@link GenericKeyedObjectPool#getValidationTimeoutCount()}
+     * @return See {@link GenericKeyedObjectPool#getValidationTimeoutCount()}
+     * @since 2.4.3
+     */
+    long getValidationTimeoutCount();
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowedFromIdleCount()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowedFromIdleCount()}
+     * @since 2.4.3
+     */
+    long getBorrowedFromIdleCount();
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowedFromIdleTimeNanos()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowedFromIdleTimeNanos()}
+     * @since 2.4.3
+     */
+    long getBorrowedFromIdleTimeNanos();
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowedWithCreateCount()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowedWithCreateCount()}
+     * @since 2.4.3
+     */
+    long getBorrowedWithCreateCount();
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowedWithCreateTimeNanos()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowedWithCreateTimeNanos()}
+     * @since 2.4.3
+     */
+    long getBorrowedWithCreateTimeNanos();
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowedAfterWaitCount()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowedAfterWaitCount()}
+     * @since 2.4.3
+     */
+    long getBorrowedAfterWaitCount();
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowedAfterWaitTimeNanos()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowedAfterWaitTimeNanos()}
+     * @since 2.4.3
+     */
+    long getBorrowedAfterWaitTimeNanos();
+    /**
+     * See {@link GenericKeyedObjectPool#getFailedBorrowCount()}
+     * @return See {@link GenericKeyedObjectPool#getFailedBorrowCount()}
+     * @since 2.4.3
+     */
+    long getFailedBorrowCount();
+    /**
+     * See {@link GenericKeyedObjectPool#getFailedBorrowTimeNanos()}
+     * @return See {@link GenericKeyedObjectPool#getFailedBorrowTimeNanos()}
+     * @since 2.4.3
+     */
+    long getFailedBorrowTimeNanos();
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowOutcomeCountsPerKey()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowOutcomeCountsPerKey()}
+     * @since 2.4.3
+     */
+    Map<String,Map<String,Long>> getBorrowOutcomeCountsPerKey();
+    /**
+     * See {@link GenericKeyedObjectPool#getBorrowOutcomeTimeNanosPerKey()}
+     * @return See {@link GenericKeyedObjectPool#getBorrowOutcomeTimeNanosPerKey()}
+     * @since 2.4.3
+     */
+    Map<String,Map<String,Long>> getBorrowOutcomeTimeNanosPerKey();
+    /**
+     * See {@link GenericKeyedObjectPool#getHottestKeys()}
+     * @return See {@link GenericKeyedObjectPool#getHottestKeys()}
+     * @since 2.4.3
+     */
+    Map<String,Long> getHottestKeys();
+    /**
+     * See {@link GenericKeyedObjectPool#getMostContendedKeys()}
+     * @return See {@link GenericKeyedObjectPool#getMostContendedKeys()}
+     * @since 2.4.3
+     */
+    Map<String,Long> getMostContendedKeys();
     /**
      * See {@link GenericKeyedObjectPool#getCreationStackTrace()}
      * @return See {@link GenericKeyedObjectPool#getCreationStackTrace()}
@@ -17,15 +17,28 @@
 package org.apache.commons.pool2.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.commons.pool2.BatchValidatingPooledObjectFactory;
 import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.PoolUtils;
 import org.apache.commons.pool2.PooledObject;
@@ -223,6 +236,44 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         return minIdle;
     }
 
+    /**
+     * Returns whether objects are returned with deferred passivation. If
+     * {@code true}, {@link #returnObject(Object)} places the object in a queue
+     * and returns immediately, leaving a background thread to validate it (if
+     * {@link #getTestOnReturn() testOnReturn} is set), passivate it and make
+     * it idle. A borrower that finds no idle objects completes the return of
+     * the object that has waited longest in the queue itself rather than
+     * creating a new object or waiting for the background thread.
+     * <p>
+     * Objects in the queue are neither idle nor available for eviction. They
+     * are counted as {@link #getNumActive() active} until they have been made
+     * idle.
+     *
+     * @return {@code true} if passivation is deferred
+     *
+     * @see #setDeferredPassivation(boolean)
+     *
+     * @since 2.4.3
+     */
+    public boolean getDeferredPassivation() {
+        return deferredPassivation;
+    }
+
+    /**
+     * Sets whether objects are returned with deferred passivation. Objects
+     * already queued are still made idle by the background thread when this
+     * is turned off.
+     *
+     * @param deferredPassivation {@code true} to defer passivation
+     *
+     * @see #getDeferredPassivation()
+     *
+     * @since 2.4.3
+     */
+    public void setDeferredPassivation(final boolean deferredPassivation) {
+        this.deferredPassivation = deferredPassivation;
+    }
+
     /**
      * Whether or not abandoned object removal is configured for this pool.
      *
@@ -304,6 +355,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         setLifo(conf.getLifo());
         setMaxIdle(conf.getMaxIdle());
         setMinIdle(conf.getMinIdle());
+        setDeferredPassivation(conf.getDeferredPassivation());
         setMaxTotal(conf.getMaxTotal());
         setMaxWaitMillis(conf.getMaxWaitMillis());
         setBlockWhenExhausted(conf.getBlockWhenExhausted());
@@ -318,6 +370,13 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         setSoftMinEvictableIdleTimeMillis(
                 conf.getSoftMinEvictableIdleTimeMillis());
         setEvictionPolicyClassName(conf.getEvictionPolicyClassName());
+        setEvictionTestThreads(conf.getEvictionTestThreads());
+        setEvictionRunBudgetMillis(conf.getEvictionRunBudgetMillis());
+        setMaxLifetimeMillis(conf.getMaxLifetimeMillis());
+        setMaxLifetimeJitterMillis(conf.getMaxLifetimeJitterMillis());
+        setMaxUsesPerObject(conf.getMaxUsesPerObject());
+        setValidationIntervalMillis(conf.getValidationIntervalMillis());
+        setValidationTimeoutMillis(conf.getValidationTimeoutMillis());
     }
 
     /**
@@ -423,12 +482,20 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         // method execution
         final boolean blockWhenExhausted = getBlockWhenExhausted();
 
-        boolean create;
+        boolean create = false;
         final long waitTime = System.currentTimeMillis();
+        final long borrowStartTime = System.nanoTime();
+        final Object borrowEvent = PoolEvents.beginBorrow();
+        boolean waited = false;
 
         while (p == null) {
             create = false;
             p = idleObjects.pollFirst();
+            if (p == null && completeDeferredReturn()) {
+                // The passivation thread is behind so this thread has made
+                // an object idle
+                p = idleObjects.pollFirst();
+            }
             if (p == null) {
                 p = create();
                 if (p != null) {
@@ -437,24 +504,45 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             }
             if (blockWhenExhausted) {
                 if (p == null) {
-                    if (borrowMaxWaitMillis < 0) {
-                        p = idleObjects.takeFirst();
-                    } else {
-                        p = idleObjects.pollFirst(borrowMaxWaitMillis,
-                                TimeUnit.MILLISECONDS);
+                    waited = true;
+                    final long waitStartTime = eventStartTime();
+                    publishEvent(PoolEventType.WAIT_STARTED, null, null, 0, null);
+                    try {
+                        if (borrowMaxWaitMillis < 0) {
+                            p = idleObjects.takeFirst();
+                        } else {
+                            p = idleObjects.pollFirst(borrowMaxWaitMillis,
+                                    TimeUnit.MILLISECONDS);
+                        }
+                    } finally {
+                        publishEvent(PoolEventType.WAIT_ENDED, null, p, waitStartTime, null);
                     }
                 }
                 if (p == null) {
+                    traceEvent(PoolTraceRecorder.WAIT, null, null, borrowStartTime);
+                    endBorrow(borrowEvent, BorrowOutcome.TIMEOUT, borrowStartTime);
                     throw new NoSuchElementException(
                             "Timeout waiting for idle object");
                 }
             } else {
                 if (p == null) {
+                    traceEvent(PoolTraceRecorder.WAIT, null, null, borrowStartTime);
+                    endBorrow(borrowEvent, BorrowOutcome.EXHAUSTED, borrowStartTime);
                     throw new NoSuchElementException("Pool exhausted");
                 }
             }
             if (!p.allocate()) {
                 p = null;
+            } else {
+                cancelIdleExpiry(p);
+                if (!create && isPastMaxLifetime(p)) {
+                    try {
+                        destroyDiscarded(p, DestroyReason.MAX_LIFETIME);
+                    } catch (final Exception e) {
+                        swallowException(e);
+                    }
+                    p = null;
+                }
             }
 
             if (p != null) {
@@ -462,7 +550,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                     factory.activateObject(p);
                 } catch (final Exception e) {
                     try {
-                        destroy(p);
+                        destroyDiscarded(p, DestroyReason.ACTIVATION_FAILED);
                     } catch (final Exception e1) {
                         // Ignore - activation failure is more important
                     }
@@ -474,18 +562,22 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                         throw nsee;
                     }
                 }
-                if (p != null && (getTestOnBorrow() || create && getTestOnCreate())) {
+                if (p != null && (getTestOnBorrow() && isValidationDue(p) ||
+                        create && getTestOnCreate())) {
                     boolean validate = false;
                     Throwable validationThrowable = null;
                     try {
-                        validate = factory.validateObject(p);
+                        validate = validate(p);
+                        if (validate) {
+                            markValidated(p);
+                        }
                     } catch (final Throwable t) {
                         PoolUtils.checkRethrow(t);
                         validationThrowable = t;
                     }
                     if (!validate) {
                         try {
-                            destroy(p);
+                            destroyDiscarded(p, DestroyReason.VALIDATION_FAILED);
                             destroyedByBorrowValidationCount.incrementAndGet();
                         } catch (final Exception e) {
                             // Ignore - validation failure is more important
@@ -503,10 +595,29 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         }
 
         updateStatsBorrow(p, System.currentTimeMillis() - waitTime);
+        traceEvent(PoolTraceRecorder.BORROW, null, p, borrowStartTime);
+        publishEvent(PoolEventType.BORROWED, null, p, borrowStartTime, null);
+        endBorrow(borrowEvent, create ? BorrowOutcome.CREATE :
+                (waited ? BorrowOutcome.WAIT : BorrowOutcome.IDLE), borrowStartTime);
 
         return p.getObject();
     }
 
+    /**
+     * Records how an attempt to borrow an object ended.
+     *
+     * @param borrowEvent The event returned by
+     *                    {@link PoolEvents#beginBorrow()}
+     * @param outcome     How the attempt ended
+     * @param startTime   The value of {@link System#nanoTime()} when the
+     *                    attempt started
+     */
+    private void endBorrow(final Object borrowEvent, final BorrowOutcome outcome,
+            final long startTime) {
+        updateStatsBorrowOutcome(outcome, startTime);
+        PoolEvents.endBorrow(borrowEvent, this, null, outcome);
+    }
+
     /**
      * {@inheritDoc}
      * <p>
@@ -543,11 +654,72 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         }
 
         final long activeTime = p.getActiveTimeMillis();
+        traceEvent(PoolTraceRecorder.RETURN, null, p, 0);
+        publishEvent(PoolEventType.RETURNED, null, p, 0, null);
+
+        if (getDeferredPassivation()) {
+            returningObjects.add(p);
+            updateStatsReturn(activeTime);
+            if (isClosed()) {
+                // The pool will not drain the queue again so complete the
+                // return, which destroys the object, here
+                completeDeferredReturns();
+            } else {
+                scheduleDeferredReturns();
+            }
+            return;
+        }
+
+        completeReturn(p);
+        updateStatsReturn(activeTime);
+    }
+
+    /**
+     * Validate (if {@link #getTestOnReturn() testOnReturn} is set) and
+     * passivate an object that is being returned and then add it to the idle
+     * objects, or destroy it if it fails either step or is no longer needed.
+     *
+     * @param p The object being returned, in the
+     *          {@link PooledObjectState#RETURNING RETURNING} state
+     *
+     * @throws IllegalStateException if the object is not being returned
+     */
+    private void completeReturn(final PooledObject<T> p) {
+        if (isPastMaxLifetime(p)) {
+            try {
+                destroyDiscarded(p, DestroyReason.MAX_LIFETIME);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            try {
+                ensureIdle(1, false);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            return;
+        }
+
+        if (isPastMaxUses(p)) {
+            try {
+                destroyDiscarded(p, DestroyReason.MAX_USES);
+            } catch (final Exception e) {
+                swallowException(e);
+            }
+            createReplacementAsync(new Runnable() {
+                @Override
+                public void run() {
+                    addReplacement();
+                }
+            }, pendingReplacements, getMaxIdle(), idleObjects.size());
+            return;
+        }
 
         if (getTestOnReturn()) {
-            if (!factory.validateObject(p)) {
+            if (validate(p)) {
+                markValidated(p);
+            } else {
                 try {
-                    destroy(p);
+                    destroyDiscarded(p, DestroyReason.VALIDATION_FAILED);
                 } catch (final Exception e) {
                     swallowException(e);
                 }
@@ -556,7 +728,6 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                 } catch (final Exception e) {
                     swallowException(e);
                 }
-                updateStatsReturn(activeTime);
                 return;
             }
         }
@@ -566,7 +737,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         } catch (final Exception e1) {
             swallowException(e1);
             try {
-                destroy(p);
+                destroyDiscarded(p, DestroyReason.PASSIVATION_FAILED);
             } catch (final Exception e) {
                 swallowException(e);
             }
@@ -575,7 +746,6 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             } catch (final Exception e) {
                 swallowException(e);
             }
-            updateStatsReturn(activeTime);
             return;
         }
 
@@ -587,11 +757,13 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         final int maxIdleSave = getMaxIdle();
         if (isClosed() || maxIdleSave > -1 && maxIdleSave <= idleObjects.size()) {
             try {
-                destroy(p);
+                destroyDiscarded(p,
+                        isClosed() ? DestroyReason.CLOSED : DestroyReason.MAX_IDLE);
             } catch (final Exception e) {
                 swallowException(e);
             }
         } else {
+            scheduleIdleExpiry(p, null);
             if (getLifo()) {
                 idleObjects.addFirst(p);
             } else {
@@ -604,7 +776,66 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                 clear();
             }
         }
-        updateStatsReturn(activeTime);
+    }
+
+    /**
+     * Complete the return of the object that has waited longest in the queue
+     * of objects returned with {@link #getDeferredPassivation() deferred
+     * passivation}, if any.
+     *
+     * @return {@code true} if an object was taken from the queue
+     */
+    private boolean completeDeferredReturn() {
+        final PooledObject<T> p = returningObjects.poll();
+        if (p == null) {
+            return false;
+        }
+        try {
+            completeReturn(p);
+        } catch (final Exception e) {
+            swallowException(e);
+        }
+        return true;
+    }
+
+    /**
+     * Complete the return of every object in the queue of objects returned
+     * with {@link #getDeferredPassivation() deferred passivation}.
+     */
+    private void completeDeferredReturns() {
+        while (completeDeferredReturn()) {
+            // Keep going until the queue is empty
+        }
+    }
+
+    /**
+     * Arrange for the passivation thread to empty the queue of objects
+     * returned with {@link #getDeferredPassivation() deferred passivation},
+     * unless it is already doing so.
+     */
+    private void scheduleDeferredReturns() {
+        if (!deferredReturnsScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        final ThreadPoolExecutor executor;
+        synchronized (passivationLock) {
+            if (passivationExecutor == null && !isClosed()) {
+                passivationExecutor = new ThreadPoolExecutor(1, 1,
+                        60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                        new PoolThreadFactory("commons-pool-passivation-"));
+                passivationExecutor.allowCoreThreadTimeOut(true);
+            }
+            executor = passivationExecutor;
+        }
+        if (executor != null) {
+            try {
+                executor.execute(deferredReturns);
+                return;
+            } catch (final RejectedExecutionException e) {
+                // Pool closed
+            }
+        }
+        deferredReturns.run();
     }
 
     /**
@@ -629,7 +860,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         }
         synchronized (p) {
             if (p.getState() != PooledObjectState.INVALID) {
-                destroy(p);
+                destroy(p, p.getState() == PooledObjectState.ABANDONED ?
+                        DestroyReason.ABANDONED : DestroyReason.INVALIDATED);
             }
         }
         ensureIdle(1, false);
@@ -658,7 +890,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
 
         while (p != null) {
             try {
-                destroy(p);
+                destroy(p, DestroyReason.CLEARED);
             } catch (final Exception e) {
                 swallowException(e);
             }
@@ -698,10 +930,27 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             // Stop the evictor before the pool is closed since evict() calls
             // assertOpen()
             startEvictor(-1L);
+            shutdownEvictionTestExecutor();
 
             closed = true;
+            // No further replacements are queued once the pool is closed
+            shutdownReplacementExecutor();
+            final ThreadPoolExecutor executor;
+            synchronized (passivationLock) {
+                executor = passivationExecutor;
+                passivationExecutor = null;
+            }
+            if (executor != null) {
+                shutdownAndWait(executor);
+            }
+            // Destroys objects still waiting for deferred passivation
+            completeDeferredReturns();
             // This clear removes any idle objects
             clear();
+            // Wait for objects discarded before the pool closed
+            shutdownDestroyExecutor();
+            shutdownValidationExecutor();
+            stopEventDispatcher();
 
             jmxUnregister();
 
@@ -720,7 +969,10 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     public void evict() throws Exception {
         assertOpen();
 
-        if (idleObjects.size() > 0) {
+        evictExpired();
+
+        final int idleAtStart = idleObjects.size();
+        if (idleAtStart > 0) {
 
             PooledObject<T> underTest = null;
             final EvictionPolicy<T> evictionPolicy = getEvictionPolicy();
@@ -732,14 +984,30 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                         getMinIdle());
 
                 final boolean testWhileIdle = getTestWhileIdle();
+                final boolean batchValidation = testWhileIdle &&
+                        factory instanceof BatchValidatingPooledObjectFactory;
+                // Objects to be tested concurrently or as a batch once all
+                // the objects for this run have been selected
+                final List<PooledObject<T>> toTest = testWhileIdle &&
+                        (batchValidation || getEvictionTestThreads() > 0) ?
+                                new ArrayList<PooledObject<T>>() : null;
+                boolean exhausted = false;
+                final long runStartMillis = System.currentTimeMillis();
+                int tested = 0;
 
                 for (int i = 0, m = getNumTests(); i < m; i++) {
+                    if (isEvictionRunBudgetExhausted(runStartMillis)) {
+                        // Continue from here on the next run
+                        break;
+                    }
                     if (evictionIterator == null || !evictionIterator.hasNext()) {
                         evictionIterator = new EvictionIterator(idleObjects);
                     }
                     if (!evictionIterator.hasNext()) {
-                        // Pool exhausted, nothing to do here
-                        return;
+                        // Pool exhausted, nothing more to do here once any
+                        // selected objects have been tested
+                        exhausted = true;
+                        break;
                     }
 
                     try {
@@ -758,14 +1026,16 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                         i--;
                         continue;
                     }
+                    tested++;
 
                     // User provided eviction policy could throw all sorts of
                     // crazy exceptions. Protect against such an exception
                     // killing the eviction thread.
                     boolean evict;
                     try {
-                        evict = evictionPolicy.evict(evictionConfig, underTest,
-                                idleObjects.size());
+                        evict = isPastMaxLifetime(underTest) ||
+                                evictionPolicy.evict(evictionConfig, underTest,
+                                        idleObjects.size());
                     } catch (final Throwable t) {
                         // Slightly convoluted as SwallowedExceptionListener
                         // uses Exception rather than Throwable
@@ -776,31 +1046,19 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                     }
 
                     if (evict) {
-                        destroy(underTest);
+                        publishEvent(PoolEventType.EVICTED, null, underTest, 0, null);
+                        destroy(underTest, DestroyReason.EVICTED);
                         destroyedByEvictorCount.incrementAndGet();
+                    } else if (toTest != null) {
+                        // Leave in the eviction test state until tested
+                        toTest.add(underTest);
                     } else {
                         if (testWhileIdle) {
-                            boolean active = false;
-                            try {
-                                factory.activateObject(underTest);
-                                active = true;
-                            } catch (final Exception e) {
-                                destroy(underTest);
+                            if (!testIdleObject(underTest)) {
+                                publishEvent(PoolEventType.EVICTED, null, underTest, 0, null);
+                                destroy(underTest, DestroyReason.VALIDATION_FAILED);
                                 destroyedByEvictorCount.incrementAndGet();
                             }
-                            if (active) {
-                                if (!factory.validateObject(underTest)) {
-                                    destroy(underTest);
-                                    destroyedByEvictorCount.incrementAndGet();
-                                } else {
-                                    try {
-                                        factory.passivateObject(underTest);
-                                    } catch (final Exception e) {
-                                        destroy(underTest);
-                                        destroyedByEvictorCount.incrementAndGet();
-                                    }
-                                }
-                            }
                         }
                         if (!underTest.endEvictionTest(idleObjects)) {
                             // TODO - May need to add code here once additional
@@ -808,6 +1066,39 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                         }
                     }
                 }
+
+                if (toTest != null && toTest.size() > 0) {
+                    final boolean[] valid;
+                    if (batchValidation) {
+                        valid = testIdleObjects(toTest);
+                    } else {
+                        final List<Callable<Boolean>> tests =
+                                new ArrayList<Callable<Boolean>>(toTest.size());
+                        for (final PooledObject<T> p : toTest) {
+                            tests.add(new Callable<Boolean>() {
+                                @Override
+                                public Boolean call() throws Exception {
+                                    return Boolean.valueOf(testIdleObject(p));
+                                }
+                            });
+                        }
+                        valid = runEvictionTests(tests);
+                    }
+                    for (int i = 0; i < valid.length; i++) {
+                        final PooledObject<T> p = toTest.get(i);
+                        if (!valid[i]) {
+                            publishEvent(PoolEventType.EVICTED, null, p, 0, null);
+                            destroy(p, DestroyReason.VALIDATION_FAILED);
+                            destroyedByEvictorCount.incrementAndGet();
+                        }
+                        // The result only matters once additional states are used
+                        p.endEvictionTest(idleObjects);
+                    }
+                }
+                updateStatsEvictionRun(runStartMillis, tested, idleAtStart);
+                if (exhausted) {
+                    return;
+                }
             }
         }
         final AbandonedConfig ac = this.abandonedConfig;
@@ -816,6 +1107,213 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         }
     }
 
+    /**
+     * Offer the idle objects whose scheduled expiry has passed to the eviction
+     * policy.
+     *
+     * @throws Exception If an object cannot be destroyed
+     *
+     * @see #getIdleExpiryTickMillis()
+     */
+    private void evictExpired() throws Exception {
+        final List<TimingWheel.Entry<PooledObject<T>>> expired =
+                pollExpiredIdleObjects();
+        if (expired.isEmpty()) {
+            return;
+        }
+        final EvictionPolicy<T> evictionPolicy = getEvictionPolicy();
+
+        synchronized (evictionLock) {
+            final EvictionConfig evictionConfig = new EvictionConfig(
+                    getMinEvictableIdleTimeMillis(),
+                    getSoftMinEvictableIdleTimeMillis(),
+                    getMinIdle());
+
+            for (final TimingWheel.Entry<PooledObject<T>> entry : expired) {
+                final PooledObject<T> underTest = entry.getElement();
+                if (!underTest.startEvictionTest()) {
+                    // Borrowed in another thread, which cancelled the expiry
+                    continue;
+                }
+
+                boolean evict;
+                try {
+                    evict = isPastMaxLifetime(underTest) ||
+                            evictionPolicy.evict(evictionConfig, underTest,
+                                    idleObjects.size());
+                } catch (final Throwable t) {
+                    PoolUtils.checkRethrow(t);
+                    swallowException(new Exception(t));
+                    evict = false;
+                }
+
+                if (evict) {
+                    publishEvent(PoolEventType.EVICTED, null, underTest, 0, null);
+                    destroy(underTest, DestroyReason.EVICTED);
+                    destroyedByEvictorCount.incrementAndGet();
+                } else {
+                    scheduleIdleExpiry(underTest, null);
+                    // The result only matters once additional states are used
+                    underTest.endEvictionTest(idleObjects);
+                }
+            }
+        }
+    }
+
+    /**
+     * Validate an object using the factory, waiting at most
+     * {@link #getValidationTimeoutMillis() validationTimeoutMillis} if a
+     * validation timeout is configured.
+     *
+     * @param p The object to validate
+     *
+     * @return {@code true} if the object is valid, {@code false} if it is
+     *         not or if its validation timed out
+     */
+    private boolean validate(final PooledObject<T> p) {
+        final long startTime = System.currentTimeMillis();
+        final Object validationEvent = PoolEvents.beginValidation();
+        boolean valid = false;
+        try {
+            if (getValidationTimeoutMillis() > 0) {
+                valid = validateWithTimeout(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        return Boolean.valueOf(factory.validateObject(p));
+                    }
+                }, Boolean.FALSE).booleanValue();
+            } else {
+                valid = factory.validateObject(p);
+            }
+            return valid;
+        } finally {
+            updateStatsValidation(startTime);
+            PoolEvents.endValidation(validationEvent, this, null, valid);
+            if (!valid) {
+                publishEvent(PoolEventType.VALIDATION_FAILED, null, p, 0, null);
+            }
+        }
+    }
+
+    /**
+     * Activate, validate and passivate an idle object that is under eviction
+     * test.
+     *
+     * @param p The object to test
+     *
+     * @return {@code true} if the object passed all the steps and may be
+     *         returned to the idle objects, {@code false} if it should be
+     *         destroyed
+     *
+     * @throws Exception If the factory's validateObject method throws an
+     *                   exception
+     */
+    private boolean testIdleObject(final PooledObject<T> p) throws Exception {
+        try {
+            factory.activateObject(p);
+        } catch (final Exception e) {
+            return false;
+        }
+        if (!validate(p)) {
+            return false;
+        }
+        markValidated(p);
+        try {
+            factory.passivateObject(p);
+        } catch (final Exception e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Activate, validate and passivate idle objects that are under eviction
+     * test, validating all of them with a single call to the factory's
+     * {@link BatchValidatingPooledObjectFactory#validateObjects(Collection)
+     * validateObjects} method.
+     *
+     * @param objects The objects to test
+     *
+     * @return The result of each test, in the same order as the objects.
+     *         {@code true} if the object passed all the steps and may be
+     *         returned to the idle objects, {@code false} if it should be
+     *         destroyed
+     */
+    private boolean[] testIdleObjects(final List<PooledObject<T>> objects) {
+        final boolean[] valid = new boolean[objects.size()];
+        final List<PooledObject<T>> activated =
+                new ArrayList<PooledObject<T>>(objects.size());
+        for (int i = 0; i < valid.length; i++) {
+            final PooledObject<T> p = objects.get(i);
+            try {
+                factory.activateObject(p);
+                valid[i] = true;
+                activated.add(p);
+            } catch (final Exception e) {
+                // Destroyed by the caller
+            }
+        }
+        if (activated.isEmpty()) {
+            return valid;
+        }
+
+        final Set<PooledObject<T>> invalid = Collections.newSetFromMap(
+                new IdentityHashMap<PooledObject<T>, Boolean>());
+        final long startTime = System.currentTimeMillis();
+        final Object validationEvent = PoolEvents.beginBatchValidation();
+        try {
+            final BatchValidatingPooledObjectFactory<T> batchFactory =
+                    (BatchValidatingPooledObjectFactory<T>) factory;
+            final Collection<PooledObject<T>> batch =
+                    Collections.unmodifiableList(activated);
+            if (getValidationTimeoutMillis() > 0) {
+                invalid.addAll(validateWithTimeout(
+                        new Callable<Collection<PooledObject<T>>>() {
+                            @Override
+                            public Collection<PooledObject<T>> call() {
+                                return batchFactory.validateObjects(batch);
+                            }
+                        }, batch));
+            } else {
+                invalid.addAll(batchFactory.validateObjects(batch));
+            }
+        } catch (final RuntimeException e) {
+            swallowException(e);
+            invalid.addAll(activated);
+        } finally {
+            updateStatsValidation(startTime);
+            if (validationEvent != null) {
+                int failed = 0;
+                for (final PooledObject<T> p : activated) {
+                    if (invalid.contains(p)) {
+                        failed++;
+                    }
+                }
+                PoolEvents.endBatchValidation(validationEvent, this, null,
+                        activated.size(), failed);
+            }
+        }
+
+        for (int i = 0; i < valid.length; i++) {
+            if (!valid[i]) {
+                continue;
+            }
+            final PooledObject<T> p = objects.get(i);
+            if (invalid.contains(p)) {
+                valid[i] = false;
+                publishEvent(PoolEventType.VALIDATION_FAILED, null, p, 0, null);
+                continue;
+            }
+            markValidated(p);
+            try {
+                factory.passivateObject(p);
+            } catch (final Exception e) {
+                valid[i] = false;
+            }
+        }
+        return valid;
+    }
+
     /**
      * Tries to ensure that {@link #getMinIdle()} idle instances are available
      * in the pool.
@@ -884,6 +1382,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             return null;
         }
 
+        final long eventStartTime = eventStartTime();
+        final Object createEvent = PoolEvents.beginCreate();
         final PooledObject<T> p;
         try {
             p = factory.makeObject();
@@ -904,6 +1404,9 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
 
         createdCount.incrementAndGet();
         allObjects.put(new IdentityWrapper<T>(p.getObject()), p);
+        traceEvent(PoolTraceRecorder.CREATE, null, p, eventStartTime);
+        publishEvent(PoolEventType.CREATED, null, p, eventStartTime, null);
+        PoolEvents.endCreate(createEvent, this, null);
         return p;
     }
 
@@ -911,19 +1414,90 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      * Destroys a wrapped pooled object.
      *
      * @param toDestroy The wrapped pooled object to destroy
+     * @param reason    Why the object is being destroyed
      *
      * @throws Exception If the factory fails to destroy the pooled object
      *                   cleanly
      */
-    private void destroy(final PooledObject<T> toDestroy) throws Exception {
+    private void destroy(final PooledObject<T> toDestroy, final DestroyReason reason)
+            throws Exception {
+        detach(toDestroy);
+        destroyDetached(toDestroy, reason);
+    }
+
+    /**
+     * Destroys a wrapped pooled object that has been discarded while it was
+     * being borrowed or returned. If {@link #getDestroyThreads()
+     * destroyThreads} is positive the object is removed from the pool and
+     * destroyed by a destroy thread, which then creates an object for any
+     * waiting borrower now that capacity is available. Otherwise the object is
+     * destroyed by the calling thread.
+     *
+     * @param toDestroy The wrapped pooled object to destroy
+     * @param reason    Why the object is being destroyed
+     *
+     * @throws Exception If the object is destroyed by the calling thread and
+     *                   the factory fails to destroy it cleanly
+     */
+    private void destroyDiscarded(final PooledObject<T> toDestroy,
+            final DestroyReason reason) throws Exception {
+        if (!isAsyncDestroy()) {
+            destroy(toDestroy, reason);
+            return;
+        }
+        detach(toDestroy);
+        executeDestroy(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    destroyDetached(toDestroy, reason);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+                try {
+                    ensureIdle(1, false);
+                } catch (final Exception e) {
+                    swallowException(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes a wrapped pooled object from the pool. It continues to count
+     * towards {@link #getMaxTotal() maxTotal} until it has been passed to
+     * {@link #destroyDetached(PooledObject, DestroyReason)}.
+     *
+     * @param toDestroy The wrapped pooled object to remove
+     */
+    private void detach(final PooledObject<T> toDestroy) {
         toDestroy.invalidate();
         idleObjects.remove(toDestroy);
+        removeIdleExpiry(toDestroy);
         allObjects.remove(new IdentityWrapper<T>(toDestroy.getObject()));
+    }
+
+    /**
+     * Destroys a wrapped pooled object that has been removed from the pool and
+     * releases the capacity it used.
+     *
+     * @param toDestroy The wrapped pooled object to destroy
+     * @param reason    Why the object is being destroyed
+     *
+     * @throws Exception If the factory fails to destroy the pooled object
+     *                   cleanly
+     */
+    private void destroyDetached(final PooledObject<T> toDestroy,
+            final DestroyReason reason) throws Exception {
+        final Object destroyEvent = PoolEvents.beginDestroy();
         try {
             factory.destroyObject(toDestroy);
         } finally {
             destroyedCount.incrementAndGet();
             createCount.decrementAndGet();
+            traceEvent(PoolTraceRecorder.DESTROY, null, toDestroy, 0);
+            publishEvent(PoolEventType.DESTROYED, null, toDestroy, 0, reason);
+            PoolEvents.endDestroy(destroyEvent, this, null, reason);
         }
     }
 
@@ -956,6 +1530,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
                 // create will work. Give up.
                 break;
             }
+            scheduleIdleExpiry(p, null);
             if (getLifo()) {
                 idleObjects.addFirst(p);
             } else {
@@ -988,6 +1563,37 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         addIdleObject(p);
     }
 
+    /**
+     * @return the number of replacements for objects recycled by
+     *         {@link #getMaxUsesPerObject() maxUsesPerObject} that are queued
+     *         or being created
+     */
+    int getNumPendingReplacements() {
+        return pendingReplacements.get();
+    }
+
+    /**
+     * Create an idle object to replace one that was destroyed because it
+     * reached {@link #getMaxUsesPerObject() maxUsesPerObject}, unless that
+     * would exceed {@link #getMaxIdle() maxIdle}. Runs on the replacement
+     * thread so exceptions are swallowed.
+     */
+    private void addReplacement() {
+        try {
+            final int maxIdleSave = getMaxIdle();
+            if (isClosed() || maxIdleSave > -1 && maxIdleSave <= idleObjects.size()) {
+                return;
+            }
+            addIdleObject(create());
+            if (isClosed()) {
+                // Pool closed while the object was being added
+                clear();
+            }
+        } catch (final Exception e) {
+            swallowException(e);
+        }
+    }
+
     /**
      * Add the provided wrapped pooled object to the set of idle objects for
      * this pool. The object must already be part of the pool.  If {@code p}
@@ -1000,6 +1606,7 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     private void addIdleObject(final PooledObject<T> p) throws Exception {
         if (p != null) {
             factory.passivateObject(p);
+            scheduleIdleExpiry(p, null);
             if (getLifo()) {
                 idleObjects.addFirst(p);
             } else {
@@ -1015,6 +1622,10 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
      * @return The number of objects to test for validity
      */
     private int getNumTests() {
+        if (getEvictionRunBudgetMillis() > 0) {
+            // At most one pass over the idle objects, limited by the budget
+            return idleObjects.size();
+        }
         final int numTestsPerEvictionRun = getNumTestsPerEvictionRun();
         if (numTestsPerEvictionRun >= 0) {
             return Math.min(numTestsPerEvictionRun, idleObjects.size());
@@ -1054,6 +1665,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
             if (ac.getLogAbandoned()) {
                 pooledObject.printStackTrace(ac.getLogWriter());
             }
+            PoolEvents.abandoned(this, pooledObject);
+            publishEvent(PoolEventType.ABANDONED, null, pooledObject, 0, null);
             try {
                 invalidateObject(pooledObject.getObject());
             } catch (final Exception e) {
@@ -1142,6 +1755,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
 
     private volatile int maxIdle = GenericObjectPoolConfig.DEFAULT_MAX_IDLE;
     private volatile int minIdle = GenericObjectPoolConfig.DEFAULT_MIN_IDLE;
+    private volatile boolean deferredPassivation =
+        GenericObjectPoolConfig.DEFAULT_DEFERRED_PASSIVATION;
     private final PooledObjectFactory<T> factory;
 
 
@@ -1167,6 +1782,29 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
     private long makeObjectCount = 0;
     private final Object makeObjectCountLock = new Object();
     private final LinkedBlockingDeque<PooledObject<T>> idleObjects;
+    // Replacements for objects recycled by maxUsesPerObject not yet created
+    private final AtomicInteger pendingReplacements = new AtomicInteger(0);
+    /*
+     * Objects returned with deferred passivation that have not yet been made
+     * idle.
+     */
+    private final Queue<PooledObject<T>> returningObjects =
+        new ConcurrentLinkedQueue<PooledObject<T>>();
+    private final AtomicBoolean deferredReturnsScheduled = new AtomicBoolean(false);
+    private final Runnable deferredReturns = new Runnable() {
+        @Override
+        public void run() {
+            do {
+                completeDeferredReturns();
+                deferredReturnsScheduled.set(false);
+                // Objects may have been queued after the queue was found to
+                // be empty but before the flag was cleared
+            } while (!returningObjects.isEmpty() &&
+                    deferredReturnsScheduled.compareAndSet(false, true));
+        }
+    };
+    private final Object passivationLock = new Object();
+    private ThreadPoolExecutor passivationExecutor = null; // @GuardedBy("passivationLock")
 
     // JMX specific attributes
     private static final String ONAME_BASE =
@@ -1184,6 +1822,8 @@ public class GenericObjectPool<T> extends BaseGenericObjectPool<T>
         builder.append(maxIdle);
         builder.append(", minIdle=");
         builder.append(minIdle);
+        builder.append(", deferredPassivation=");
+        builder.append(deferredPassivation);
         builder.append(", factory=");
         builder.append(factory);
         builder.append(", allObjects=");
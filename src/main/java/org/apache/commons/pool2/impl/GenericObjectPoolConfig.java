@@ -48,6 +48,13 @@ public class GenericObjectPoolConfig extends BaseObjectPoolConfig {
      */
     public static final int DEFAULT_MIN_IDLE = 0;
 
+    /**
+     * The default value for the {@code deferredPassivation} configuration
+     * attribute.
+     * @see GenericObjectPool#getDeferredPassivation()
+     */
+    public static final boolean DEFAULT_DEFERRED_PASSIVATION = false;
+
 
     private int maxTotal = DEFAULT_MAX_TOTAL;
 
@@ -55,6 +62,8 @@ public class GenericObjectPoolConfig extends BaseObjectPoolConfig {
 
     private int minIdle = DEFAULT_MIN_IDLE;
 
+    private boolean deferredPassivation = DEFAULT_DEFERRED_PASSIVATION;
+
     /**
      * Get the value for the {@code maxTotal} configuration attribute
      * for pools created with this configuration instance.
@@ -135,6 +144,36 @@ public class GenericObjectPoolConfig extends BaseObjectPoolConfig {
         this.minIdle = minIdle;
     }
 
+    /**
+     * Get the value for the {@code deferredPassivation} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @return  The current setting of {@code deferredPassivation} for this
+     *          configuration instance
+     *
+     * @see GenericObjectPool#getDeferredPassivation()
+     *
+     * @since 2.4.3
+     */
+    public boolean getDeferredPassivation() {
+        return deferredPassivation;
+    }
+
+    /**
+     * Set the value for the {@code deferredPassivation} configuration
+     * attribute for pools created with this configuration instance.
+     *
+     * @param deferredPassivation The new setting of
+     *        {@code deferredPassivation} for this configuration instance
+     *
+     * @see GenericObjectPool#setDeferredPassivation(boolean)
+     *
+     * @since 2.4.3
+     */
+    public void setDeferredPassivation(final boolean deferredPassivation) {
+        this.deferredPassivation = deferredPassivation;
+    }
+
     @Override
     public GenericObjectPoolConfig clone() {
         try {
@@ -153,5 +192,7 @@ public class GenericObjectPoolConfig extends BaseObjectPoolConfig {
         builder.append(maxIdle);
         builder.append(", minIdle=");
         builder.append(minIdle);
+        builder.append(", deferredPassivation=");
+        builder.append(deferredPassivation);
     }
 }
@@ -57,6 +57,34 @@ public interface GenericObjectPoolMXBean {
 
     int getNumTestsPerEvictionRun();
 
+    int getEvictionTestThreads();
+
+    long getEvictionRunBudgetMillis();
+
+    long getLastEvictionRunDurationMillis();
+
+    int getLastEvictionRunTestedCount();
+
+    double getLastEvictionRunCoverage();
+
+    long getIdleExpiryTickMillis();
+
+    long getMaxLifetimeMillis();
+
+    long getMaxLifetimeJitterMillis();
+
+    int getMaxUsesPerObject();
+
+    int getDestroyThreads();
+
+    int getDestroyQueueCapacity();
+
+    boolean getDeferredPassivation();
+
+    long getValidationIntervalMillis();
+
+    long getValidationTimeoutMillis();
+
     boolean getTestOnCreate();
 
     boolean getTestOnBorrow();
@@ -90,6 +118,26 @@ public interface GenericObjectPoolMXBean {
 
     long getMaxBorrowWaitTimeMillis();
 
+    long getMeanValidationTimeMillis();
+
+    long getValidationTimeoutCount();
+
+    long getBorrowedFromIdleCount();
+
+    long getBorrowedFromIdleTimeNanos();
+
+    long getBorrowedWithCreateCount();
+
+    long getBorrowedWithCreateTimeNanos();
+
+    long getBorrowedAfterWaitCount();
+
+    long getBorrowedAfterWaitTimeNanos();
+
+    long getFailedBorrowCount();
+
+    long getFailedBorrowTimeNanos();
+
     String getCreationStackTrace();
 
     int getNumWaiters();
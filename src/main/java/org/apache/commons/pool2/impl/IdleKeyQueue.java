@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * The keys of a {@link GenericKeyedObjectPool} ordered by the time from which
+ * each key has been idle, so that the evictor only examines the keys that may
+ * have been idle for long enough rather than every key in the pool.
+ * <p>
+ * The time recorded for a key is not updated when the key is borrowed from as
+ * that would add work to every borrow. Instead the caller checks the actual
+ * last borrow time of each key returned by {@link #poll(long)} and adds the
+ * key again with that time if the key has been used since. Each key is
+ * therefore examined at most once per idle period however often it is used.
+ * <p>
+ * Each value is present at most once. Values are compared by identity, so a
+ * key that is removed from the pool and added again is tracked separately
+ * from the entry for its earlier sub-pool, which the caller discards when it
+ * is polled.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values, the sub-pools of the keys
+ *
+ * @since 2.4.3
+ */
+class IdleKeyQueue<K, V> {
+
+    private final PriorityQueue<Entry<K, V>> queue =
+            new PriorityQueue<Entry<K, V>>(16, new Comparator<Entry<K, V>>() {
+                @Override
+                public int compare(final Entry<K, V> e1, final Entry<K, V> e2) {
+                    return e1.time < e2.time ? -1 : e1.time == e2.time ? 0 : 1;
+                }
+            });
+    private final Map<V, Entry<K, V>> entries = new IdentityHashMap<V, Entry<K, V>>();
+
+    /**
+     * Add a key unless its value is already present.
+     *
+     * @param key   The key
+     * @param value The value for the key
+     * @param time  The time in milliseconds from which the key has been idle
+     *
+     * @return <code>true</code> if the key was added
+     */
+    synchronized boolean add(final K key, final V value, final long time) {
+        if (entries.containsKey(value)) {
+            return false;
+        }
+        final Entry<K, V> entry = new Entry<K, V>(key, value, time);
+        entries.put(value, entry);
+        queue.add(entry);
+        return true;
+    }
+
+    /**
+     * Remove and return the key that has been idle the longest if it has been
+     * idle since at or before the given time.
+     *
+     * @param idleSince The latest time from which a returned key has been idle
+     *
+     * @return The entry for the key or <code>null</code> if no key has been
+     *         idle since at or before the given time
+     */
+    synchronized Entry<K, V> poll(final long idleSince) {
+        final Entry<K, V> entry = queue.peek();
+        if (entry == null || entry.time > idleSince) {
+            return null;
+        }
+        queue.poll();
+        entries.remove(entry.value);
+        return entry;
+    }
+
+    /**
+     * Remove every key.
+     */
+    synchronized void clear() {
+        queue.clear();
+        entries.clear();
+    }
+
+    /**
+     * @return the number of keys
+     */
+    synchronized int size() {
+        return queue.size();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("IdleKeyQueue [size=");
+        builder.append(size());
+        builder.append("]");
+        return builder.toString();
+    }
+
+    /**
+     * A key and the time from which it has been idle.
+     *
+     * @param <K> The type of the key
+     * @param <V> The type of the value
+     */
+    static class Entry<K, V> {
+
+        private final K key;
+        private final V value;
+        private final long time;
+
+        Entry(final K key, final V value, final long time) {
+            this.key = key;
+            this.value = value;
+            this.time = time;
+        }
+
+        /**
+         * @return the key
+         */
+        K getKey() {
+            return key;
+        }
+
+        /**
+         * @return the value supplied when the key was added
+         */
+        V getValue() {
+            return value;
+        }
+
+        /**
+         * @return the time in milliseconds from which the key has been idle
+         */
+        long getTime() {
+            return time;
+        }
+    }
+}
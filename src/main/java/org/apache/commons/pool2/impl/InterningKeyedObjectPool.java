@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import org.apache.commons.pool2.KeyedPooledObjectFactory;
+
+/**
+ * Base class for the {@link GenericKeyedObjectPool}s keyed by primitive values.
+ * <p>
+ * The subclasses add overloads that accept a primitive key. The pool keeps a
+ * table from each primitive key to a canonical boxed instance of the key and
+ * the sub-pool for that key, so that borrowing, returning and invalidating an
+ * object under a primitive key neither allocates a key object nor looks the
+ * key up in the map of sub-pools that the methods inherited from
+ * {@link GenericKeyedObjectPool} use. The factory, listeners and statistics
+ * all see the canonical boxed key.
+ * <p>
+ * Caching the sub-pools requires that keys are not reference counted, so
+ * these pools always behave as if
+ * {@link GenericKeyedObjectPoolConfig#setMinEvictableEmptyKeyIdleTimeMillis(long)
+ * minEvictableEmptyKeyIdleTimeMillis} is zero or positive. If the
+ * configuration leaves it negative, zero is used, so keys with no objects are
+ * removed by the next run of the evictor rather than as soon as their last
+ * object is destroyed. A cached sub-pool that the evictor has removed is
+ * replaced the next time its key is used.
+ * <p>
+ * At most {@link #getMaxInternedKeys()} distinct keys are held in the table.
+ * Operations on keys beyond that limit behave exactly the same but box the
+ * key and look it up on each call, as {@link GenericKeyedObjectPool} does.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @see IntInterningKeyedObjectPool
+ * @see LongInterningKeyedObjectPool
+ *
+ * @param <K> The boxed type of the keys
+ * @param <T> Type of element pooled in this pool.
+ *
+ * @since 2.4.3
+ */
+public abstract class InterningKeyedObjectPool<K extends Number,T>
+        extends GenericKeyedObjectPool<K,T> {
+
+    /**
+     * The default maximum number of distinct keys for which a canonical boxed
+     * instance is held.
+     */
+    public static final int DEFAULT_MAX_INTERNED_KEYS = 4096;
+
+    private final KeyInterner<K,ObjectDeque<T>> keyInterner;
+
+    /**
+     * Create a new pool. Only the subclasses in this package may be created.
+     *
+     * @param factory the factory to be used to create entries
+     * @param config  The configuration to use for this pool instance
+     * @param keyInterner The table of keys and their sub-pools
+     */
+    InterningKeyedObjectPool(final KeyedPooledObjectFactory<K,T> factory,
+            final GenericKeyedObjectPoolConfig config,
+            final KeyInterner<K,ObjectDeque<T>> keyInterner) {
+        super(factory, withUncountedKeys(config));
+        this.keyInterner = keyInterner;
+    }
+
+    /**
+     * Returns the maximum number of distinct keys for which a canonical boxed
+     * instance is held.
+     *
+     * @return the maximum number of interned keys
+     */
+    public int getMaxInternedKeys() {
+        return keyInterner.getMaxSize();
+    }
+
+    /**
+     * Obtain the canonical boxed instance for a key.
+     *
+     * @param key The primitive key, widened to <code>long</code>
+     *
+     * @return The boxed key
+     */
+    final K internKey(final long key) {
+        return keyInterner.intern(key);
+    }
+
+    /**
+     * Borrow an object using the cached sub-pool for a key.
+     *
+     * @param key The primitive key, widened to <code>long</code>
+     * @param borrowMaxWaitMillis The time to wait in milliseconds for an object
+     *                            to become available
+     *
+     * @return object instance from the keyed pool
+     *
+     * @throws Exception if a keyed object instance cannot be returned
+     */
+    final T borrowInterned(final long key, final long borrowMaxWaitMillis)
+            throws Exception {
+        final KeyInterner.Entry<K,ObjectDeque<T>> entry = keyInterner.getEntry(key);
+        if (entry == null) {
+            return borrowObject(keyInterner.box(key), borrowMaxWaitMillis);
+        }
+        assertOpen();
+        return borrowObject(entry.getKey(), getSubPool(entry), borrowMaxWaitMillis);
+    }
+
+    /**
+     * Return an object using the cached sub-pool for a key.
+     *
+     * @param key The primitive key, widened to <code>long</code>
+     * @param obj instance to return to the keyed pool
+     */
+    final void returnInterned(final long key, final T obj) {
+        final KeyInterner.Entry<K,ObjectDeque<T>> entry = keyInterner.getEntry(key);
+        if (entry == null) {
+            returnObject(keyInterner.box(key), obj);
+        } else {
+            returnObject(entry.getKey(), getSubPool(entry), obj);
+        }
+    }
+
+    /**
+     * Invalidate an object using the cached sub-pool for a key.
+     *
+     * @param key The primitive key, widened to <code>long</code>
+     * @param obj instance to invalidate
+     *
+     * @throws Exception if an exception occurs destroying the object
+     */
+    final void invalidateInterned(final long key, final T obj) throws Exception {
+        final KeyInterner.Entry<K,ObjectDeque<T>> entry = keyInterner.getEntry(key);
+        if (entry == null) {
+            invalidateObject(keyInterner.box(key), obj);
+        } else {
+            invalidateObject(entry.getKey(), getSubPool(entry), obj);
+        }
+    }
+
+    /**
+     * Obtain the sub-pool cached for an interned key, replacing it if the
+     * evictor has removed it from the pool.
+     */
+    private ObjectDeque<T> getSubPool(final KeyInterner.Entry<K,ObjectDeque<T>> entry) {
+        ObjectDeque<T> objectDeque = entry.getValue();
+        if (objectDeque == null || objectDeque.isRetired()) {
+            objectDeque = getSubPool(entry.getKey());
+            entry.setValue(objectDeque);
+        }
+        return objectDeque;
+    }
+
+    /**
+     * Keys must not be reference counted for sub-pools to be cached.
+     *
+     * @param config The configuration provided for the pool
+     *
+     * @return The configuration to use
+     */
+    private static GenericKeyedObjectPoolConfig withUncountedKeys(
+            final GenericKeyedObjectPoolConfig config) {
+        if (config.getMinEvictableEmptyKeyIdleTimeMillis() >= 0) {
+            return config;
+        }
+        final GenericKeyedObjectPoolConfig uncounted = config.clone();
+        uncounted.setMinEvictableEmptyKeyIdleTimeMillis(0);
+        return uncounted;
+    }
+
+    @Override
+    protected void toStringAppendFields(final StringBuilder builder) {
+        super.toStringAppendFields(builder);
+        builder.append(", keyInterner=");
+        builder.append(keyInterner);
+    }
+}
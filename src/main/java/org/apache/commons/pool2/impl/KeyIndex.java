@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An index of the keys of a {@link GenericKeyedObjectPool} in which every key
+ * occupies a slot whose position does not change for as long as the key is
+ * present. This allows the evictor to walk the keys with a simple cursor that
+ * remains valid across eviction runs rather than copying the complete list of
+ * keys each time it reaches the end.
+ * <p>
+ * Slots are held in fixed size segments so that growing the index never
+ * copies the existing slots. Slots freed by {@link #remove(int)} are reused,
+ * in the order in which they were freed, by later calls to
+ * {@link #add(Object)}, so the number of slots is bounded by the largest
+ * number of keys that have been present at the same time. Reusing slots in
+ * that order means that keys added after all keys have been removed are
+ * visited in the order they were added.
+ * <p>
+ * Methods that modify the index must be called while holding an external
+ * lock. {@link #get(int)}, {@link #getLimit()} and {@link #size()} may be
+ * called concurrently with modifications; a reader may observe a key that is
+ * being removed or miss a key that is being added, which is acceptable for
+ * the eviction scan.
+ *
+ * @param <K> The type of the keys
+ *
+ * @since 2.4.3
+ */
+class KeyIndex<K> {
+
+    private static final int SEGMENT_SHIFT = 10;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private volatile AtomicReferenceArray<K>[] segments = newSegmentArray(4);
+
+    /*
+     * One greater than the highest slot that has ever been used. Written only
+     * after the slot and its segment have been initialised so readers never
+     * see a slot below the limit without its segment.
+     */
+    private volatile int limit = 0;
+    private volatile int size = 0;
+
+    // Circular queue of free slots below limit. @GuardedBy("external lock")
+    private int[] freeSlots = new int[16];
+    private int freeHead = 0;
+    private int freeCount = 0;
+
+    /**
+     * Add a key to the index.
+     *
+     * @param key The key to add
+     *
+     * @return The slot occupied by the key
+     */
+    int add(final K key) {
+        final int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[freeHead];
+            freeHead = (freeHead + 1) % freeSlots.length;
+            freeCount--;
+            segments[slot >>> SEGMENT_SHIFT].set(slot & SEGMENT_MASK, key);
+        } else {
+            slot = limit;
+            final int segment = slot >>> SEGMENT_SHIFT;
+            AtomicReferenceArray<K>[] s = segments;
+            if (segment == s.length) {
+                final AtomicReferenceArray<K>[] grown = newSegmentArray(s.length * 2);
+                System.arraycopy(s, 0, grown, 0, s.length);
+                segments = grown;
+                s = grown;
+            }
+            if (s[segment] == null) {
+                s[segment] = new AtomicReferenceArray<K>(SEGMENT_SIZE);
+                // Re-publish so the new segment is visible to readers
+                segments = s;
+            }
+            s[segment].set(slot & SEGMENT_MASK, key);
+            limit = slot + 1;
+        }
+        size++;
+        return slot;
+    }
+
+    /**
+     * Remove the key occupying the given slot.
+     *
+     * @param slot The slot returned by {@link #add(Object)} for the key
+     */
+    void remove(final int slot) {
+        segments[slot >>> SEGMENT_SHIFT].set(slot & SEGMENT_MASK, null);
+        if (freeCount == freeSlots.length) {
+            final int[] grown = new int[freeSlots.length * 2];
+            for (int i = 0; i < freeCount; i++) {
+                grown[i] = freeSlots[(freeHead + i) % freeSlots.length];
+            }
+            freeSlots = grown;
+            freeHead = 0;
+        }
+        freeSlots[(freeHead + freeCount) % freeSlots.length] = slot;
+        freeCount++;
+        size--;
+    }
+
+    /**
+     * Obtain the key occupying the given slot.
+     *
+     * @param slot The slot, which must be less than {@link #getLimit()}
+     *
+     * @return The key or <code>null</code> if the slot is free
+     */
+    K get(final int slot) {
+        return segments[slot >>> SEGMENT_SHIFT].get(slot & SEGMENT_MASK);
+    }
+
+    /**
+     * @return one greater than the highest slot that may be occupied
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of keys in the index
+     */
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K> AtomicReferenceArray<K>[] newSegmentArray(final int length) {
+        return new AtomicReferenceArray[length];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("KeyIndex [size=");
+        builder.append(size);
+        builder.append(", limit=");
+        builder.append(limit);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * Maps primitive key values to entries that hold a single canonical boxed
+ * instance of the key and a value associated with it, so that
+ * {@link InterningKeyedObjectPool} can find the sub-pool for a primitive key
+ * without boxing the key or looking it up in the pool's map of sub-pools.
+ * <p>
+ * The table is an open addressing hash table of the entries, which carry
+ * their own key so no separate key array is required. <code>int</code> keys
+ * are widened to <code>long</code> so both key types share the same table.
+ * Lookups are lock-free. Insertions and resizes are synchronized and a resize
+ * publishes a new table, so a reader using a stale table at worst misses and
+ * falls back to the synchronized path. An entry's key is final so entries
+ * are safely published through the table even without synchronization, and
+ * its value is volatile.
+ * <p>
+ * Once {@link #getMaxSize()} keys have been added, further keys are not added
+ * and {@link #getEntry(long)} returns <code>null</code> for them, which bounds
+ * the memory used by pools that see an unbounded range of keys. A volatile
+ * flag records that the table is full so that these keys are looked up
+ * without taking the lock.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @param <K> The boxed type of the keys
+ * @param <V> The type of the values associated with the keys
+ *
+ * @since 2.4.3
+ */
+abstract class KeyInterner<K extends Number,V> {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int maxSize;
+    private volatile Entry<K,V>[] table = newTable(INITIAL_CAPACITY);
+    private int size = 0; // @GuardedBy("this")
+    private volatile boolean full = false;
+
+    /**
+     * Create an interner that will hold at most <code>maxSize</code> keys.
+     *
+     * @param maxSize The maximum number of keys to intern
+     */
+    KeyInterner(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Create an interner for <code>int</code> keys.
+     *
+     * @param <V> The type of the values associated with the keys
+     * @param maxSize The maximum number of keys to intern
+     *
+     * @return The new interner
+     */
+    static <V> KeyInterner<Integer,V> forInt(final int maxSize) {
+        return new KeyInterner<Integer,V>(maxSize) {
+            @Override
+            Integer box(final long key) {
+                return Integer.valueOf((int) key);
+            }
+        };
+    }
+
+    /**
+     * Create an interner for <code>long</code> keys.
+     *
+     * @param <V> The type of the values associated with the keys
+     * @param maxSize The maximum number of keys to intern
+     *
+     * @return The new interner
+     */
+    static <V> KeyInterner<Long,V> forLong(final int maxSize) {
+        return new KeyInterner<Long,V>(maxSize) {
+            @Override
+            Long box(final long key) {
+                return Long.valueOf(key);
+            }
+        };
+    }
+
+    /**
+     * Obtain the entry for the given key, adding it if there is room.
+     *
+     * @param key The primitive key, widened to <code>long</code>
+     *
+     * @return The entry or <code>null</code> if the key is not interned and
+     *         {@link #getMaxSize()} keys already are
+     */
+    Entry<K,V> getEntry(final long key) {
+        final Entry<K,V>[] t = table;
+        final int mask = t.length - 1;
+        int i = spread(key) & mask;
+        Entry<K,V> candidate;
+        while ((candidate = t[i]) != null) {
+            if (candidate.primitiveKey == key) {
+                return candidate;
+            }
+            i = (i + 1) & mask;
+        }
+        if (full) {
+            return null;
+        }
+        return insert(key);
+    }
+
+    /**
+     * Obtain the canonical boxed instance for the given key.
+     *
+     * @param key The primitive key, widened to <code>long</code>
+     *
+     * @return The boxed key, which is a new instance if the key is not
+     *         interned
+     */
+    K intern(final long key) {
+        final Entry<K,V> entry = getEntry(key);
+        if (entry == null) {
+            return box(key);
+        }
+        return entry.getKey();
+    }
+
+    /**
+     * Box a key that is not interned.
+     *
+     * @param key The primitive key, widened to <code>long</code>
+     *
+     * @return A new boxed instance of the key
+     */
+    abstract K box(long key);
+
+    /**
+     * @return the maximum number of keys that will be interned
+     */
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return the number of keys currently interned
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    private synchronized Entry<K,V> insert(final long key) {
+        Entry<K,V>[] t = table;
+        int mask = t.length - 1;
+        int i = spread(key) & mask;
+        Entry<K,V> candidate;
+        while ((candidate = t[i]) != null) {
+            if (candidate.primitiveKey == key) {
+                // Added by another thread
+                return candidate;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size >= maxSize) {
+            return null;
+        }
+        // Keep the load factor at or below 0.5 so probe sequences stay short
+        if ((size + 1) * 2 > t.length) {
+            t = resize(t);
+            mask = t.length - 1;
+            i = spread(key) & mask;
+            while (t[i] != null) {
+                i = (i + 1) & mask;
+            }
+        }
+        final Entry<K,V> entry = new Entry<K,V>(key, box(key));
+        t[i] = entry;
+        size++;
+        if (size >= maxSize) {
+            full = true;
+        }
+        return entry;
+    }
+
+    private Entry<K,V>[] resize(final Entry<K,V>[] old) {
+        final Entry<K,V>[] t = newTable(old.length * 2);
+        final int mask = t.length - 1;
+        for (final Entry<K,V> entry : old) {
+            if (entry != null) {
+                int i = spread(entry.primitiveKey) & mask;
+                while (t[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                t[i] = entry;
+            }
+        }
+        table = t;
+        return t;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K extends Number,V> Entry<K,V>[] newTable(final int capacity) {
+        return new Entry[capacity];
+    }
+
+    /**
+     * Scrambles the bits of the key so that dense and strided key ranges are
+     * spread across the table.
+     */
+    private static int spread(final long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("KeyInterner [maxSize=");
+        builder.append(maxSize);
+        builder.append(", size=");
+        builder.append(size());
+        builder.append("]");
+        return builder.toString();
+    }
+
+    /**
+     * An interned key and the value associated with it.
+     *
+     * @param <K> The boxed type of the key
+     * @param <V> The type of the value
+     */
+    static final class Entry<K extends Number,V> {
+
+        private final long primitiveKey;
+        private final K key;
+        private volatile V value = null;
+
+        Entry(final long primitiveKey, final K key) {
+            this.primitiveKey = primitiveKey;
+            this.key = key;
+        }
+
+        /**
+         * @return the canonical boxed instance of the key
+         */
+        K getKey() {
+            return key;
+        }
+
+        /**
+         * @return the value associated with the key or <code>null</code> if
+         *         none has been set
+         */
+        V getValue() {
+            return value;
+        }
+
+        /**
+         * @param value the new value to associate with the key
+         */
+        void setValue(final V value) {
+            this.value = value;
+        }
+    }
+}
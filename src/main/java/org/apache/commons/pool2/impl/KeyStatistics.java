@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estimates the number of borrows, the time spent waiting to borrow and the
+ * number of objects created for each key of a {@link GenericKeyedObjectPool}
+ * in a fixed amount of memory, however many keys the pool has seen, and
+ * tracks the keys with the most borrows and the most time spent waiting.
+ * <p>
+ * The estimates are held in count-min sketches: each of four rows of 1024
+ * counters is indexed by a different hash of the key and the estimate for a
+ * key is the smallest of its counters. An estimate is never less than the
+ * true value and exceeds it by more than <code>e / 1024</code> of the total
+ * for all keys with a probability of at most <code>e<sup>-4</sup></code>.
+ * <p>
+ * The hottest and most contended keys are each tracked in a small list of
+ * candidates. A key that is not a candidate replaces the candidate with the
+ * smallest estimate once its own estimate is larger. Updates for keys whose
+ * estimate is below that of every candidate, and for keys that are already
+ * candidates, do not lock. The candidates are ranked by their current
+ * estimates when the list is read.
+ * <p>
+ * Keys are only converted to strings for the candidates, when they are read.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @param <K> The type of the keys
+ *
+ * @since 2.4.3
+ */
+class KeyStatistics<K> {
+
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1024;
+    private static final int WIDTH_MASK = WIDTH - 1;
+
+    private static final int BORROWS = 0;
+    private static final int WAIT_NANOS = 1;
+    private static final int CREATES = 2;
+    private static final int METRICS = 3;
+
+    private final AtomicLongArray counters = new AtomicLongArray(METRICS * DEPTH * WIDTH);
+    private final Candidates hottest;
+    private final Candidates mostContended;
+
+    /**
+     * Create an empty set of statistics.
+     *
+     * @param capacity The number of hottest and of most contended keys to
+     *                 track
+     */
+    KeyStatistics(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        hottest = new Candidates(BORROWS, capacity);
+        mostContended = new Candidates(WAIT_NANOS, capacity);
+    }
+
+    /**
+     * Record a borrow.
+     *
+     * @param key       The key
+     * @param waitNanos The time the borrower spent waiting for an object, or
+     *                  zero if it did not wait
+     */
+    void recordBorrow(final K key, final long waitNanos) {
+        final int hash = hash(key);
+        hottest.offer(key, add(BORROWS, hash, 1));
+        if (waitNanos > 0) {
+            mostContended.offer(key, add(WAIT_NANOS, hash, waitNanos));
+        }
+    }
+
+    /**
+     * Record an attempt to borrow that failed after waiting.
+     *
+     * @param key       The key
+     * @param waitNanos The time the borrower spent waiting
+     */
+    void recordWait(final K key, final long waitNanos) {
+        if (waitNanos > 0) {
+            mostContended.offer(key, add(WAIT_NANOS, hash(key), waitNanos));
+        }
+    }
+
+    /**
+     * Record the creation of an object.
+     *
+     * @param key The key
+     */
+    void recordCreate(final K key) {
+        add(CREATES, hash(key), 1);
+    }
+
+    /**
+     * @param key The key
+     *
+     * @return an estimate of the number of objects borrowed for the key
+     */
+    long getBorrowCount(final K key) {
+        return estimate(BORROWS, hash(key));
+    }
+
+    /**
+     * @param key The key
+     *
+     * @return an estimate of the time in nanoseconds borrowers have spent
+     *         waiting for objects for the key
+     */
+    long getWaitTimeNanos(final K key) {
+        return estimate(WAIT_NANOS, hash(key));
+    }
+
+    /**
+     * @param key The key
+     *
+     * @return an estimate of the number of objects created for the key
+     */
+    long getCreateCount(final K key) {
+        return estimate(CREATES, hash(key));
+    }
+
+    /**
+     * @return the estimated number of borrows for each of the keys with the
+     *         most borrows, highest first, keyed by the string form of the key
+     */
+    Map<String, Long> getHottestKeys() {
+        return hottest.snapshot();
+    }
+
+    /**
+     * @return the estimated time in nanoseconds spent waiting for each of the
+     *         keys with the most time spent waiting, highest first, keyed by
+     *         the string form of the key
+     */
+    Map<String, Long> getMostContendedKeys() {
+        return mostContended.snapshot();
+    }
+
+    /**
+     * @return the number of hottest and of most contended keys tracked
+     */
+    int getCapacity() {
+        return hottest.capacity;
+    }
+
+    /**
+     * Adds to every counter for the key and returns the new estimate.
+     */
+    private long add(final int metric, final int hash, final long delta) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.addAndGet(index(metric, row, hash), delta));
+        }
+        return min;
+    }
+
+    private long estimate(final int metric, final int hash) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, counters.get(index(metric, row, hash)));
+        }
+        return min;
+    }
+
+    /**
+     * Derives the counter for each row from two halves of the hash (double
+     * hashing), so only one hash of the key is computed per update.
+     */
+    private static int index(final int metric, final int row, final int hash) {
+        final int h1 = hash;
+        final int h2 = (hash >>> 16) | (hash << 16) | 1;
+        final int column = (h1 + row * h2) & WIDTH_MASK;
+        return (metric * DEPTH + row) * WIDTH + column;
+    }
+
+    private static int hash(final Object key) {
+        final int h = (key == null ? 0 : key.hashCode()) * 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("KeyStatistics [hottest=");
+        builder.append(hottest.snapshot());
+        builder.append(", mostContended=");
+        builder.append(mostContended.snapshot());
+        builder.append("]");
+        return builder.toString();
+    }
+
+    /**
+     * The keys with the highest estimates for a metric.
+     */
+    private class Candidates {
+
+        private final int metric;
+        private final int capacity;
+
+        // Replaced rather than modified. @GuardedBy("this") for write access
+        private volatile Object[] keys = new Object[0];
+
+        /*
+         * The smallest estimate of a candidate when the list is full, or zero.
+         * Estimates only increase, so a stale value is a lower bound and only
+         * causes needless locking.
+         */
+        private volatile long threshold = 0;
+
+        Candidates(final int metric, final int capacity) {
+            this.metric = metric;
+            this.capacity = capacity;
+        }
+
+        void offer(final K key, final long estimate) {
+            if (estimate <= threshold || contains(keys, key)) {
+                return;
+            }
+            synchronized (this) {
+                final Object[] current = keys;
+                if (contains(current, key)) {
+                    return;
+                }
+                if (current.length < capacity) {
+                    final Object[] grown = Arrays.copyOf(current, current.length + 1);
+                    grown[current.length] = key;
+                    keys = grown;
+                    if (grown.length == capacity) {
+                        threshold = estimate(metric, hash(grown[indexOfMin(grown)]));
+                    }
+                    return;
+                }
+                final int min = indexOfMin(current);
+                final long minEstimate = estimate(metric, hash(current[min]));
+                if (estimate > minEstimate) {
+                    final Object[] replaced = current.clone();
+                    replaced[min] = key;
+                    keys = replaced;
+                    threshold = estimate(metric, hash(replaced[indexOfMin(replaced)]));
+                } else {
+                    threshold = minEstimate;
+                }
+            }
+        }
+
+        Map<String, Long> snapshot() {
+            final Object[] current = keys;
+            final long[] estimates = new long[current.length];
+            final Integer[] order = new Integer[current.length];
+            for (int i = 0; i < current.length; i++) {
+                estimates[i] = estimate(metric, hash(current[i]));
+                order[i] = Integer.valueOf(i);
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(final Integer a, final Integer b) {
+                    final long ea = estimates[a.intValue()];
+                    final long eb = estimates[b.intValue()];
+                    return ea < eb ? 1 : (ea == eb ? 0 : -1);
+                }
+            });
+            final Map<String, Long> result = new LinkedHashMap<String, Long>();
+            for (final Integer i : order) {
+                result.put(String.valueOf(current[i.intValue()]),
+                        Long.valueOf(estimates[i.intValue()]));
+            }
+            return result;
+        }
+
+        private int indexOfMin(final Object[] candidates) {
+            int min = 0;
+            long minEstimate = Long.MAX_VALUE;
+            for (int i = 0; i < candidates.length; i++) {
+                final long e = estimate(metric, hash(candidates[i]));
+                if (e < minEstimate) {
+                    min = i;
+                    minEstimate = e;
+                }
+            }
+            return min;
+        }
+
+        private boolean contains(final Object[] candidates, final K key) {
+            for (final Object candidate : candidates) {
+                if (candidate == key || candidate != null && candidate.equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -140,8 +140,17 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      */
     private transient Node<E> last; // @GuardedBy("lock")
 
-    /** Number of items in the deque */
-    private transient int count; // @GuardedBy("lock")
+    /**
+     * Number of items in the deque. Volatile so that {@link #size()} does not
+     * need the lock.
+     */
+    private transient volatile int count; // @GuardedBy("lock") for write access
+
+    /**
+     * Counter shared with other deques that tracks their combined size, or
+     * null.
+     */
+    private final transient StripedCounter sizeCounter;
 
     /** Maximum number of items in the deque */
     private final int capacity;
@@ -155,6 +164,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
     /** Condition for waiting puts */
     private final Condition notFull;
 
+    /** Whether waiting takes return rather than wait for an element */
+    private boolean closed; // @GuardedBy("lock")
+
     /**
      * Creates a {@code LinkedBlockingDeque} with a capacity of
      * {@link Integer#MAX_VALUE}.
@@ -193,10 +205,27 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      * @throws IllegalArgumentException if {@code capacity} is less than 1
      */
     public LinkedBlockingDeque(final int capacity, final boolean fairness) {
+        this(capacity, fairness, null);
+    }
+
+    /**
+     * Creates a {@code LinkedBlockingDeque} with the given (fixed) capacity
+     * and fairness policy that adds every change in its size to the given
+     * counter.
+     *
+     * @param capacity the capacity of this deque
+     * @param fairness true means threads waiting on the deque should be served
+     * as if waiting in a FIFO request queue
+     * @param sizeCounter the counter, or {@code null}
+     * @throws IllegalArgumentException if {@code capacity} is less than 1
+     */
+    LinkedBlockingDeque(final int capacity, final boolean fairness,
+            final StripedCounter sizeCounter) {
         if (capacity <= 0) {
             throw new IllegalArgumentException();
         }
         this.capacity = capacity;
+        this.sizeCounter = sizeCounter;
         lock = new InterruptibleReentrantLock(fairness);
         notEmpty = lock.newCondition();
         notFull = lock.newCondition();
@@ -253,6 +282,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             f.prev = x;
         }
         ++count;
+        if (sizeCounter != null) {
+            sizeCounter.add(1);
+        }
         notEmpty.signal();
         return true;
     }
@@ -278,6 +310,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             l.next = x;
         }
         ++count;
+        if (sizeCounter != null) {
+            sizeCounter.add(1);
+        }
         notEmpty.signal();
         return true;
     }
@@ -304,6 +339,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             n.prev = null;
         }
         --count;
+        if (sizeCounter != null) {
+            sizeCounter.add(-1);
+        }
         notFull.signal();
         return item;
     }
@@ -330,6 +368,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             p.next = null;
         }
         --count;
+        if (sizeCounter != null) {
+            sizeCounter.add(-1);
+        }
         notFull.signal();
         return item;
     }
@@ -353,7 +394,10 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             x.item = null;
             // Don't mess with x's links.  They may still be in use by
             // an iterator.
-        --count;
+            --count;
+            if (sizeCounter != null) {
+                sizeCounter.add(-1);
+            }
             notFull.signal();
         }
     }
@@ -576,7 +620,8 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      * Unlinks the first element in the queue, waiting until there is an element
      * to unlink if the queue is empty.
      *
-     * @return the unlinked element
+     * @return the unlinked element or {@code null} if the queue is empty and
+     *         has been closed
      * @throws InterruptedException if the current thread is interrupted
      */
     public E takeFirst() throws InterruptedException {
@@ -584,6 +629,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
         try {
             E x;
             while ( (x = unlinkFirst()) == null) {
+                if (closed) {
+                    return null;
+                }
                 notEmpty.await();
             }
             return x;
@@ -596,7 +644,8 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      * Unlinks the last element in the queue, waiting until there is an element
      * to unlink if the queue is empty.
      *
-     * @return the unlinked element
+     * @return the unlinked element or {@code null} if the queue is empty and
+     *         has been closed
      * @throws InterruptedException if the current thread is interrupted
      */
     public E takeLast() throws InterruptedException {
@@ -604,6 +653,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
         try {
             E x;
             while ( (x = unlinkLast()) == null) {
+                if (closed) {
+                    return null;
+                }
                 notEmpty.await();
             }
             return x;
@@ -619,7 +671,8 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      * @param timeout   length of time to wait
      * @param unit      units that timeout is expressed in
      *
-     * @return the unlinked element
+     * @return the unlinked element or {@code null} if the queue is still empty
+     *         after the timeout or has been closed
      * @throws InterruptedException if the current thread is interrupted
      */
     public E pollFirst(final long timeout, final TimeUnit unit)
@@ -629,7 +682,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
         try {
             E x;
             while ( (x = unlinkFirst()) == null) {
-                if (nanos <= 0) {
+                if (nanos <= 0 || closed) {
                     return null;
                 }
                 nanos = notEmpty.awaitNanos(nanos);
@@ -647,7 +700,8 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      * @param timeout   length of time to wait
      * @param unit      units that timeout is expressed in
      *
-     * @return the unlinked element
+     * @return the unlinked element or {@code null} if the queue is still empty
+     *         after the timeout or has been closed
      * @throws InterruptedException if the current thread is interrupted
      */
     public E pollLast(final long timeout, final TimeUnit unit)
@@ -657,7 +711,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
         try {
             E x;
             while ( (x = unlinkLast()) == null) {
-                if (nanos <= 0) {
+                if (nanos <= 0 || closed) {
                     return null;
                 }
                 nanos = notEmpty.awaitNanos(nanos);
@@ -998,12 +1052,7 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
      */
     @Override
     public int size() {
-        lock.lock();
-        try {
-            return count;
-        } finally {
-            lock.unlock();
-        }
+        return count;
     }
 
     /**
@@ -1152,6 +1201,9 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
                 f = n;
             }
             first = last = null;
+            if (sizeCounter != null) {
+                sizeCounter.add(-count);
+            }
             count = 0;
             notFull.signalAll();
         } finally {
@@ -1418,4 +1470,20 @@ class LinkedBlockingDeque<E> extends AbstractQueue<E>
             lock.unlock();
         }
     }
+
+    /**
+     * Closes the deque to waiting takes. Threads waiting for an element, and
+     * any that start to wait later, return {@code null} rather than wait while
+     * the deque is empty. Used by the pools when the deque is discarded so
+     * that a thread cannot wait on a deque that no other thread will add to.
+     */
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
 }
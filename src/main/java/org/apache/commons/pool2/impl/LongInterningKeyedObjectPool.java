@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import org.apache.commons.pool2.KeyedPooledObjectFactory;
+
+/**
+ * A {@link GenericKeyedObjectPool} keyed by {@link Long} that accepts
+ * primitive <code>long</code> keys and interns the boxed keys.
+ * <p>
+ * In addition to the methods inherited from {@link GenericKeyedObjectPool},
+ * which accept boxed {@link Long} keys, this pool provides overloads that
+ * accept a <code>long</code> key directly. These map the key to a
+ * canonical {@link Long} instance and the sub-pool for the key, both held by
+ * the pool, so that the common borrow / return cycle neither allocates a new
+ * key object, even for keys outside the range cached by
+ * {@link Long#valueOf(long)}, nor looks up the key's sub-pool. See
+ * {@link InterningKeyedObjectPool} for the effect on how keys are removed.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @see IntInterningKeyedObjectPool
+ *
+ * @param <T> Type of element pooled in this pool.
+ *
+ * @since 2.4.3
+ */
+public class LongInterningKeyedObjectPool<T> extends InterningKeyedObjectPool<Long,T> {
+
+    /**
+     * Create a new <code>LongInterningKeyedObjectPool</code> using defaults from
+     * {@link GenericKeyedObjectPoolConfig}.
+     * @param factory the factory to be used to create entries
+     */
+    public LongInterningKeyedObjectPool(final KeyedPooledObjectFactory<Long,T> factory) {
+        this(factory, new GenericKeyedObjectPoolConfig());
+    }
+
+    /**
+     * Create a new <code>LongInterningKeyedObjectPool</code> using a specific
+     * configuration.
+     *
+     * @param factory the factory to be used to create entries
+     * @param config    The configuration to use for this pool instance. The
+     *                  configuration is used by value. Subsequent changes to
+     *                  the configuration object will not be reflected in the
+     *                  pool.
+     */
+    public LongInterningKeyedObjectPool(final KeyedPooledObjectFactory<Long,T> factory,
+            final GenericKeyedObjectPoolConfig config) {
+        this(factory, config, DEFAULT_MAX_INTERNED_KEYS);
+    }
+
+    /**
+     * Create a new <code>LongInterningKeyedObjectPool</code> using a specific
+     * configuration and limit on the number of interned keys.
+     *
+     * @param factory the factory to be used to create entries
+     * @param config    The configuration to use for this pool instance. The
+     *                  configuration is used by value. Subsequent changes to
+     *                  the configuration object will not be reflected in the
+     *                  pool.
+     * @param maxInternedKeys The maximum number of distinct keys for which a
+     *                        canonical {@link Long} instance is held
+     */
+    public LongInterningKeyedObjectPool(final KeyedPooledObjectFactory<Long,T> factory,
+            final GenericKeyedObjectPoolConfig config, final int maxInternedKeys) {
+        super(factory, config, KeyInterner.<ObjectDeque<T>>forLong(maxInternedKeys));
+    }
+
+    /**
+     * Equivalent to <code>{@link #borrowObject(Object) borrowObject}(key)</code>
+     * using the interned key and its cached sub-pool.
+     *
+     * @param key pool key
+     *
+     * @return object instance from the keyed pool
+     *
+     * @throws Exception if a keyed object instance cannot be returned
+     */
+    public T borrowObject(final long key) throws Exception {
+        return borrowInterned(key, getMaxWaitMillis());
+    }
+
+    /**
+     * Equivalent to <code>{@link #borrowObject(Object, long)
+     * borrowObject}(key, borrowMaxWaitMillis)</code> using the interned key
+     * and its cached sub-pool.
+     *
+     * @param key pool key
+     * @param borrowMaxWaitMillis The time to wait in milliseconds for an object
+     *                            to become available
+     *
+     * @return object instance from the keyed pool
+     *
+     * @throws Exception if a keyed object instance cannot be returned
+     */
+    public T borrowObject(final long key, final long borrowMaxWaitMillis)
+            throws Exception {
+        return borrowInterned(key, borrowMaxWaitMillis);
+    }
+
+    /**
+     * Equivalent to <code>{@link #returnObject(Object, Object)
+     * returnObject}(key, obj)</code> using the interned key and its cached
+     * sub-pool.
+     *
+     * @param key pool key
+     * @param obj instance to return to the keyed pool
+     */
+    public void returnObject(final long key, final T obj) {
+        returnInterned(key, obj);
+    }
+
+    /**
+     * Equivalent to <code>{@link #invalidateObject(Object, Object)
+     * invalidateObject}(key, obj)</code> using the interned key and its
+     * cached sub-pool.
+     *
+     * @param key pool key
+     * @param obj instance to invalidate
+     *
+     * @throws Exception if an exception occurs destroying the object
+     */
+    public void invalidateObject(final long key, final T obj) throws Exception {
+        invalidateInterned(key, obj);
+    }
+
+    /**
+     * Equivalent to <code>{@link #addObject(Object) addObject}(key)</code>
+     * using the interned key.
+     *
+     * @param key the key a new instance should be added to
+     *
+     * @throws Exception when {@link KeyedPooledObjectFactory#makeObject}
+     *                   fails.
+     */
+    public void addObject(final long key) throws Exception {
+        addObject(internKey(key));
+    }
+
+    /**
+     * Equivalent to <code>{@link #preparePool(Object) preparePool}(key)</code>
+     * using the interned key.
+     *
+     * @param key - The key to register for pool control.
+     *
+     * @throws Exception If the associated factory throws an exception
+     */
+    public void preparePool(final long key) throws Exception {
+        preparePool(internKey(key));
+    }
+
+    /**
+     * Equivalent to <code>{@link #clear(Object) clear}(key)</code> using
+     * the interned key.
+     *
+     * @param key the key to clear
+     */
+    public void clear(final long key) {
+        clear(internKey(key));
+    }
+
+    /**
+     * Equivalent to <code>{@link #getNumActive(Object) getNumActive}(key)</code>
+     * using the interned key.
+     *
+     * @param key pool key
+     *
+     * @return the number of instances currently borrowed from the sub-pool
+     */
+    public int getNumActive(final long key) {
+        return getNumActive(internKey(key));
+    }
+
+    /**
+     * Equivalent to <code>{@link #getNumIdle(Object) getNumIdle}(key)</code>
+     * using the interned key.
+     *
+     * @param key pool key
+     *
+     * @return the number of instances currently idle in the sub-pool
+     */
+    public int getNumIdle(final long key) {
+        return getNumIdle(internKey(key));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * The capacity and idle limits that apply to a single key of a
+ * {@link GenericKeyedObjectPool}, overriding the pool-wide
+ * {@code maxTotalPerKey}, {@code maxIdlePerKey} and {@code minIdlePerKey}
+ * settings for that key.
+ * <p>
+ * This class is immutable and thread-safe.
+ *
+ * @see PerKeyConfigResolver
+ *
+ * @since 2.4.3
+ */
+public class PerKeyConfig {
+
+    private final int maxTotalPerKey;
+    private final int maxIdlePerKey;
+    private final int minIdlePerKey;
+
+    /**
+     * Create a new per key configuration.
+     *
+     * @param maxTotalPerKey The limit on the number of object instances
+     *                       allocated for the key. A negative value indicates
+     *                       no limit.
+     * @param maxIdlePerKey  The cap on the number of idle instances for the
+     *                       key. A negative value indicates no limit.
+     * @param minIdlePerKey  The target for the minimum number of idle
+     *                       instances to maintain for the key
+     */
+    public PerKeyConfig(final int maxTotalPerKey, final int maxIdlePerKey,
+            final int minIdlePerKey) {
+        this.maxTotalPerKey = maxTotalPerKey;
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.minIdlePerKey = minIdlePerKey;
+    }
+
+    /**
+     * @return the limit on the number of object instances allocated for the
+     *         key
+     */
+    public int getMaxTotalPerKey() {
+        return maxTotalPerKey;
+    }
+
+    /**
+     * @return the cap on the number of idle instances for the key
+     */
+    public int getMaxIdlePerKey() {
+        return maxIdlePerKey;
+    }
+
+    /**
+     * Returns the target for the minimum number of idle instances for the key.
+     * As with {@link GenericKeyedObjectPool#getMinIdlePerKey()}, if this is
+     * greater than {@link #getMaxIdlePerKey()} then {@code maxIdlePerKey} is
+     * used instead.
+     *
+     * @return the target for the minimum number of idle instances for the key
+     */
+    public int getMinIdlePerKey() {
+        if (maxIdlePerKey > -1 && minIdlePerKey > maxIdlePerKey) {
+            return maxIdlePerKey;
+        }
+        return minIdlePerKey;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("PerKeyConfig [maxTotalPerKey=");
+        builder.append(maxTotalPerKey);
+        builder.append(", maxIdlePerKey=");
+        builder.append(maxIdlePerKey);
+        builder.append(", minIdlePerKey=");
+        builder.append(minIdlePerKey);
+        builder.append("]");
+        return builder.toString();
+    }
+}
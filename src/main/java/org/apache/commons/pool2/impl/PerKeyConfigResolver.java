@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * Provides the limits to apply to an individual key of a
+ * {@link GenericKeyedObjectPool}, so that the capacity and idle targets of a
+ * heavily used key can differ from those of a rarely used one.
+ * <p>
+ * The pool calls {@link #resolve(Object)} once when the sub-pool for a key is
+ * created and caches the result for as long as the sub-pool exists.
+ * Implementations must therefore be thread-safe and should be fast.
+ *
+ * @param <K> The type of keys maintained by the pool
+ *
+ * @see GenericKeyedObjectPool#setPerKeyConfigResolver(PerKeyConfigResolver)
+ *
+ * @since 2.4.3
+ */
+public interface PerKeyConfigResolver<K> {
+
+    /**
+     * Determine the limits for the given key.
+     *
+     * @param key The key for which a sub-pool is being created
+     *
+     * @return The limits to use for the key or <code>null</code> to use the
+     *         pool-wide settings
+     */
+    PerKeyConfig resolve(K key);
+}
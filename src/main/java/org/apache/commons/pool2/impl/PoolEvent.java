@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * An event delivered to a {@link PoolEventListener}.
+ * <p>
+ * Instances are preallocated slots in the ring buffer through which events
+ * are passed to the listener thread and are reused once the listener has
+ * processed them, so an instance is only valid for the duration of the call
+ * to {@link PoolEventListener#onPoolEvent(PoolEvent)}.
+ *
+ * @since 2.4.3
+ */
+public final class PoolEvent {
+
+    /*
+     * The sequence number of the event held in this slot. Written by the
+     * publishing thread after the other fields so that the listener thread
+     * sees a complete event once it reads the expected sequence.
+     */
+    volatile long sequence = -1;
+
+    private PoolEventType type;
+    private long timeMillis;
+    private Object key;
+    private Object object;
+    private long durationNanos;
+    private DestroyReason destroyReason;
+
+    PoolEvent() {
+        // Only created by PoolEventDispatcher
+    }
+
+    void set(final PoolEventType type, final Object key, final Object object,
+            final long durationNanos, final DestroyReason destroyReason) {
+        this.type = type;
+        this.timeMillis = System.currentTimeMillis();
+        this.key = key;
+        this.object = object;
+        this.durationNanos = durationNanos;
+        this.destroyReason = destroyReason;
+    }
+
+    /*
+     * Releases the references held by the slot so that the pool's objects
+     * and keys can be garbage collected.
+     */
+    void clear() {
+        key = null;
+        object = null;
+        destroyReason = null;
+    }
+
+    /**
+     * @return the type of the event
+     */
+    public PoolEventType getType() {
+        return type;
+    }
+
+    /**
+     * @return the time at which the event occurred, in milliseconds since the
+     *         epoch
+     */
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+
+    /**
+     * @return the key, or <code>null</code> for an unkeyed pool
+     */
+    public Object getKey() {
+        return key;
+    }
+
+    /**
+     * @return the pooled object, or <code>null</code> if the event does not
+     *         relate to an object
+     */
+    public Object getObject() {
+        return object;
+    }
+
+    /**
+     * @return the duration associated with the event in nanoseconds, or zero
+     *         if the event type has no duration
+     */
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return the reason the object was destroyed for a
+     *         {@link PoolEventType#DESTROYED} event, otherwise
+     *         <code>null</code>
+     */
+    public DestroyReason getDestroyReason() {
+        return destroyReason;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("PoolEvent [type=");
+        builder.append(type);
+        builder.append(", timeMillis=");
+        builder.append(timeMillis);
+        builder.append(", key=");
+        builder.append(key);
+        builder.append(", object=");
+        builder.append(object);
+        builder.append(", durationNanos=");
+        builder.append(durationNanos);
+        builder.append(", destroyReason=");
+        builder.append(destroyReason);
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Passes the events of a pool to a {@link PoolEventListener} on a dedicated
+ * thread.
+ * <p>
+ * Events are written into a preallocated ring buffer of {@link PoolEvent}
+ * slots. A publishing thread claims the next sequence number with a CAS,
+ * fills in the slot and then publishes it by writing the sequence number to
+ * the slot. The listener thread consumes the slots in sequence order and
+ * releases each one by advancing the consumed sequence. Publishing never
+ * blocks or allocates: if every slot is waiting to be consumed the event is
+ * dropped and counted.
+ * <p>
+ * The listener thread parks when there are no events. A publisher only
+ * unparks it if it has indicated that it is about to park, so the common case
+ * of a busy listener costs publishers a single volatile read.
+ *
+ * @since 2.4.3
+ */
+class PoolEventDispatcher implements Runnable {
+
+    private static final PoolThreadFactory THREAD_FACTORY =
+            new PoolThreadFactory("commons-pool-events-");
+
+    // Bounds the delay in noticing an event if an unpark is missed
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BaseGenericObjectPool<?> pool;
+    private final PoolEventListener listener;
+    private final PoolEvent[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(0);
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final Thread thread;
+
+    // The next sequence to be consumed. Only written by the listener thread.
+    private volatile long consumed = 0;
+    private volatile boolean parked = false;
+    private volatile boolean stopped = false;
+
+    /**
+     * Create a dispatcher and start its listener thread.
+     *
+     * @param pool     The pool whose events are dispatched, which receives any
+     *                 exceptions thrown by the listener
+     * @param listener The listener
+     * @param capacity The minimum number of events that may be waiting for
+     *                 the listener before further events are dropped
+     */
+    PoolEventDispatcher(final BaseGenericObjectPool<?> pool,
+            final PoolEventListener listener, final int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.pool = pool;
+        this.listener = listener;
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        ring = new PoolEvent[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new PoolEvent();
+        }
+        mask = size - 1;
+        thread = THREAD_FACTORY.newThread(this);
+        thread.start();
+    }
+
+    /**
+     * Publish an event. Never blocks.
+     *
+     * @param type          The type of event
+     * @param key           The key or <code>null</code> for an unkeyed pool
+     * @param object        The pooled object or <code>null</code>
+     * @param durationNanos The duration of the event
+     * @param destroyReason Why the object was destroyed, for destroy events
+     *
+     * @return <code>true</code> if the event was published,
+     *         <code>false</code> if it was dropped
+     */
+    boolean publish(final PoolEventType type, final Object key, final Object object,
+            final long durationNanos, final DestroyReason destroyReason) {
+        if (stopped) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= ring.length) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+        final PoolEvent event = ring[(int) sequence & mask];
+        event.set(type, key, object, durationNanos, destroyReason);
+        event.sequence = sequence;
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        long next = consumed;
+        while (true) {
+            final PoolEvent event = ring[(int) next & mask];
+            if (event.sequence == next) {
+                try {
+                    listener.onPoolEvent(event);
+                } catch (final RuntimeException e) {
+                    pool.swallowException(e);
+                }
+                event.clear();
+                next++;
+                consumed = next;
+            } else if (stopped && claimed.get() == next) {
+                // Every published event has been delivered
+                return;
+            } else {
+                parked = true;
+                // Check again after announcing the park so that an event
+                // published concurrently either is seen here or unparks
+                if (event.sequence != next && !stopped) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    /**
+     * Stop accepting events. The listener thread exits once it has delivered
+     * the events already published.
+     */
+    void stop() {
+        stopped = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Wait for the listener thread to exit after {@link #stop()}.
+     *
+     * @param timeoutMillis The maximum time to wait
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitTermination(final long timeoutMillis) throws InterruptedException {
+        thread.join(timeoutMillis);
+    }
+
+    /**
+     * @return the listener
+     */
+    PoolEventListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @return the number of events dropped because the buffer was full
+     */
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of slots in the ring buffer
+     */
+    int getCapacity() {
+        return ring.length;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * Receives the events published by a {@link GenericObjectPool} or
+ * {@link GenericKeyedObjectPool}.
+ * <p>
+ * Events are published into a preallocated ring buffer by the thread that
+ * performs the pool operation and delivered to the listener, in the order in
+ * which they were published, by a separate listener thread. A slow listener
+ * therefore never delays borrowers; if the buffer fills up, further events
+ * are dropped and counted by
+ * {@link BaseGenericObjectPool#getDroppedPoolEventCount()}.
+ * <p>
+ * Exceptions thrown by the listener are swallowed and passed to the pool's
+ * {@link org.apache.commons.pool2.SwallowedExceptionListener}, if any.
+ *
+ * @see BaseGenericObjectPool#setPoolEventListener(PoolEventListener)
+ *
+ * @since 2.4.3
+ */
+public interface PoolEventListener {
+
+    /**
+     * Receive an event. The event object is reused for later events once this
+     * method returns so implementations must copy any values they need to
+     * retain rather than the event itself.
+     *
+     * @param event The event
+     */
+    void onPoolEvent(PoolEvent event);
+}
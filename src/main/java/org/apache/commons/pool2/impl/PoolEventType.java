@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+/**
+ * The types of event delivered to a {@link PoolEventListener}.
+ *
+ * @since 2.4.3
+ */
+public enum PoolEventType {
+    /**
+     * An object was borrowed. The duration is the time taken to borrow it.
+     */
+    BORROWED,
+
+    /**
+     * An object was returned by a borrower.
+     */
+    RETURNED,
+
+    /**
+     * An object was created. The duration is the time taken by the factory.
+     */
+    CREATED,
+
+    /**
+     * An object was destroyed. The destroy reason gives the cause.
+     */
+    DESTROYED,
+
+    /**
+     * An object failed validation.
+     */
+    VALIDATION_FAILED,
+
+    /**
+     * A borrower started to wait for an object to become available.
+     */
+    WAIT_STARTED,
+
+    /**
+     * A borrower stopped waiting. The duration is the time it waited and the
+     * object is <code>null</code> if no object became available.
+     */
+    WAIT_ENDED,
+
+    /**
+     * The evictor removed an idle object, which is then destroyed.
+     */
+    EVICTED,
+
+    /**
+     * An abandoned object was removed, which is then destroyed.
+     */
+    ABANDONED
+}
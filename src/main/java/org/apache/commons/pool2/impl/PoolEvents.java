@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import org.apache.commons.pool2.PooledObject;
+
+/**
+ * Emits Java Flight Recorder events for pool operations.
+ * <p>
+ * Flight Recorder events can only be defined on Java 11 and later so this
+ * implementation, which is used on earlier versions, does nothing and every
+ * method is removed by the JIT. The jar is a multi-release jar that contains a
+ * replacement for this class, built from <code>src/main/java11</code>, which
+ * is loaded instead on Java 11 and later. The replacement only creates an
+ * event when its event type is enabled in a running recording, so events are
+ * enabled and disabled at runtime through the recording settings.
+ * <p>
+ * Each <code>begin</code> method returns a handle, which is
+ * <code>null</code> if the event is disabled, that must be passed to the
+ * matching <code>end</code> method.
+ *
+ * @since 2.4.3
+ */
+final class PoolEvents {
+
+    private PoolEvents() {
+        // Static methods only
+    }
+
+    /**
+     * Start timing an attempt to borrow an object.
+     *
+     * @return The event handle
+     */
+    static Object beginBorrow() {
+        return null;
+    }
+
+    /**
+     * Complete an attempt to borrow an object.
+     *
+     * @param event   The handle returned by {@link #beginBorrow()}
+     * @param pool    The pool
+     * @param key     The key or <code>null</code> for an unkeyed pool
+     * @param outcome How the attempt ended
+     */
+    static void endBorrow(final Object event, final BaseGenericObjectPool<?> pool,
+            final Object key, final BorrowOutcome outcome) {
+        // NOOP
+    }
+
+    /**
+     * Start timing the creation of an object.
+     *
+     * @return The event handle
+     */
+    static Object beginCreate() {
+        return null;
+    }
+
+    /**
+     * Complete the creation of an object.
+     *
+     * @param event The handle returned by {@link #beginCreate()}
+     * @param pool  The pool
+     * @param key   The key or <code>null</code> for an unkeyed pool
+     */
+    static void endCreate(final Object event, final BaseGenericObjectPool<?> pool,
+            final Object key) {
+        // NOOP
+    }
+
+    /**
+     * Start timing the destruction of an object.
+     *
+     * @return The event handle
+     */
+    static Object beginDestroy() {
+        return null;
+    }
+
+    /**
+     * Complete the destruction of an object.
+     *
+     * @param event  The handle returned by {@link #beginDestroy()}
+     * @param pool   The pool
+     * @param key    The key or <code>null</code> for an unkeyed pool
+     * @param reason Why the object was destroyed
+     */
+    static void endDestroy(final Object event, final BaseGenericObjectPool<?> pool,
+            final Object key, final DestroyReason reason) {
+        // NOOP
+    }
+
+    /**
+     * Start timing the validation of an object.
+     *
+     * @return The event handle
+     */
+    static Object beginValidation() {
+        return null;
+    }
+
+    /**
+     * Complete the validation of an object.
+     *
+     * @param event The handle returned by {@link #beginValidation()}
+     * @param pool  The pool
+     * @param key   The key or <code>null</code> for an unkeyed pool
+     * @param valid The result of the validation
+     */
+    static void endValidation(final Object event, final BaseGenericObjectPool<?> pool,
+            final Object key, final boolean valid) {
+        // NOOP
+    }
+
+    /**
+     * Start timing the validation of several objects by a single call to a
+     * batch validating factory.
+     *
+     * @return The event handle
+     */
+    static Object beginBatchValidation() {
+        return null;
+    }
+
+    /**
+     * Complete the validation of several objects.
+     *
+     * @param event   The handle returned by {@link #beginBatchValidation()}
+     * @param pool    The pool
+     * @param key     The key or <code>null</code> for an unkeyed pool
+     * @param size    The number of objects validated
+     * @param invalid The number of objects that failed validation
+     */
+    static void endBatchValidation(final Object event,
+            final BaseGenericObjectPool<?> pool, final Object key, final int size,
+            final int invalid) {
+        // NOOP
+    }
+
+    /**
+     * Start timing an eviction run.
+     *
+     * @return The event handle
+     */
+    static Object beginEvictionRun() {
+        return null;
+    }
+
+    /**
+     * Complete an eviction run.
+     *
+     * @param event     The handle returned by {@link #beginEvictionRun()}
+     * @param pool      The pool
+     * @param tested    The number of idle objects tested
+     * @param destroyed The number of objects destroyed
+     * @param idle      The number of idle objects after the run
+     */
+    static void endEvictionRun(final Object event, final BaseGenericObjectPool<?> pool,
+            final int tested, final long destroyed, final int idle) {
+        // NOOP
+    }
+
+    /**
+     * Report that an abandoned object is being removed.
+     *
+     * @param pool The pool
+     * @param p    The abandoned object
+     */
+    static void abandoned(final BaseGenericObjectPool<?> pool, final PooledObject<?> p) {
+        // NOOP
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The events read from a file written by a {@link PoolTraceRecorder}, in the
+ * order in which they were recorded. Events from the oldest to the newest
+ * still retained by the ring buffer are included; records that were not
+ * completely written are skipped.
+ *
+ * @since 2.4.3
+ */
+public class PoolTrace {
+
+    private final long startTimeMillis;
+    private final long recordedCount;
+    private int size = 0;
+    private final byte[] types;
+    private final long[] times;
+    private final long[] durations;
+    private final int[] keyIds;
+    private final int[] objectIds;
+
+    private PoolTrace(final long startTimeMillis, final long recordedCount,
+            final int capacity) {
+        this.startTimeMillis = startTimeMillis;
+        this.recordedCount = recordedCount;
+        types = new byte[capacity];
+        times = new long[capacity];
+        durations = new long[capacity];
+        keyIds = new int[capacity];
+        objectIds = new int[capacity];
+    }
+
+    /**
+     * Read a trace.
+     *
+     * @param file The file written by a {@link PoolTraceRecorder}
+     *
+     * @return The events in the file
+     *
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public static PoolTrace read(final File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final ByteBuffer buffer =
+                    raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (raf.length() < PoolTraceRecorder.HEADER_SIZE ||
+                    buffer.getInt(0) != PoolTraceRecorder.MAGIC) {
+                throw new IOException("Not a pool trace: " + file);
+            }
+            if (buffer.getInt(4) != PoolTraceRecorder.VERSION) {
+                throw new IOException("Unsupported pool trace version: " +
+                        buffer.getInt(4));
+            }
+            final int capacity = buffer.getInt(PoolTraceRecorder.CAPACITY_OFFSET);
+            final int recordSize = buffer.getInt(PoolTraceRecorder.RECORD_SIZE_OFFSET);
+            final long count = buffer.getLong(PoolTraceRecorder.COUNT_OFFSET);
+            if (PoolTraceRecorder.HEADER_SIZE + (long) capacity * recordSize > raf.length()) {
+                throw new IOException("Truncated pool trace: " + file);
+            }
+            final int retained = (int) Math.min(count, capacity);
+            final PoolTrace trace = new PoolTrace(
+                    buffer.getLong(PoolTraceRecorder.START_TIME_OFFSET), count, retained);
+            int size = 0;
+            for (long sequence = count - retained; sequence < count; sequence++) {
+                final int offset = PoolTraceRecorder.HEADER_SIZE +
+                        (int) (sequence % capacity) * recordSize;
+                final byte type = buffer.get(offset + PoolTraceRecorder.TYPE_OFFSET);
+                if (type == 0) {
+                    continue;
+                }
+                trace.types[size] = type;
+                trace.times[size] = buffer.getLong(offset + PoolTraceRecorder.TIME_OFFSET);
+                trace.durations[size] =
+                        buffer.getLong(offset + PoolTraceRecorder.DURATION_OFFSET);
+                trace.keyIds[size] = buffer.getInt(offset + PoolTraceRecorder.KEY_OFFSET);
+                trace.objectIds[size] =
+                        buffer.getInt(offset + PoolTraceRecorder.OBJECT_OFFSET);
+                size++;
+            }
+            trace.size = size;
+            return trace;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * @return the time, in milliseconds since the epoch, at which recording
+     *         started
+     */
+    public long getStartTimeMillis() {
+        return startTimeMillis;
+    }
+
+    /**
+     * @return the number of events recorded, including any that were
+     *         overwritten before the trace was read
+     */
+    public long getRecordedCount() {
+        return recordedCount;
+    }
+
+    /**
+     * @return the number of events in the trace
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The index of the event
+     *
+     * @return the type of the event, one of the event types defined by
+     *         {@link PoolTraceRecorder}
+     */
+    public byte getType(final int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    /**
+     * @param index The index of the event
+     *
+     * @return the time of the event in nanoseconds since recording started
+     */
+    public long getTimeNanos(final int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    /**
+     * @param index The index of the event
+     *
+     * @return the duration in nanoseconds associated with the event
+     */
+    public long getDurationNanos(final int index) {
+        checkIndex(index);
+        return durations[index];
+    }
+
+    /**
+     * @param index The index of the event
+     *
+     * @return the identifier of the key of the event, or <code>0</code> for
+     *         an unkeyed pool
+     */
+    public int getKeyId(final int index) {
+        checkIndex(index);
+        return keyIds[index];
+    }
+
+    /**
+     * @param index The index of the event
+     *
+     * @return the identity hash code of the pooled object of the event
+     */
+    public int getObjectId(final int index) {
+        checkIndex(index);
+        return objectIds[index];
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("PoolTrace [startTimeMillis=");
+        builder.append(startTimeMillis);
+        builder.append(", recordedCount=");
+        builder.append(recordedCount);
+        builder.append(", size=");
+        builder.append(size);
+        builder.append("]");
+        return builder.toString();
+    }
+}
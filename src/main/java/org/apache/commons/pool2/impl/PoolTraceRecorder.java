@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the borrow, return, create, destroy and wait events of one or more
+ * pools to a compact binary file so that the behaviour of the pools can later
+ * be analysed, or replayed offline under different configurations.
+ * <p>
+ * The file is a memory-mapped ring buffer of fixed size records, so recording
+ * an event is a handful of memory writes and never blocks on I/O. Once the
+ * buffer is full the oldest events are overwritten. The file is complete once
+ * {@link #close()} (or {@link #flush()}) has been called; it is read with
+ * {@link PoolTrace#read(File)}.
+ * <p>
+ * Each record holds the type of the event, the time at which it occurred, an
+ * identifier for the key (for keyed pools), the identity hash code of the
+ * pooled object and a duration:
+ * <ul>
+ * <li>{@link #BORROW} - an object was borrowed; the duration is the time the
+ *     borrower waited</li>
+ * <li>{@link #RETURN} - an object was returned</li>
+ * <li>{@link #CREATE} - an object was created; the duration is the time taken
+ *     by the factory</li>
+ * <li>{@link #DESTROY} - an object was destroyed</li>
+ * <li>{@link #WAIT} - a borrower gave up without obtaining an object; the
+ *     duration is the time the borrower waited</li>
+ * </ul>
+ * Keys are identified by small integers assigned in the order the keys are
+ * first recorded, with <code>0</code> used for unkeyed pools. The recorder
+ * retains a reference to every key it has seen.
+ * <p>
+ * A recorder is attached to a pool with
+ * {@link BaseGenericObjectPool#setTraceRecorder(PoolTraceRecorder)}. The pool
+ * does not close the recorder when it is closed.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @since 2.4.3
+ */
+public class PoolTraceRecorder implements Closeable {
+
+    /** An object was borrowed. */
+    public static final byte BORROW = 1;
+    /** An object was returned. */
+    public static final byte RETURN = 2;
+    /** An object was created. */
+    public static final byte CREATE = 3;
+    /** An object was destroyed. */
+    public static final byte DESTROY = 4;
+    /** A borrower gave up without obtaining an object. */
+    public static final byte WAIT = 5;
+
+    static final int MAGIC = 0x43505452; // "CPTR"
+    static final int VERSION = 1;
+
+    /*
+     * Header layout: magic (int), version (int), capacity (int), record size
+     * (int), start time in milliseconds since the epoch (long), number of
+     * records written (long), padded to HEADER_SIZE.
+     */
+    static final int HEADER_SIZE = 64;
+    static final int CAPACITY_OFFSET = 8;
+    static final int RECORD_SIZE_OFFSET = 12;
+    static final int START_TIME_OFFSET = 16;
+    static final int COUNT_OFFSET = 24;
+
+    /*
+     * Record layout: time in nanoseconds since the recorder was created
+     * (long), duration in nanoseconds (long), key id (int), object id (int),
+     * type (byte), padded to RECORD_SIZE. The type is written last and a zero
+     * type marks a record that was not completely written.
+     */
+    static final int RECORD_SIZE = 32;
+    static final int TIME_OFFSET = 0;
+    static final int DURATION_OFFSET = 8;
+    static final int KEY_OFFSET = 16;
+    static final int OBJECT_OFFSET = 20;
+    static final int TYPE_OFFSET = 24;
+
+    private final File file;
+    private final int capacity;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong count = new AtomicLong(0);
+    private final ConcurrentMap<Object, Integer> keyIds =
+            new ConcurrentHashMap<Object, Integer>();
+    private final AtomicInteger nextKeyId = new AtomicInteger(1);
+    private volatile boolean closed = false;
+
+    /**
+     * Create a recorder that writes to the given file, replacing any existing
+     * content.
+     *
+     * @param file     The file to write
+     * @param capacity The maximum number of events retained in the file
+     *
+     * @throws IOException if the file cannot be created or mapped
+     */
+    public PoolTraceRecorder(final File file, final int capacity) throws IOException {
+        if (capacity <= 0 ||
+                capacity > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        this.file = file;
+        this.capacity = capacity;
+        final long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            raf.setLength(size);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (final IOException e) {
+            raf.close();
+            throw e;
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+        buffer.putLong(START_TIME_OFFSET, System.currentTimeMillis());
+        buffer.putLong(COUNT_OFFSET, 0);
+    }
+
+    /**
+     * Record an event. Events recorded after the recorder has been closed are
+     * ignored.
+     *
+     * @param type     The type of event
+     * @param key      The key of the object or <code>null</code> for an
+     *                 unkeyed pool
+     * @param object   The pooled object or <code>null</code> if the event
+     *                 does not relate to an object
+     * @param duration The duration in nanoseconds associated with the event
+     */
+    public void record(final byte type, final Object key, final Object object,
+            final long duration) {
+        if (closed) {
+            return;
+        }
+        final long time = System.nanoTime() - startNanos;
+        final int keyId = key == null ? 0 : keyId(key);
+        final int objectId = object == null ? 0 : System.identityHashCode(object);
+        final long sequence = count.getAndIncrement();
+        // Slots are claimed by sequence so concurrent writers never write to
+        // the same record unless the buffer wraps before a write completes
+        final int offset = HEADER_SIZE + (int) (sequence % capacity) * RECORD_SIZE;
+        buffer.put(offset + TYPE_OFFSET, (byte) 0);
+        buffer.putLong(offset + TIME_OFFSET, time);
+        buffer.putLong(offset + DURATION_OFFSET, duration);
+        buffer.putInt(offset + KEY_OFFSET, keyId);
+        buffer.putInt(offset + OBJECT_OFFSET, objectId);
+        buffer.put(offset + TYPE_OFFSET, type);
+    }
+
+    private int keyId(final Object key) {
+        Integer id = keyIds.get(key);
+        if (id == null) {
+            final Integer newId = Integer.valueOf(nextKeyId.getAndIncrement());
+            id = keyIds.putIfAbsent(key, newId);
+            if (id == null) {
+                id = newId;
+            }
+        }
+        return id.intValue();
+    }
+
+    /**
+     * Write the number of recorded events to the file header and force the
+     * file to storage so that the events recorded so far can be read.
+     */
+    public synchronized void flush() {
+        buffer.putLong(COUNT_OFFSET, count.get());
+        buffer.force();
+    }
+
+    /**
+     * Stop recording and complete the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flush();
+        raf.close();
+    }
+
+    /**
+     * @return the file to which events are written
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return the maximum number of events retained in the file
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of events recorded, including any that have been
+     *         overwritten
+     */
+    public long getRecordedCount() {
+        return count.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("PoolTraceRecorder [file=");
+        builder.append(file);
+        builder.append(", capacity=");
+        builder.append(capacity);
+        builder.append(", recordedCount=");
+        builder.append(count.get());
+        builder.append("]");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that many threads can update with little contention. Each thread
+ * updates the stripe selected by its id and {@link #get()} sums the stripes,
+ * so a read costs a fixed number of volatile reads however often the counter
+ * is updated. Stripes are a cache line apart so threads updating different
+ * stripes do not contend for the same line.
+ * <p>
+ * A read that is concurrent with updates may include some of them and not
+ * others, which is acceptable for the monitoring counts this is used for.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @since 2.4.3
+ */
+class StripedCounter {
+
+    // One 64 byte cache line of longs
+    private static final int STRIDE = 8;
+
+    private static final int MAX_STRIPES = 64;
+
+    /**
+     * The default number of stripes: the smallest power of two that is at
+     * least twice the number of processors, up to 64.
+     */
+    static final int DEFAULT_STRIPES =
+            Math.min(MAX_STRIPES, Integer.highestOneBit(
+                    Runtime.getRuntime().availableProcessors() * 4 - 1));
+
+    private final AtomicLongArray values;
+    private final int mask;
+
+    /**
+     * Create a counter with the default number of stripes.
+     */
+    StripedCounter() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * Create a counter.
+     *
+     * @param stripes The minimum number of stripes, which is rounded up to a
+     *                power of two
+     */
+    StripedCounter(final int stripes) {
+        if (stripes <= 0 || stripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("Invalid stripes: " + stripes);
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        values = new AtomicLongArray(size * STRIDE);
+        mask = size - 1;
+    }
+
+    /**
+     * Add to the counter.
+     *
+     * @param delta The amount to add, which may be negative
+     */
+    void add(final long delta) {
+        values.addAndGet(((int) Thread.currentThread().getId() & mask) * STRIDE, delta);
+    }
+
+    /**
+     * @return the sum of the values added to the counter
+     */
+    long get() {
+        long total = 0;
+        for (int i = 0; i < values.length(); i += STRIDE) {
+            total += values.get(i);
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return Long.toString(get());
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A hashed timing wheel that tracks a deadline for each of a set of elements
+ * and reports the elements whose deadlines have passed.
+ * <p>
+ * Time is divided into ticks of a fixed length and each tick maps to one of a
+ * fixed number of buckets, so scheduling or cancelling an element is O(1) and
+ * {@link #advance(long)} only examines the buckets for the ticks that have
+ * passed since it was last called. Elements with a deadline more than one
+ * revolution of the wheel away share a bucket with nearer ones and are skipped
+ * until their deadline is reached.
+ * <p>
+ * Each element has at most one deadline. The entry that holds it is kept when
+ * the deadline is cancelled or reported so that scheduling the element again
+ * does not allocate, until the element is {@link #remove(Object) removed}.
+ * Elements are compared using {@link Object#equals(Object)}.
+ * <p>
+ * Each bucket has its own lock so threads that schedule or cancel deadlines in
+ * different ticks do not contend. Calls for the same element are serialised on
+ * its entry.
+ * <p>
+ * This class is intended to be thread-safe.
+ *
+ * @param <E> The type of the elements
+ *
+ * @since 2.4.3
+ */
+class TimingWheel<E> {
+
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final long tickMillis;
+    private final Bucket<E>[] buckets = newBucketArray(WHEEL_SIZE);
+    private final ConcurrentHashMap<E, Entry<E>> entries =
+            new ConcurrentHashMap<E, Entry<E>>();
+
+    /*
+     * The last tick for which the bucket has been, or is being, examined.
+     * Every entry with a deadline before this tick has been reported. Only
+     * written by advance() which is serialised on this object.
+     */
+    private volatile long lastTick;
+
+    /**
+     * Create an empty wheel.
+     *
+     * @param tickMillis The length of a tick in milliseconds
+     * @param now        The current time in milliseconds
+     */
+    TimingWheel(final long tickMillis, final long now) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.lastTick = now / tickMillis - 1;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            buckets[i] = new Bucket<E>();
+        }
+    }
+
+    /**
+     * Set the deadline for an element, replacing any deadline already set for
+     * it.
+     *
+     * @param element    The element
+     * @param attachment An object to report with the element when it expires
+     * @param deadline   The time in milliseconds at which the element expires
+     */
+    void schedule(final E element, final Object attachment, final long deadline) {
+        Entry<E> entry = entries.get(element);
+        if (entry == null) {
+            final Entry<E> newEntry = new Entry<E>(element);
+            entry = entries.putIfAbsent(element, newEntry);
+            if (entry == null) {
+                entry = newEntry;
+            }
+        }
+        synchronized (entry) {
+            unlink(entry);
+            entry.attachment = attachment;
+            entry.deadline = deadline;
+            link(entry);
+        }
+    }
+
+    /**
+     * Remove the deadline for an element, if any. The entry for the element is
+     * kept for when it is next scheduled.
+     *
+     * @param element The element
+     */
+    void cancel(final E element) {
+        final Entry<E> entry = entries.get(element);
+        if (entry != null) {
+            synchronized (entry) {
+                unlink(entry);
+            }
+        }
+    }
+
+    /**
+     * Remove the deadline, if any, and the entry for an element that will not
+     * be scheduled again.
+     *
+     * @param element The element
+     */
+    void remove(final E element) {
+        final Entry<E> entry = entries.remove(element);
+        if (entry != null) {
+            synchronized (entry) {
+                unlink(entry);
+            }
+        }
+    }
+
+    /**
+     * Remove and return every entry whose deadline is in a tick that ended at
+     * or before the given time.
+     *
+     * @param now The current time in milliseconds
+     *
+     * @return The expired entries, in no particular order
+     */
+    synchronized List<Entry<E>> advance(final long now) {
+        // Only ticks that have completely passed are examined so that entries
+        // due later in the current tick are not skipped until the next
+        // revolution
+        final long currentTick = now / tickMillis - 1;
+        if (currentTick <= lastTick) {
+            return Collections.emptyList();
+        }
+        List<Entry<E>> expired = null;
+        final long firstTick = Math.max(lastTick + 1, currentTick - WHEEL_MASK);
+        for (long tick = firstTick; tick <= currentTick; tick++) {
+            // Published before the bucket is examined so that link() can tell
+            // if an entry it added may have been missed
+            lastTick = tick;
+            final Bucket<E> bucket = buckets[(int) (tick & WHEEL_MASK)];
+            synchronized (bucket) {
+                Entry<E> entry = bucket.head;
+                while (entry != null) {
+                    final Entry<E> next = entry.next;
+                    if (entry.deadline / tickMillis <= currentTick) {
+                        bucket.unlink(entry);
+                        if (expired == null) {
+                            expired = new ArrayList<Entry<E>>();
+                        }
+                        expired.add(entry);
+                    }
+                    entry = next;
+                }
+            }
+        }
+        lastTick = currentTick;
+        if (expired == null) {
+            return Collections.emptyList();
+        }
+        return expired;
+    }
+
+    /**
+     * Count the elements with a deadline. This examines every bucket so is
+     * intended for monitoring and testing only.
+     *
+     * @return the number of elements with a deadline
+     */
+    int size() {
+        int size = 0;
+        for (final Bucket<E> bucket : buckets) {
+            synchronized (bucket) {
+                for (Entry<E> entry = bucket.head; entry != null; entry = entry.next) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the length of a tick in milliseconds
+     */
+    long getTickMillis() {
+        return tickMillis;
+    }
+
+    /*
+     * Must be called while holding the lock on the entry.
+     */
+    private void link(final Entry<E> entry) {
+        while (true) {
+            // Deadlines in ticks that have already been examined go in the
+            // next bucket to be examined
+            final long tick = Math.max(entry.deadline / tickMillis, lastTick + 1);
+            final Bucket<E> bucket = buckets[(int) (tick & WHEEL_MASK)];
+            synchronized (bucket) {
+                bucket.link(entry);
+            }
+            if (tick > lastTick) {
+                // Any examination of the bucket for this tick starts after
+                // the entry was added
+                return;
+            }
+            // advance() may have examined the bucket before the entry was
+            // added. Unless it has already reported the entry, try again.
+            synchronized (bucket) {
+                if (entry.bucket != bucket) {
+                    return;
+                }
+                bucket.unlink(entry);
+            }
+        }
+    }
+
+    /*
+     * Must be called while holding the lock on the entry.
+     */
+    private void unlink(final Entry<E> entry) {
+        final Bucket<E> bucket = entry.bucket;
+        if (bucket != null) {
+            synchronized (bucket) {
+                // advance() may have reported the entry since it was read
+                if (entry.bucket == bucket) {
+                    bucket.unlink(entry);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <E> Bucket<E>[] newBucketArray(final int length) {
+        return new Bucket[length];
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("TimingWheel [tickMillis=");
+        builder.append(tickMillis);
+        builder.append(", size=");
+        builder.append(size());
+        builder.append("]");
+        return builder.toString();
+    }
+
+    /**
+     * The entries with a deadline in the ticks that map to one position of the
+     * wheel. All access is while holding the lock on the bucket.
+     *
+     * @param <E> The type of the elements
+     */
+    private static class Bucket<E> {
+
+        private Entry<E> head;
+
+        void link(final Entry<E> entry) {
+            entry.bucket = this;
+            entry.prev = null;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        void unlink(final Entry<E> entry) {
+            if (entry.prev == null) {
+                head = entry.next;
+            } else {
+                entry.prev.next = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.bucket = null;
+            entry.prev = null;
+            entry.next = null;
+        }
+    }
+
+    /**
+     * An element with a deadline.
+     *
+     * @param <E> The type of the element
+     */
+    static class Entry<E> {
+
+        private final E element;
+        private volatile Object attachment;
+        private volatile long deadline;
+        // The bucket the entry is in, written while holding its lock
+        private volatile Bucket<E> bucket;
+        private Entry<E> prev;
+        private Entry<E> next;
+
+        Entry(final E element) {
+            this.element = element;
+        }
+
+        /**
+         * @return the element
+         */
+        E getElement() {
+            return element;
+        }
+
+        /**
+         * @return the attachment supplied when the deadline was set
+         */
+        Object getAttachment() {
+            return attachment;
+        }
+
+        /**
+         * @return the time in milliseconds at which the element expired
+         */
+        long getDeadline() {
+            return deadline;
+        }
+    }
+}
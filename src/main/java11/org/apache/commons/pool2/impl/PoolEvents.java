@@ -0,0 +1,480 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import javax.management.ObjectName;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import org.apache.commons.pool2.PooledObject;
+
+/**
+ * Emits Java Flight Recorder events for pool operations.
+ * <p>
+ * This is the Java 11 replacement, packaged in the multi-release jar, for the
+ * no-op implementation used on earlier versions. An event object is only
+ * created when its event type is enabled in a running recording, so a pool
+ * pays a single check per operation while the events are disabled. Events
+ * are enabled, disabled and given thresholds at runtime through the
+ * recording settings, using the event names
+ * <code>org.apache.commons.pool2.Borrow</code>, <code>Create</code>,
+ * <code>Destroy</code>, <code>Validation</code>,
+ * <code>BatchValidation</code>, <code>EvictionRun</code> and
+ * <code>Abandoned</code>. If Flight Recorder is not available, for
+ * example because the <code>jdk.jfr</code> module is not in the runtime
+ * image, no events are emitted.
+ * <p>
+ * Each <code>begin</code> method returns a handle, which is
+ * <code>null</code> if the event is disabled, that must be passed to the
+ * matching <code>end</code> method.
+ *
+ * @since 2.4.3
+ */
+final class PoolEvents {
+
+    private static final String CATEGORY = "Apache Commons Pool";
+
+    private static final EventType BORROW;
+    private static final EventType CREATE;
+    private static final EventType DESTROY;
+    private static final EventType VALIDATION;
+    private static final EventType BATCH_VALIDATION;
+    private static final EventType EVICTION_RUN;
+    private static final EventType ABANDONED;
+
+    static {
+        EventType borrow = null;
+        EventType create = null;
+        EventType destroy = null;
+        EventType validation = null;
+        EventType batchValidation = null;
+        EventType evictionRun = null;
+        EventType abandoned = null;
+        try {
+            borrow = EventType.getEventType(BorrowEvent.class);
+            create = EventType.getEventType(CreateEvent.class);
+            destroy = EventType.getEventType(DestroyEvent.class);
+            validation = EventType.getEventType(ValidationEvent.class);
+            batchValidation = EventType.getEventType(BatchValidationEvent.class);
+            evictionRun = EventType.getEventType(EvictionRunEvent.class);
+            abandoned = EventType.getEventType(AbandonedEvent.class);
+        } catch (final Throwable t) {
+            // Flight Recorder is not available so leave every event disabled
+            borrow = null;
+            create = null;
+            destroy = null;
+            validation = null;
+            batchValidation = null;
+            evictionRun = null;
+            abandoned = null;
+        }
+        BORROW = borrow;
+        CREATE = create;
+        DESTROY = destroy;
+        VALIDATION = validation;
+        BATCH_VALIDATION = batchValidation;
+        EVICTION_RUN = evictionRun;
+        ABANDONED = abandoned;
+    }
+
+    private PoolEvents() {
+        // Static methods only
+    }
+
+    private static boolean isEnabled(final EventType type) {
+        return type != null && type.isEnabled();
+    }
+
+    /**
+     * Start timing an attempt to borrow an object.
+     *
+     * @return The event handle
+     */
+    static Object beginBorrow() {
+        if (!isEnabled(BORROW)) {
+            return null;
+        }
+        final BorrowEvent event = new BorrowEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Complete an attempt to borrow an object.
+     *
+     * @param event   The handle returned by {@link #beginBorrow()}
+     * @param pool    The pool
+     * @param key     The key or <code>null</code> for an unkeyed pool
+     * @param outcome How the attempt ended
+     */
+    static void endBorrow(final Object event, final BaseGenericObjectPool<?> pool,
+            final Object key, final BorrowOutcome outcome) {
+        if (event == null) {
+            return;
+        }
+        final BorrowEvent borrowEvent = (BorrowEvent) event;
+        borrowEvent.end();
+        if (borrowEvent.shouldCommit()) {
+            borrowEvent.pool = poolName(pool);
+            borrowEvent.key = keyName(key);
+            borrowEvent.outcome = outcome.name();
+            borrowEvent.commit();
+        }
+    }
+
+    /**
+     * Start timing the creation of an object.
+     *
+     * @return The event handle
+     */
+    static Object beginCreate() {
+        if (!isEnabled(CREATE)) {
+            return null;
+        }
+        final CreateEvent event = new CreateEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Complete the creation of an object.
+     *
+     * @param event The handle returned by {@link #beginCreate()}
+     * @param pool  The pool
+     * @param key   The key or <code>null</code> for an unkeyed pool
+     */
+    static void endCreate(final Object event, final BaseGenericObjectPool<?> pool,
+            final Object key) {
+        if (event == null) {
+            return;
+        }
+        final CreateEvent createEvent = (CreateEvent) event;
+        createEvent.end();
+        if (createEvent.shouldCommit()) {
+            createEvent.pool = poolName(pool);
+            createEvent.key = keyName(key);
+            createEvent.commit();
+        }
+    }
+
+    /**
+     * Start timing the destruction of an object.
+     *
+     * @return The event handle
+     */
+    static Object beginDestroy() {
+        if (!isEnabled(DESTROY)) {
+            return null;
+        }
+        final DestroyEvent event = new DestroyEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Complete the destruction of an object.
+     *
+     * @param event  The handle returned by {@link #beginDestroy()}
+     * @param pool   The pool
+     * @param key    The key or <code>null</code> for an unkeyed pool
+     * @param reason Why the object was destroyed
+     */
+    static void endDestroy(final Object event, final BaseGenericObjectPool<?> pool,
+            final Object key, final DestroyReason reason) {
+        if (event == null) {
+            return;
+        }
+        final DestroyEvent destroyEvent = (DestroyEvent) event;
+        destroyEvent.end();
+        if (destroyEvent.shouldCommit()) {
+            destroyEvent.pool = poolName(pool);
+            destroyEvent.key = keyName(key);
+            destroyEvent.reason = reason.name();
+            destroyEvent.commit();
+        }
+    }
+
+    /**
+     * Start timing the validation of an object.
+     *
+     * @return The event handle
+     */
+    static Object beginValidation() {
+        if (!isEnabled(VALIDATION)) {
+            return null;
+        }
+        final ValidationEvent event = new ValidationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Complete the validation of an object.
+     *
+     * @param event The handle returned by {@link #beginValidation()}
+     * @param pool  The pool
+     * @param key   The key or <code>null</code> for an unkeyed pool
+     * @param valid The result of the validation
+     */
+    static void endValidation(final Object event, final BaseGenericObjectPool<?> pool,
+            final Object key, final boolean valid) {
+        if (event == null) {
+            return;
+        }
+        final ValidationEvent validationEvent = (ValidationEvent) event;
+        validationEvent.end();
+        if (validationEvent.shouldCommit()) {
+            validationEvent.pool = poolName(pool);
+            validationEvent.key = keyName(key);
+            validationEvent.valid = valid;
+            validationEvent.commit();
+        }
+    }
+
+    /**
+     * Start timing the validation of several objects by a single call to a
+     * batch validating factory.
+     *
+     * @return The event handle
+     */
+    static Object beginBatchValidation() {
+        if (!isEnabled(BATCH_VALIDATION)) {
+            return null;
+        }
+        final BatchValidationEvent event = new BatchValidationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Complete the validation of several objects.
+     *
+     * @param event   The handle returned by {@link #beginBatchValidation()}
+     * @param pool    The pool
+     * @param key     The key or <code>null</code> for an unkeyed pool
+     * @param size    The number of objects validated
+     * @param invalid The number of objects that failed validation
+     */
+    static void endBatchValidation(final Object event,
+            final BaseGenericObjectPool<?> pool, final Object key, final int size,
+            final int invalid) {
+        if (event == null) {
+            return;
+        }
+        final BatchValidationEvent batchEvent = (BatchValidationEvent) event;
+        batchEvent.end();
+        if (batchEvent.shouldCommit()) {
+            batchEvent.pool = poolName(pool);
+            batchEvent.key = keyName(key);
+            batchEvent.size = size;
+            batchEvent.invalid = invalid;
+            batchEvent.commit();
+        }
+    }
+
+    /**
+     * Start timing an eviction run.
+     *
+     * @return The event handle
+     */
+    static Object beginEvictionRun() {
+        if (!isEnabled(EVICTION_RUN)) {
+            return null;
+        }
+        final EvictionRunEvent event = new EvictionRunEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Complete an eviction run.
+     *
+     * @param event     The handle returned by {@link #beginEvictionRun()}
+     * @param pool      The pool
+     * @param tested    The number of idle objects tested
+     * @param destroyed The number of objects destroyed
+     * @param idle      The number of idle objects after the run
+     */
+    static void endEvictionRun(final Object event, final BaseGenericObjectPool<?> pool,
+            final int tested, final long destroyed, final int idle) {
+        if (event == null) {
+            return;
+        }
+        final EvictionRunEvent evictionRunEvent = (EvictionRunEvent) event;
+        evictionRunEvent.end();
+        if (evictionRunEvent.shouldCommit()) {
+            evictionRunEvent.pool = poolName(pool);
+            evictionRunEvent.tested = tested;
+            evictionRunEvent.destroyed = destroyed;
+            evictionRunEvent.idle = idle;
+            evictionRunEvent.commit();
+        }
+    }
+
+    /**
+     * Report that an abandoned object is being removed.
+     *
+     * @param pool The pool
+     * @param p    The abandoned object
+     */
+    static void abandoned(final BaseGenericObjectPool<?> pool, final PooledObject<?> p) {
+        if (!isEnabled(ABANDONED)) {
+            return;
+        }
+        final AbandonedEvent event = new AbandonedEvent();
+        if (event.shouldCommit()) {
+            event.pool = poolName(pool);
+            event.timeSinceLastUse = System.currentTimeMillis() - p.getLastUsedTime();
+            event.commit();
+        }
+    }
+
+    private static String poolName(final BaseGenericObjectPool<?> pool) {
+        final ObjectName oname = pool.getJmxName();
+        if (oname != null) {
+            return oname.toString();
+        }
+        return pool.getClass().getName() + "@" +
+                Integer.toHexString(System.identityHashCode(pool));
+    }
+
+    private static String keyName(final Object key) {
+        return key == null ? null : key.toString();
+    }
+
+    @Name("org.apache.commons.pool2.Borrow")
+    @Label("Borrow")
+    @Category(CATEGORY)
+    @Description("An attempt to borrow an object; the duration is the time taken to obtain an object or to give up")
+    @StackTrace(false)
+    static class BorrowEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Key")
+        String key;
+
+        @Label("Outcome")
+        @Description("IDLE, CREATE or WAIT if an object was obtained, otherwise TIMEOUT or EXHAUSTED")
+        String outcome;
+    }
+
+    @Name("org.apache.commons.pool2.Create")
+    @Label("Create")
+    @Category(CATEGORY)
+    @Description("The creation of an object by the factory")
+    @StackTrace(false)
+    static class CreateEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Key")
+        String key;
+    }
+
+    @Name("org.apache.commons.pool2.Destroy")
+    @Label("Destroy")
+    @Category(CATEGORY)
+    @Description("The destruction of an object by the factory")
+    @StackTrace(false)
+    static class DestroyEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Key")
+        String key;
+
+        @Label("Reason")
+        String reason;
+    }
+
+    @Name("org.apache.commons.pool2.Validation")
+    @Label("Validation")
+    @Category(CATEGORY)
+    @Description("The validation of an object by the factory")
+    @StackTrace(false)
+    static class ValidationEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Key")
+        String key;
+
+        @Label("Valid")
+        boolean valid;
+    }
+
+    @Name("org.apache.commons.pool2.BatchValidation")
+    @Label("Batch Validation")
+    @Category(CATEGORY)
+    @Description("The validation of several objects by a single call to the factory")
+    @StackTrace(false)
+    static class BatchValidationEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Key")
+        String key;
+
+        @Label("Size")
+        int size;
+
+        @Label("Invalid")
+        int invalid;
+    }
+
+    @Name("org.apache.commons.pool2.EvictionRun")
+    @Label("Eviction Run")
+    @Category(CATEGORY)
+    @Description("A run of the evictor")
+    @StackTrace(false)
+    static class EvictionRunEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Tested")
+        int tested;
+
+        @Label("Destroyed")
+        long destroyed;
+
+        @Label("Idle")
+        @Description("The number of idle objects after the run")
+        int idle;
+    }
+
+    @Name("org.apache.commons.pool2.Abandoned")
+    @Label("Abandoned")
+    @Category(CATEGORY)
+    @Description("The removal of an abandoned object")
+    @StackTrace(false)
+    static class AbandonedEvent extends Event {
+        @Label("Pool")
+        String pool;
+
+        @Label("Time Since Last Use")
+        @Timespan(Timespan.MILLISECONDS)
+        long timeSinceLastUse;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Guards the steady state borrow and return paths against new per-operation
+ * allocations. Each test warms up a pool and then asserts that the bytes
+ * allocated by the test thread, as reported by the JVM, stay within a budget
+ * per borrow and return cycle. The best of several rounds is used so that
+ * allocations made before the JIT compiler has compiled the paths do not
+ * fail the test.
+ * <p>
+ * The budgets allow for the objects that the pools currently allocate on
+ * each cycle, such as a deque node when an object is returned, without
+ * relying on escape analysis to remove any of them, since other tests
+ * running in the same JVM can prevent it. They leave room for larger object
+ * headers and references on JVMs without compressed pointers.
+ * The tests are skipped on JVMs that cannot count allocated bytes per thread.
+ * The JVM specific interface that counts them is used by reflection so that
+ * this class compiles on every JVM.
+ */
+public class TestAllocationBudget {
+
+    /** Maximum bytes allocated per borrow and return cycle. */
+    private static final long MAX_BYTES_PER_CYCLE = 64;
+    /** Maximum bytes allocated per borrow and return cycle for a key. */
+    private static final long MAX_KEYED_BYTES_PER_CYCLE = 160;
+
+    private static final int WARMUP_CYCLES = 50000;
+    private static final int MEASURED_CYCLES = 20000;
+    private static final int ROUNDS = 5;
+
+    private static final String ALLOCATION_MX_BEAN =
+            "com.sun.management.ThreadMXBean";
+
+    private ThreadMXBean threadMXBean;
+    private Method getThreadAllocatedBytes;
+
+    @Before
+    public void setUp() throws Exception {
+        threadMXBean = ManagementFactory.getThreadMXBean();
+        final Class<?> allocationMXBean;
+        try {
+            allocationMXBean = Class.forName(ALLOCATION_MX_BEAN);
+        } catch (final ClassNotFoundException e) {
+            Assume.assumeNoException(e);
+            return;
+        }
+        Assume.assumeTrue(allocationMXBean.isInstance(threadMXBean));
+        final Method isSupported =
+                allocationMXBean.getMethod("isThreadAllocatedMemorySupported");
+        Assume.assumeTrue(((Boolean) isSupported.invoke(threadMXBean)).booleanValue());
+        allocationMXBean.getMethod("setThreadAllocatedMemoryEnabled", boolean.class)
+                .invoke(threadMXBean, Boolean.TRUE);
+        getThreadAllocatedBytes =
+                allocationMXBean.getMethod("getThreadAllocatedBytes", long.class);
+    }
+
+    @Test
+    public void testGenericObjectPool() throws Exception {
+        assertWithinBudget(new GenericObjectPoolConfig());
+    }
+
+    @Test
+    public void testGenericObjectPoolFifo() throws Exception {
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setLifo(false);
+        assertWithinBudget(config);
+    }
+
+    @Test
+    public void testGenericObjectPoolFairness() throws Exception {
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setFairness(true);
+        assertWithinBudget(config);
+    }
+
+    @Test
+    public void testGenericObjectPoolValidation() throws Exception {
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setTestOnBorrow(true);
+        config.setTestOnReturn(true);
+        assertWithinBudget(config);
+    }
+
+    @Test
+    public void testGenericKeyedObjectPool() throws Exception {
+        assertWithinBudget(new GenericKeyedObjectPoolConfig(), 1);
+    }
+
+    @Test
+    public void testGenericKeyedObjectPoolManyKeys() throws Exception {
+        assertWithinBudget(new GenericKeyedObjectPoolConfig(), 100);
+    }
+
+    @Test
+    public void testGenericKeyedObjectPoolValidation() throws Exception {
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setTestOnBorrow(true);
+        config.setTestOnReturn(true);
+        assertWithinBudget(config, 1);
+    }
+
+    private void assertWithinBudget(final GenericObjectPoolConfig config)
+            throws Exception {
+        config.setJmxEnabled(false);
+        final GenericObjectPool<Object> pool =
+                new GenericObjectPool<Object>(new ObjectFactory(), config);
+        try {
+            for (int i = 0; i < WARMUP_CYCLES; i++) {
+                pool.returnObject(pool.borrowObject());
+            }
+            long minBytes = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                final long start = allocatedBytes();
+                for (int i = 0; i < MEASURED_CYCLES; i++) {
+                    pool.returnObject(pool.borrowObject());
+                }
+                minBytes = Math.min(minBytes, allocatedBytes() - start);
+            }
+            assertBudget(config.toString(), minBytes, MAX_BYTES_PER_CYCLE);
+        } finally {
+            pool.close();
+        }
+    }
+
+    private void assertWithinBudget(final GenericKeyedObjectPoolConfig config,
+            final int keyCount) throws Exception {
+        config.setJmxEnabled(false);
+        final GenericKeyedObjectPool<Integer, Object> pool =
+                new GenericKeyedObjectPool<Integer, Object>(
+                        new KeyedObjectFactory(), config);
+        final Integer[] keys = new Integer[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = Integer.valueOf(i);
+        }
+        try {
+            for (int i = 0; i < WARMUP_CYCLES; i++) {
+                final Integer key = keys[i % keyCount];
+                pool.returnObject(key, pool.borrowObject(key));
+            }
+            long minBytes = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                final long start = allocatedBytes();
+                for (int i = 0; i < MEASURED_CYCLES; i++) {
+                    final Integer key = keys[i % keyCount];
+                    pool.returnObject(key, pool.borrowObject(key));
+                }
+                minBytes = Math.min(minBytes, allocatedBytes() - start);
+            }
+            assertBudget(config.toString() + ", keys=" + keyCount, minBytes,
+                    MAX_KEYED_BYTES_PER_CYCLE);
+        } finally {
+            pool.close();
+        }
+    }
+
+    private void assertBudget(final String config, final long bytes,
+            final long budget) {
+        final double perCycle = (double) bytes / MEASURED_CYCLES;
+        assertTrue("Allocated " + perCycle + " bytes per cycle, budget is " +
+                budget + " for " + config, perCycle <= budget);
+    }
+
+    private long allocatedBytes() throws Exception {
+        return ((Long) getThreadAllocatedBytes.invoke(threadMXBean,
+                Long.valueOf(Thread.currentThread().getId()))).longValue();
+    }
+
+    private static class ObjectFactory extends BasePooledObjectFactory<Object> {
+        @Override
+        public Object create() {
+            return new Object();
+        }
+        @Override
+        public PooledObject<Object> wrap(final Object obj) {
+            return new DefaultPooledObject<Object>(obj);
+        }
+    }
+
+    private static class KeyedObjectFactory
+            extends BaseKeyedPooledObjectFactory<Integer, Object> {
+        @Override
+        public Object create(final Integer key) {
+            return new Object();
+        }
+        @Override
+        public PooledObject<Object> wrap(final Object value) {
+            return new DefaultPooledObject<Object>(value);
+        }
+    }
+}
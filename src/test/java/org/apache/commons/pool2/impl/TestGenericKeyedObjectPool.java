@@ -29,7 +29,10 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.Set;
@@ -43,12 +46,14 @@ import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.apache.commons.pool2.BaseKeyedPooledObjectFactory;
+import org.apache.commons.pool2.BatchValidatingKeyedPooledObjectFactory;
 import org.apache.commons.pool2.KeyedObjectPool;
 import org.apache.commons.pool2.KeyedPooledObjectFactory;
 import org.apache.commons.pool2.PooledObject;
@@ -260,6 +265,558 @@ public class TestGenericKeyedObjectPool extends TestKeyedObjectPool {
         }
     }
 
+    @Test(timeout=60000)
+    public void testPerKeyConfigResolver() throws Exception {
+        pool.setMaxTotalPerKey(1);
+        pool.setMaxIdlePerKey(1);
+        pool.setBlockWhenExhausted(false);
+        pool.setPerKeyConfigResolver(new PerKeyConfigResolver<String>() {
+            @Override
+            public PerKeyConfig resolve(final String key) {
+                if ("hot".equals(key)) {
+                    return new PerKeyConfig(3, 2, 0);
+                }
+                return null;
+            }
+        });
+
+        assertEquals(3, pool.getMaxTotalPerKey("hot"));
+        assertEquals(2, pool.getMaxIdlePerKey("hot"));
+        assertEquals(1, pool.getMaxTotalPerKey("cold"));
+
+        final String hot1 = pool.borrowObject("hot");
+        final String hot2 = pool.borrowObject("hot");
+        final String hot3 = pool.borrowObject("hot");
+        try {
+            pool.borrowObject("hot");
+            fail("Expected NoSuchElementException");
+        } catch(final NoSuchElementException e) {
+            // expected
+        }
+        final String cold = pool.borrowObject("cold");
+        try {
+            pool.borrowObject("cold");
+            fail("Expected NoSuchElementException");
+        } catch(final NoSuchElementException e) {
+            // expected
+        }
+
+        pool.returnObject("hot", hot1);
+        pool.returnObject("hot", hot2);
+        pool.returnObject("hot", hot3);
+        pool.returnObject("cold", cold);
+        assertEquals(2, pool.getNumIdle("hot"));
+        assertEquals(1, pool.getNumIdle("cold"));
+
+        // Replacing the resolver re-resolves existing keys
+        pool.setPerKeyConfigResolver(null);
+        assertEquals(1, pool.getMaxTotalPerKey("hot"));
+    }
+
+    @Test(timeout=60000)
+    public void testPerKeyConfigResolverMinIdle() throws Exception {
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setMinIdlePerKey(0);
+        config.setPerKeyConfigResolver(new PerKeyConfigResolver<String>() {
+            @Override
+            public PerKeyConfig resolve(final String key) {
+                return new PerKeyConfig(10, 10, key.length());
+            }
+        });
+        final GenericKeyedObjectPool<String,String> p =
+                new GenericKeyedObjectPool<String,String>(factory, config);
+        try {
+            p.preparePool("abc");
+            p.preparePool("a");
+            assertEquals(3, p.getNumIdle("abc"));
+            assertEquals(1, p.getNumIdle("a"));
+        } finally {
+            p.close();
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testMinEvictableEmptyKeyIdleTime() throws Exception {
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setMinEvictableEmptyKeyIdleTimeMillis(100);
+        final GenericKeyedObjectPool<String,String> p =
+                new GenericKeyedObjectPool<String,String>(factory, config);
+        try {
+            assertEquals(100, p.getMinEvictableEmptyKeyIdleTimeMillis());
+            final String obj = p.borrowObject("a");
+            p.invalidateObject("a", obj);
+            // Key is retained until the evictor retires it
+            assertTrue(p.getNumActivePerKey().containsKey("a"));
+            p.evict();
+            assertTrue(p.getNumActivePerKey().containsKey("a"));
+            Thread.sleep(200);
+            p.evict();
+            assertFalse(p.getNumActivePerKey().containsKey("a"));
+
+            // Keys with objects are never retired
+            final String obj2 = p.borrowObject("b");
+            Thread.sleep(200);
+            p.evict();
+            assertTrue(p.getNumActivePerKey().containsKey("b"));
+            p.returnObject("b", obj2);
+            assertEquals(1, p.getNumIdle("b"));
+
+            // A retired key is transparently re-created
+            p.returnObject("a", p.borrowObject("a"));
+            assertEquals(1, p.getNumIdle("a"));
+        } finally {
+            p.close();
+        }
+    }
+
+    /**
+     * Borrowers that wait for a key while the evictor retires it must not be
+     * left waiting on the discarded sub-pool.
+     */
+    @Test(timeout=60000)
+    public void testEmptyKeyRetirementWithWaitingBorrowers() throws Exception {
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setMinEvictableEmptyKeyIdleTimeMillis(0);
+        config.setMaxTotal(1);
+        config.setMaxWaitMillis(-1);
+        final GenericKeyedObjectPool<String,String> p =
+                new GenericKeyedObjectPool<String,String>(factory, config);
+        final AtomicBoolean done = new AtomicBoolean(false);
+        final Thread evictor = new Thread() {
+            @Override
+            public void run() {
+                while (!done.get()) {
+                    try {
+                        p.evict();
+                    } catch (final Exception e) {
+                        // Ignore
+                    }
+                }
+            }
+        };
+        final Thread[] borrowers = new Thread[2];
+        final AtomicInteger borrowed = new AtomicInteger();
+        for (int i = 0; i < borrowers.length; i++) {
+            final String key = String.valueOf((char) ('a' + i));
+            borrowers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 10000; j++) {
+                            p.returnObject(key, p.borrowObject(key));
+                            borrowed.incrementAndGet();
+                        }
+                    } catch (final Exception e) {
+                        // Test fails on the count below
+                    }
+                }
+            };
+        }
+        try {
+            evictor.start();
+            for (final Thread t : borrowers) {
+                t.start();
+            }
+            for (final Thread t : borrowers) {
+                t.join(30000);
+                assertFalse(t.isAlive());
+            }
+            assertEquals(20000, borrowed.get());
+        } finally {
+            done.set(true);
+            evictor.join();
+            p.close();
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testMinEvictableKeyIdleTime() throws Exception {
+        pool.setMinIdlePerKey(2);
+        pool.setMinEvictableKeyIdleTimeMillis(200);
+        assertEquals(200, pool.getMinEvictableKeyIdleTimeMillis());
+        pool.returnObject("a", pool.borrowObject("a"));
+        pool.addObject("a");
+        assertEquals(2, pool.getNumIdle("a"));
+        Thread.sleep(300);
+        final String b = pool.borrowObject("b");
+        pool.returnObject("c", pool.borrowObject("c"));
+        pool.evict();
+        // Key "a" is removed in spite of minIdlePerKey
+        assertEquals(0, pool.getNumIdle("a"));
+        assertFalse(pool.getNumActivePerKey().containsKey("a"));
+        assertEquals(2, pool.getDestroyedByEvictorCount());
+        assertEquals(1, pool.getNumIdle("c"));
+        Thread.sleep(300);
+        pool.evict();
+        // Key "b" is in use
+        assertEquals(1, pool.getNumActive("b"));
+        assertEquals(0, pool.getNumIdle("c"));
+        assertEquals(3, pool.getDestroyedByEvictorCount());
+        pool.returnObject("b", b);
+    }
+
+    @Test(timeout=60000)
+    public void testMinEvictableKeyIdleTimeEnabledLater() throws Exception {
+        pool.returnObject("a", pool.borrowObject("a"));
+        pool.returnObject("b", pool.borrowObject("b"));
+        Thread.sleep(200);
+        // Keys that exist when the removal of idle keys is enabled
+        pool.setMinEvictableKeyIdleTimeMillis(100);
+        pool.returnObject("b", pool.borrowObject("b"));
+        pool.evict();
+        assertFalse(pool.getNumActivePerKey().containsKey("a"));
+        assertEquals(1, pool.getNumIdle("b"));
+        // Key "b" is examined again once it has been idle for long enough
+        Thread.sleep(200);
+        pool.evict();
+        assertEquals(0, pool.getNumIdle("b"));
+        assertEquals(2, pool.getDestroyedByEvictorCount());
+
+        // Disabling forgets the keys
+        pool.setMinEvictableKeyIdleTimeMillis(-1);
+        pool.returnObject("c", pool.borrowObject("c"));
+        Thread.sleep(200);
+        pool.evict();
+        assertEquals(1, pool.getNumIdle("c"));
+    }
+
+    @Test(timeout=60000)
+    public void testMinEvictableKeyIdleTimeWithEmptyKeyRetirement() throws Exception {
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setMinEvictableEmptyKeyIdleTimeMillis(60000);
+        config.setMinEvictableKeyIdleTimeMillis(100);
+        final GenericKeyedObjectPool<String,String> p =
+                new GenericKeyedObjectPool<String,String>(factory, config);
+        try {
+            p.returnObject("a", p.borrowObject("a"));
+            Thread.sleep(200);
+            p.evict();
+            assertFalse(p.getNumActivePerKey().containsKey("a"));
+            assertEquals(1, p.getDestroyedByEvictorCount());
+        } finally {
+            p.close();
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testEvictionTestThreads() throws Exception {
+        pool.setTestWhileIdle(true);
+        pool.setNumTestsPerEvictionRun(6);
+        pool.setEvictionTestThreads(6);
+        pool.setMinEvictableIdleTimeMillis(-1);
+        for (int i = 0; i < 3; i++) {
+            pool.addObject("a");
+            pool.addObject("b");
+        }
+        pool.addObject("c");
+        factory.setValidateLatency(200);
+        factory.setValidationEnabled(true);
+        factory.setValid(false);
+
+        final long start = System.currentTimeMillis();
+        pool.evict();
+        final long duration = System.currentTimeMillis() - start;
+
+        assertTrue("Eviction run took " + duration + "ms", duration < 1000);
+        assertEquals(6, pool.getDestroyedByEvictorCount());
+        assertEquals(0, pool.getNumIdle("a"));
+        assertEquals(0, pool.getNumIdle("b"));
+        assertEquals(1, pool.getNumIdle("c"));
+    }
+
+    @Test(timeout=60000)
+    public void testEvictionRunBudget() throws Exception {
+        pool.setTestWhileIdle(true);
+        pool.setNumTestsPerEvictionRun(1);
+        pool.setMinEvictableIdleTimeMillis(-1);
+        pool.setEvictionRunBudgetMillis(100);
+        for (int i = 0; i < 4; i++) {
+            pool.addObject("a");
+            pool.addObject("b");
+        }
+        factory.setValidateLatency(50);
+
+        pool.evict();
+        final int firstRun = pool.getLastEvictionRunTestedCount();
+        assertTrue("Tested " + firstRun, firstRun > 1 && firstRun < 8);
+        assertEquals(firstRun / 8d, pool.getLastEvictionRunCoverage(), 0.0001);
+
+        // Later runs continue where the previous run stopped, moving on to
+        // the next key
+        int tested = firstRun;
+        while (tested < 8) {
+            pool.evict();
+            tested += pool.getLastEvictionRunTestedCount();
+        }
+        assertEquals(8, tested);
+        assertEquals(0, pool.getDestroyedByEvictorCount());
+        assertEquals(4, pool.getNumIdle("a"));
+        assertEquals(4, pool.getNumIdle("b"));
+    }
+
+    @Test(timeout=60000)
+    public void testIdleExpiryTimingWheel() throws Exception {
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setIdleExpiryTickMillis(10);
+        config.setMinEvictableIdleTimeMillis(300);
+        config.setNumTestsPerEvictionRun(0);
+        final GenericKeyedObjectPool<String,String> p =
+                new GenericKeyedObjectPool<String,String>(factory, config);
+        try {
+            p.addObject("a");
+            p.addObject("a");
+            p.addObject("b");
+            Thread.sleep(150);
+            p.returnObject("b", p.borrowObject("b"));
+
+            Thread.sleep(250);
+            p.evict();
+            assertEquals(2, p.getDestroyedByEvictorCount());
+            assertEquals(0, p.getNumIdle("a"));
+            assertEquals(1, p.getNumIdle("b"));
+
+            Thread.sleep(250);
+            p.evict();
+            assertEquals(3, p.getDestroyedByEvictorCount());
+            assertEquals(0, p.getNumIdle());
+        } finally {
+            p.close();
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testMaxLifetime() throws Exception {
+        pool.setMaxLifetimeMillis(200);
+        pool.setMaxLifetimeJitterMillis(50);
+        pool.setMinEvictableIdleTimeMillis(-1);
+        final String held = pool.borrowObject("a");
+        pool.addObject("a");
+        pool.addObject("b");
+        Thread.sleep(250);
+
+        pool.returnObject("a", held);
+        assertEquals(1, pool.getDestroyedCount());
+        assertEquals(1, pool.getNumIdle("a"));
+
+        pool.returnObject("a", pool.borrowObject("a"));
+        assertEquals(2, pool.getDestroyedCount());
+        assertEquals(1, pool.getNumIdle("a"));
+
+        pool.evict();
+        assertEquals(1, pool.getDestroyedByEvictorCount());
+        assertEquals(0, pool.getNumIdle("b"));
+    }
+
+    @Test(timeout=60000)
+    public void testAsyncDestroy() throws Exception {
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        config.setDestroyThreads(2);
+        config.setMaxTotal(1);
+        config.setMaxIdlePerKey(0);
+        config.setMaxWaitMillis(5000);
+        final GenericKeyedObjectPool<String,String> p =
+                new GenericKeyedObjectPool<String,String>(factory, config);
+        try {
+            factory.setDestroyLatency(300);
+            final String a = p.borrowObject("a");
+            final long start = System.currentTimeMillis();
+            p.returnObject("a", a);
+            assertTrue(System.currentTimeMillis() - start < 300);
+            assertEquals(0, p.getNumActive());
+
+            // Waits for the destroy to release the pool-wide capacity
+            final String b = p.borrowObject("b");
+            assertEquals(1, p.getDestroyedCount());
+            factory.setDestroyLatency(100);
+            p.returnObject("b", b);
+        } finally {
+            p.close();
+        }
+        assertEquals(2, p.getDestroyedCount());
+    }
+
+    @Test(timeout=60000)
+    public void testValidationInterval() throws Exception {
+        factory.setValidationEnabled(true);
+        pool.setTestOnBorrow(true);
+        pool.setValidationIntervalMillis(500);
+        for (int i = 0; i < 5; i++) {
+            pool.returnObject("a", pool.borrowObject("a"));
+            pool.returnObject("b", pool.borrowObject("b"));
+        }
+        // Each object is validated once
+        assertEquals(2, factory.validateCounter);
+        Thread.sleep(600);
+        pool.returnObject("a", pool.borrowObject("a"));
+        assertEquals(3, factory.validateCounter);
+    }
+
+    @Test(timeout=60000)
+    public void testBorrowOutcomeCounts() throws Exception {
+        pool.setMaxTotalPerKey(1);
+        pool.setMaxWaitMillis(50);
+        pool.returnObject("one", pool.borrowObject("one"));
+        pool.returnObject("one", pool.borrowObject("one"));
+        final String obj = pool.borrowObject("two");
+        try {
+            pool.borrowObject("two");
+            fail("Expected NoSuchElementException");
+        } catch (final NoSuchElementException e) {
+            // Expected
+        }
+
+        assertEquals(1, pool.getBorrowedFromIdleCount());
+        assertEquals(2, pool.getBorrowedWithCreateCount());
+        assertEquals(0, pool.getBorrowedAfterWaitCount());
+        assertEquals(1, pool.getFailedBorrowCount());
+        assertTrue(pool.getFailedBorrowTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        final Map<String,Map<String,Long>> counts = pool.getBorrowOutcomeCountsPerKey();
+        assertEquals(Long.valueOf(1), counts.get("one").get("IDLE"));
+        assertEquals(Long.valueOf(1), counts.get("one").get("CREATE"));
+        assertEquals(Long.valueOf(0), counts.get("one").get("TIMEOUT"));
+        assertEquals(Long.valueOf(0), counts.get("two").get("IDLE"));
+        assertEquals(Long.valueOf(1), counts.get("two").get("CREATE"));
+        assertEquals(Long.valueOf(1), counts.get("two").get("TIMEOUT"));
+        final Map<String,Map<String,Long>> times = pool.getBorrowOutcomeTimeNanosPerKey();
+        assertTrue(times.get("two").get("TIMEOUT").longValue() >=
+                TimeUnit.MILLISECONDS.toNanos(50));
+        pool.returnObject("two", obj);
+    }
+
+    @Test(timeout=60000)
+    public void testHotKeys() throws Exception {
+        assertEquals(0, pool.getHotKeyCapacity());
+        assertTrue(pool.getHottestKeys().isEmpty());
+        pool.setHotKeyCapacity(2);
+        pool.setMaxTotalPerKey(1);
+        pool.setMaxWaitMillis(50);
+        for (int i = 0; i < 3; i++) {
+            pool.returnObject("one", pool.borrowObject("one"));
+        }
+        pool.returnObject("two", pool.borrowObject("two"));
+        pool.returnObject("three", pool.borrowObject("three"));
+        pool.returnObject("three", pool.borrowObject("three"));
+        final String obj = pool.borrowObject("two");
+        try {
+            pool.borrowObject("two");
+            fail("Expected NoSuchElementException");
+        } catch (final NoSuchElementException e) {
+            // Expected
+        }
+        pool.returnObject("two", obj);
+
+        assertEquals("[one, three]", pool.getHottestKeys().keySet().toString());
+        assertEquals(Long.valueOf(3), pool.getHottestKeys().get("one"));
+        assertEquals("[two]", pool.getMostContendedKeys().keySet().toString());
+        assertTrue(pool.getEstimatedWaitTimeNanos("two") >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(3, pool.getEstimatedBorrowCount("one"));
+        assertEquals(1, pool.getEstimatedCreateCount("one"));
+
+        pool.setHotKeyCapacity(0);
+        assertEquals(0, pool.getHotKeyCapacity());
+        assertTrue(pool.getHottestKeys().isEmpty());
+        assertEquals(0, pool.getEstimatedBorrowCount("one"));
+    }
+
+    @Test(timeout=60000)
+    public void testNumIdleCounter() throws Exception {
+        pool.setMaxTotalPerKey(4);
+        final int threads = 8;
+        final Thread[] workers = new Thread[threads];
+        final AtomicInteger failures = new AtomicInteger();
+        for (int t = 0; t < threads; t++) {
+            final String key = "key" + (t % 3);
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 500; i++) {
+                            final String obj = pool.borrowObject(key);
+                            if (i % 7 == 0) {
+                                pool.invalidateObject(key, obj);
+                            } else {
+                                pool.returnObject(key, obj);
+                            }
+                        }
+                    } catch (final Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            };
+            workers[t].start();
+        }
+        for (final Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(0, failures.get());
+        assertEquals(0, pool.getNumActive());
+        assertEquals(pool.getNumIdle("key0") + pool.getNumIdle("key1") +
+                pool.getNumIdle("key2"), pool.getNumIdle());
+
+        pool.clear("key1");
+        assertEquals(pool.getNumIdle("key0") + pool.getNumIdle("key2"), pool.getNumIdle());
+        pool.clear();
+        assertEquals(0, pool.getNumIdle());
+    }
+
+    @Test(timeout=60000)
+    public void testValidationTimeout() throws Exception {
+        pool.setTestOnReturn(true);
+        pool.setValidationTimeoutMillis(100);
+        pool.returnObject("a", pool.borrowObject("a"));
+        assertEquals(1, pool.getNumIdle("a"));
+
+        factory.setValidateLatency(2000);
+        final long start = System.currentTimeMillis();
+        pool.returnObject("a", pool.borrowObject("a"));
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(1, pool.getValidationTimeoutCount());
+        assertEquals(0, pool.getNumIdle("a"));
+        assertEquals(1, pool.getDestroyedCount());
+        assertTrue(pool.getMeanValidationTimeMillis() >= 50);
+    }
+
+    @Test(timeout=60000)
+    public void testBatchValidation() throws Exception {
+        final BatchValidatingFactory batchFactory = new BatchValidatingFactory("b2");
+        final GenericKeyedObjectPool<String,String> batchPool =
+                new GenericKeyedObjectPool<String,String>(batchFactory);
+        try {
+            batchPool.setTestWhileIdle(true);
+            batchPool.setNumTestsPerEvictionRun(4);
+            batchPool.setMinEvictableIdleTimeMillis(-1);
+            batchPool.addObject("a");
+            batchPool.addObject("a");
+            batchPool.addObject("b");
+            batchPool.addObject("b");
+            batchPool.evict();
+            // One batch per key
+            assertEquals(2, batchFactory.batchCounter);
+            assertEquals(0, batchFactory.validateCounter);
+            assertEquals(1, batchPool.getDestroyedByEvictorCount());
+            assertEquals(2, batchPool.getNumIdle("a"));
+            assertEquals(1, batchPool.getNumIdle("b"));
+        } finally {
+            batchPool.close();
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testMaxUsesPerObject() throws Exception {
+        pool.setMaxUsesPerObject(1);
+        final String first = pool.borrowObject("a");
+        pool.returnObject("a", first);
+        assertEquals(1, pool.getDestroyedCount());
+        while (pool.getNumIdle("a") == 0) {
+            Thread.sleep(10);
+        }
+        final String second = pool.borrowObject("a");
+        assertFalse(first.equals(second));
+        pool.returnObject("a", second);
+        assertEquals(2, pool.getDestroyedCount());
+    }
+
     @Test(timeout=60000)
     public void testMaxTotal() throws Exception {
         pool.setMaxTotalPerKey(2);
@@ -2317,6 +2874,32 @@ public class TestGenericKeyedObjectPool extends TestKeyedObjectPool {
         }
     }
 
+    private static class BatchValidatingFactory extends SimpleFactory<String>
+            implements BatchValidatingKeyedPooledObjectFactory<String,String> {
+
+        private final String invalidObject;
+        int batchCounter = 0;
+
+        BatchValidatingFactory(final String invalidObject) {
+            this.invalidObject = invalidObject;
+        }
+
+        @Override
+        public synchronized Collection<PooledObject<String>> validateObjects(
+                final String key, final Collection<PooledObject<String>> objects) {
+            batchCounter++;
+            final List<PooledObject<String>> invalid =
+                    new ArrayList<PooledObject<String>>();
+            for (final PooledObject<String> p : objects) {
+                assertTrue(p.getObject().startsWith(key));
+                if (invalidObject.equals(p.getObject())) {
+                    invalid.add(p);
+                }
+            }
+            return invalid;
+        }
+    }
+
     private static class SimplePerKeyFactory
             extends BaseKeyedPooledObjectFactory<Object,Object> {
         ConcurrentHashMap<Object,AtomicInteger> map =
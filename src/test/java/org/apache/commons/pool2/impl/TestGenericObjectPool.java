@@ -27,6 +27,7 @@ import static org.junit.Assert.fail;
 import java.lang.management.ManagementFactory;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -35,12 +36,14 @@ import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.apache.commons.pool2.BasePooledObjectFactory;
+import org.apache.commons.pool2.BatchValidatingPooledObjectFactory;
 import org.apache.commons.pool2.ObjectPool;
 import org.apache.commons.pool2.PoolUtils;
 import org.apache.commons.pool2.PooledObject;
@@ -281,6 +284,391 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         pool.close();
     }
 
+    @Test(timeout=60000)
+    public void testEvictionTestThreads() throws Exception {
+        pool.setTestWhileIdle(true);
+        pool.setNumTestsPerEvictionRun(8);
+        pool.setEvictionTestThreads(8);
+        pool.setMinEvictableIdleTimeMillis(-1);
+        assertEquals(8, pool.getEvictionTestThreads());
+        for (int i = 0; i < 8; i++) {
+            pool.addObject();
+        }
+        factory.setValidateLatency(200);
+        factory.setEvenValid(false);
+
+        final long start = System.currentTimeMillis();
+        pool.evict();
+        final long duration = System.currentTimeMillis() - start;
+
+        // Tested concurrently rather than one after another
+        assertTrue("Eviction run took " + duration + "ms", duration < 1200);
+        assertEquals(4, pool.getDestroyedByEvictorCount());
+        assertEquals(4, pool.getNumIdle());
+        // Survivors are available again
+        factory.setValidateLatency(0);
+        for (int i = 0; i < 4; i++) {
+            pool.borrowObject();
+        }
+        assertEquals(8, factory.makeCounter);
+    }
+
+    @Test(timeout=60000)
+    public void testEvictionRunBudget() throws Exception {
+        pool.setTestWhileIdle(true);
+        pool.setNumTestsPerEvictionRun(1);
+        pool.setMinEvictableIdleTimeMillis(-1);
+        pool.setEvictionRunBudgetMillis(100);
+        assertEquals(100, pool.getEvictionRunBudgetMillis());
+        for (int i = 0; i < 8; i++) {
+            pool.addObject();
+        }
+        factory.setValidateLatency(50);
+
+        // Budget rather than numTestsPerEvictionRun limits the run
+        pool.evict();
+        final int firstRun = pool.getLastEvictionRunTestedCount();
+        assertTrue("Tested " + firstRun, firstRun > 1 && firstRun < 8);
+        assertEquals(firstRun / 8d, pool.getLastEvictionRunCoverage(), 0.0001);
+        assertTrue(pool.getLastEvictionRunDurationMillis() >= 100);
+
+        // Later runs continue where the previous run stopped
+        int tested = firstRun;
+        while (tested < 8) {
+            pool.evict();
+            tested += pool.getLastEvictionRunTestedCount();
+        }
+        assertEquals(8, tested);
+        assertEquals(8, factory.validateCounter);
+        assertEquals(0, pool.getDestroyedByEvictorCount());
+        assertEquals(8, pool.getNumIdle());
+
+        // Without a budget numTestsPerEvictionRun applies again
+        pool.setEvictionRunBudgetMillis(-1);
+        factory.setValidateLatency(0);
+        pool.evict();
+        assertEquals(1, pool.getLastEvictionRunTestedCount());
+    }
+
+    @Test(timeout=60000)
+    public void testIdleExpiryTimingWheel() throws Exception {
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setIdleExpiryTickMillis(10);
+        config.setMinEvictableIdleTimeMillis(300);
+        // Leave eviction entirely to the timing wheel
+        config.setNumTestsPerEvictionRun(0);
+        final GenericObjectPool<String> p =
+                new GenericObjectPool<String>(factory, config);
+        try {
+            assertEquals(10, p.getIdleExpiryTickMillis());
+            for (int i = 0; i < 5; i++) {
+                p.addObject();
+            }
+            Thread.sleep(150);
+            // Borrowing cancels the expiry and returning schedules it again
+            p.returnObject(p.borrowObject());
+
+            Thread.sleep(250);
+            p.evict();
+            assertEquals(4, p.getDestroyedByEvictorCount());
+            assertEquals(1, p.getNumIdle());
+
+            Thread.sleep(250);
+            p.evict();
+            assertEquals(5, p.getDestroyedByEvictorCount());
+            assertEquals(0, p.getNumIdle());
+        } finally {
+            p.close();
+        }
+        assertEquals(-1, pool.getIdleExpiryTickMillis());
+    }
+
+    @Test(timeout=60000)
+    public void testMaxLifetime() throws Exception {
+        pool.setMaxLifetimeMillis(200);
+        pool.setMinEvictableIdleTimeMillis(-1);
+        final String held = pool.borrowObject();
+        pool.addObject();
+        Thread.sleep(250);
+
+        // Expired on return
+        pool.returnObject(held);
+        assertEquals(1, pool.getDestroyedCount());
+        assertEquals(1, pool.getNumIdle());
+
+        // Expired idle object is replaced on borrow
+        final String fresh = pool.borrowObject();
+        assertEquals(2, pool.getDestroyedCount());
+        assertEquals(3, factory.makeCounter);
+        pool.returnObject(fresh);
+        assertEquals(1, pool.getNumIdle());
+
+        // Expired by the evictor even though it has not been idle long
+        Thread.sleep(250);
+        pool.evict();
+        assertEquals(1, pool.getDestroyedByEvictorCount());
+        assertEquals(0, pool.getNumIdle());
+    }
+
+    @Test(timeout=60000)
+    public void testAsyncDestroy() throws Exception {
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setDestroyThreads(1);
+        config.setMaxTotal(1);
+        config.setMaxIdle(0);
+        config.setMaxWaitMillis(5000);
+        final GenericObjectPool<String> p =
+                new GenericObjectPool<String>(factory, config);
+        try {
+            assertEquals(1, p.getDestroyThreads());
+            factory.setDestroyLatency(300);
+            final String first = p.borrowObject();
+            final long start = System.currentTimeMillis();
+            p.returnObject(first);
+            // Destroyed in the background
+            assertTrue(System.currentTimeMillis() - start < 300);
+            assertEquals(0, p.getNumActive());
+
+            // Capacity is released once the object has been destroyed
+            final String second = p.borrowObject();
+            assertEquals(1, p.getDestroyedCount());
+            assertEquals(2, p.getCreatedCount());
+            factory.setDestroyLatency(100);
+            p.returnObject(second);
+        } finally {
+            p.close();
+        }
+        // Close waits for pending destroys
+        assertEquals(2, p.getDestroyedCount());
+    }
+
+    @Test(timeout=60000)
+    public void testDeferredPassivation() throws Exception {
+        pool.setDeferredPassivation(true);
+        pool.setTestOnReturn(true);
+        final String a = pool.borrowObject();
+        final String b = pool.borrowObject();
+        factory.setValidateLatency(200);
+
+        final long start = System.currentTimeMillis();
+        pool.returnObject(a);
+        pool.returnObject(b);
+        // Validated and passivated in the background
+        assertTrue(System.currentTimeMillis() - start < 200);
+        assertEquals(2, pool.getReturnedCount());
+
+        // A borrower completes a queued return rather than creating an object
+        final String c = pool.borrowObject();
+        assertTrue(c.equals(a) || c.equals(b));
+        assertEquals(2, factory.makeCounter);
+        while (pool.getNumIdle() < 1) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, pool.getNumActive());
+
+        // Closing destroys objects still waiting to be passivated
+        factory.setValidateLatency(0);
+        pool.returnObject(c);
+        pool.close();
+        assertEquals(0, pool.getNumIdle());
+        assertEquals(2, pool.getDestroyedCount());
+    }
+
+    @Test(timeout=60000)
+    public void testValidationInterval() throws Exception {
+        pool.setTestOnBorrow(true);
+        pool.setValidationIntervalMillis(500);
+        for (int i = 0; i < 5; i++) {
+            pool.returnObject(pool.borrowObject());
+        }
+        // Only the first borrow validates
+        assertEquals(1, factory.validateCounter);
+        Thread.sleep(600);
+        pool.returnObject(pool.borrowObject());
+        assertEquals(2, factory.validateCounter);
+
+        // Validation on return also counts
+        pool.setTestOnReturn(true);
+        Thread.sleep(600);
+        pool.returnObject(pool.borrowObject());
+        assertEquals(4, factory.validateCounter);
+        pool.returnObject(pool.borrowObject());
+        assertEquals(5, factory.validateCounter);
+    }
+
+    @Test(timeout=60000)
+    public void testBorrowOutcomeCounts() throws Exception {
+        pool.setMaxTotal(1);
+        pool.setMaxWaitMillis(50);
+        final String obj = pool.borrowObject();
+        try {
+            pool.borrowObject();
+            fail("Expected NoSuchElementException");
+        } catch (final NoSuchElementException e) {
+            // Expected
+        }
+        pool.setBlockWhenExhausted(false);
+        try {
+            pool.borrowObject();
+            fail("Expected NoSuchElementException");
+        } catch (final NoSuchElementException e) {
+            // Expected
+        }
+        pool.setBlockWhenExhausted(true);
+        pool.setMaxWaitMillis(-1);
+        pool.returnObject(obj);
+        pool.returnObject(pool.borrowObject());
+
+        // Hold the only object so that the thread has to wait for it
+        final String held = pool.borrowObject();
+        final WaitingTestThread thread = new WaitingTestThread(pool, 0);
+        thread.start();
+        while (pool.getNumWaiters() == 0) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(50);
+        pool.returnObject(held);
+        thread.join();
+        assertNull(thread._thrown);
+
+        assertEquals(2, pool.getBorrowedFromIdleCount());
+        assertEquals(1, pool.getBorrowedWithCreateCount());
+        assertEquals(1, pool.getBorrowedAfterWaitCount());
+        assertEquals(2, pool.getFailedBorrowCount());
+        assertEquals(pool.getBorrowedCount(), pool.getBorrowedFromIdleCount() +
+                pool.getBorrowedWithCreateCount() + pool.getBorrowedAfterWaitCount());
+        assertTrue(pool.getBorrowedWithCreateTimeNanos() > 0);
+        assertTrue(pool.getBorrowedAfterWaitTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(pool.getFailedBorrowTimeNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test(timeout=60000)
+    public void testValidationTimeout() throws Exception {
+        pool.setTestOnBorrow(true);
+        pool.setValidationTimeoutMillis(100);
+        pool.returnObject(pool.borrowObject());
+        assertEquals(0, pool.getValidationTimeoutCount());
+
+        // Both the idle object and its replacement time out
+        factory.setValidateLatency(2000);
+        final long start = System.currentTimeMillis();
+        try {
+            pool.borrowObject();
+            fail("Expected NoSuchElementException");
+        } catch (final NoSuchElementException e) {
+            // expected
+        }
+        assertTrue(System.currentTimeMillis() - start < 2000);
+        assertEquals(2, pool.getValidationTimeoutCount());
+        assertEquals(2, pool.getDestroyedByBorrowValidationCount());
+        assertTrue(pool.getMeanValidationTimeMillis() >= 50);
+
+        factory.setValidateLatency(0);
+        pool.returnObject(pool.borrowObject());
+        assertEquals(2, pool.getValidationTimeoutCount());
+    }
+
+    @Test(timeout=60000)
+    public void testBatchValidation() throws Exception {
+        final BatchValidatingFactory batchFactory = new BatchValidatingFactory("1");
+        final GenericObjectPool<String> batchPool =
+                new GenericObjectPool<String>(batchFactory);
+        try {
+            batchPool.setTestWhileIdle(true);
+            batchPool.setNumTestsPerEvictionRun(4);
+            batchPool.setMinEvictableIdleTimeMillis(-1);
+            // Batch validation takes precedence over parallel tests
+            batchPool.setEvictionTestThreads(2);
+            for (int i = 0; i < 4; i++) {
+                batchPool.addObject();
+            }
+            batchPool.evict();
+            assertEquals(1, batchFactory.batchCounter);
+            assertEquals(4, batchFactory.batchSize);
+            assertEquals(0, batchFactory.validateCounter);
+            assertEquals(1, batchPool.getDestroyedByEvictorCount());
+            assertEquals(3, batchPool.getNumIdle());
+
+            // Borrowing still validates objects one at a time
+            batchPool.setTestOnBorrow(true);
+            batchPool.returnObject(batchPool.borrowObject());
+            assertEquals(1, batchFactory.validateCounter);
+            assertEquals(1, batchFactory.batchCounter);
+        } finally {
+            batchPool.close();
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testMaxUsesPerObject() throws Exception {
+        pool.setMaxUsesPerObject(2);
+        final String first = pool.borrowObject();
+        pool.returnObject(first);
+        assertEquals(first, pool.borrowObject());
+        factory.setMakeLatency(200);
+        final long start = System.currentTimeMillis();
+        pool.returnObject(first);
+        // The replacement is created in the background
+        assertTrue(System.currentTimeMillis() - start < 200);
+        assertEquals(1, pool.getDestroyedCount());
+        while (pool.getNumIdle() == 0) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, factory.makeCounter);
+        assertFalse(first.equals(pool.borrowObject()));
+    }
+
+    @Test(timeout=60000)
+    public void testMaxUsesPerObjectPendingReplacements() throws Exception {
+        pool.setMaxUsesPerObject(1);
+        pool.setMaxTotal(-1);
+        pool.setMaxIdle(2);
+        final String[] objects = new String[10];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = pool.borrowObject();
+        }
+        factory.setMakeLatency(100);
+        for (final String obj : objects) {
+            pool.returnObject(obj);
+        }
+        assertEquals(10, pool.getDestroyedCount());
+        // Only enough replacements to reach maxIdle are queued
+        assertEquals(2, pool.getNumPendingReplacements());
+        while (pool.getNumIdle() < 2) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(300);
+        assertEquals(12, factory.makeCounter);
+        assertEquals(2, pool.getNumIdle());
+        assertEquals(0, pool.getNumPendingReplacements());
+    }
+
+    @Test
+    public void testMaxLifetimeJitter() {
+        pool.setMaxLifetimeMillis(10000);
+        final Set<Long> lifetimes = new HashSet<Long>();
+        for (int i = 0; i < 100; i++) {
+            final long lifetime = pool.getLifetimeMillis(
+                    new DefaultPooledObject<String>(Integer.toString(i)));
+            assertEquals(10000, lifetime);
+        }
+        pool.setMaxLifetimeJitterMillis(2000);
+        for (int i = 0; i < 100; i++) {
+            final DefaultPooledObject<String> p =
+                    new DefaultPooledObject<String>(Integer.toString(i));
+            final long lifetime = pool.getLifetimeMillis(p);
+            assertTrue(lifetime > 8000 - 1 && lifetime <= 10000);
+            // Fixed for each object
+            assertEquals(lifetime, pool.getLifetimeMillis(p));
+            lifetimes.add(Long.valueOf(lifetime));
+        }
+        // Spread rather than concentrated on a few values
+        assertTrue(lifetimes.size() > 90);
+        pool.setMaxLifetimeMillis(-1);
+        assertEquals(-1, pool.getLifetimeMillis(
+                new DefaultPooledObject<String>("x")));
+    }
+
     /**
      * Tests addObject contention between ensureMinIdle triggered by
      * the Evictor with minIdle &gt; 0 and borrowObject.
@@ -2596,6 +2984,33 @@ public class TestGenericObjectPool extends TestBaseObjectPool {
         Assert.assertTrue(thread2._thrown instanceof UnsupportedCharsetException);
     }
 
+    private static class BatchValidatingFactory extends SimpleFactory
+            implements BatchValidatingPooledObjectFactory<String> {
+
+        private final String invalidObject;
+        int batchCounter = 0;
+        int batchSize = 0;
+
+        BatchValidatingFactory(final String invalidObject) {
+            this.invalidObject = invalidObject;
+        }
+
+        @Override
+        public synchronized Collection<PooledObject<String>> validateObjects(
+                final Collection<PooledObject<String>> objects) {
+            batchCounter++;
+            batchSize = objects.size();
+            final List<PooledObject<String>> invalid =
+                    new ArrayList<PooledObject<String>>();
+            for (final PooledObject<String> p : objects) {
+                if (invalidObject.equals(p.getObject())) {
+                    invalid.add(p);
+                }
+            }
+            return invalid;
+        }
+    }
+
     private static class CreateFailFactory extends BasePooledObjectFactory<String> {
 
         private final Semaphore semaphore = new Semaphore(0);
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for IdleKeyQueue.
+ */
+public class TestIdleKeyQueue {
+
+    @Test
+    public void testPollOrder() {
+        final IdleKeyQueue<String, Object> queue = new IdleKeyQueue<String, Object>();
+        final Object a = new Object();
+        final Object b = new Object();
+        final Object c = new Object();
+        assertTrue(queue.add("b", b, 200));
+        assertTrue(queue.add("a", a, 100));
+        assertTrue(queue.add("c", c, 300));
+        assertEquals(3, queue.size());
+
+        // Only keys idle since at or before the given time are returned
+        assertNull(queue.poll(99));
+        final IdleKeyQueue.Entry<String, Object> first = queue.poll(200);
+        assertEquals("a", first.getKey());
+        assertSame(a, first.getValue());
+        assertEquals(100, first.getTime());
+        assertEquals("b", queue.poll(200).getKey());
+        assertNull(queue.poll(200));
+        assertEquals(1, queue.size());
+    }
+
+    @Test
+    public void testValuesAreUnique() {
+        final IdleKeyQueue<String, Object> queue = new IdleKeyQueue<String, Object>();
+        final Object a = new Object();
+        assertTrue(queue.add("a", a, 100));
+        assertFalse(queue.add("a", a, 50));
+        // A new sub-pool for the same key is tracked separately
+        assertTrue(queue.add("a", new Object(), 150));
+        assertEquals(2, queue.size());
+
+        // A polled value may be added again
+        assertSame(a, queue.poll(100).getValue());
+        assertTrue(queue.add("a", a, 400));
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.poll(Long.MAX_VALUE));
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.pool2.PooledObject;
+import org.junit.Test;
+
+/**
+ * Tests for IntInterningKeyedObjectPool, LongInterningKeyedObjectPool and
+ * their key interner.
+ */
+public class TestInterningKeyedObjectPool {
+
+    @Test
+    public void testIntKeyInterner() {
+        final KeyInterner<Integer,Object> interner = KeyInterner.forInt(1000);
+        for (int i = -500; i < 500; i++) {
+            final Integer key = interner.intern(i * 7919);
+            assertEquals(i * 7919, key.intValue());
+            assertSame(key, interner.intern(i * 7919));
+        }
+        assertEquals(1000, interner.size());
+        // Beyond the limit keys are boxed but not interned
+        assertNull(interner.getEntry(Integer.MAX_VALUE));
+        final Integer extra = interner.intern(Integer.MAX_VALUE);
+        assertEquals(Integer.MAX_VALUE, extra.intValue());
+        assertNotSame(extra, interner.intern(Integer.MAX_VALUE));
+        assertEquals(1000, interner.size());
+    }
+
+    @Test
+    public void testLongKeyInterner() {
+        final KeyInterner<Long,Object> interner = KeyInterner.forLong(1000);
+        for (long i = -500; i < 500; i++) {
+            final long value = i << 33;
+            final Long key = interner.intern(value);
+            assertEquals(value, key.longValue());
+            assertSame(key, interner.intern(value));
+        }
+        assertEquals(1000, interner.size());
+        final Long extra = interner.intern(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, extra.longValue());
+        assertNotSame(extra, interner.intern(Long.MAX_VALUE));
+    }
+
+    @Test(timeout=60000)
+    public void testKeyInternerBeyondMaxSizeConcurrently() throws Exception {
+        final int maxSize = 100;
+        final int keysPerThread = 1000;
+        // Outside the range cached by Long.valueOf()
+        final long base = 1L << 20;
+        final KeyInterner<Long,Object> interner = KeyInterner.forLong(maxSize);
+        final List<String> errors = new ArrayList<String>();
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final long first = base + (long) i * keysPerThread;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int pass = 0; pass < 10; pass++) {
+                        for (long key = first; key < first + keysPerThread; key++) {
+                            if (interner.intern(key).longValue() != key) {
+                                synchronized (errors) {
+                                    errors.add("Wrong value for " + key);
+                                }
+                            }
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+        assertEquals(maxSize, interner.size());
+        int interned = 0;
+        for (long key = base; key < base + threads.length * keysPerThread; key++) {
+            if (interner.intern(key) == interner.intern(key)) {
+                interned++;
+            }
+        }
+        assertEquals(maxSize, interned);
+    }
+
+    @Test(timeout=60000)
+    public void testIntInterningKeyedObjectPool() throws Exception {
+        final IntInterningKeyedObjectPool<String> pool =
+                new IntInterningKeyedObjectPool<String>(
+                        new TestGenericKeyedObjectPool.SimpleFactory<Integer>());
+        try {
+            final String a = pool.borrowObject(1000);
+            final String b = pool.borrowObject(Integer.valueOf(1000));
+            pool.borrowObject(2000, 100);
+            assertEquals(2, pool.getNumActive(1000));
+            assertEquals(1, pool.getNumActive(2000));
+            pool.returnObject(1000, a);
+            pool.invalidateObject(1000, b);
+            assertEquals(1, pool.getNumIdle(1000));
+            assertEquals(0, pool.getNumActive(1000));
+            pool.addObject(3000);
+            assertEquals(1, pool.getNumIdle(Integer.valueOf(3000)));
+            pool.clear(3000);
+            assertEquals(0, pool.getNumIdle(3000));
+            assertEquals(a, pool.borrowObject(1000));
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testCachedSubPool() throws Exception {
+        final List<Integer> keys = new ArrayList<Integer>();
+        final TestGenericKeyedObjectPool.SimpleFactory<Integer> factory =
+                new TestGenericKeyedObjectPool.SimpleFactory<Integer>() {
+            @Override
+            public PooledObject<String> makeObject(final Integer key) throws Exception {
+                keys.add(key);
+                return super.makeObject(key);
+            }
+        };
+        final IntInterningKeyedObjectPool<String> pool =
+                new IntInterningKeyedObjectPool<String>(factory,
+                        new GenericKeyedObjectPoolConfig(), 1);
+        try {
+            // Keys are not reference counted so that sub-pools can be cached
+            assertEquals(0, pool.getMinEvictableEmptyKeyIdleTimeMillis());
+            pool.returnObject(1000, pool.borrowObject(1000));
+            pool.clear(1000);
+            // The evictor removes the empty key and the cached sub-pool with it
+            pool.evict();
+            assertEquals(0, pool.getNumActivePerKey().size());
+            final String obj = pool.borrowObject(1000);
+            assertEquals(1, pool.getNumActive(1000));
+            pool.invalidateObject(1000, obj);
+            pool.returnObject(1000, pool.borrowObject(1000));
+            assertEquals(1, pool.getNumIdle(1000));
+            assertEquals(3, keys.size());
+            assertSame(keys.get(0), keys.get(1));
+            assertSame(keys.get(0), keys.get(2));
+
+            // Keys beyond the limit use the boxed key
+            pool.returnObject(2000, pool.borrowObject(2000));
+            assertEquals(1, pool.getNumIdle(2000));
+            assertEquals(0, pool.getNumActive(2000));
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test(timeout=60000)
+    public void testLongInterningKeyedObjectPool() throws Exception {
+        final GenericKeyedObjectPoolConfig config =
+                new GenericKeyedObjectPoolConfig();
+        config.setMinIdlePerKey(2);
+        final LongInterningKeyedObjectPool<String> pool =
+                new LongInterningKeyedObjectPool<String>(
+                        new TestGenericKeyedObjectPool.SimpleFactory<Long>(), config, 16);
+        try {
+            assertEquals(16, pool.getMaxInternedKeys());
+            final long key = 1L << 40;
+            pool.preparePool(key);
+            assertEquals(2, pool.getNumIdle(key));
+            final String obj = pool.borrowObject(key);
+            assertEquals(1, pool.getNumActive(Long.valueOf(key)));
+            pool.returnObject(key, obj);
+            assertEquals(2, pool.getNumIdle(key));
+            assertEquals(0, pool.getNumActive(key));
+        } finally {
+            pool.close();
+        }
+    }
+}
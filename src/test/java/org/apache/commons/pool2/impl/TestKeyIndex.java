@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+/**
+ * Tests for KeyIndex.
+ */
+public class TestKeyIndex {
+
+    @Test
+    public void testAddRemove() {
+        final KeyIndex<String> index = new KeyIndex<String>();
+        assertEquals(0, index.getLimit());
+        final int a = index.add("a");
+        final int b = index.add("b");
+        final int c = index.add("c");
+        assertEquals(3, index.size());
+        assertEquals(3, index.getLimit());
+        assertEquals("b", index.get(b));
+
+        index.remove(b);
+        assertNull(index.get(b));
+        assertEquals(2, index.size());
+        // Other keys keep their slots
+        assertEquals("a", index.get(a));
+        assertEquals("c", index.get(c));
+
+        // Freed slots are reused before the index grows
+        assertEquals(b, index.add("d"));
+        assertEquals("d", index.get(b));
+        assertEquals(3, index.getLimit());
+    }
+
+    @Test
+    public void testGrowth() {
+        final KeyIndex<Integer> index = new KeyIndex<Integer>();
+        final int count = 20000;
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, index.add(Integer.valueOf(i)));
+        }
+        for (int i = 0; i < count; i += 2) {
+            index.remove(i);
+        }
+        assertEquals(count / 2, index.size());
+        // Slots are reused in the order they were freed
+        assertEquals(0, index.add(Integer.valueOf(0)));
+        assertEquals(2, index.add(Integer.valueOf(2)));
+        index.remove(0);
+        index.remove(2);
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                assertNull(index.get(i));
+            } else {
+                assertEquals(Integer.valueOf(i), index.get(i));
+            }
+        }
+        for (int i = 0; i < count / 2; i++) {
+            index.add(Integer.valueOf(-i));
+        }
+        assertEquals(count, index.size());
+        assertEquals(count, index.getLimit());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for KeyStatistics.
+ */
+public class TestKeyStatistics {
+
+    @Test
+    public void testEstimates() {
+        final KeyStatistics<Integer> statistics = new KeyStatistics<Integer>(4);
+        final int keys = 20000;
+        final int[] borrows = new int[keys];
+        final Random random = new Random(1);
+        long total = 0;
+        for (int i = 0; i < 200000; i++) {
+            // Skewed so that low keys are borrowed far more often
+            final int key = (int) (keys * Math.pow(random.nextDouble(), 4));
+            statistics.recordBorrow(Integer.valueOf(key), 0);
+            borrows[key]++;
+            total++;
+        }
+        int outliers = 0;
+        for (int key = 0; key < keys; key++) {
+            final long estimate = statistics.getBorrowCount(Integer.valueOf(key));
+            assertTrue(estimate >= borrows[key]);
+            if (estimate - borrows[key] > total * Math.E / 1024) {
+                outliers++;
+            }
+        }
+        // The error bound holds for each key with probability 1 - e^-4
+        assertTrue("outliers: " + outliers, outliers < keys / 50);
+        assertEquals(0, statistics.getCreateCount(Integer.valueOf(0)));
+        assertEquals(0, statistics.getWaitTimeNanos(Integer.valueOf(0)));
+    }
+
+    @Test
+    public void testHottestKeys() {
+        final KeyStatistics<String> statistics = new KeyStatistics<String>(8);
+        final List<String> sequence = new ArrayList<String>();
+        for (int hot = 0; hot < 5; hot++) {
+            for (int i = 0; i < 1000 * (hot + 1); i++) {
+                sequence.add("hot" + hot);
+            }
+        }
+        for (int i = 0; i < 100000; i++) {
+            sequence.add("cold" + i);
+        }
+        Collections.shuffle(sequence, new Random(2));
+        for (final String key : sequence) {
+            statistics.recordBorrow(key, 0);
+        }
+
+        final Map<String, Long> hottest = statistics.getHottestKeys();
+        assertEquals(8, hottest.size());
+        final List<String> ranked = new ArrayList<String>(hottest.keySet());
+        assertEquals("[hot4, hot3, hot2, hot1, hot0]", ranked.subList(0, 5).toString());
+        assertTrue(hottest.get("hot4").longValue() >= 5000);
+        assertTrue(statistics.getMostContendedKeys().isEmpty());
+    }
+
+    @Test
+    public void testMostContendedKeys() {
+        final KeyStatistics<String> statistics = new KeyStatistics<String>(2);
+        statistics.recordBorrow("a", 0);
+        statistics.recordBorrow("b", 100);
+        statistics.recordWait("c", 300);
+        statistics.recordBorrow("d", 200);
+        statistics.recordBorrow("b", 150);
+        statistics.recordCreate("a");
+
+        final Map<String, Long> contended = statistics.getMostContendedKeys();
+        assertEquals("[c, b]", contended.keySet().toString());
+        assertTrue(contended.get("c").longValue() >= 300);
+        assertTrue(contended.get("b").longValue() >= 250);
+        assertTrue(statistics.getCreateCount("a") >= 1);
+        assertTrue(statistics.getBorrowCount("b") >= 2);
+    }
+}
@@ -507,4 +507,64 @@ public class TestLinkedBlockingDeque {
 
         iter.next();
     }
+
+    @Test
+    public void testSizeCounter() throws InterruptedException {
+        final StripedCounter counter = new StripedCounter();
+        final LinkedBlockingDeque<Integer> a =
+                new LinkedBlockingDeque<Integer>(Integer.MAX_VALUE, false, counter);
+        final LinkedBlockingDeque<Integer> b =
+                new LinkedBlockingDeque<Integer>(2, false, counter);
+        a.addFirst(ONE);
+        a.addLast(TWO);
+        a.add(THREE);
+        b.offer(ONE);
+        b.offer(TWO);
+        assertFalse(b.offer(THREE));
+        assertEquals(5, counter.get());
+        assertEquals(3, a.size());
+
+        a.remove(TWO); // Interior node
+        a.pollLast();
+        b.takeFirst();
+        assertEquals(2, counter.get());
+
+        final Collection<Integer> drained = new ArrayList<Integer>();
+        a.drainTo(drained);
+        assertEquals(1, counter.get());
+        b.clear();
+        assertEquals(0, counter.get());
+        assertEquals(0, a.size() + b.size());
+    }
+
+    @Test(timeout=10000)
+    public void testClose() throws Exception {
+        final Thread waiter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    assertNull(deque.takeFirst());
+                } catch (final InterruptedException e) {
+                    // Test fails as the thread is still alive
+                }
+            }
+        };
+        waiter.start();
+        while (!deque.hasTakeWaiters()) {
+            Thread.sleep(10);
+        }
+        deque.close();
+        waiter.join(5000);
+        assertFalse(waiter.isAlive());
+
+        // Threads that only start to wait after the deque is closed
+        assertNull(deque.takeFirst());
+        assertNull(deque.takeLast());
+        assertNull(deque.pollFirst(1, TimeUnit.MINUTES));
+        assertNull(deque.pollLast(1, TimeUnit.MINUTES));
+
+        // Elements are still returned
+        deque.add(ONE);
+        assertEquals(ONE, deque.takeFirst());
+    }
 }
@@ -0,0 +1,315 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.pool2.BatchValidatingPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.SwallowedExceptionListener;
+import org.apache.commons.pool2.impl.TestGenericKeyedObjectPool.SimpleFactory;
+import org.junit.Test;
+
+/**
+ * Tests the delivery of events to a {@link PoolEventListener}.
+ */
+public class TestPoolEventListener {
+
+    @Test(timeout=60000)
+    public void testObjectPoolEvents() throws Exception {
+        final GenericObjectPool<String> pool =
+                new GenericObjectPool<String>(new TestGenericObjectPool.SimpleFactory());
+        final RecordingListener listener = new RecordingListener();
+        pool.setPoolEventListener(listener);
+        assertSame(listener, pool.getPoolEventListener());
+        pool.setMaxTotal(1);
+        pool.setMaxWaitMillis(50);
+
+        final String obj = pool.borrowObject();
+        try {
+            pool.borrowObject();
+            fail("Expected NoSuchElementException");
+        } catch (final NoSuchElementException e) {
+            // Expected
+        }
+        pool.invalidateObject(obj);
+        pool.returnObject(pool.borrowObject());
+        pool.close();
+        assertNull(pool.getPoolEventListener());
+
+        assertEquals("CREATED", listener.take());
+        assertEquals("BORROWED", listener.take());
+        assertEquals("WAIT_STARTED", listener.take());
+        assertEquals("WAIT_ENDED", listener.take());
+        assertEquals("DESTROYED INVALIDATED", listener.take());
+        assertEquals("CREATED", listener.take());
+        assertEquals("BORROWED", listener.take());
+        assertEquals("RETURNED", listener.take());
+        assertEquals("DESTROYED CLEARED", listener.take());
+        assertEquals(0, pool.getDroppedPoolEventCount());
+    }
+
+    @Test(timeout=60000)
+    public void testKeyedObjectPoolEvents() throws Exception {
+        final SimpleFactory<String> factory = new SimpleFactory<String>();
+        final GenericKeyedObjectPool<String, String> pool =
+                new GenericKeyedObjectPool<String, String>(factory);
+        final RecordingListener listener = new RecordingListener();
+        pool.setPoolEventListener(listener);
+        pool.setTestOnReturn(true);
+
+        pool.returnObject("one", pool.borrowObject("one"));
+        final String obj = pool.borrowObject("two");
+        factory.setValidationEnabled(true);
+        factory.setValid(false);
+        pool.returnObject("two", obj);
+        pool.close();
+
+        assertEquals("CREATED one", listener.take());
+        assertEquals("BORROWED one", listener.take());
+        assertEquals("RETURNED one", listener.take());
+        assertEquals("CREATED two", listener.take());
+        assertEquals("BORROWED two", listener.take());
+        assertEquals("RETURNED two", listener.take());
+        assertEquals("VALIDATION_FAILED two", listener.take());
+        assertEquals("DESTROYED two VALIDATION_FAILED", listener.take());
+        assertEquals("DESTROYED one CLEARED", listener.take());
+    }
+
+    @Test(timeout=60000)
+    public void testBatchValidationEvents() throws Exception {
+        final BatchFactory factory = new BatchFactory("1");
+        final GenericObjectPool<String> pool = new GenericObjectPool<String>(factory);
+        final RecordingListener listener = new RecordingListener();
+        pool.setPoolEventListener(listener);
+        pool.setTestWhileIdle(true);
+        pool.setNumTestsPerEvictionRun(3);
+        pool.setMinEvictableIdleTimeMillis(-1);
+        for (int i = 0; i < 3; i++) {
+            pool.addObject();
+        }
+        pool.evict();
+
+        // A batch that times out fails every object in it
+        factory.batchLatency = 500;
+        pool.setValidationTimeoutMillis(50);
+        pool.evict();
+        pool.close();
+
+        assertEquals("CREATED", listener.take());
+        assertEquals("CREATED", listener.take());
+        assertEquals("CREATED", listener.take());
+        assertEquals("VALIDATION_FAILED", listener.take());
+        assertEquals("EVICTED", listener.take());
+        assertEquals("DESTROYED VALIDATION_FAILED", listener.take());
+        assertEquals("VALIDATION_FAILED", listener.take());
+        assertEquals("VALIDATION_FAILED", listener.take());
+        assertEquals("EVICTED", listener.take());
+        assertEquals("DESTROYED VALIDATION_FAILED", listener.take());
+        assertEquals("EVICTED", listener.take());
+        assertEquals("DESTROYED VALIDATION_FAILED", listener.take());
+        assertEquals(0, pool.getNumIdle());
+    }
+
+    @Test(timeout=60000)
+    public void testDropWhenFull() throws Exception {
+        final GenericObjectPool<String> pool =
+                new GenericObjectPool<String>(new TestGenericObjectPool.SimpleFactory());
+        final CountDownLatch release = new CountDownLatch(1);
+        final RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onPoolEvent(final PoolEvent event) {
+                super.onPoolEvent(event);
+                try {
+                    release.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        final PoolEventDispatcher dispatcher = new PoolEventDispatcher(pool, listener, 3);
+        assertEquals(4, dispatcher.getCapacity());
+        // The first event is held by the blocked listener until released
+        for (int i = 0; i < 10; i++) {
+            final boolean published = dispatcher.publish(
+                    PoolEventType.BORROWED, null, Integer.valueOf(i), 0, null);
+            assertEquals(Boolean.valueOf(i < 4), Boolean.valueOf(published));
+        }
+        assertEquals(6, dispatcher.getDroppedCount());
+        release.countDown();
+        dispatcher.stop();
+        dispatcher.awaitTermination(10000);
+        assertFalse(dispatcher.publish(PoolEventType.BORROWED, null, null, 0, null));
+        assertEquals(4, listener.events.size());
+        pool.close();
+    }
+
+    @Test(timeout=60000)
+    public void testOrderPerThread() throws Exception {
+        final GenericObjectPool<String> pool =
+                new GenericObjectPool<String>(new TestGenericObjectPool.SimpleFactory());
+        final int threads = 4;
+        final int eventsPerThread = 10000;
+        final long[] next = new long[threads];
+        final List<String> errors = new ArrayList<String>();
+        final CountDownLatch delivered = new CountDownLatch(threads * eventsPerThread);
+        final PoolEventDispatcher dispatcher = new PoolEventDispatcher(pool,
+                new PoolEventListener() {
+                    @Override
+                    public void onPoolEvent(final PoolEvent event) {
+                        final int thread = ((Integer) event.getKey()).intValue();
+                        if (event.getDurationNanos() != next[thread]) {
+                            errors.add("Thread " + thread + " expected " +
+                                    next[thread] + " but was " + event.getDurationNanos());
+                        }
+                        next[thread]++;
+                        delivered.countDown();
+                    }
+                }, threads * eventsPerThread);
+        final Thread[] publishers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            final Integer key = Integer.valueOf(i);
+            publishers[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < eventsPerThread; j++) {
+                        dispatcher.publish(PoolEventType.RETURNED, key, null, j, null);
+                    }
+                }
+            };
+            publishers[i].start();
+        }
+        for (final Thread publisher : publishers) {
+            publisher.join();
+        }
+        assertTrue(delivered.await(30, TimeUnit.SECONDS));
+        dispatcher.stop();
+        dispatcher.awaitTermination(10000);
+        assertEquals(0, dispatcher.getDroppedCount());
+        assertTrue(errors.toString(), errors.isEmpty());
+        pool.close();
+    }
+
+    @Test(timeout=60000)
+    public void testListenerExceptionSwallowed() throws Exception {
+        final GenericObjectPool<String> pool =
+                new GenericObjectPool<String>(new TestGenericObjectPool.SimpleFactory());
+        final BlockingQueue<Exception> swallowed = new LinkedBlockingQueue<Exception>();
+        pool.setSwallowedExceptionListener(new SwallowedExceptionListener() {
+            @Override
+            public void onSwallowException(final Exception e) {
+                swallowed.add(e);
+            }
+        });
+        final RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onPoolEvent(final PoolEvent event) {
+                super.onPoolEvent(event);
+                if (event.getType() == PoolEventType.CREATED) {
+                    throw new IllegalStateException("listener failure");
+                }
+            }
+        };
+        pool.setPoolEventListener(listener);
+        pool.returnObject(pool.borrowObject());
+
+        final Exception e = swallowed.poll(10, TimeUnit.SECONDS);
+        assertNotNull(e);
+        assertEquals("listener failure", e.getMessage());
+        // Later events are still delivered
+        assertEquals("CREATED", listener.take());
+        assertEquals("BORROWED", listener.take());
+        assertEquals("RETURNED", listener.take());
+        pool.close();
+    }
+
+    /**
+     * Validates idle objects in batches, failing one of them.
+     */
+    private static class BatchFactory extends TestGenericObjectPool.SimpleFactory
+            implements BatchValidatingPooledObjectFactory<String> {
+
+        private final String invalidObject;
+        volatile long batchLatency = 0;
+
+        BatchFactory(final String invalidObject) {
+            this.invalidObject = invalidObject;
+        }
+
+        @Override
+        public Collection<PooledObject<String>> validateObjects(
+                final Collection<PooledObject<String>> objects) {
+            if (batchLatency > 0) {
+                try {
+                    Thread.sleep(batchLatency);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            final List<PooledObject<String>> invalid =
+                    new ArrayList<PooledObject<String>>();
+            for (final PooledObject<String> p : objects) {
+                if (invalidObject.equals(p.getObject())) {
+                    invalid.add(p);
+                }
+            }
+            return invalid;
+        }
+    }
+
+    /**
+     * Records a description of each event since the event itself is reused
+     * once the listener returns.
+     */
+    private static class RecordingListener implements PoolEventListener {
+
+        final BlockingQueue<String> events = new LinkedBlockingQueue<String>();
+
+        @Override
+        public void onPoolEvent(final PoolEvent event) {
+            final StringBuilder sb = new StringBuilder(event.getType().name());
+            if (event.getKey() != null) {
+                sb.append(' ').append(event.getKey());
+            }
+            if (event.getDestroyReason() != null) {
+                sb.append(' ').append(event.getDestroyReason());
+            }
+            events.add(sb.toString());
+        }
+
+        String take() throws InterruptedException {
+            final String event = events.poll(10, TimeUnit.SECONDS);
+            assertNotNull("No event delivered", event);
+            return event;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.NoSuchElementException;
+
+import org.apache.commons.pool2.performance.PoolTraceSimulator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for PoolTraceRecorder, PoolTrace and PoolTraceSimulator.
+ */
+public class TestPoolTrace {
+
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("pool", ".trace");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testRecordPoolEvents() throws Exception {
+        final PoolTraceRecorder recorder = new PoolTraceRecorder(file, 1000);
+        final GenericObjectPool<String> pool =
+                new GenericObjectPool<String>(new TestGenericObjectPool.SimpleFactory());
+        try {
+            pool.setTraceRecorder(recorder);
+            pool.setMaxTotal(1);
+            pool.setBlockWhenExhausted(false);
+            final String obj = pool.borrowObject();
+            try {
+                pool.borrowObject();
+                fail("Expected NoSuchElementException");
+            } catch (final NoSuchElementException e) {
+                // Expected
+            }
+            pool.invalidateObject(obj);
+            pool.returnObject(pool.borrowObject());
+        } finally {
+            pool.close();
+            recorder.close();
+        }
+
+        final PoolTrace trace = PoolTrace.read(file);
+        final byte[] expected = {
+                PoolTraceRecorder.CREATE, PoolTraceRecorder.BORROW,
+                PoolTraceRecorder.WAIT, PoolTraceRecorder.DESTROY,
+                PoolTraceRecorder.CREATE, PoolTraceRecorder.BORROW,
+                PoolTraceRecorder.RETURN, PoolTraceRecorder.DESTROY };
+        assertEquals(expected.length, trace.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], trace.getType(i));
+            assertEquals(0, trace.getKeyId(i));
+            if (i > 0) {
+                assertTrue(trace.getTimeNanos(i) >= trace.getTimeNanos(i - 1));
+            }
+        }
+        // The borrow, return and destroy of an object share its id
+        assertEquals(trace.getObjectId(0), trace.getObjectId(1));
+        assertEquals(trace.getObjectId(1), trace.getObjectId(3));
+        assertEquals(trace.getObjectId(5), trace.getObjectId(6));
+    }
+
+    @Test
+    public void testRingBuffer() throws Exception {
+        final PoolTraceRecorder recorder = new PoolTraceRecorder(file, 4);
+        for (int i = 0; i < 10; i++) {
+            recorder.record(PoolTraceRecorder.CREATE, "key" + (i % 2), null, i);
+        }
+        recorder.close();
+        // Events after closing are ignored
+        recorder.record(PoolTraceRecorder.CREATE, null, null, 10);
+
+        final PoolTrace trace = PoolTrace.read(file);
+        assertEquals(10, trace.getRecordedCount());
+        assertEquals(4, trace.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 6, trace.getDurationNanos(i));
+            assertEquals(i % 2 == 0 ? 1 : 2, trace.getKeyId(i));
+        }
+    }
+
+    @Test
+    public void testSimulate() throws Exception {
+        final PoolTraceRecorder recorder = new PoolTraceRecorder(file, 1000);
+        final GenericObjectPool<String> pool =
+                new GenericObjectPool<String>(new TestGenericObjectPool.SimpleFactory());
+        try {
+            pool.setTraceRecorder(recorder);
+            for (int i = 0; i < 5; i++) {
+                final String a = pool.borrowObject();
+                final String b = pool.borrowObject();
+                final String c = pool.borrowObject();
+                Thread.sleep(5);
+                pool.returnObject(a);
+                pool.returnObject(b);
+                pool.returnObject(c);
+            }
+        } finally {
+            pool.close();
+            recorder.close();
+        }
+
+        final PoolTraceSimulator simulator = new PoolTraceSimulator(PoolTrace.read(file));
+        assertFalse(simulator.isKeyed());
+        final PoolTraceSimulator.Result recorded = simulator.getRecordedResult();
+        assertEquals(15, recorded.getRequests());
+        assertEquals(0, recorded.getFailures());
+        assertEquals(3, recorded.getCreatedCount());
+
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setMaxTotal(3);
+        PoolTraceSimulator.Result simulated = simulator.simulate(config);
+        assertEquals(15, simulated.getRequests());
+        assertEquals(0, simulated.getFailures());
+        assertEquals(3, simulated.getCreatedCount());
+        assertEquals(3, simulated.getPeakObjects());
+
+        // A single object makes borrowers wait for it to be returned
+        config.setMaxTotal(1);
+        simulated = simulator.simulate(config);
+        assertEquals(0, simulated.getFailures());
+        assertEquals(1, simulated.getPeakObjects());
+        assertTrue(simulated.getWaitMillisAtPercentile(100) >= 5);
+
+        // or fail if they do not wait
+        config.setBlockWhenExhausted(false);
+        simulated = simulator.simulate(config);
+        assertEquals(10, simulated.getFailures());
+
+        // Idle objects beyond maxIdle are destroyed
+        config.setMaxTotal(3);
+        config.setBlockWhenExhausted(true);
+        config.setMaxIdle(1);
+        simulated = simulator.simulate(config);
+        assertEquals(0, simulated.getFailures());
+        assertEquals(simulated.getCreatedCount() - 1, simulated.getDestroyedCount());
+    }
+
+    @Test
+    public void testSimulateKeyed() throws Exception {
+        final PoolTraceRecorder recorder = new PoolTraceRecorder(file, 1000);
+        final GenericKeyedObjectPool<String, String> pool =
+                new GenericKeyedObjectPool<String, String>(
+                        new TestGenericKeyedObjectPool.SimpleFactory<String>());
+        try {
+            pool.setTraceRecorder(recorder);
+            for (int i = 0; i < 5; i++) {
+                final String a = pool.borrowObject("a");
+                final String a2 = pool.borrowObject("a");
+                final String b = pool.borrowObject("b");
+                Thread.sleep(5);
+                pool.returnObject("a", a);
+                pool.returnObject("a", a2);
+                pool.returnObject("b", b);
+            }
+        } finally {
+            pool.close();
+            recorder.close();
+        }
+
+        final PoolTraceSimulator simulator = new PoolTraceSimulator(PoolTrace.read(file));
+        assertTrue(simulator.isKeyed());
+        assertEquals(15, simulator.getRecordedResult().getRequests());
+
+        final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+        PoolTraceSimulator.Result simulated = simulator.simulate(config);
+        assertEquals(3, simulated.getPeakObjects());
+        // Only the borrowers that created an object waited
+        assertEquals(0, simulated.getWaitMillisAtPercentile(50), 0);
+
+        // Borrowers of key a wait for each other
+        config.setMaxTotalPerKey(1);
+        simulated = simulator.simulate(config);
+        assertEquals(2, simulated.getPeakObjects());
+        assertEquals(0, simulated.getFailures());
+        assertTrue(simulated.getWaitMillisAtPercentile(100) >= 5);
+
+        // Idle objects of one key are destroyed to make room for another
+        config.setMaxTotalPerKey(2);
+        config.setMaxTotal(2);
+        config.setMaxWaitMillis(1000);
+        simulated = simulator.simulate(config);
+        assertEquals(0, simulated.getFailures());
+        assertEquals(2, simulated.getPeakObjects());
+        assertTrue(simulated.getDestroyedCount() > 0);
+    }
+}
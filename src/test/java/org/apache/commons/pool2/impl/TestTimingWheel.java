@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+/**
+ * Tests for TimingWheel.
+ */
+public class TestTimingWheel {
+
+    @Test
+    public void testExpiry() {
+        final TimingWheel<String> wheel = new TimingWheel<String>(10, 1000);
+        wheel.schedule("a", "ka", 1050);
+        wheel.schedule("b", "kb", 1100);
+        assertEquals(2, wheel.size());
+
+        // Nothing is reported until the tick containing the deadline has ended
+        assertTrue(wheel.advance(1055).isEmpty());
+        final List<TimingWheel.Entry<String>> expired = wheel.advance(1060);
+        assertEquals(1, expired.size());
+        assertSame("a", expired.get(0).getElement());
+        assertEquals("ka", expired.get(0).getAttachment());
+        assertEquals(1, wheel.size());
+
+        assertEquals(1, wheel.advance(1200).size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testCancelAndReschedule() {
+        final TimingWheel<String> wheel = new TimingWheel<String>(10, 0);
+        wheel.schedule("a", null, 50);
+        wheel.schedule("b", null, 50);
+        wheel.cancel("a");
+        // Moving the deadline later replaces the earlier one
+        wheel.schedule("b", null, 150);
+        assertTrue(wheel.advance(100).isEmpty());
+        assertEquals(1, wheel.advance(160).size());
+        assertEquals(0, wheel.size());
+        // Cancelling an unknown element is a no-op
+        wheel.cancel("c");
+    }
+
+    @Test
+    public void testPastDeadline() {
+        final TimingWheel<String> wheel = new TimingWheel<String>(10, 0);
+        assertTrue(wheel.advance(100).isEmpty());
+        // A deadline in a tick that has been examined is reported next time
+        wheel.schedule("a", null, 20);
+        assertEquals(1, wheel.advance(110).size());
+    }
+
+    @Test
+    public void testMultipleRevolutions() {
+        final TimingWheel<Integer> wheel = new TimingWheel<Integer>(1, 0);
+        // Deadlines well beyond one revolution of the wheel
+        for (int i = 0; i < 5000; i++) {
+            wheel.schedule(Integer.valueOf(i), null, i * 7);
+        }
+        final Set<Integer> seen = new HashSet<Integer>();
+        for (long now = 100; now <= 40000; now += 100) {
+            for (final TimingWheel.Entry<Integer> entry : wheel.advance(now)) {
+                assertTrue(entry.getDeadline() < now);
+                assertTrue(entry.getDeadline() >= now - 101);
+                seen.add(entry.getElement());
+            }
+        }
+        assertEquals(5000, seen.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testEntryReuse() {
+        final TimingWheel<String> wheel = new TimingWheel<String>(10, 0);
+        wheel.schedule("a", null, 50);
+        final TimingWheel.Entry<String> first = wheel.advance(100).get(0);
+        wheel.schedule("a", null, 150);
+        wheel.cancel("a");
+        wheel.schedule("a", null, 150);
+        assertSame(first, wheel.advance(200).get(0));
+
+        // A removed element gets a new entry
+        wheel.remove("a");
+        wheel.schedule("a", null, 250);
+        assertNotSame(first, wheel.advance(300).get(0));
+    }
+
+    @Test(timeout=60000)
+    public void testConcurrentSchedule() throws Exception {
+        final TimingWheel<Integer> wheel = new TimingWheel<Integer>(1, 0);
+        final AtomicLong now = new AtomicLong();
+        final Set<Integer> seen =
+                Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>());
+        final Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int base = i * 10000;
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        final Integer element = Integer.valueOf(base + j);
+                        // Deadlines that advance() may be examining
+                        wheel.schedule(element, null, now.get() + j % 3);
+                        if (j % 2 == 0) {
+                            wheel.cancel(element);
+                            wheel.schedule(element, null, now.get());
+                        }
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (final Thread t : threads) {
+            while (t.isAlive()) {
+                for (final TimingWheel.Entry<Integer> entry :
+                        wheel.advance(now.incrementAndGet())) {
+                    seen.add(entry.getElement());
+                }
+            }
+        }
+        for (final TimingWheel.Entry<Integer> entry :
+                wheel.advance(now.get() + 10)) {
+            seen.add(entry.getElement());
+        }
+        // Every deadline was at most two ticks ahead so none may be missed
+        assertEquals(40000, seen.size());
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testLongPause() {
+        final TimingWheel<String> wheel = new TimingWheel<String>(1, 0);
+        wheel.schedule("a", null, 100);
+        wheel.schedule("b", null, 100000);
+        // Many revolutions pass between calls
+        assertEquals(1, wheel.advance(50000).size());
+        assertEquals(1, wheel.advance(200000).size());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A distribution of delays, used for the time a load generator holds a
+ * borrowed object and for the time factory methods take.
+ */
+public abstract class LatencyDistribution {
+
+    /**
+     * Draw the next delay.
+     *
+     * @param random The source of randomness
+     *
+     * @return the delay in nanoseconds
+     */
+    public abstract long nextNanos(Random random);
+
+    /**
+     * @return a distribution that is always zero
+     */
+    public static LatencyDistribution none() {
+        return constant(0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param delay The delay
+     * @param unit  The unit of the delay
+     *
+     * @return a distribution that always has the same value
+     */
+    public static LatencyDistribution constant(final long delay, final TimeUnit unit) {
+        final long nanos = unit.toNanos(delay);
+        return new LatencyDistribution() {
+            @Override
+            public long nextNanos(final Random random) {
+                return nanos;
+            }
+            @Override
+            public String toString() {
+                return "constant(" + nanos + "ns)";
+            }
+        };
+    }
+
+    /**
+     * @param min  The smallest delay
+     * @param max  The largest delay
+     * @param unit The unit of the delays
+     *
+     * @return a distribution that is uniform between the given delays
+     */
+    public static LatencyDistribution uniform(final long min, final long max,
+            final TimeUnit unit) {
+        final long minNanos = unit.toNanos(min);
+        final long rangeNanos = unit.toNanos(max) - minNanos;
+        return new LatencyDistribution() {
+            @Override
+            public long nextNanos(final Random random) {
+                return minNanos + (long) (random.nextDouble() * rangeNanos);
+            }
+            @Override
+            public String toString() {
+                return "uniform(" + minNanos + "ns, " + (minNanos + rangeNanos) + "ns)";
+            }
+        };
+    }
+
+    /**
+     * @param mean The mean delay
+     * @param unit The unit of the mean
+     *
+     * @return an exponential distribution with the given mean, which models
+     *         delays that are usually short but occasionally much longer
+     */
+    public static LatencyDistribution exponential(final long mean, final TimeUnit unit) {
+        final long meanNanos = unit.toNanos(mean);
+        return new LatencyDistribution() {
+            @Override
+            public long nextNanos(final Random random) {
+                return (long) (-Math.log(1 - random.nextDouble()) * meanNanos);
+            }
+            @Override
+            public String toString() {
+                return "exponential(" + meanNanos + "ns)";
+            }
+        };
+    }
+
+    /**
+     * Wait for a delay drawn from this distribution.
+     *
+     * @param random The source of randomness
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void sleep(final Random random) throws InterruptedException {
+        final long nanos = nextNanos(random);
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+}
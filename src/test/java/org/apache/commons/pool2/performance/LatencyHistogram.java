@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe histogram of latencies in nanoseconds with a fixed relative
+ * precision.
+ * <p>
+ * Values below 128 are counted exactly. Larger values are counted in buckets
+ * that keep the seven most significant bits of the value, so a value is
+ * reported as at most 1/64 (about 1.6%) above its true value whatever its
+ * magnitude. Recording a value is lock-free and does not allocate.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final int BUCKET_COUNT =
+            (64 - SUB_BUCKET_BITS + 1) * HALF_SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalValue = new AtomicLong();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Record a latency.
+     *
+     * @param nanos The latency in nanoseconds, negative values are recorded
+     *              as zero
+     */
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+        long currentMax;
+        do {
+            currentMax = maxValue.get();
+            if (currentMax >= value) {
+                break;
+            }
+        } while (!maxValue.compareAndSet(currentMax, value));
+    }
+
+    /**
+     * @return the number of recorded latencies
+     */
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return the mean of the recorded latencies in nanoseconds
+     */
+    public double getMean() {
+        final long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalValue.get() / count;
+    }
+
+    /**
+     * @return the largest recorded latency in nanoseconds
+     */
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    /**
+     * Obtain the latency at or below which the given percentage of the
+     * recorded latencies fall.
+     *
+     * @param percentile The percentage, between 0 and 100
+     *
+     * @return the latency in nanoseconds, or zero if nothing was recorded
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts.get(i);
+            if (cumulative >= target) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Format the count, mean, common percentiles and maximum.
+     *
+     * @param unit The unit in which to report latencies
+     *
+     * @return the summary
+     */
+    public String summary(final TimeUnit unit) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("count=").append(getCount());
+        builder.append(", mean=").append(format(getMean(), unit));
+        final double[] percentiles = {50, 90, 99, 99.9, 99.99};
+        for (final double percentile : percentiles) {
+            builder.append(", p").append(percentile).append('=');
+            builder.append(format(getValueAtPercentile(percentile), unit));
+        }
+        builder.append(", max=").append(format(getMax(), unit));
+        builder.append(' ').append(unit.toString().toLowerCase());
+        return builder.toString();
+    }
+
+    private static String format(final double nanos, final TimeUnit unit) {
+        return String.format("%.3f", Double.valueOf(nanos / unit.toNanos(1)));
+    }
+
+    static int indexOf(final long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        final int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return shift * HALF_SUB_BUCKET_COUNT + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(final int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        final int shift = index / HALF_SUB_BUCKET_COUNT - 1;
+        final long mantissa = index % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
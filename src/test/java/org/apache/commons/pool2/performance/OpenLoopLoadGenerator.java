@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.pool2.KeyedObjectPool;
+import org.apache.commons.pool2.ObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+
+/**
+ * Drives a pool with requests that arrive at a constant rate, whether or not
+ * earlier requests have completed, and records how long each request waited.
+ * <p>
+ * {@link PerformanceTest} uses a fixed number of threads that each borrow,
+ * hold and return an object in a loop. When the pool is saturated those
+ * threads stop issuing requests, so the requests that would have queued up
+ * behind a slow borrow are never measured and the reported latency is far
+ * lower than real callers would see (coordinated omission). This generator
+ * instead schedules request <code>i</code> to start at
+ * <code>start + i / rate</code> and measures latency from that intended start
+ * time, so time spent waiting for a worker thread or for the pool counts
+ * against the pool. The latency measured from the time a worker actually
+ * started the request, as a closed-loop test would report it, is recorded
+ * separately for comparison.
+ * <p>
+ * Each request borrows an object, holds it for a time drawn from the hold
+ * time distribution and returns it. Combined with a
+ * {@link VariableLatencyObjectFactory} this allows pools to be sized against
+ * realistic arrival rates and factory latencies.
+ */
+public class OpenLoopLoadGenerator {
+
+    /**
+     * The pool being driven, which may or may not be keyed.
+     */
+    public abstract static class Target {
+
+        /**
+         * Borrow an object for a request.
+         *
+         * @param request The sequence number of the request
+         *
+         * @return the object
+         *
+         * @throws Exception if the object cannot be borrowed
+         */
+        protected abstract Object borrow(long request) throws Exception;
+
+        /**
+         * Return an object borrowed by {@link #borrow(long)}.
+         *
+         * @param request The sequence number of the request
+         * @param obj     The object
+         *
+         * @throws Exception if the object cannot be returned
+         */
+        protected abstract void giveBack(long request, Object obj) throws Exception;
+
+        /**
+         * @param pool The pool
+         *
+         * @return a target that borrows from an unkeyed pool
+         */
+        public static Target of(final ObjectPool<?> pool) {
+            return ofPool(pool);
+        }
+
+        /**
+         * @param pool The pool
+         * @param keys The keys, which are used in turn
+         *
+         * @return a target that borrows from a keyed pool
+         */
+        public static <K> Target of(final KeyedObjectPool<K, ?> pool, final K[] keys) {
+            return ofKeyedPool(pool, keys);
+        }
+
+        private static <T> Target ofPool(final ObjectPool<T> pool) {
+            return new Target() {
+                @Override
+                protected Object borrow(final long request) throws Exception {
+                    return pool.borrowObject();
+                }
+                @SuppressWarnings("unchecked")
+                @Override
+                protected void giveBack(final long request, final Object obj)
+                        throws Exception {
+                    pool.returnObject((T) obj);
+                }
+            };
+        }
+
+        private static <K, T> Target ofKeyedPool(final KeyedObjectPool<K, T> pool,
+                final K[] keys) {
+            return new Target() {
+                @Override
+                protected Object borrow(final long request) throws Exception {
+                    return pool.borrowObject(keys[(int) (request % keys.length)]);
+                }
+                @SuppressWarnings("unchecked")
+                @Override
+                protected void giveBack(final long request, final Object obj)
+                        throws Exception {
+                    pool.returnObject(keys[(int) (request % keys.length)], (T) obj);
+                }
+            };
+        }
+    }
+
+    /**
+     * The latencies recorded by a run.
+     */
+    public static class Result {
+
+        private final LatencyHistogram borrowLatency = new LatencyHistogram();
+        private final LatencyHistogram uncorrectedBorrowLatency = new LatencyHistogram();
+        private final LatencyHistogram responseTime = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+        private volatile long elapsedNanos;
+
+        /**
+         * @return the time from the intended start of each request until it
+         *         had borrowed an object
+         */
+        public LatencyHistogram getBorrowLatency() {
+            return borrowLatency;
+        }
+
+        /**
+         * @return the time from when a worker started each request until it
+         *         had borrowed an object, which omits time spent queued
+         */
+        public LatencyHistogram getUncorrectedBorrowLatency() {
+            return uncorrectedBorrowLatency;
+        }
+
+        /**
+         * @return the time from the intended start of each request until it
+         *         had returned its object
+         */
+        public LatencyHistogram getResponseTime() {
+            return responseTime;
+        }
+
+        /**
+         * @return the number of requests that failed to borrow or return an
+         *         object
+         */
+        public long getFailures() {
+            return failures.get();
+        }
+
+        /**
+         * @return the time taken to complete every request
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append("borrow latency:             ");
+            builder.append(borrowLatency.summary(TimeUnit.MILLISECONDS));
+            builder.append("\nuncorrected borrow latency: ");
+            builder.append(uncorrectedBorrowLatency.summary(TimeUnit.MILLISECONDS));
+            builder.append("\nresponse time:              ");
+            builder.append(responseTime.summary(TimeUnit.MILLISECONDS));
+            builder.append("\nfailures: ");
+            builder.append(failures.get());
+            builder.append(", elapsed: ");
+            builder.append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            builder.append(" ms");
+            return builder.toString();
+        }
+    }
+
+    private final Target target;
+    private final double requestsPerSecond;
+    private final long durationMillis;
+    private final LatencyDistribution holdTime;
+    private final int workerThreads;
+
+    /**
+     * Create a generator.
+     *
+     * @param target            The pool to drive
+     * @param requestsPerSecond The arrival rate of requests
+     * @param durationMillis    The time over which requests arrive
+     * @param holdTime          The time each request holds its object
+     * @param workerThreads     The number of threads that process requests,
+     *                          which should comfortably exceed the capacity
+     *                          of the pool so that requests wait in the pool
+     *                          rather than for a thread
+     */
+    public OpenLoopLoadGenerator(final Target target, final double requestsPerSecond,
+            final long durationMillis, final LatencyDistribution holdTime,
+            final int workerThreads) {
+        this.target = target;
+        this.requestsPerSecond = requestsPerSecond;
+        this.durationMillis = durationMillis;
+        this.holdTime = holdTime;
+        this.workerThreads = workerThreads;
+    }
+
+    /**
+     * Issue every request, wait for them all to complete and report the
+     * latencies.
+     *
+     * @return the recorded latencies
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public Result run() throws InterruptedException {
+        final Result result = new Result();
+        final ExecutorService workers =
+                Executors.newFixedThreadPool(workerThreads, new WorkerThreadFactory());
+        final long requests = (long) (requestsPerSecond * durationMillis / 1000);
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / requestsPerSecond;
+        final long start = System.nanoTime();
+        try {
+            for (long i = 0; i < requests; i++) {
+                final long intended = start + (long) (i * intervalNanos);
+                long now;
+                while ((now = System.nanoTime()) < intended) {
+                    LockSupport.parkNanos(intended - now);
+                }
+                // Requests that are behind schedule keep their intended start
+                // time so the delay is charged to them
+                workers.execute(new Request(i, intended, result));
+            }
+        } finally {
+            workers.shutdown();
+        }
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private class Request implements Runnable {
+
+        private final long sequence;
+        private final long intendedStart;
+        private final Result result;
+
+        Request(final long sequence, final long intendedStart, final Result result) {
+            this.sequence = sequence;
+            this.intendedStart = intendedStart;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            final long actualStart = System.nanoTime();
+            final Object obj;
+            try {
+                obj = target.borrow(sequence);
+            } catch (final Exception e) {
+                result.failures.incrementAndGet();
+                return;
+            }
+            final long borrowed = System.nanoTime();
+            result.borrowLatency.record(borrowed - intendedStart);
+            result.uncorrectedBorrowLatency.record(borrowed - actualStart);
+            try {
+                holdTime.sleep(WorkerThread.random());
+                target.giveBack(sequence, obj);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.failures.incrementAndGet();
+                return;
+            } catch (final Exception e) {
+                result.failures.incrementAndGet();
+                return;
+            }
+            result.responseTime.record(System.nanoTime() - intendedStart);
+        }
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new WorkerThread(r, "load-generator-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
+    private static class WorkerThread extends Thread {
+
+        private final Random random = new Random();
+
+        WorkerThread(final Runnable r, final String name) {
+            super(r, name);
+        }
+
+        static Random random() {
+            return ((WorkerThread) Thread.currentThread()).random;
+        }
+    }
+
+    /**
+     * Drive a GenericObjectPool and a GenericKeyedObjectPool at increasing
+     * arrival rates and print the latencies.
+     *
+     * @param args optionally the duration of each run in milliseconds
+     *
+     * @throws Exception if a run fails
+     */
+    public static void main(final String[] args) throws Exception {
+        final long durationMillis = args.length > 0 ? Long.parseLong(args[0]) : 10000;
+        final LatencyDistribution holdTime =
+                LatencyDistribution.exponential(1, TimeUnit.MILLISECONDS);
+        final double[] rates = {1000, 4000, 7000};
+
+        for (final double rate : rates) {
+            final VariableLatencyObjectFactory factory = new VariableLatencyObjectFactory();
+            factory.setMakeLatency(LatencyDistribution.exponential(5, TimeUnit.MILLISECONDS));
+            factory.setValidateLatency(LatencyDistribution.uniform(0, 200, TimeUnit.MICROSECONDS));
+            final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+            config.setMaxTotal(8);
+            config.setTestOnBorrow(true);
+            config.setJmxEnabled(false);
+            final GenericObjectPool<Integer> pool =
+                    new GenericObjectPool<Integer>(factory, config);
+            try {
+                System.out.println("-----------------------------------------");
+                System.out.println("GenericObjectPool, maxTotal=8, rate=" + rate + "/s");
+                System.out.println(new OpenLoopLoadGenerator(Target.of(pool), rate,
+                        durationMillis, holdTime, 200).run());
+            } finally {
+                pool.close();
+            }
+        }
+
+        for (final double rate : rates) {
+            final VariableLatencyObjectFactory factory = new VariableLatencyObjectFactory();
+            factory.setMakeLatency(LatencyDistribution.exponential(5, TimeUnit.MILLISECONDS));
+            final GenericKeyedObjectPoolConfig config = new GenericKeyedObjectPoolConfig();
+            config.setMaxTotalPerKey(4);
+            config.setJmxEnabled(false);
+            final GenericKeyedObjectPool<Object, Integer> pool =
+                    new GenericKeyedObjectPool<Object, Integer>(factory, config);
+            final String[] keys = {"a", "b"};
+            try {
+                System.out.println("-----------------------------------------");
+                System.out.println("GenericKeyedObjectPool, maxTotalPerKey=4, keys=2, rate=" +
+                        rate + "/s");
+                System.out.println(new OpenLoopLoadGenerator(Target.of(pool, keys), rate,
+                        durationMillis, holdTime, 200).run());
+            } finally {
+                pool.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,783 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.commons.pool2.impl.BaseObjectPoolConfig;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool2.impl.GenericKeyedObjectPoolConfig;
+import org.apache.commons.pool2.impl.GenericObjectPool;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.apache.commons.pool2.impl.PoolTrace;
+import org.apache.commons.pool2.impl.PoolTraceRecorder;
+
+/**
+ * Replays the borrowers recorded in a {@link PoolTrace} against a simulated
+ * {@link GenericObjectPool} or {@link GenericKeyedObjectPool} with a
+ * different configuration and predicts the wait times and object counts the
+ * pool would have had.
+ * <p>
+ * Each borrow in the trace becomes a request that arrives when the borrower
+ * started waiting and, once it obtains an object, holds it for as long as
+ * the recorded borrower did. Borrowers that gave up without an object are
+ * assumed to hold an object, if they obtain one, for the mean recorded hold
+ * time. Objects take as long to create as the recorded creations did, used in
+ * turn. The simulated pool starts empty.
+ * <p>
+ * The simulation models the limits ({@code maxTotal}, {@code maxTotalPerKey},
+ * {@code maxIdle}, {@code maxIdlePerKey}, {@code minIdle},
+ * {@code minIdlePerKey}), {@code maxWaitMillis}, {@code blockWhenExhausted},
+ * {@code lifo} and idle object eviction by the default eviction policy.
+ * Eviction runs examine every idle object rather than
+ * {@code numTestsPerEvictionRun} objects, and validation, abandoned object
+ * removal and factory failures are not modelled.
+ * <p>
+ * The {@link #main(String[])} method replays a trace file from the command
+ * line.
+ */
+public class PoolTraceSimulator {
+
+    private static final long NANOS_PER_MILLI = 1000000L;
+
+    private final Request[] requests;
+    private final long[] createNanos;
+    private final boolean keyed;
+    private final int keyCount;
+    private final long recordedCreated;
+    private final long recordedDestroyed;
+
+    /**
+     * Prepare to replay a trace.
+     *
+     * @param trace The recorded events
+     */
+    public PoolTraceSimulator(final PoolTrace trace) {
+        final List<Request> list = new ArrayList<Request>();
+        final Map<Integer, Request> borrowed = new HashMap<Integer, Request>();
+        final List<Long> creates = new ArrayList<Long>();
+        long created = 0;
+        long destroyed = 0;
+        int maxKeyId = 0;
+        long lastTime = 0;
+        long totalHold = 0;
+        int holds = 0;
+        for (int i = 0; i < trace.size(); i++) {
+            final long time = trace.getTimeNanos(i);
+            final long duration = trace.getDurationNanos(i);
+            final int keyId = trace.getKeyId(i);
+            final Integer objectId = Integer.valueOf(trace.getObjectId(i));
+            maxKeyId = Math.max(maxKeyId, keyId);
+            lastTime = Math.max(lastTime, time);
+            final Request request;
+            switch (trace.getType(i)) {
+                case PoolTraceRecorder.BORROW:
+                    request = new Request(keyId, time - duration, duration, false);
+                    request.borrowTime = time;
+                    list.add(request);
+                    borrowed.put(objectId, request);
+                    break;
+                case PoolTraceRecorder.WAIT:
+                    list.add(new Request(keyId, time - duration, duration, true));
+                    break;
+                case PoolTraceRecorder.RETURN:
+                case PoolTraceRecorder.DESTROY:
+                    if (trace.getType(i) == PoolTraceRecorder.DESTROY) {
+                        destroyed++;
+                    }
+                    request = borrowed.remove(objectId);
+                    if (request != null) {
+                        request.holdTime = time - request.borrowTime;
+                        totalHold += request.holdTime;
+                        holds++;
+                    }
+                    break;
+                case PoolTraceRecorder.CREATE:
+                    created++;
+                    creates.add(Long.valueOf(duration));
+                    break;
+                default:
+                    // Ignore unknown event types
+            }
+        }
+        // Objects still borrowed at the end of the trace are held until then
+        for (final Request request : borrowed.values()) {
+            request.holdTime = lastTime - request.borrowTime;
+        }
+        final long meanHold = holds == 0 ? 0 : totalHold / holds;
+        for (final Request request : list) {
+            if (request.holdTime < 0) {
+                request.holdTime = meanHold;
+            }
+        }
+        requests = list.toArray(new Request[list.size()]);
+        Arrays.sort(requests);
+        createNanos = new long[creates.size()];
+        for (int i = 0; i < createNanos.length; i++) {
+            createNanos[i] = creates.get(i).longValue();
+        }
+        keyed = maxKeyId > 0;
+        keyCount = maxKeyId + 1;
+        recordedCreated = created;
+        recordedDestroyed = destroyed;
+    }
+
+    /**
+     * @return <code>true</code> if the trace was recorded from a keyed pool
+     */
+    public boolean isKeyed() {
+        return keyed;
+    }
+
+    /**
+     * Summarise the behaviour of the pool as recorded in the trace. The object
+     * counts are not recorded so they are reported as <code>-1</code>.
+     *
+     * @return The recorded results
+     */
+    public Result getRecordedResult() {
+        final long[] waits = new long[requests.length];
+        int failures = 0;
+        for (int i = 0; i < requests.length; i++) {
+            waits[i] = requests[i].recordedWait;
+            if (requests[i].recordedFailure) {
+                failures++;
+            }
+        }
+        return new Result(requests.length, failures, waits, recordedCreated,
+                recordedDestroyed, -1, -1, -1);
+    }
+
+    /**
+     * Replay the trace against a simulated {@link GenericObjectPool}. All
+     * requests are treated as requests for the same key.
+     *
+     * @param config The configuration of the simulated pool
+     *
+     * @return The predicted results
+     */
+    public Result simulate(final GenericObjectPoolConfig config) {
+        return new Simulation(false, config.getMaxTotal(), config.getMaxTotal(),
+                config.getMaxIdle(), config.getMinIdle(), config).run();
+    }
+
+    /**
+     * Replay the trace against a simulated {@link GenericKeyedObjectPool}.
+     *
+     * @param config The configuration of the simulated pool
+     *
+     * @return The predicted results
+     */
+    public Result simulate(final GenericKeyedObjectPoolConfig config) {
+        return new Simulation(true, config.getMaxTotal(), config.getMaxTotalPerKey(),
+                config.getMaxIdlePerKey(), config.getMinIdlePerKey(), config).run();
+    }
+
+    /**
+     * Replay a trace file against the configuration given by the remaining
+     * arguments and print the recorded and predicted results. Each argument
+     * after the file name has the form <code>name=value</code> where the name
+     * is one of {@code maxTotal}, {@code maxTotalPerKey}, {@code maxIdle},
+     * {@code maxIdlePerKey}, {@code minIdle}, {@code minIdlePerKey},
+     * {@code maxWaitMillis}, {@code blockWhenExhausted}, {@code lifo},
+     * {@code timeBetweenEvictionRunsMillis},
+     * {@code minEvictableIdleTimeMillis} or
+     * {@code softMinEvictableIdleTimeMillis}. Unkeyed and keyed pools share
+     * the names for their per pool and per key limits.
+     *
+     * @param args The trace file followed by the configuration
+     *
+     * @throws Exception if the trace cannot be read
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: PoolTraceSimulator <trace file> [name=value]...");
+            return;
+        }
+        final PoolTraceSimulator simulator =
+                new PoolTraceSimulator(PoolTrace.read(new File(args[0])));
+        final GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        final GenericKeyedObjectPoolConfig keyedConfig = new GenericKeyedObjectPoolConfig();
+        for (int i = 1; i < args.length; i++) {
+            final int separator = args[i].indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected name=value: " + args[i]);
+            }
+            configure(config, keyedConfig, args[i].substring(0, separator),
+                    args[i].substring(separator + 1));
+        }
+        System.out.println("Recorded:  " + simulator.getRecordedResult());
+        if (simulator.isKeyed()) {
+            System.out.println("Simulated: " + simulator.simulate(keyedConfig));
+        } else {
+            System.out.println("Simulated: " + simulator.simulate(config));
+        }
+    }
+
+    private static void configure(final GenericObjectPoolConfig config,
+            final GenericKeyedObjectPoolConfig keyedConfig, final String name,
+            final String value) {
+        if ("maxTotal".equals(name)) {
+            config.setMaxTotal(Integer.parseInt(value));
+            keyedConfig.setMaxTotal(Integer.parseInt(value));
+        } else if ("maxTotalPerKey".equals(name)) {
+            config.setMaxTotal(Integer.parseInt(value));
+            keyedConfig.setMaxTotalPerKey(Integer.parseInt(value));
+        } else if ("maxIdle".equals(name) || "maxIdlePerKey".equals(name)) {
+            config.setMaxIdle(Integer.parseInt(value));
+            keyedConfig.setMaxIdlePerKey(Integer.parseInt(value));
+        } else if ("minIdle".equals(name) || "minIdlePerKey".equals(name)) {
+            config.setMinIdle(Integer.parseInt(value));
+            keyedConfig.setMinIdlePerKey(Integer.parseInt(value));
+        } else if ("maxWaitMillis".equals(name)) {
+            config.setMaxWaitMillis(Long.parseLong(value));
+            keyedConfig.setMaxWaitMillis(Long.parseLong(value));
+        } else if ("blockWhenExhausted".equals(name)) {
+            config.setBlockWhenExhausted(Boolean.parseBoolean(value));
+            keyedConfig.setBlockWhenExhausted(Boolean.parseBoolean(value));
+        } else if ("lifo".equals(name)) {
+            config.setLifo(Boolean.parseBoolean(value));
+            keyedConfig.setLifo(Boolean.parseBoolean(value));
+        } else if ("timeBetweenEvictionRunsMillis".equals(name)) {
+            config.setTimeBetweenEvictionRunsMillis(Long.parseLong(value));
+            keyedConfig.setTimeBetweenEvictionRunsMillis(Long.parseLong(value));
+        } else if ("minEvictableIdleTimeMillis".equals(name)) {
+            config.setMinEvictableIdleTimeMillis(Long.parseLong(value));
+            keyedConfig.setMinEvictableIdleTimeMillis(Long.parseLong(value));
+        } else if ("softMinEvictableIdleTimeMillis".equals(name)) {
+            config.setSoftMinEvictableIdleTimeMillis(Long.parseLong(value));
+            keyedConfig.setSoftMinEvictableIdleTimeMillis(Long.parseLong(value));
+        } else {
+            throw new IllegalArgumentException("Unknown configuration attribute: " + name);
+        }
+    }
+
+    /**
+     * The wait times and object counts of a recorded or simulated pool.
+     */
+    public static class Result {
+
+        private final int requests;
+        private final int failures;
+        private final long[] sortedWaits;
+        private final double meanWaitMillis;
+        private final long createdCount;
+        private final long destroyedCount;
+        private final int peakObjects;
+        private final double meanObjects;
+        private final double meanActive;
+
+        Result(final int requests, final int failures, final long[] waits,
+                final long createdCount, final long destroyedCount,
+                final int peakObjects, final double meanObjects, final double meanActive) {
+            this.requests = requests;
+            this.failures = failures;
+            this.sortedWaits = waits.clone();
+            Arrays.sort(sortedWaits);
+            long total = 0;
+            for (final long wait : waits) {
+                total += wait;
+            }
+            this.meanWaitMillis = waits.length == 0 ? 0 :
+                (double) total / waits.length / NANOS_PER_MILLI;
+            this.createdCount = createdCount;
+            this.destroyedCount = destroyedCount;
+            this.peakObjects = peakObjects;
+            this.meanObjects = meanObjects;
+            this.meanActive = meanActive;
+        }
+
+        /**
+         * @return the number of borrow requests
+         */
+        public int getRequests() {
+            return requests;
+        }
+
+        /**
+         * @return the number of requests that gave up without an object
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the mean time requests waited, in milliseconds
+         */
+        public double getMeanWaitMillis() {
+            return meanWaitMillis;
+        }
+
+        /**
+         * @param percentile The percentile, between 0 and 100
+         *
+         * @return the time, in milliseconds, that the given percentage of
+         *         requests waited no longer than
+         */
+        public double getWaitMillisAtPercentile(final double percentile) {
+            if (sortedWaits.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile / 100 * sortedWaits.length) - 1;
+            return (double) sortedWaits[Math.max(0, Math.min(index, sortedWaits.length - 1))] /
+                    NANOS_PER_MILLI;
+        }
+
+        /**
+         * @return the number of objects created
+         */
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        /**
+         * @return the number of objects destroyed
+         */
+        public long getDestroyedCount() {
+            return destroyedCount;
+        }
+
+        /**
+         * @return the largest number of objects, including objects being
+         *         created, that existed at the same time
+         */
+        public int getPeakObjects() {
+            return peakObjects;
+        }
+
+        /**
+         * @return the time weighted mean number of objects
+         */
+        public double getMeanObjects() {
+            return meanObjects;
+        }
+
+        /**
+         * @return the time weighted mean number of borrowed objects
+         */
+        public double getMeanActive() {
+            return meanActive;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder builder = new StringBuilder();
+            builder.append("requests=");
+            builder.append(requests);
+            builder.append(", failures=");
+            builder.append(failures);
+            builder.append(String.format(
+                    ", wait(ms) mean=%.3f p50=%.3f p99=%.3f max=%.3f",
+                    Double.valueOf(meanWaitMillis),
+                    Double.valueOf(getWaitMillisAtPercentile(50)),
+                    Double.valueOf(getWaitMillisAtPercentile(99)),
+                    Double.valueOf(getWaitMillisAtPercentile(100))));
+            builder.append(", created=");
+            builder.append(createdCount);
+            builder.append(", destroyed=");
+            builder.append(destroyedCount);
+            if (peakObjects >= 0) {
+                builder.append(String.format(
+                        ", objects peak=%d mean=%.2f, active mean=%.2f",
+                        Integer.valueOf(peakObjects), Double.valueOf(meanObjects),
+                        Double.valueOf(meanActive)));
+            }
+            return builder.toString();
+        }
+    }
+
+    /*
+     * A recorded borrower.
+     */
+    private static class Request implements Comparable<Request> {
+        private final int keyId;
+        private final long arrivalTime;
+        private final long recordedWait;
+        private final boolean recordedFailure;
+        private long borrowTime;
+        private long holdTime = -1;
+
+        Request(final int keyId, final long arrivalTime, final long recordedWait,
+                final boolean recordedFailure) {
+            this.keyId = keyId;
+            this.arrivalTime = arrivalTime;
+            this.recordedWait = recordedWait;
+            this.recordedFailure = recordedFailure;
+        }
+
+        @Override
+        public int compareTo(final Request other) {
+            return arrivalTime < other.arrivalTime ? -1 :
+                (arrivalTime == other.arrivalTime ? 0 : 1);
+        }
+    }
+
+    /*
+     * A borrower in the simulation.
+     */
+    private static class Waiter {
+        private final Request request;
+        private final int index;
+        private boolean done = false;
+
+        Waiter(final Request request, final int index) {
+            this.request = request;
+            this.index = index;
+        }
+    }
+
+    private static class SimObject {
+        private final SubPool pool;
+        private long idleSince;
+
+        SimObject(final SubPool pool) {
+            this.pool = pool;
+        }
+    }
+
+    private static class SubPool {
+        private final ArrayDeque<SimObject> idle = new ArrayDeque<SimObject>();
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<Waiter>();
+        private int total = 0;
+        private int pendingCreates = 0;
+    }
+
+    private static final int ARRIVAL = 0;
+    private static final int CREATED = 1;
+    private static final int RELEASE = 2;
+    private static final int TIMEOUT = 3;
+    private static final int EVICT = 4;
+
+    private static class Event implements Comparable<Event> {
+        private final long time;
+        private final long sequence;
+        private final int type;
+        private final Waiter waiter;
+        private final SubPool pool;
+        private final SimObject object;
+
+        Event(final long time, final long sequence, final int type, final Waiter waiter,
+                final SubPool pool, final SimObject object) {
+            this.time = time;
+            this.sequence = sequence;
+            this.type = type;
+            this.waiter = waiter;
+            this.pool = pool;
+            this.object = object;
+        }
+
+        @Override
+        public int compareTo(final Event other) {
+            if (time != other.time) {
+                return time < other.time ? -1 : 1;
+            }
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    /*
+     * A single replay of the trace. Time is measured in nanoseconds.
+     */
+    private class Simulation {
+
+        private final int maxTotal;
+        private final int maxTotalPerKey;
+        private final int maxIdle;
+        private final int minIdle;
+        private final boolean blockWhenExhausted;
+        private final long maxWaitNanos;
+        private final boolean lifo;
+        private final long evictionPeriodNanos;
+        private final long idleEvictNanos;
+        private final long idleSoftEvictNanos;
+
+        private final SubPool[] pools;
+        private final PriorityQueue<Event> events = new PriorityQueue<Event>();
+        private final long[] waits = new long[requests.length];
+        private long sequence = 0;
+        private int failures = 0;
+        private int waiting = 0;
+        private int total = 0;
+        private int active = 0;
+        private int peakTotal = 0;
+        private long created = 0;
+        private long destroyed = 0;
+        private int nextCreate = 0;
+        private long now;
+        private long startTime;
+        private double totalArea = 0;
+        private double activeArea = 0;
+
+        Simulation(final boolean keyedPool, final int maxTotal, final int maxTotalPerKey,
+                final int maxIdle, final int minIdle, final BaseObjectPoolConfig config) {
+            this.maxTotal = maxTotal;
+            this.maxTotalPerKey = maxTotalPerKey;
+            this.maxIdle = maxIdle;
+            this.minIdle = minIdle;
+            this.blockWhenExhausted = config.getBlockWhenExhausted();
+            this.maxWaitNanos = config.getMaxWaitMillis() < 0 ? -1 :
+                config.getMaxWaitMillis() * NANOS_PER_MILLI;
+            this.lifo = config.getLifo();
+            this.evictionPeriodNanos =
+                    config.getTimeBetweenEvictionRunsMillis() * NANOS_PER_MILLI;
+            this.idleEvictNanos = toNanos(config.getMinEvictableIdleTimeMillis());
+            this.idleSoftEvictNanos = toNanos(config.getSoftMinEvictableIdleTimeMillis());
+            pools = new SubPool[keyedPool ? keyCount : 1];
+            for (int i = 0; i < pools.length; i++) {
+                pools[i] = new SubPool();
+            }
+        }
+
+        private long toNanos(final long millis) {
+            return millis < 0 || millis > Long.MAX_VALUE / NANOS_PER_MILLI ?
+                Long.MAX_VALUE : millis * NANOS_PER_MILLI;
+        }
+
+        Result run() {
+            if (requests.length > 0) {
+                startTime = requests[0].arrivalTime;
+                now = startTime;
+            }
+            for (int i = 0; i < requests.length; i++) {
+                final Request request = requests[i];
+                schedule(request.arrivalTime, ARRIVAL, new Waiter(request, i), null, null);
+            }
+            if (evictionPeriodNanos > 0 && requests.length > 0) {
+                schedule(startTime + evictionPeriodNanos, EVICT, null, null, null);
+            }
+            Event event;
+            while ((event = events.poll()) != null) {
+                advance(event.time);
+                switch (event.type) {
+                    case ARRIVAL:
+                        arrive(event.waiter);
+                        break;
+                    case CREATED:
+                        created(event.pool, event.waiter);
+                        break;
+                    case RELEASE:
+                        active--;
+                        deliver(event.object.pool, event.object);
+                        break;
+                    case TIMEOUT:
+                        if (!event.waiter.done) {
+                            event.waiter.done = true;
+                            waiting--;
+                            fail(event.waiter);
+                        }
+                        break;
+                    case EVICT:
+                        evict();
+                        // Stop once nothing else can happen
+                        if (!events.isEmpty()) {
+                            schedule(now + evictionPeriodNanos, EVICT, null, null, null);
+                        }
+                        break;
+                    default:
+                        throw new IllegalStateException();
+                }
+            }
+            final long elapsed = now - startTime;
+            return new Result(requests.length, failures, waits, created, destroyed,
+                    peakTotal, elapsed == 0 ? total : totalArea / elapsed,
+                    elapsed == 0 ? active : activeArea / elapsed);
+        }
+
+        private void schedule(final long time, final int type, final Waiter waiter,
+                final SubPool pool, final SimObject object) {
+            events.add(new Event(time, sequence++, type, waiter, pool, object));
+        }
+
+        private void advance(final long time) {
+            if (time > now) {
+                totalArea += (double) total * (time - now);
+                activeArea += (double) active * (time - now);
+                now = time;
+            }
+        }
+
+        private SubPool poolFor(final Waiter waiter) {
+            return pools[pools.length == 1 ? 0 : waiter.request.keyId];
+        }
+
+        private void arrive(final Waiter waiter) {
+            final SubPool pool = poolFor(waiter);
+            final SimObject object = pool.idle.pollFirst();
+            if (object != null) {
+                allocate(waiter, object);
+            } else if (canCreate(pool)) {
+                // The borrower creates the object itself, which is not
+                // limited by maxWait
+                startCreate(pool, waiter);
+            } else if (maxTotal >= 0 && total >= maxTotal && destroyOldestIdle()) {
+                // A keyed pool makes room by destroying idle objects of other
+                // keys
+                startCreate(pool, waiter);
+            } else if (!blockWhenExhausted) {
+                fail(waiter);
+            } else {
+                pool.waiters.addLast(waiter);
+                waiting++;
+                if (maxWaitNanos >= 0) {
+                    schedule(now + maxWaitNanos, TIMEOUT, waiter, null, null);
+                }
+            }
+        }
+
+        private boolean canCreate(final SubPool pool) {
+            return (maxTotalPerKey < 0 || pool.total < maxTotalPerKey) &&
+                    (maxTotal < 0 || total < maxTotal);
+        }
+
+        private void startCreate(final SubPool pool, final Waiter waiter) {
+            pool.total++;
+            total++;
+            peakTotal = Math.max(peakTotal, total);
+            created++;
+            if (waiter == null) {
+                pool.pendingCreates++;
+            }
+            long createTime = 0;
+            if (createNanos.length > 0) {
+                createTime = createNanos[nextCreate];
+                nextCreate = (nextCreate + 1) % createNanos.length;
+            }
+            schedule(now + createTime, CREATED, waiter, pool, null);
+        }
+
+        private void created(final SubPool pool, final Waiter waiter) {
+            final SimObject object = new SimObject(pool);
+            if (waiter != null) {
+                allocate(waiter, object);
+            } else {
+                pool.pendingCreates--;
+                deliver(pool, object);
+            }
+        }
+
+        private void allocate(final Waiter waiter, final SimObject object) {
+            waiter.done = true;
+            waits[waiter.index] = now - waiter.request.arrivalTime;
+            active++;
+            schedule(now + waiter.request.holdTime, RELEASE, null, null, object);
+        }
+
+        private void fail(final Waiter waiter) {
+            waits[waiter.index] = now - waiter.request.arrivalTime;
+            failures++;
+        }
+
+        private Waiter pollWaiter(final SubPool pool) {
+            Waiter waiter;
+            while ((waiter = pool.waiters.pollFirst()) != null) {
+                if (!waiter.done) {
+                    waiting--;
+                    return waiter;
+                }
+            }
+            return null;
+        }
+
+        /*
+         * Hand an object that has been returned or created to a waiting
+         * borrower, or make it idle.
+         */
+        private void deliver(final SubPool pool, final SimObject object) {
+            final Waiter waiter = pollWaiter(pool);
+            if (waiter != null) {
+                allocate(waiter, object);
+                return;
+            }
+            if (waiting > 0 && maxTotal >= 0 && total >= maxTotal) {
+                // Borrowers of other keys are waiting for capacity
+                destroy(object);
+                return;
+            }
+            if (maxIdle >= 0 && pool.idle.size() >= maxIdle) {
+                destroy(object);
+                return;
+            }
+            object.idleSince = now;
+            if (lifo) {
+                pool.idle.addFirst(object);
+            } else {
+                pool.idle.addLast(object);
+            }
+        }
+
+        private void destroy(final SimObject object) {
+            object.pool.total--;
+            total--;
+            destroyed++;
+            if (waiting > 0) {
+                // Use the released capacity for a waiting borrower
+                for (final SubPool pool : pools) {
+                    if (pool.waiters.size() > pool.pendingCreates && canCreate(pool)) {
+                        startCreate(pool, null);
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean destroyOldestIdle() {
+            SimObject oldest = null;
+            for (final SubPool pool : pools) {
+                final SimObject candidate = lifo ? pool.idle.peekLast() : pool.idle.peekFirst();
+                if (candidate != null &&
+                        (oldest == null || candidate.idleSince < oldest.idleSince)) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest == null) {
+                return false;
+            }
+            oldest.pool.idle.remove(oldest);
+            oldest.pool.total--;
+            total--;
+            destroyed++;
+            return true;
+        }
+
+        private void evict() {
+            for (final SubPool pool : pools) {
+                final Iterator<SimObject> iter = pool.idle.iterator();
+                while (iter.hasNext()) {
+                    final SimObject object = iter.next();
+                    final long idleTime = now - object.idleSince;
+                    if (idleTime > idleEvictNanos ||
+                            idleTime > idleSoftEvictNanos && pool.idle.size() > minIdle) {
+                        iter.remove();
+                        destroy(object);
+                    }
+                }
+                while (minIdle > 0 && pool.idle.size() + pool.pendingCreates < minIdle &&
+                        canCreate(pool)) {
+                    startCreate(pool, null);
+                }
+            }
+        }
+    }
+}
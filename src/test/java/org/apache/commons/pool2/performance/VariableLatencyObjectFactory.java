@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.pool2.performance;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.pool2.KeyedPooledObjectFactory;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+
+/**
+ * A factory, usable by both keyed and unkeyed pools, whose life-cycle methods
+ * take a time drawn from a configurable {@link LatencyDistribution}. Unlike
+ * {@link SleepingObjectFactory} the delays vary from call to call, which is
+ * closer to a factory that opens network connections.
+ */
+public class VariableLatencyObjectFactory
+        implements PooledObjectFactory<Integer>, KeyedPooledObjectFactory<Object, Integer> {
+
+    private final AtomicInteger counter = new AtomicInteger();
+    private final ThreadLocal<Random> random = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
+    private volatile LatencyDistribution makeLatency = LatencyDistribution.none();
+    private volatile LatencyDistribution destroyLatency = LatencyDistribution.none();
+    private volatile LatencyDistribution validateLatency = LatencyDistribution.none();
+    private volatile LatencyDistribution activateLatency = LatencyDistribution.none();
+    private volatile LatencyDistribution passivateLatency = LatencyDistribution.none();
+
+    public void setMakeLatency(final LatencyDistribution makeLatency) {
+        this.makeLatency = makeLatency;
+    }
+
+    public void setDestroyLatency(final LatencyDistribution destroyLatency) {
+        this.destroyLatency = destroyLatency;
+    }
+
+    public void setValidateLatency(final LatencyDistribution validateLatency) {
+        this.validateLatency = validateLatency;
+    }
+
+    public void setActivateLatency(final LatencyDistribution activateLatency) {
+        this.activateLatency = activateLatency;
+    }
+
+    public void setPassivateLatency(final LatencyDistribution passivateLatency) {
+        this.passivateLatency = passivateLatency;
+    }
+
+    @Override
+    public PooledObject<Integer> makeObject() throws Exception {
+        makeLatency.sleep(random.get());
+        return new DefaultPooledObject<Integer>(Integer.valueOf(counter.getAndIncrement()));
+    }
+
+    @Override
+    public void destroyObject(final PooledObject<Integer> p) throws Exception {
+        destroyLatency.sleep(random.get());
+    }
+
+    @Override
+    public boolean validateObject(final PooledObject<Integer> p) {
+        try {
+            validateLatency.sleep(random.get());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void activateObject(final PooledObject<Integer> p) throws Exception {
+        activateLatency.sleep(random.get());
+    }
+
+    @Override
+    public void passivateObject(final PooledObject<Integer> p) throws Exception {
+        passivateLatency.sleep(random.get());
+    }
+
+    @Override
+    public PooledObject<Integer> makeObject(final Object key) throws Exception {
+        return makeObject();
+    }
+
+    @Override
+    public void destroyObject(final Object key, final PooledObject<Integer> p)
+            throws Exception {
+        destroyObject(p);
+    }
+
+    @Override
+    public boolean validateObject(final Object key, final PooledObject<Integer> p) {
+        return validateObject(p);
+    }
+
+    @Override
+    public void activateObject(final Object key, final PooledObject<Integer> p)
+            throws Exception {
+        activateObject(p);
+    }
+
+    @Override
+    public void passivateObject(final Object key, final PooledObject<Integer> p)
+            throws Exception {
+        passivateObject(p);
+    }
+}